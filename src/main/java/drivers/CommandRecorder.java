@@ -0,0 +1,67 @@
+package drivers;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.support.events.WebDriverListener;
+import utils.ExecutionLog;
+import utils.FlightRecording;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 🔹 CommandRecorder
+ * WebDriver listener that times every driver, element and navigation call and publishes it
+ * to the {@link ExecutionLog} (eventlog.commands) and, while a recording runs, as a
+ * {@link FlightRecording.CommandEvent}. Only the method name and the locator/URL argument
+ * are captured on the calling thread; the log's writer thread formats them.
+ */
+public class CommandRecorder implements WebDriverListener {
+
+    // Calls can nest (a decorated element call inside a wait), so start times are a stack
+    private final ThreadLocal<Deque<Call>> started = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private static final class Call {
+        final long start = System.nanoTime();
+        final FlightRecording.CommandEvent event = new FlightRecording.CommandEvent();
+    }
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        Call call = new Call();
+        call.event.begin();
+        started.get().push(call);
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        record(method, args, true);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        record(method, args, false);
+    }
+
+    private void record(Method method, Object[] args, boolean ok) {
+        Call call = started.get().poll();
+        if (call == null) return;
+        ExecutionLog.command(method.getName(), argumentOf(args), ok, System.nanoTime() - call.start);
+        call.event.end();
+        if (call.event.shouldCommit()) {
+            call.event.command = method.getName();
+            Object argument = argumentOf(args);
+            call.event.target = argument != null ? argument.toString() : null;
+            call.event.ok = ok;
+            call.event.commit();
+        }
+    }
+
+    /** The locator, URL or script a command was about; other arguments are left out */
+    private static Object argumentOf(Object[] args) {
+        if (args == null || args.length == 0) return null;
+        Object first = args[0];
+        return first instanceof By || first instanceof String ? first : null;
+    }
+}
@@ -9,6 +9,9 @@ import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.edge.EdgeOptions;
 import io.github.bonigarcia.wdm.WebDriverManager;
 import config.ConfigReader;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import utils.ExecutionLog;
+import utils.FlightRecording;
 
 public class DriverFactory {
     private static ThreadLocal<WebDriver> driver = new ThreadLocal<>();
@@ -36,7 +39,9 @@ public class DriverFactory {
         boolean isHeadless = Boolean.parseBoolean(System.getProperty("headless", 
                             ConfigReader.get("headless", "false")));
         
-        WebDriver webDriver;
+        WebDriver webDriver = null;
+        FlightRecording.SessionEvent session = new FlightRecording.SessionEvent();
+        session.begin();
         System.out.println("🌐 Initializing " + browserName + " browser..." + 
                           (isHeadless ? " (Headless Mode)" : ""));
         
@@ -123,8 +128,15 @@ public class DriverFactory {
             System.err.println("⚠️ Failed to initialize WebDriver for: " + browserName);
             e.printStackTrace();
             throw new RuntimeException("Failed to initialize WebDriver for: " + browserName, e);
+        } finally {
+            commit(session, "create", webDriver != null);
         }
         
+        // ✅ Every WebDriver command is timed into the execution log and/or the flight recording
+        if ((ExecutionLog.isEnabled() && ConfigReader.getBoolean("eventlog.commands", true)) || FlightRecording.isRecording()) {
+            webDriver = new EventFiringDecorator<WebDriver>(new CommandRecorder()).decorate(webDriver);
+        }
+
         System.out.println("✅ Browser initialized successfully: " + browserName + 
                           (isHeadless ? " (Headless)" : ""));
         return webDriver;
@@ -132,16 +144,34 @@ public class DriverFactory {
     
     public static void quitDriver() {
         if (driver.get() != null) {
+            FlightRecording.SessionEvent session = new FlightRecording.SessionEvent();
+            session.begin();
+            boolean closed = false;
             try {
                 System.out.println("🔒 Quitting browser...");
                 driver.get().quit();
-                driver.remove();
+                closed = true;
                 System.out.println("✅ Browser closed successfully");
             } catch (Exception e) {
                 System.err.println("⚠️ Error closing browser: " + e.getMessage());
+            } finally {
+                // A failed quit must not hand the dead session to the next scenario on this thread
+                driver.remove();
+                commit(session, "quit", closed);
             }
         }
     }
+
+    /** Session create/quit as a flight recorder event */
+    private static void commit(FlightRecording.SessionEvent session, String action, boolean ok) {
+        session.end();
+        if (!session.shouldCommit()) return;
+        session.action = action;
+        session.browser = getBrowserName();
+        session.headless = Boolean.parseBoolean(System.getProperty("headless", ConfigReader.get("headless", "false")));
+        session.ok = ok;
+        session.commit();
+    }
     
     public static String getBrowserName() {
         return browserName != null ? browserName : "unknown";
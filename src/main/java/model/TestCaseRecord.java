@@ -0,0 +1,68 @@
+package model;
+
+import org.json.JSONObject;
+
+/**
+ * Typed view of a TestRail case as returned by get_case / get_cases.
+ * The raw JSON is kept so custom fields (custom_steps, custom_testrail_bdd_scenario, ...)
+ * stay available without modelling every project-specific field.
+ */
+public class TestCaseRecord {
+    private final int id;
+    private final String title;
+    private final int sectionId;
+    private final int suiteId;
+    private final int templateId;
+    private final int typeId;
+    private final int priorityId;
+    private final String refs;
+    private final long createdOn;
+    private final long updatedOn;
+    private final String rawJson;
+
+    public TestCaseRecord(int id, String title, int sectionId, int suiteId, int templateId, int typeId,
+                          int priorityId, String refs, long createdOn, long updatedOn, String rawJson) {
+        this.id = id;
+        this.title = title;
+        this.sectionId = sectionId;
+        this.suiteId = suiteId;
+        this.templateId = templateId;
+        this.typeId = typeId;
+        this.priorityId = priorityId;
+        this.refs = refs;
+        this.createdOn = createdOn;
+        this.updatedOn = updatedOn;
+        this.rawJson = rawJson;
+    }
+
+    public static TestCaseRecord fromJson(JSONObject json) {
+        return new TestCaseRecord(
+                json.optInt("id"),
+                json.optString("title", ""),
+                json.optInt("section_id"),
+                json.optInt("suite_id"),
+                json.optInt("template_id"),
+                json.optInt("type_id"),
+                json.optInt("priority_id"),
+                json.isNull("refs") ? null : json.optString("refs", null),
+                json.optLong("created_on"),
+                json.optLong("updated_on"),
+                json.toString());
+    }
+
+    // Getters
+    public int getId() { return id; }
+    public String getTitle() { return title; }
+    public int getSectionId() { return sectionId; }
+    public int getSuiteId() { return suiteId; }
+    public int getTemplateId() { return templateId; }
+    public int getTypeId() { return typeId; }
+    public int getPriorityId() { return priorityId; }
+    public String getRefs() { return refs; }
+    public long getCreatedOn() { return createdOn; }
+    public long getUpdatedOn() { return updatedOn; }
+    public String getRawJson() { return rawJson; }
+
+    /** Full case as a JSONObject (parsed on demand) */
+    public JSONObject toJson() { return new JSONObject(rawJson); }
+}
@@ -0,0 +1,29 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 🔹 AtomicFiles
+ * Write-to-temp-then-rename, so readers (Cucumber, the case cache) never see a half-written file
+ */
+public final class AtomicFiles {
+
+    private AtomicFiles() {}
+
+    public static void writeString(Path target, String content) throws IOException {
+        File dir = target.toAbsolutePath().getParent().toFile();
+        if (!dir.exists()) dir.mkdirs();
+        Path tmp = Files.createTempFile(dir.toPath(), "." + target.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(tmp, content, StandardCharsets.UTF_8);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package utils;
+
+import config.ConfigReader;
+import model.TestCaseRecord;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 🔹 CaseCache
+ * On-disk cache of TestRail cases keyed by case ID, so feature generation does not depend
+ * on TestRail latency or availability.
+ * - cases/C&lt;id&gt;.json holds the raw case (including updated_on)
+ * - index.json records the project/suite and the time of the last sync
+ * - sync() pulls only cases changed since the last sync (get_cases&amp;updated_after=...)
+ * - updated_after never reports deletions, so a full sync runs every testrail.cache.fullSyncHours
+ *   (and on a new scope); cached cases of the scope it did not see are evicted
+ * - a synced cache answers suite/section listings itself (cachedCases), so suite generation
+ *   does not list the whole suite from TestRail again
+ * - offline mode (testrail.cache.offline=true) never touches the network
+ */
+public class CaseCache {
+
+    public static final String DEFAULT_DIR = ".testrail-cache";
+    // Clock skew allowance between us and TestRail when choosing the next updated_after
+    private static final long SYNC_OVERLAP_SECONDS = 60;
+    public static final long DEFAULT_FULL_SYNC_HOURS = 24;
+
+    private final Client client;
+    private final Path casesDir;
+    private final Path indexFile;
+    private final boolean offline;
+    private final long fullSyncSeconds;
+
+    public CaseCache(Client client) {
+        this(client, ConfigReader.get("testrail.cache.dir", DEFAULT_DIR),
+                Boolean.parseBoolean(ConfigReader.get("testrail.cache.offline", "false")),
+                Long.parseLong(ConfigReader.get("testrail.cache.fullSyncHours", String.valueOf(DEFAULT_FULL_SYNC_HOURS))));
+    }
+
+    public CaseCache(Client client, String dir, boolean offline) {
+        this(client, dir, offline, DEFAULT_FULL_SYNC_HOURS);
+    }
+
+    /**
+     * @param fullSyncHours age of the last full sync after which the next sync is full again (0 = always)
+     */
+    public CaseCache(Client client, String dir, boolean offline, long fullSyncHours) {
+        this.client = client;
+        this.casesDir = Path.of(dir, "cases");
+        this.indexFile = Path.of(dir, "index.json");
+        this.offline = offline;
+        this.fullSyncSeconds = fullSyncHours * 3600;
+        casesDir.toFile().mkdirs();
+    }
+
+    // ==========================
+    // 🔹 Lookups
+    // ==========================
+
+    /**
+     * Case from local storage; on a miss (online only) fetched once and stored
+     */
+    public JSONObject getCase(int caseId) throws IOException {
+        JSONObject cached = readLocal(caseId);
+        if (cached != null) {
+            System.out.println("💾 Case C" + caseId + " served from local cache");
+            return cached;
+        }
+        if (offline) {
+            throw new IOException("Case C" + caseId + " is not in the offline cache (" + casesDir + ")");
+        }
+        JSONObject fetched = client.fetchTestCase(caseId);
+        store(caseId, fetched.toString());
+        return fetched;
+    }
+
+    /**
+     * Non-blocking {@link #getCase(int)}: a miss is fetched with fetchTestCaseAsync, so no
+     * caller thread waits on TestRail
+     */
+    public CompletableFuture<JSONObject> getCaseAsync(int caseId) {
+        try {
+            JSONObject cached = readLocal(caseId);
+            if (cached != null) {
+                System.out.println("💾 Case C" + caseId + " served from local cache");
+                return CompletableFuture.completedFuture(cached);
+            }
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (offline) {
+            return CompletableFuture.failedFuture(
+                    new IOException("Case C" + caseId + " is not in the offline cache (" + casesDir + ")"));
+        }
+        return client.fetchTestCaseAsync(caseId).thenApply(fetched -> {
+            try {
+                store(caseId, fetched.toString());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            return fetched;
+        });
+    }
+
+    public boolean contains(int caseId) {
+        return caseFile(caseId).toFile().exists();
+    }
+
+    /** updated_on of the cached copy, or 0 when not cached */
+    public long getUpdatedOn(int caseId) throws IOException {
+        JSONObject cached = readLocal(caseId);
+        return cached == null ? 0L : cached.optLong("updated_on");
+    }
+
+    /** True once a sync of this project/suite has completed, so cachedCases() lists the whole scope */
+    public boolean isSynced(int projectId, Integer suiteId) throws IOException {
+        JSONObject index = readIndex();
+        return index.optLong("lastSync", 0) > 0 && index.optInt("projectId") == projectId
+                && index.optInt("suiteId", -1) == (suiteId == null ? 0 : suiteId);
+    }
+
+    /**
+     * Every cached case of a suite and, optionally, one section (ordered by case ID).
+     * Only complete after isSynced(); cases fetched one by one may belong to other suites.
+     */
+    public List<JSONObject> cachedCases(Integer suiteId, Integer sectionId) throws IOException {
+        List<JSONObject> cases = new ArrayList<>();
+        for (Path file : caseFiles()) {
+            JSONObject testCase = new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+            if (!inSuite(testCase, suiteId)) continue;
+            if (sectionId != null && testCase.optInt("section_id") != sectionId) continue;
+            cases.add(testCase);
+        }
+        cases.sort(Comparator.comparingInt(testCase -> testCase.optInt("id")));
+        return cases;
+    }
+
+    // ==========================
+    // 🔹 Incremental sync
+    // ==========================
+
+    /**
+     * Pull every case of the project/suite changed since the previous sync. A full sync
+     * also evicts cached cases of the suite that TestRail no longer lists.
+     * @return number of cases written to the cache
+     */
+    public int sync(int projectId, Integer suiteId) throws IOException {
+        if (offline) {
+            System.out.println("💾 TestRail cache is offline, skipping sync");
+            return 0;
+        }
+
+        JSONObject index = readIndex();
+        boolean sameScope = index.optInt("projectId") == projectId
+                && index.optInt("suiteId", -1) == (suiteId == null ? 0 : suiteId);
+        long now = System.currentTimeMillis() / 1000;
+        long lastFullSync = sameScope ? index.optLong("lastFullSync", 0) : 0;
+        boolean full = lastFullSync == 0 || now - lastFullSync >= fullSyncSeconds;
+        long updatedAfter = full ? 0 : index.optLong("lastSync", 0);
+        long syncStarted = now - SYNC_OVERLAP_SECONDS;
+
+        System.out.println("🔄 Syncing TestRail case cache" + (full ? " (full)" : " (changes since " + updatedAfter + ")") + "...");
+        int written = 0;
+        Set<Integer> seen = new HashSet<>();
+        try (TestRailCaseIterator it = client.iterateCases(projectId, suiteId, full ? null : updatedAfter)) {
+            while (it.hasNext()) {
+                TestCaseRecord record = it.next();
+                store(record.getId(), record.getRawJson());
+                seen.add(record.getId());
+                written++;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        int evicted = full ? evictUnseen(suiteId, seen) : 0;
+
+        JSONObject newIndex = new JSONObject();
+        newIndex.put("projectId", projectId);
+        newIndex.put("suiteId", suiteId == null ? 0 : suiteId);
+        newIndex.put("lastSync", syncStarted);
+        newIndex.put("lastFullSync", full ? syncStarted : lastFullSync);
+        AtomicFiles.writeString(indexFile, newIndex.toString(2));
+
+        System.out.println("✅ Case cache synced: " + written + " case(s) updated"
+                + (evicted > 0 ? ", " + evicted + " deleted case(s) evicted" : ""));
+        return written;
+    }
+
+    /**
+     * Sync, but keep working from local storage if TestRail cannot be reached
+     */
+    public void syncQuietly(int projectId, Integer suiteId) {
+        try {
+            sync(projectId, suiteId);
+        } catch (Exception e) {
+            System.err.println("⚠️ Case cache sync failed, using cached cases: " + e.getMessage());
+        }
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    // ==========================
+    // 🔹 Storage helpers
+    // ==========================
+
+    /**
+     * Remove cached cases of the suite a full listing did not return: deleted (or moved) in TestRail.
+     * Cases of other suites, fetched one by one, are left alone.
+     */
+    private int evictUnseen(Integer suiteId, Set<Integer> seen) throws IOException {
+        int evicted = 0;
+        for (Path file : caseFiles()) {
+            JSONObject testCase = new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+            if (seen.contains(testCase.optInt("id")) || !inSuite(testCase, suiteId)) continue;
+            Files.deleteIfExists(file);
+            System.out.println("🗑️ Case C" + testCase.optInt("id") + " no longer in TestRail, evicted from cache");
+            evicted++;
+        }
+        return evicted;
+    }
+
+    private static boolean inSuite(JSONObject testCase, Integer suiteId) {
+        return suiteId == null || !testCase.has("suite_id") || testCase.optInt("suite_id") == suiteId;
+    }
+
+    private List<Path> caseFiles() throws IOException {
+        try (Stream<Path> listing = Files.list(casesDir)) {
+            return listing.filter(f -> f.getFileName().toString().endsWith(".json")).collect(Collectors.toList());
+        }
+    }
+
+    private JSONObject readLocal(int caseId) throws IOException {
+        Path file = caseFile(caseId);
+        if (!Files.exists(file)) return null;
+        return new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    private void store(int caseId, String rawJson) throws IOException {
+        AtomicFiles.writeString(caseFile(caseId), rawJson);
+    }
+
+    private JSONObject readIndex() throws IOException {
+        if (!Files.exists(indexFile)) return new JSONObject();
+        try {
+            return new JSONObject(Files.readString(indexFile, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            return new JSONObject();
+        }
+    }
+
+    private Path caseFile(int caseId) {
+        return casesDir.resolve("C" + caseId + ".json");
+    }
+}
@@ -1,5 +1,7 @@
 package utils;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import okhttp3.*;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -7,9 +9,17 @@ import config.ConfigReader;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 🔹 TestRail API Client (Extended)
@@ -24,27 +34,43 @@ public class Client {
     private final int projectId;
     private final int suiteId;
     private final int caseId;
-    private final OkHttpClient httpClient;
-    private int runId = 0;
-    private int testId = 0;
-    private int lastResultId = 0;
+    private final String authHeader;
+    private final RequestScheduler scheduler;
+    private volatile int runId = 0;
+    private volatile int testId = 0;
+    private volatile int lastResultId = 0;
+    // caseId → testId of one run; replaced as a whole, never cleared or filled in place
+    private volatile TestIndex testIndex = new TestIndex(0, Collections.emptyMap());
 
     public Client() {
-        String baseUrl = ConfigReader.get("testrail.url");
+        this(ConfigReader.get("testrail.url"),
+                ConfigReader.get("testrail.username"),
+                ConfigReader.get("testrail.apikey"),
+                Integer.parseInt(ConfigReader.get("testrail.projectId", "0")),
+                Integer.parseInt(ConfigReader.get("testrail.suiteId", "0")),
+                parseCaseId(ConfigReader.get("testrail.caseId", "0")));
+    }
+
+    /**
+     * Explicit constructor, e.g. for pointing the client at a local TestRail stand-in
+     */
+    public Client(String baseUrl, String username, String apiKey, int projectId, int suiteId, int caseId) {
         this.apiBaseUrl = baseUrl.endsWith("/") ? baseUrl + "index.php?/api/v2" : baseUrl + "/index.php?/api/v2";
-        this.username = ConfigReader.get("testrail.username");
-        this.apiKey = ConfigReader.get("testrail.apikey");
-        this.projectId = Integer.parseInt(ConfigReader.get("testrail.projectId", "0"));
-        this.suiteId = Integer.parseInt(ConfigReader.get("testrail.suiteId", "0"));
+        this.username = username;
+        this.apiKey = apiKey;
+        this.projectId = projectId;
+        this.suiteId = suiteId;
+        this.caseId = caseId;
+        this.authHeader = "Basic " + Base64.getEncoder().encodeToString((username + ":" + apiKey).getBytes());
+
+        this.scheduler = RequestScheduler.shared();
+    }
 
-        String caseIdStr = ConfigReader.get("testrail.caseId", "0");
+    private static int parseCaseId(String caseIdStr) {
         if (caseIdStr != null && caseIdStr.startsWith("C")) {
             caseIdStr = caseIdStr.substring(1);
         }
-        this.caseId = Integer.parseInt(caseIdStr);
-
-        this.httpClient = new OkHttpClient();
-
+        return Integer.parseInt(caseIdStr);
     }
 
     // ==========================
@@ -60,16 +86,39 @@ public class Client {
                 .get()
                 .build();
 
-        try (Response response = httpClient.newCall(request).execute()) {
+        try (Response response = scheduler.execute(request)) {
             if (response.isSuccessful() && response.body() != null) {
                 return response.body().string();
             } else {
                 String errorBody = response.body() != null ? response.body().string() : "No error details";
-                throw new IOException("GET request failed: " + response.code() + " - " + errorBody);
+                throw new TestRailApiException("GET request failed: " + response.code() + " - " + errorBody, response.code());
             }
         }
     }
 
+    // ==========================
+    // 🔹 Generic POST helper
+    // ==========================
+    private String post(String path, JSONObject payload) throws IOException {
+        String url = path.startsWith("http") ? path : apiBaseUrl + "/" + path;
+
+        RequestBody body = RequestBody.create(payload.toString(), MediaType.parse("application/json"));
+        Request request = new Request.Builder()
+                .url(url)
+                .addHeader("Authorization", getBasicAuthHeader())
+                .addHeader("Content-Type", "application/json")
+                .post(body)
+                .build();
+
+        try (Response response = scheduler.execute(request)) {
+            String respBody = response.body() != null ? response.body().string() : "";
+            if (response.isSuccessful()) {
+                return respBody;
+            }
+            throw new TestRailApiException("POST request failed: " + response.code() + " - " + respBody, response.code());
+        }
+    }
+
     // ==========================
     // 🔹 Fetch a single case
     // ==========================
@@ -82,35 +131,18 @@ public class Client {
     }
 
     // ==========================
-    // 🔹 Fetch all cases
+    // 🔹 Fetch all cases (every page)
     // ==========================
     public List<JSONObject> fetchCases(int projectId, Integer suiteId) throws IOException {
         System.out.println("🔍 Fetching test cases from TestRail...");
 
-        String path = suiteId == null
-                ? "get_cases/" + projectId
-                : "get_cases/" + projectId + "?suite_id=" + suiteId;
-
-        String json = get(path);
         List<JSONObject> cases = new ArrayList<>();
-
-        try {
-            JSONObject responseObj = new JSONObject(json);
-            if (responseObj.has("cases")) {
-                JSONArray casesArray = responseObj.getJSONArray("cases");
-                for (int i = 0; i < casesArray.length(); i++) {
-                    cases.add(casesArray.getJSONObject(i));
-                }
-            }
-        } catch (Exception e) {
-            try {
-                JSONArray casesArray = new JSONArray(json);
-                for (int i = 0; i < casesArray.length(); i++) {
-                    cases.add(casesArray.getJSONObject(i));
-                }
-            } catch (Exception ex) {
-                throw new IOException("Failed to parse test cases response: " + ex.getMessage());
+        try (TestRailCaseIterator it = iterateCases(projectId, suiteId)) {
+            while (it.hasNext()) {
+                cases.add(it.next().toJson());
             }
+        } catch (java.io.UncheckedIOException e) {
+            throw e.getCause();
         }
 
         System.out.println("✅ Fetched " + cases.size() + " test cases");
@@ -118,75 +150,169 @@ public class Client {
     }
 
     // ==========================
-    // 🔹 Create test run
+    // 🔹 Lazily iterate all cases, page by page, in constant memory
     // ==========================
-    public int createTestRun(String runName) throws IOException {
-        System.out.println("\n🏃 Creating test run in TestRail...");
+    public TestRailCaseIterator iterateCases(int projectId, Integer suiteId) {
+        return iterateCases(projectId, suiteId, null);
+    }
 
-        String url = apiBaseUrl + "/add_run/" + projectId;
+    /**
+     * Only cases changed after the given epoch second (null = all)
+     */
+    public TestRailCaseIterator iterateCases(int projectId, Integer suiteId, Long updatedAfter) {
+        return iterateCases(projectId, suiteId, null, updatedAfter);
+    }
 
-        JSONObject payload = new JSONObject();
-        payload.put("suite_id", suiteId);
-        payload.put("name", runName);
-        payload.put("description", "Automated test run - " + java.time.LocalDateTime.now());
-        payload.put("include_all", false);
+    /**
+     * Only the cases of one section (null = whole suite)
+     */
+    public TestRailCaseIterator iterateCases(int projectId, Integer suiteId, Integer sectionId, Long updatedAfter) {
+        String path = suiteId == null
+                ? "get_cases/" + projectId
+                : "get_cases/" + projectId + "&suite_id=" + suiteId;
+        if (sectionId != null) path += "&section_id=" + sectionId;
+        if (updatedAfter != null) path += "&updated_after=" + updatedAfter;
+        return new TestRailCaseIterator(this::openGet, path);
+    }
 
-        JSONArray caseIds = new JSONArray();
-        caseIds.put(caseId);
-        payload.put("case_ids", caseIds);
+    // ==========================
+    // 🔹 Streaming GET: caller reads and closes the response
+    // ==========================
+    Response openGet(String path) throws IOException {
+        String url = path.startsWith("http") ? path : apiBaseUrl + "/" + path;
 
-        RequestBody body = RequestBody.create(payload.toString(), MediaType.parse("application/json"));
         Request request = new Request.Builder()
                 .url(url)
                 .addHeader("Authorization", getBasicAuthHeader())
-                .addHeader("Content-Type", "application/json")
-                .post(body)
+                .get()
                 .build();
 
+        Response response = scheduler.execute(request);
+        if (response.isSuccessful() && response.body() != null) {
+            return response;
+        }
+        try (response) {
+            String errorBody = response.body() != null ? response.body().string() : "No error details";
+            throw new TestRailApiException("GET request failed: " + response.code() + " - " + errorBody, response.code());
+        }
+    }
+
+    // ==========================
+    // 🔹 Create test run (configured case only)
+    // ==========================
+    public int createTestRun(String runName) throws IOException {
+        return createTestRun(runName, Collections.singletonList(caseId));
+    }
+
+    // ==========================
+    // 🔹 Create test run for every selected case + index caseId → testId
+    // ==========================
+    public int createTestRun(String runName, Collection<Integer> caseIds) throws IOException {
+        System.out.println("\n🏃 Creating test run in TestRail for " + caseIds.size() + " case(s)...");
+
+        String url = apiBaseUrl + "/add_run/" + projectId;
         System.out.println("🔗 POST: " + url);
 
-        try (Response response = httpClient.newCall(request).execute()) {
-            System.out.println("📊 Response Status: " + response.code());
+        try {
+            JSONObject runResponse = new JSONObject(post("add_run/" + projectId, runPayload(runName, caseIds)));
+            this.runId = runResponse.getInt("id");
+        } catch (TestRailApiException e) {
+            throw new IOException("❌ Failed to create test run: " + e.getMessage(), e);
+        }
 
-            if (response.isSuccessful() && response.body() != null) {
-                JSONObject runResponse = new JSONObject(response.body().string());
-                this.runId = runResponse.getInt("id");
-
-                // Try to fetch the test id(s)
-                String testsUrl = apiBaseUrl + "/get_tests/" + runId;
-                Request testsRequest = new Request.Builder()
-                        .url(testsUrl)
-                        .addHeader("Authorization", getBasicAuthHeader())
-                        .get()
-                        .build();
-
-                try (Response testsResponse = httpClient.newCall(testsRequest).execute()) {
-                    if (testsResponse.isSuccessful() && testsResponse.body() != null) {
-                        String testsBody = testsResponse.body().string();
-                        JSONArray testsArray;
-                        try {
-                            JSONObject jsonResponse = new JSONObject(testsBody);
-                            testsArray = jsonResponse.has("tests")
-                                    ? jsonResponse.getJSONArray("tests")
-                                    : new JSONArray(testsBody);
-                        } catch (Exception e) {
-                            testsArray = new JSONArray(testsBody);
-                        }
-
-                        if (testsArray.length() > 0) {
-                            this.testId = testsArray.getJSONObject(0).getInt("id");
-                        }
-                    }
-                }
+        indexTests(runId);
+        System.out.println("✅ Test run created: R" + runId);
+        System.out.println("   Tests indexed: " + testIndex.testIds.size() + " (Test ID for C" + caseId + ": " + testId + ")");
+        return runId;
+    }
 
-                System.out.println("✅ Test run created: R" + runId);
-                System.out.println("   Test ID: " + testId);
-                return runId;
-            } else {
-                String errorBody = response.body() != null ? response.body().string() : "No error details";
-                throw new IOException("❌ Failed to create test run: " + response.code() + " - " + errorBody);
+    // ==========================
+    // 🔹 Join an existing run (shards of one run share it) + index caseId → testId
+    // ==========================
+    public int joinTestRun(int existingRunId) throws IOException {
+        this.runId = existingRunId;
+        indexTests(runId);
+        System.out.println("✅ Joined test run R" + runId + " (" + testIndex.testIds.size() + " tests indexed)");
+        return runId;
+    }
+
+    private JSONObject runPayload(String runName, Collection<Integer> caseIds) {
+        JSONObject payload = new JSONObject();
+        payload.put("suite_id", suiteId);
+        payload.put("name", runName);
+        payload.put("description", "Automated test run - " + java.time.LocalDateTime.now());
+        payload.put("include_all", false);
+        payload.put("case_ids", new JSONArray(caseIds));
+        return payload;
+    }
+
+    /**
+     * Page through get_tests once and build the caseId → testId index for the run. The new
+     * index replaces the old one only when every page was read, so readers never see a
+     * half-built or emptied index.
+     */
+    private void indexTests(int targetRunId) throws IOException {
+        Map<Integer, Integer> testIds = new LinkedHashMap<>();
+        try (TestRailPageIterator<int[]> tests = new TestRailPageIterator<>(this::openGet, "get_tests/" + targetRunId,
+                "tests", Client::readTest)) {
+            while (tests.hasNext()) {
+                int[] test = tests.next();
+                testIds.put(test[1], test[0]);
             }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+        testIndex = new TestIndex(targetRunId, Collections.unmodifiableMap(testIds));
+        Integer configured = testIds.get(caseId);
+        if (configured != null) this.testId = configured;
+        else if (!testIds.isEmpty()) this.testId = testIds.values().iterator().next();
+    }
+
+    /**
+     * Every result of a run (get_results_for_run, all pages) as {id, comment}, one at a time
+     */
+    public TestRailPageIterator<JSONObject> iterateResults(int targetRunId) {
+        return new TestRailPageIterator<>(this::openGet, "get_results_for_run/" + targetRunId, "results", Client::readResult);
+    }
+
+    /** {id, comment} of one result; null without an id */
+    private static JSONObject readResult(JsonReader reader) throws IOException {
+        JSONObject result = new JSONObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if ("id".equals(field) && reader.peek() == JsonToken.NUMBER) result.put("id", reader.nextInt());
+            else if ("comment".equals(field) && reader.peek() == JsonToken.STRING) result.put("comment", reader.nextString());
+            else reader.skipValue();
+        }
+        reader.endObject();
+        return result.has("id") ? result : null;
+    }
+
+    /** {test id, case id} of one get_tests item, null when either is missing */
+    private static int[] readTest(JsonReader reader) throws IOException {
+        int id = 0;
+        int forCase = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if ("id".equals(field) && reader.peek() == JsonToken.NUMBER) id = reader.nextInt();
+            else if ("case_id".equals(field) && reader.peek() == JsonToken.NUMBER) forCase = reader.nextInt();
+            else reader.skipValue();
+        }
+        reader.endObject();
+        return id > 0 && forCase > 0 ? new int[]{id, forCase} : null;
+    }
+
+    /** Test id of a case in the current run, or 0 when the case is not part of it */
+    public int getTestIdForCase(int caseIdInRun) {
+        return getTestIndex().getOrDefault(caseIdInRun, 0);
+    }
+
+    /** Read-only caseId → testId index of the current run (empty until that run is indexed) */
+    public Map<Integer, Integer> getTestIndex() {
+        TestIndex index = testIndex;
+        return index.runId == runId ? index.testIds : Collections.emptyMap();
     }
 
     // ==========================
@@ -218,7 +344,7 @@ public class Client {
         System.out.println("🔗 POST: " + url);
         System.out.println("📦 Status: " + (passed ? "PASSED" : "FAILED"));
 
-        try (Response response = httpClient.newCall(request).execute()) {
+        try (Response response = scheduler.execute(request)) {
             System.out.println("📊 Response Status: " + response.code());
             if (response.isSuccessful() && response.body() != null) {
                 String resBody = response.body().string();
@@ -246,7 +372,11 @@ public class Client {
             createTestRun("Automated Run - " + java.time.LocalDateTime.now());
         }
 
-        String url = apiBaseUrl + "/add_result_for_case/" + runId + "/" + caseIdForResult;
+        // Direct add_result/{testId} when the case is indexed in this run
+        int indexedTestId = getTestIdForCase(caseIdForResult);
+        String url = indexedTestId > 0
+                ? apiBaseUrl + "/add_result/" + indexedTestId
+                : apiBaseUrl + "/add_result_for_case/" + runId + "/" + caseIdForResult;
         int statusId = passed ? 1 : 5;
 
         JSONObject payload = new JSONObject();
@@ -262,7 +392,7 @@ public class Client {
                 .build();
 
         System.out.println("🔗 POST: " + url);
-        try (Response response = httpClient.newCall(request).execute()) {
+        try (Response response = scheduler.execute(request)) {
             String respBody = response.body() != null ? response.body().string() : "";
             System.out.println("📊 Response Status: " + response.code());
             if (response.isSuccessful()) {
@@ -308,7 +438,7 @@ public class Client {
                 .post(body)
                 .build();
 
-        try (Response response = httpClient.newCall(request).execute()) {
+        try (Response response = scheduler.execute(request)) {
             if (response.isSuccessful()) {
                 System.out.println("✅ Defect information added to test result");
                 return true;
@@ -319,6 +449,29 @@ public class Client {
         }
     }
 
+    // ==========================
+    // 🔹 Create defect against a specific case of the run
+    // ==========================
+    public boolean createDefect(int caseIdForDefect, String title, String description) throws IOException {
+        int indexedTestId = getTestIdForCase(caseIdForDefect);
+        if (indexedTestId == 0) {
+            System.err.println("⚠️  Cannot create defect: C" + caseIdForDefect + " is not part of run R" + runId);
+            return false;
+        }
+        JSONObject payload = new JSONObject();
+        payload.put("status_id", 5);
+        payload.put("comment", "🐛 DEFECT: " + title + "\n\n" + description);
+        payload.put("defects", title);
+        try {
+            post("add_result/" + indexedTestId, payload);
+            System.out.println("✅ Defect information added to test result");
+            return true;
+        } catch (TestRailApiException e) {
+            System.out.println("⚠️ Could not add defect: " + e.getStatusCode());
+            return false;
+        }
+    }
+
     // ==========================
     // 🔹 Upload Extent report / Screenshot / ZIP to a result
     // ==========================
@@ -335,13 +488,21 @@ public class Client {
             return false;
         }
 
-        String mimeType = "application/octet-stream";
-        String name = reportFile.getName().toLowerCase();
-        if (name.endsWith(".zip")) mimeType = "application/zip";
-        else if (name.endsWith(".html") || name.endsWith(".htm")) mimeType = "text/html";
-        else if (name.endsWith(".png")) mimeType = "image/png";
-        else if (name.endsWith(".txt")) mimeType = "text/plain";
-        else if (name.endsWith(".json")) mimeType = "application/json";
+        // ✅ HTML reports are bundled with their screenshots into streamed, size-capped ZIPs;
+        // unbundled, the uploaded copy embeds them, since the report links them by path
+        if (isHtml(reportFile)) {
+            if (bundleReports()) {
+                try {
+                    return ReportBundler.forReport(reportFile).uploadTo(this, resultId);
+                } catch (TestRailApiException | ReportBundler.EntryTooLargeException e) {
+                    System.err.println("⚠️ Upload failed: " + e.getMessage());
+                    return false;
+                }
+            }
+            reportFile = inlineScreenshots(reportFile);
+        }
+
+        String mimeType = mimeTypeOf(reportFile);
 
         String url = apiBaseUrl + "/add_attachment_to_result/" + resultId;
 
@@ -360,7 +521,7 @@ public class Client {
         System.out.println("🔗 POST: " + url);
         System.out.println("📦 Uploading file: " + reportFile.getName() + " (" + mimeType + ")");
 
-        try (Response response = httpClient.newCall(request).execute()) {
+        try (Response response = scheduler.execute(request)) {
             String resp = response.body() != null ? response.body().string() : "";
             if (response.isSuccessful()) {
                 this.lastResultId = resultId;
@@ -373,6 +534,250 @@ public class Client {
         }
     }
 
+    /** Re-openable source for streamed uploads; opened again if the request has to be retried */
+    public interface StreamSource {
+        InputStream open() throws IOException;
+    }
+
+    // ==========================
+    // 🔹 Streamed upload (unknown length, chunked) to a result
+    // ==========================
+    /**
+     * @return false for an invalid result id
+     * @throws TestRailApiException when TestRail refuses the upload (its status tells transient from permanent)
+     */
+    public boolean uploadStreamToResult(int resultId, String fileName, String mimeType, StreamSource source) throws IOException {
+        if (resultId == 0) {
+            System.err.println("❌ Invalid resultId provided.");
+            return false;
+        }
+
+        RequestBody streamBody = new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return MediaType.parse(mimeType);
+            }
+
+            @Override
+            public long contentLength() {
+                return -1; // unknown up front: sent chunked
+            }
+
+            @Override
+            public void writeTo(okio.BufferedSink sink) throws IOException {
+                try (okio.Source in = okio.Okio.source(source.open())) {
+                    sink.writeAll(in);
+                }
+            }
+        };
+
+        String url = apiBaseUrl + "/add_attachment_to_result/" + resultId;
+        Request request = new Request.Builder()
+                .url(url)
+                .addHeader("Authorization", getBasicAuthHeader())
+                .post(new MultipartBody.Builder()
+                        .setType(MultipartBody.FORM)
+                        .addFormDataPart("attachment", fileName, streamBody)
+                        .build())
+                .build();
+
+        System.out.println("🔗 POST: " + url);
+        try (Response response = scheduler.execute(request)) {
+            String resp = response.body() != null ? response.body().string() : "";
+            if (response.isSuccessful()) {
+                this.lastResultId = resultId;
+                System.out.println("✅ " + fileName + " uploaded to Result ID: " + resultId);
+                return true;
+            }
+            throw new TestRailApiException("Upload of " + fileName + " failed: " + response.code() + " - " + resp, response.code());
+        }
+    }
+
+    // ==========================
+    // 🔹 Add result to an explicit run (used by journal replay)
+    // ==========================
+    public int addResultForCase(int targetRunId, int caseIdForResult, int statusId, String comment, String defects) throws IOException {
+        JSONObject payload = new JSONObject();
+        payload.put("status_id", statusId);
+        payload.put("comment", comment);
+        if (defects != null && !defects.isEmpty()) payload.put("defects", defects);
+
+        JSONObject json = new JSONObject(post(resultPath(targetRunId, caseIdForResult), payload));
+        int resultId = json.getInt("id");
+        this.lastResultId = resultId;
+        return resultId;
+    }
+
+    /** add_result by test id when the case is indexed in the current run, add_result_for_case otherwise */
+    private String resultPath(int targetRunId, int caseIdForResult) {
+        TestIndex index = testIndex;
+        int indexedTestId = index.runId == targetRunId ? index.testIds.getOrDefault(caseIdForResult, 0) : 0;
+        return indexedTestId > 0
+                ? "add_result/" + indexedTestId
+                : "add_result_for_case/" + targetRunId + "/" + caseIdForResult;
+    }
+
+    // ==========================
+    // 🔹 Existing results for a case in a run
+    // ==========================
+    public JSONArray getResultsForCase(int targetRunId, int caseIdForResult) throws IOException {
+        String json = get("get_results_for_case/" + targetRunId + "/" + caseIdForResult);
+        try {
+            JSONObject obj = new JSONObject(json);
+            return obj.has("results") ? obj.getJSONArray("results") : new JSONArray();
+        } catch (Exception e) {
+            return new JSONArray(json);
+        }
+    }
+
+    // ==========================
+    // 🔹 Async API (OkHttp enqueue, same scheduler limits)
+    // ==========================
+
+    /** Non-blocking {@link #fetchTestCase(int)} */
+    public CompletableFuture<JSONObject> fetchTestCaseAsync(int caseId) {
+        return getAsync("get_case/" + caseId).thenApply(JSONObject::new);
+    }
+
+    /** Non-blocking {@link #createTestRun(String)} */
+    public CompletableFuture<Integer> createTestRunAsync(String runName) {
+        return createTestRunAsync(runName, Collections.singletonList(caseId));
+    }
+
+    /** Non-blocking {@link #createTestRun(String, Collection)}: add_run, then the get_tests index */
+    public CompletableFuture<Integer> createTestRunAsync(String runName, Collection<Integer> caseIds) {
+        return postAsync("add_run/" + projectId, runPayload(runName, caseIds))
+                .thenApplyAsync(body -> {
+                    this.runId = new JSONObject(body).getInt("id");
+                    try {
+                        indexTests(runId);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                    System.out.println("✅ Test run created: R" + runId + " (" + testIndex.testIds.size() + " tests indexed)");
+                    return runId;
+                });
+    }
+
+    /** Non-blocking {@link #joinTestRun(int)} */
+    public CompletableFuture<Integer> joinTestRunAsync(int existingRunId) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return joinTestRun(existingRunId);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /** Non-blocking {@link #addResultForCase(int, int, int, String, String)} */
+    public CompletableFuture<Integer> addResultForCaseAsync(int targetRunId, int caseIdForResult, int statusId, String comment, String defects) {
+        JSONObject payload = new JSONObject();
+        payload.put("status_id", statusId);
+        payload.put("comment", comment);
+        if (defects != null && !defects.isEmpty()) payload.put("defects", defects);
+
+        return postAsync(resultPath(targetRunId, caseIdForResult), payload)
+                .thenApply(body -> {
+                    int resultId = new JSONObject(body).getInt("id");
+                    this.lastResultId = resultId;
+                    return resultId;
+                });
+    }
+
+    /**
+     * Bulk add_results_for_cases in one request.
+     * @param results array of {case_id, status_id, comment, ...}
+     * @return created results, in request order
+     */
+    public CompletableFuture<JSONArray> addResultsAsync(int targetRunId, JSONArray results) {
+        JSONObject payload = new JSONObject();
+        payload.put("results", results);
+        return postAsync("add_results_for_cases/" + targetRunId, payload)
+                .thenApply(body -> body.trim().startsWith("[") ? new JSONArray(body) : new JSONObject(body).optJSONArray("results"));
+    }
+
+    /**
+     * Non-blocking attachment upload; completes with false when there is nothing to upload and
+     * with a {@link TestRailApiException} when TestRail refused it. HTML reports are bundled with
+     * their screenshots off the caller's thread (or uploaded with the screenshots embedded).
+     */
+    public CompletableFuture<Boolean> uploadExtentReportToResultAsync(int resultId, File reportFile) {
+        return uploadExtentReportToResultAsync(resultId, reportFile, ReportBundler.Progress.NONE);
+    }
+
+    /** {@link #uploadExtentReportToResultAsync(int, File)} that skips bundle parts progress saw delivered */
+    public CompletableFuture<Boolean> uploadExtentReportToResultAsync(int resultId, File reportFile, ReportBundler.Progress progress) {
+        if (resultId == 0 || reportFile == null || !reportFile.exists()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        File upload = reportFile;
+        if (isHtml(reportFile)) {
+            if (bundleReports()) {
+                // The bundle is piped from a writer thread into a blocking upload, so it runs off the caller
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return ReportBundler.forReport(reportFile).uploadTo(this, resultId, progress);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+            }
+            try {
+                upload = inlineScreenshots(reportFile);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        Request request = new Request.Builder()
+                .url(apiBaseUrl + "/add_attachment_to_result/" + resultId)
+                .addHeader("Authorization", getBasicAuthHeader())
+                .post(new MultipartBody.Builder()
+                        .setType(MultipartBody.FORM)
+                        .addFormDataPart("attachment", upload.getName(),
+                                RequestBody.create(upload, MediaType.parse(mimeTypeOf(upload))))
+                        .build())
+                .build();
+
+        return scheduler.executeAsync(request).thenApply(response -> {
+            readOrThrow(response, "Upload");
+            this.lastResultId = resultId;
+            return true;
+        });
+    }
+
+    private CompletableFuture<String> getAsync(String path) {
+        Request request = new Request.Builder()
+                .url(apiBaseUrl + "/" + path)
+                .addHeader("Authorization", getBasicAuthHeader())
+                .get()
+                .build();
+        return scheduler.executeAsync(request).thenApply(response -> readOrThrow(response, "GET"));
+    }
+
+    private CompletableFuture<String> postAsync(String path, JSONObject payload) {
+        Request request = new Request.Builder()
+                .url(apiBaseUrl + "/" + path)
+                .addHeader("Authorization", getBasicAuthHeader())
+                .addHeader("Content-Type", "application/json")
+                .post(RequestBody.create(payload.toString(), MediaType.parse("application/json")))
+                .build();
+        return scheduler.executeAsync(request).thenApply(response -> readOrThrow(response, "POST"));
+    }
+
+    private static String readOrThrow(Response response, String method) {
+        try (response) {
+            String body = response.body() != null ? response.body().string() : "";
+            if (!response.isSuccessful()) {
+                throw new CompletionException(new TestRailApiException(
+                        method + " request failed: " + response.code() + " - " + body, response.code()));
+            }
+            return body;
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
     // ==========================
     // 🔹 Close test run
     // ==========================
@@ -393,7 +798,7 @@ public class Client {
                 .post(body)
                 .build();
 
-        try (Response response = httpClient.newCall(request).execute()) {
+        try (Response response = scheduler.execute(request)) {
             if (response.isSuccessful()) {
                 return true;
             } else {
@@ -403,12 +808,37 @@ public class Client {
         }
     }
 
+    /** report.bundle.enabled: HTML reports go out as ZIP bundles with their screenshots */
+    private static boolean bundleReports() {
+        return Boolean.parseBoolean(ConfigReader.get("report.bundle.enabled", "true"));
+    }
+
+    /** Copy of an HTML report with its screenshots embedded, since the report links them by path */
+    private static File inlineScreenshots(File report) throws IOException {
+        String prefix = ExtentReportManager.screenshotRelativePath();
+        return ReportBundler.inlineScreenshots(report, new File(report.getAbsoluteFile().getParentFile(), prefix), prefix);
+    }
+
+    private static boolean isHtml(File reportFile) {
+        String lowerName = reportFile.getName().toLowerCase();
+        return lowerName.endsWith(".html") || lowerName.endsWith(".htm");
+    }
+
+    private static String mimeTypeOf(File file) {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".zip")) return "application/zip";
+        if (name.endsWith(".html") || name.endsWith(".htm")) return "text/html";
+        if (name.endsWith(".png")) return "image/png";
+        if (name.endsWith(".txt")) return "text/plain";
+        if (name.endsWith(".json")) return "application/json";
+        return "application/octet-stream";
+    }
+
     // ==========================
     // 🔹 Auth helper
     // ==========================
     private String getBasicAuthHeader() {
-        String credentials = username + ":" + apiKey;
-        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes());
+        return authHeader;
     }
 
     // ==========================
@@ -417,5 +847,19 @@ public class Client {
     public int getRunId() { return runId; }
     public int getTestId() { return testId; }
     public int getCaseId() { return caseId; }
+    public int getProjectId() { return projectId; }
+    public int getSuiteId() { return suiteId; }
     public int getLastResultId() { return lastResultId; }
+    public void setRunId(int runId) { this.runId = runId; }
+
+    /** The caseId → testId index of one run */
+    private static final class TestIndex {
+        final int runId;
+        final Map<Integer, Integer> testIds;
+
+        TestIndex(int runId, Map<Integer, Integer> testIds) {
+            this.runId = runId;
+            this.testIds = testIds;
+        }
+    }
 }
@@ -0,0 +1,419 @@
+package utils;
+
+import config.ConfigReader;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 🔹 ExecutionLog
+ * Append-only JSONL log of what the run did: run, scenario, step, WebDriver command,
+ * screenshot and failure events (eventlog.path, default test-output/execution-log.jsonl).
+ * - Scenario threads only publish an event object into a lock-free ring buffer
+ *   (eventlog.capacity slots); formatting and I/O happen on one background writer thread,
+ *   which sleeps (parked) while the ring is empty and is woken by the next publisher.
+ *   A full ring makes the publisher wait, so no event is ever dropped
+ * - {@link Sink}s registered with {@link #addSink} see every event on the writer thread,
+ *   so metrics can be derived asynchronously; the step and scenario {@link TimingHistograms}
+ *   are the one derived output today. The Extent report, console output and TestRail results
+ *   are still produced by the hooks directly. eventlog.enabled=false only turns the file off
+ * - {@link #read} streams a log back for offline derivation; main() prints a run summary
+ * Line format (short keys keep the file compact): e=type, t=epoch millis, th=thread,
+ * sc=scenario, n=name, p=step definition, st=status, ns=duration in nanoseconds, d=detail.
+ */
+public final class ExecutionLog {
+
+    public static final String DEFAULT_PATH = "test-output/execution-log.jsonl";
+
+    public enum Type {
+        RUN_STARTED("run_start"), RUN_FINISHED("run_end"),
+        SCENARIO_STARTED("sc_start"), SCENARIO_FINISHED("sc_end"),
+        STEP("step"), COMMAND("cmd"), SCREENSHOT("shot"), FAILURE("fail");
+
+        private final String code;
+
+        Type(String code) {
+            this.code = code;
+        }
+
+        static Type of(String code) {
+            for (Type type : values()) {
+                if (type.code.equals(code)) return type;
+            }
+            throw new IllegalArgumentException("Unknown event type: " + code);
+        }
+    }
+
+    /** Derives something from the events, called on the writer thread (must not block for long) */
+    public interface Sink {
+        void accept(Event event);
+
+        /** End of the log: the run finished or the JVM is going down */
+        default void close() {}
+    }
+
+    private static final ExecutionLog SHARED = new ExecutionLog(
+            ConfigReader.getBoolean("eventlog.enabled", true),
+            Path.of(ConfigReader.get("eventlog.path", DEFAULT_PATH)),
+            ConfigReader.getInt("eventlog.capacity", 16384));
+    private static final ThreadLocal<String> scenario = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final Path file;
+    private final AtomicReferenceArray<Event> ring;
+    private final int mask;
+    // Next sequence to claim (producers) and next sequence to consume (writer thread)
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private final List<Sink> sinks = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+    private volatile Thread writer;
+    // Set by the writer right before it parks on an empty ring; publishers then unpark it
+    private volatile boolean sleeping;
+
+    ExecutionLog(boolean enabled, Path file, int capacity) {
+        this.enabled = enabled;
+        this.file = file;
+        int size = Integer.highestOneBit(Math.max(64, capacity - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public static ExecutionLog shared() {
+        if (SHARED.writer == null) SHARED.start();
+        return SHARED;
+    }
+
+    public static boolean isEnabled() {
+        return SHARED.enabled;
+    }
+
+    /** Register before the run starts: a sink only sees the events published after this */
+    public static void addSink(Sink sink) {
+        SHARED.register(sink);
+    }
+
+    void register(Sink sink) {
+        sinks.add(sink);
+        start();
+    }
+
+    // ==========================
+    // 🔹 Recording (scenario threads)
+    // ==========================
+
+    public static void runStarted(String name) {
+        shared().publish(Type.RUN_STARTED, name, null, 0, null);
+    }
+
+    /** End of the run: everything published so far is written and the sinks are closed */
+    public static void runFinished(String status) {
+        ExecutionLog log = shared();
+        log.publish(Type.RUN_FINISHED, null, status, 0, null);
+        log.close();
+    }
+
+    public static void scenarioStarted(String name, String location) {
+        scenario.set(name);
+        shared().publish(Type.SCENARIO_STARTED, location, null, 0, null);
+    }
+
+    public static void scenarioFinished(String name, String status, long durationNanos) {
+        if (scenario.get() == null) scenario.set(name);
+        shared().publish(Type.SCENARIO_FINISHED, name, status, durationNanos, null);
+        scenario.remove();
+    }
+
+    public static void step(String text, String status, long durationNanos, String error) {
+        step(text, null, status, durationNanos, error);
+    }
+
+    /** A step with the step definition (pattern) it ran, so sinks can group by definition */
+    public static void step(String text, String definition, String status, long durationNanos, String error) {
+        shared().publish(Type.STEP, text, definition, status, durationNanos, error);
+    }
+
+    /**
+     * A WebDriver command. target is stringified on the writer thread, so callers can pass
+     * the locator or element itself.
+     */
+    public static void command(String name, Object target, boolean ok, long durationNanos) {
+        shared().publish(Type.COMMAND, name, ok ? "OK" : "ERROR", durationNanos, target);
+    }
+
+    public static void screenshot(String title, String path) {
+        shared().publish(Type.SCREENSHOT, title, null, 0, path);
+    }
+
+    public static void failure(String failureType, String message) {
+        shared().publish(Type.FAILURE, failureType, null, 0, message);
+    }
+
+    void publish(Type type, String name, String status, long durationNanos, Object detail) {
+        publish(type, name, null, status, durationNanos, detail);
+    }
+
+    private void publish(Type type, String name, String definition, String status, long durationNanos, Object detail) {
+        if (writer == null || closed) return;
+        Event event = new Event(type, System.currentTimeMillis(), Thread.currentThread().getName(),
+                scenario.get(), name, definition, status, durationNanos, detail);
+        long seq = claimed.getAndIncrement();
+        // Ring full: wait for the writer rather than lose the event
+        while (seq - consumed >= ring.length()) {
+            Thread w = writer;
+            if (w == null || !w.isAlive()) return;
+            LockSupport.parkNanos(10_000);
+        }
+        // Volatile write before the volatile read of sleeping: either the writer sees the
+        // event on its last look before parking, or this thread sees it asleep
+        ring.set((int) (seq & mask), event);
+        if (sleeping) LockSupport.unpark(writer);
+    }
+
+    // ==========================
+    // 🔹 Writer thread
+    // ==========================
+
+    /** The writer runs when the file is enabled or a sink needs the events */
+    synchronized void start() {
+        if (writer != null || (!enabled && sinks.isEmpty())) return;
+        writer = new Thread(this::writeLoop, "execution-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "execution-log-close"));
+    }
+
+    private void writeLoop() {
+        BufferedWriter out = null;
+        try {
+            if (enabled) {
+                if (file.getParent() != null) Files.createDirectories(file.getParent());
+                out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Execution log not written (" + e.getMessage() + "), sinks still run");
+        }
+        StringBuilder line = new StringBuilder(256);
+        int idle = 0;
+        while (true) {
+            long seq = consumed;
+            int slot = (int) (seq & mask);
+            Event event = ring.get(slot);
+            if (event == null) {
+                if (closed && seq >= claimed.get()) break;
+                // A short spin for bursts, then flush and sleep until a publisher (or close) wakes us
+                if (idle++ < 100) {
+                    LockSupport.parkNanos(50_000);
+                    continue;
+                }
+                if (idle == 101) flushQuietly(out);
+                sleeping = true;
+                if (ring.get(slot) == null && !closed) LockSupport.park(this);
+                sleeping = false;
+                continue;
+            }
+            idle = 0;
+            ring.lazySet(slot, null);
+            consumed = seq + 1;
+            if (out != null) {
+                try {
+                    line.setLength(0);
+                    event.appendJson(line);
+                    out.append(line).append('\n');
+                } catch (IOException e) {
+                    System.err.println("⚠️ Execution log write failed: " + e.getMessage());
+                    out = null;
+                } catch (RuntimeException e) {
+                    System.err.println("⚠️ Execution log skipped an event: " + e.getMessage());
+                }
+            }
+            for (Sink sink : sinks) {
+                try {
+                    sink.accept(event);
+                } catch (RuntimeException e) {
+                    System.err.println("⚠️ Execution log sink failed: " + e.getMessage());
+                }
+            }
+        }
+        flushQuietly(out);
+        try {
+            if (out != null) out.close();
+        } catch (IOException ignored) {}
+        for (Sink sink : sinks) {
+            try {
+                sink.close();
+            } catch (RuntimeException e) {
+                System.err.println("⚠️ Execution log sink failed on close: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Stop accepting events, then wait until the writer has written what was published */
+    void close() {
+        Thread w;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            w = writer;
+        }
+        if (w == null) return;
+        LockSupport.unpark(w);
+        try {
+            w.join(30_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void flushQuietly(BufferedWriter out) {
+        try {
+            if (out != null) out.flush();
+        } catch (IOException ignored) {}
+    }
+
+    // ==========================
+    // 🔹 Offline reading
+    // ==========================
+
+    /** Stream a log file event by event (torn or unreadable lines are skipped) */
+    public static void read(Path file, Consumer<Event> action) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                try {
+                    action.accept(Event.fromJson(new JSONObject(line)));
+                } catch (RuntimeException e) {
+                    System.err.println("⚠️ Skipping unreadable execution log line: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Print a run summary from a log: java ... utils.ExecutionLog [file] */
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args.length > 0 ? args[0] : DEFAULT_PATH);
+        Map<String, Integer> scenarioStatus = new HashMap<>();
+        Map<String, long[]> commands = new HashMap<>();
+        List<Event> failures = new ArrayList<>();
+        long[] run = new long[2];
+        int[] counts = new int[2];
+        read(file, e -> {
+            switch (e.getType()) {
+                case RUN_STARTED: run[0] = e.getTime(); break;
+                case RUN_FINISHED: run[1] = e.getTime(); break;
+                case SCENARIO_FINISHED: scenarioStatus.merge(e.getStatus(), 1, Integer::sum); break;
+                case STEP: counts[0]++; break;
+                case SCREENSHOT: counts[1]++; break;
+                case FAILURE: failures.add(e); break;
+                case COMMAND:
+                    long[] c = commands.computeIfAbsent(e.getName(), n -> new long[2]);
+                    c[0]++;
+                    c[1] += e.getDurationNanos();
+                    break;
+                default:
+            }
+        });
+        System.out.println("📜 " + file + (run[1] > run[0] && run[0] > 0 ? " (" + (run[1] - run[0]) / 1000 + " s)" : ""));
+        System.out.println("   Scenarios: " + scenarioStatus + ", steps: " + counts[0] + ", screenshots: " + counts[1]);
+        commands.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]))
+                .limit(10)
+                .forEach(c -> System.out.println(String.format("   %-24s %6d call(s) %9.1f ms total",
+                        c.getKey(), c.getValue()[0], c.getValue()[1] / 1e6)));
+        for (Event f : failures) {
+            System.out.println("   ❌ " + f.getScenario() + ": " + f.getName() + " - " + f.getDetail());
+        }
+    }
+
+    /**
+     * One recorded fact. Immutable; sinks may keep it.
+     */
+    public static final class Event {
+        private final Type type;
+        private final long time;
+        private final String thread;
+        private final String scenario;
+        private final String name;
+        private final String definition;
+        private final String status;
+        private final long durationNanos;
+        private final Object detail;
+
+        Event(Type type, long time, String thread, String scenario, String name, String definition,
+              String status, long durationNanos, Object detail) {
+            this.type = type;
+            this.time = time;
+            this.thread = thread;
+            this.scenario = scenario;
+            this.name = name;
+            this.definition = definition;
+            this.status = status;
+            this.durationNanos = durationNanos;
+            this.detail = detail;
+        }
+
+        public Type getType() { return type; }
+        public long getTime() { return time; }
+        public String getThread() { return thread; }
+        public String getScenario() { return scenario; }
+        public String getName() { return name; }
+        /** Step definition (pattern) of a STEP event, when the publisher knew it */
+        public String getDefinition() { return definition; }
+        public String getStatus() { return status; }
+        public long getDurationNanos() { return durationNanos; }
+        public String getDetail() { return detail != null ? detail.toString() : null; }
+
+        /** One JSONL line, written by hand: the writer thread formats every event of the run */
+        void appendJson(StringBuilder line) {
+            line.append("{\"e\":\"").append(type.code).append("\",\"t\":").append(time);
+            appendField(line, "th", thread);
+            appendField(line, "sc", scenario);
+            appendField(line, "n", name);
+            appendField(line, "p", definition);
+            appendField(line, "st", status);
+            if (durationNanos > 0) line.append(",\"ns\":").append(durationNanos);
+            appendField(line, "d", getDetail());
+            line.append('}');
+        }
+
+        private static void appendField(StringBuilder line, String key, String value) {
+            if (value == null) return;
+            line.append(",\"").append(key).append("\":\"");
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"': line.append("\\\""); break;
+                    case '\\': line.append("\\\\"); break;
+                    case '\n': line.append("\\n"); break;
+                    case '\r': line.append("\\r"); break;
+                    case '\t': line.append("\\t"); break;
+                    default:
+                        if (c < 0x20) line.append(String.format("\\u%04x", (int) c));
+                        else line.append(c);
+                }
+            }
+            line.append('"');
+        }
+
+        static Event fromJson(JSONObject json) {
+            return new Event(Type.of(json.getString("e")), json.getLong("t"), json.optString("th", null),
+                    json.optString("sc", null), json.optString("n", null), json.optString("p", null), json.optString("st", null),
+                    json.optLong("ns"), json.optString("d", null));
+        }
+    }
+}
@@ -7,56 +7,129 @@ import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 import config.ConfigReader;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * 🔹 ExtentReportManager
+ * Extent report of the run, safe to use from parallel scenarios.
+ * - Worker threads only append to their own test buffer (createTest/log/assign/screenshot);
+ *   no Extent object is touched and no lock is taken on the scenario thread
+ * - endTest() hands the finished buffer to one writer thread, which builds the ExtentTest
+ *   (with the original timestamps) and flushes; discardTest() just drops the buffer
+ * - Streaming mode (stream.enabled in extent.properties or -Dextent.stream.enabled, on by
+ *   default): screenshots are saved under test-output/screenshots/ and referenced by path
+ *   instead of held as Base64, the report is flushed every stream.flushEvery completed
+ *   tests (or stream.flushSeconds), and once more on JVM shutdown, so an aborted run still
+ *   leaves a readable report
+ * - Every written test is also appended to a JSONL archive (extent.archive.out, default
+ *   test-output/extent-tests.jsonl), which {@link ShardMerger} replays into one report
+ */
 public class ExtentReportManager {
 
-    private static ExtentReports extent;
-    private static ThreadLocal<ExtentTest> test = new ThreadLocal<>();
+    private static volatile ExtentReports extent;
+    private static final ThreadLocal<TestBuffer> test = new ThreadLocal<>();
+    private static final Set<TestBuffer> active = ConcurrentHashMap.newKeySet();
+    private static final BlockingQueue<Object> writerQueue = new LinkedBlockingQueue<>();
+    private static final Object STOP_WRITER = new Object();
+    private static volatile Thread writer;
     private static final String SCREENSHOT_DIR = "test-output/screenshots/";
     private static final String EXTENT_PROPERTIES = "src/test/resources/extent.properties";
 
+    // Streaming mode (read at init; flush counters are only touched by the writer thread)
+    private static volatile boolean streaming = true;
+    private static volatile String screenshotRelPath = "screenshots/";
+    private static int flushEvery = 5;
+    private static long flushMillis = 30_000;
+    private static int completedSinceFlush;
+    private static long lastFlush = System.currentTimeMillis();
+    private static BufferedWriter archive;
+
     /** Initialize Extent Reports */
     public static void initReports() {
-        if (extent == null) {
+        if (extent != null) return;
+        synchronized (ExtentReportManager.class) {
+            if (extent != null) return;
             System.out.println("🔧 Initializing Extent Reports...");
 
             File screenshotDir = new File(SCREENSHOT_DIR);
             if (!screenshotDir.exists()) screenshotDir.mkdirs();
 
             Properties props = loadExtentProperties();
+            ExtentReports reports = newReports(props,
+                    new File(props.getProperty("extent.reporter.spark.out", "test-output/ExtentReport.html")));
 
-            String reportPath = props.getProperty("extent.reporter.spark.out", "test-output/ExtentReport.html");
-            ExtentSparkReporter sparkReporter = new ExtentSparkReporter(reportPath);
-
-            String configPath = props.getProperty("extent.reporter.spark.config");
-            if (configPath != null && !configPath.isEmpty() && new File(configPath).exists()) {
-                try {
-                    sparkReporter.loadXMLConfig(configPath);
-                    System.out.println("✅ Loaded extent-config.xml from: " + configPath);
-                } catch (Exception e) {
-                    System.err.println("⚠️ Could not load XML config: " + e.getMessage());
-                    configureReporterFromProperties(sparkReporter, props);
-                }
-            } else {
-                configureReporterFromProperties(sparkReporter, props);
+            streaming = Boolean.parseBoolean(System.getProperty("extent.stream.enabled", props.getProperty("stream.enabled", "true")));
+            screenshotRelPath = relativeScreenshotPath(props.getProperty("screenshot.rel.path", "./screenshots/"));
+            flushEvery = Integer.parseInt(props.getProperty("stream.flushEvery", "5").trim());
+            flushMillis = Long.parseLong(props.getProperty("stream.flushSeconds", "30").trim()) * 1000L;
+
+            try {
+                Path archivePath = Paths.get(props.getProperty("extent.archive.out", "test-output/extent-tests.jsonl"));
+                if (archivePath.getParent() != null) Files.createDirectories(archivePath.getParent());
+                archive = Files.newBufferedWriter(archivePath, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                System.err.println("⚠️ Extent test archive disabled: " + e.getMessage());
             }
 
-            extent = new ExtentReports();
-            extent.attachReporter(sparkReporter);
-            setSystemInfoFromProperties(props);
-            System.out.println("✅ Extent Reports initialized successfully");
+            writer = new Thread(ExtentReportManager::writeLoop, "extent-writer");
+            writer.setDaemon(true);
+            writer.start();
+            // Whatever completed before an abort (Ctrl+C, CI timeout) stays in the report
+            Runtime.getRuntime().addShutdownHook(new Thread(ExtentReportManager::flushOnShutdown, "extent-final-flush"));
+
+            extent = reports;
+            System.out.println("✅ Extent Reports initialized successfully" + (streaming ? " (streaming)" : ""));
         }
     }
 
-    private static Properties loadExtentProperties() {
+    /** A report writing to reportFile, configured like the run's own report (used by {@link ShardMerger}) */
+    static ExtentReports newReports(Properties props, File reportFile) {
+        ExtentSparkReporter sparkReporter = new ExtentSparkReporter(reportFile);
+
+        String configPath = props.getProperty("extent.reporter.spark.config");
+        if (configPath != null && !configPath.isEmpty() && new File(configPath).exists()) {
+            try {
+                sparkReporter.loadXMLConfig(configPath);
+                System.out.println("✅ Loaded extent-config.xml from: " + configPath);
+            } catch (Exception e) {
+                System.err.println("⚠️ Could not load XML config: " + e.getMessage());
+                configureReporterFromProperties(sparkReporter, props);
+            }
+        } else {
+            configureReporterFromProperties(sparkReporter, props);
+        }
+
+        ExtentReports reports = new ExtentReports();
+        reports.attachReporter(sparkReporter);
+        setSystemInfoFromProperties(reports, props);
+        return reports;
+    }
+
+    static Properties loadExtentProperties() {
         Properties props = new Properties();
         File file = new File(EXTENT_PROPERTIES);
         if (file.exists()) {
@@ -79,7 +152,7 @@ public class ExtentReportManager {
         reporter.config().setTimeStampFormat("MMM dd, yyyy HH:mm:ss");
     }
 
-    private static void setSystemInfoFromProperties(Properties props) {
+    private static void setSystemInfoFromProperties(ExtentReports extent, Properties props) {
         props.forEach((key, value) -> {
             String keyStr = key.toString();
             if (keyStr.startsWith("systeminfo.")) {
@@ -96,27 +169,38 @@ public class ExtentReportManager {
     }
 
     public static void createTest(String testName) {
-        initReports();
-        test.set(extent.createTest(testName));
+        createTest(testName, null);
     }
 
     public static void createTest(String testName, String description) {
         initReports();
-        test.set(extent.createTest(testName, description));
+        TestBuffer previous = test.get();
+        if (previous != null) active.remove(previous);
+        TestBuffer buffer = new TestBuffer(testName, description);
+        test.set(buffer);
+        active.add(buffer);
     }
 
-    public static ExtentTest getTest() {
-        return test.get();
+    /** Whether this thread has a test being recorded */
+    public static boolean hasTest() {
+        return test.get() != null;
     }
 
-    public static void logInfo(String msg) { if (getTest() != null) getTest().info(msg); }
-    public static void logPass(String msg) { if (getTest() != null) getTest().pass(msg); }
-    public static void logFail(String msg) { if (getTest() != null) getTest().fail(msg); }
-    public static void logWarning(String msg) { if (getTest() != null) getTest().warning(msg); }
+    public static void logInfo(String msg) { log(Status.INFO, msg); }
+    public static void logPass(String msg) { log(Status.PASS, msg); }
+    public static void logFail(String msg) { log(Status.FAIL, msg); }
+    public static void logWarning(String msg) { log(Status.WARNING, msg); }
+    public static void logSkip(String msg) { log(Status.SKIP, msg); }
+
+    private static void log(Status status, String msg) {
+        TestBuffer buffer = test.get();
+        if (buffer != null) buffer.events.add(new Event(Event.LOG, status, msg, null, null));
+    }
 
     /** ✅ FIXED: Save screenshot and embed with Base64 fallback */
     public static void captureAndAttachScreenshot(WebDriver driver, String title) {
-        if (getTest() != null && driver != null) {
+        TestBuffer buffer = test.get();
+        if (buffer != null && driver != null) {
             try {
                 byte[] screenshotBytes = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
                 String timestamp = java.time.LocalDateTime.now()
@@ -124,15 +208,20 @@ public class ExtentReportManager {
                 String filename = title.replaceAll("[^a-zA-Z0-9]", "_") + "_" + timestamp + ".png";
                 String filepath = SCREENSHOT_DIR + filename;
 
-                // Save screenshot to disk
+                // Save screenshot to disk (on the scenario thread, in parallel with other workers)
                 Files.write(Paths.get(filepath), screenshotBytes);
                 System.out.println("📸 Screenshot saved: " + filepath);
+                ExecutionLog.screenshot(title, filepath);
 
-                // ✅ PRIMARY FIX: Use Base64 encoding for embedded screenshots
-                // This ensures screenshots always work regardless of file paths
-                String base64 = Base64.getEncoder().encodeToString(screenshotBytes);
-                getTest().info(title,
-                        MediaEntityBuilder.createScreenCaptureFromBase64String(base64).build());
+                if (streaming) {
+                    // Referenced by path: the report holds a file name, not the image
+                    buffer.events.add(new Event(Event.MEDIA_LOG, Status.INFO, title, screenshotRelPath + filename, null));
+                } else {
+                    // ✅ PRIMARY FIX: Use Base64 encoding for embedded screenshots
+                    // This ensures screenshots always work regardless of file paths
+                    String base64 = Base64.getEncoder().encodeToString(screenshotBytes);
+                    buffer.events.add(new Event(Event.MEDIA_LOG, Status.INFO, title, null, base64));
+                }
 
             } catch (Exception e) {
                 System.err.println("⚠️ Failed to attach screenshot: " + e.getMessage());
@@ -147,23 +236,288 @@ public class ExtentReportManager {
     }
     
     public static void attachBase64Screenshot(String base64, String title) {
+        TestBuffer buffer = test.get();
+        if (buffer == null) return;
         try {
-            getTest().addScreenCaptureFromBase64String(base64, title);
+            if (streaming) {
+                String filename = title.replaceAll("[^a-zA-Z0-9]", "_") + "_" + System.nanoTime() + ".png";
+                Files.createDirectories(Paths.get(SCREENSHOT_DIR));
+                Files.write(Paths.get(SCREENSHOT_DIR + filename), Base64.getDecoder().decode(base64));
+                ExecutionLog.screenshot(title, SCREENSHOT_DIR + filename);
+                buffer.events.add(new Event(Event.SCREEN_CAPTURE, null, title, screenshotRelPath + filename, null));
+                return;
+            }
+            buffer.events.add(new Event(Event.SCREEN_CAPTURE, null, title, null, base64));
         } catch (Exception e) {
             System.err.println("⚠️ Failed to attach Base64 screenshot: " + e.getMessage());
         }
     }
 
+    public static void assignCategory(String... cat) { TestBuffer b = test.get(); if (b != null) b.categories.addAll(Arrays.asList(cat)); }
+    public static void assignAuthor(String... authors) { TestBuffer b = test.get(); if (b != null) b.authors.addAll(Arrays.asList(authors)); }
+    public static void assignDevice(String... dev) { TestBuffer b = test.get(); if (b != null) b.devices.addAll(Arrays.asList(dev)); }
+
+    /**
+     * The current test is complete: hand it to the writer thread (which flushes every
+     * stream.flushEvery tests or stream.flushSeconds in streaming mode)
+     */
+    public static void endTest() {
+        TestBuffer buffer = test.get();
+        test.remove();
+        if (buffer == null) return;
+        active.remove(buffer);
+        buffer.end = System.currentTimeMillis();
+        writerQueue.add(buffer);
+    }
+
+    public static void removeTest() { endTest(); }
+
+    /** Drop the current test from the report entirely (e.g. a failed attempt that is retried) */
+    public static void discardTest() {
+        TestBuffer buffer = test.get();
+        test.remove();
+        if (buffer != null) active.remove(buffer);
+    }
+
+    /** Write every test ended so far and flush the report; waits for the writer thread */
     public static void flushReports() {
-        if (extent != null) {
-            extent.flush();
+        if (extent == null) return;
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        writerQueue.add(done);
+        try {
+            done.get(2, TimeUnit.MINUTES);
             System.out.println("✅ Extent Report flushed successfully");
+        } catch (Exception e) {
+            System.err.println("⚠️ Extent flush did not complete: " + e.getMessage());
+        }
+    }
+
+    // ==========================
+    // 🔹 Writer thread
+    // ==========================
+
+    private static void writeLoop() {
+        while (true) {
+            Object item;
+            try {
+                item = writerQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (item == STOP_WRITER) return;
+            try {
+                if (item instanceof TestBuffer) {
+                    write((TestBuffer) item);
+                    completedSinceFlush++;
+                    if (streaming && (completedSinceFlush >= flushEvery || System.currentTimeMillis() - lastFlush >= flushMillis)) {
+                        flush();
+                    }
+                } else if (item instanceof CompletableFuture) {
+                    flush();
+                    ((CompletableFuture<?>) item).complete(null);
+                }
+            } catch (Exception e) {
+                System.err.println("⚠️ Extent writer error: " + e.getMessage());
+                if (item instanceof CompletableFuture) ((CompletableFuture<?>) item).completeExceptionally(e);
+            }
+        }
+    }
+
+    private static void write(TestBuffer buffer) {
+        writeTest(extent, buffer);
+        if (archive == null) return;
+        try {
+            archive.write(buffer.toJson().toString());
+            archive.newLine();
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not archive test '" + buffer.name + "': " + e.getMessage());
+        }
+    }
+
+    /** Replay one archived test (a line of the extent.archive.out file) into a report */
+    static void replay(ExtentReports target, JSONObject archivedTest) {
+        writeTest(target, TestBuffer.fromJson(archivedTest));
+    }
+
+    private static void writeTest(ExtentReports target, TestBuffer buffer) {
+        ExtentTest t = buffer.description != null
+                ? target.createTest(buffer.name, buffer.description)
+                : target.createTest(buffer.name);
+        for (Event e : buffer.events) {
+            switch (e.kind) {
+                case Event.LOG:
+                    t.log(e.status, e.message);
+                    break;
+                case Event.MEDIA_LOG:
+                    t.log(e.status, e.message, e.path != null
+                            ? MediaEntityBuilder.createScreenCaptureFromPath(e.path).build()
+                            : MediaEntityBuilder.createScreenCaptureFromBase64String(e.base64).build());
+                    break;
+                default:
+                    if (e.path != null) t.addScreenCaptureFromPath(e.path, e.message);
+                    else t.addScreenCaptureFromBase64String(e.base64, e.message);
+                    continue;
+            }
+            List<com.aventstack.extentreports.model.Log> logs = t.getModel().getLogs();
+            if (!logs.isEmpty()) logs.get(logs.size() - 1).setTimestamp(new Date(e.time));
+        }
+        if (!buffer.categories.isEmpty()) t.assignCategory(buffer.categories.toArray(new String[0]));
+        if (!buffer.authors.isEmpty()) t.assignAuthor(buffer.authors.toArray(new String[0]));
+        if (!buffer.devices.isEmpty()) t.assignDevice(buffer.devices.toArray(new String[0]));
+        t.getModel().setStartTime(new Date(buffer.start));
+        t.getModel().setEndTime(new Date(buffer.end > 0 ? buffer.end : System.currentTimeMillis()));
+    }
+
+    private static void flush() throws IOException {
+        extent.flush();
+        if (archive != null) archive.flush();
+        completedSinceFlush = 0;
+        lastFlush = System.currentTimeMillis();
+    }
+
+    /**
+     * JVM shutdown: the writer thread is stopped first (it finishes what was queued before
+     * the stop, for at most 10 s), so from then on this is the only thread touching the
+     * report. Tests queued after the stop are written, tests still running are written as
+     * aborted, then one last flush.
+     */
+    private static void flushOnShutdown() {
+        try {
+            if (extent == null) return;
+            Thread running = writer;
+            if (running != null && running.isAlive()) {
+                writerQueue.add(STOP_WRITER);
+                running.join(10_000);
+                if (running.isAlive()) {
+                    System.err.println("⚠️ Extent writer still busy at shutdown, final flush skipped");
+                    return;
+                }
+            }
+            synchronized (ExtentReportManager.class) {
+                List<Object> pending = new ArrayList<>();
+                writerQueue.drainTo(pending);
+                boolean dirty = completedSinceFlush > 0;
+                for (Object item : pending) {
+                    if (item instanceof TestBuffer) {
+                        write((TestBuffer) item);
+                        dirty = true;
+                    }
+                }
+                for (TestBuffer buffer : active) {
+                    buffer.events.add(new Event(Event.LOG, Status.WARNING, "⚠️ Run aborted before this test finished", null, null));
+                    write(buffer);
+                    dirty = true;
+                }
+                if (dirty) extent.flush();
+                if (archive != null) archive.flush();
+            }
+        } catch (Exception ignored) {
+            // JVM is going down; the last incremental flush is what remains
+        }
+    }
+
+    /** Where the report's screenshot links point, relative to the report file (for bundling) */
+    static String screenshotRelativePath() {
+        if (extent != null) return screenshotRelPath;
+        return relativeScreenshotPath(loadExtentProperties().getProperty("screenshot.rel.path", "./screenshots/"));
+    }
+
+    /** screenshot.rel.path as seen from the report file ("./screenshots/" → "screenshots/") */
+    private static String relativeScreenshotPath(String configured) {
+        String path = configured.replace('\\', '/');
+        if (path.startsWith("./")) path = path.substring(2);
+        return path.endsWith("/") ? path : path + "/";
+    }
+
+    /** Everything one test recorded, owned by its scenario thread until endTest() */
+    private static final class TestBuffer {
+        final String name;
+        final String description;
+        final long start;
+        volatile long end;
+        final List<Event> events = Collections.synchronizedList(new ArrayList<>());
+        final Set<String> categories = Collections.synchronizedSet(new LinkedHashSet<>());
+        final Set<String> authors = Collections.synchronizedSet(new LinkedHashSet<>());
+        final Set<String> devices = Collections.synchronizedSet(new LinkedHashSet<>());
+
+        TestBuffer(String name, String description) {
+            this(name, description, System.currentTimeMillis());
+        }
+
+        TestBuffer(String name, String description, long start) {
+            this.name = name;
+            this.description = description;
+            this.start = start;
+        }
+
+        /** Archive form: {name, description, start, end, categories, authors, devices, events} */
+        JSONObject toJson() {
+            JSONArray eventsJson = new JSONArray();
+            synchronized (events) {
+                for (Event e : events) {
+                    JSONObject event = new JSONObject().put("kind", e.kind).put("time", e.time);
+                    if (e.status != null) event.put("status", e.status.name());
+                    if (e.message != null) event.put("message", e.message);
+                    if (e.path != null) event.put("path", e.path);
+                    if (e.base64 != null) event.put("base64", e.base64);
+                    eventsJson.put(event);
+                }
+            }
+            JSONObject json = new JSONObject()
+                    .put("name", name)
+                    .put("start", start)
+                    .put("end", end > 0 ? end : System.currentTimeMillis())
+                    .put("categories", new JSONArray(categories))
+                    .put("authors", new JSONArray(authors))
+                    .put("devices", new JSONArray(devices))
+                    .put("events", eventsJson);
+            if (description != null) json.put("description", description);
+            return json;
+        }
+
+        static TestBuffer fromJson(JSONObject json) {
+            TestBuffer buffer = new TestBuffer(json.getString("name"), json.optString("description", null), json.getLong("start"));
+            buffer.end = json.optLong("end");
+            JSONArray eventsJson = json.optJSONArray("events");
+            for (int i = 0; eventsJson != null && i < eventsJson.length(); i++) {
+                JSONObject e = eventsJson.getJSONObject(i);
+                buffer.events.add(new Event(e.getInt("kind"), e.has("status") ? Status.valueOf(e.getString("status")) : null,
+                        e.optString("message", null), e.optString("path", null), e.optString("base64", null), e.getLong("time")));
+            }
+            addAll(buffer.categories, json.optJSONArray("categories"));
+            addAll(buffer.authors, json.optJSONArray("authors"));
+            addAll(buffer.devices, json.optJSONArray("devices"));
+            return buffer;
+        }
+
+        private static void addAll(Set<String> target, JSONArray values) {
+            for (int i = 0; values != null && i < values.length(); i++) target.add(values.getString(i));
         }
     }
 
-    public static void assignCategory(String... cat) { if (getTest() != null) getTest().assignCategory(cat); }
-    public static void assignAuthor(String... authors) { if (getTest() != null) getTest().assignAuthor(authors); }
-    public static void assignDevice(String... dev) { if (getTest() != null) getTest().assignDevice(dev); }
+    private static final class Event {
+        static final int LOG = 0;
+        static final int MEDIA_LOG = 1;
+        static final int SCREEN_CAPTURE = 2;
 
-    public static void removeTest() { test.remove(); }
-}
\ No newline at end of file
+        final int kind;
+        final Status status;
+        final String message;
+        final String path;
+        final String base64;
+        final long time;
+
+        Event(int kind, Status status, String message, String path, String base64) {
+            this(kind, status, message, path, base64, System.currentTimeMillis());
+        }
+
+        Event(int kind, Status status, String message, String path, String base64, long time) {
+            this.kind = kind;
+            this.status = status;
+            this.message = message;
+            this.path = path;
+            this.base64 = base64;
+            this.time = time;
+        }
+    }
+}
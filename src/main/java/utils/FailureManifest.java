@@ -0,0 +1,129 @@
+package utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 🔹 FailureManifest
+ * The scenarios that failed in a run, written as compact JSON at the end of it so the
+ * next run can re-execute only those (-Drerun.failed=true). Each entry is keyed by
+ * location ("features/x.feature:12", see {@link ScenarioCatalog#location}) and carries
+ * the failure classification Hooks computed for its defect.
+ */
+public class FailureManifest {
+
+    public static final String DEFAULT_PATH = "reports/failed-scenarios.json";
+
+    private final Path file;
+    private final Map<String, Entry> entries = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private FailureManifest(Path file) {
+        this.file = file;
+    }
+
+    /** A new, empty manifest for this run (written to the file by {@link #write()}) */
+    public static FailureManifest create(Path file) {
+        return new FailureManifest(file);
+    }
+
+    /** The manifest a previous run left behind; empty when there is none */
+    public static FailureManifest load(Path file) {
+        FailureManifest manifest = new FailureManifest(file);
+        if (!Files.exists(file)) return manifest;
+        try {
+            JSONArray failed = new JSONObject(Files.readString(file, StandardCharsets.UTF_8)).getJSONArray("failed");
+            for (int i = 0; i < failed.length(); i++) {
+                JSONObject e = failed.getJSONObject(i);
+                manifest.entries.put(e.getString("location"), new Entry(e.getString("location"), e.optString("name"),
+                        e.has("caseId") ? e.getInt("caseId") : null, e.optString("failureType", "GENERAL_FAILURE"),
+                        e.optString("message", null)));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Ignoring unreadable failure manifest " + file + ": " + e.getMessage());
+            manifest.entries.clear();
+        }
+        return manifest;
+    }
+
+    public void record(String location, String name, Integer caseId, String failureType, String message) {
+        entries.put(location, new Entry(location, name, caseId, failureType, message));
+    }
+
+    public boolean contains(String location) {
+        return entries.containsKey(location);
+    }
+
+    public boolean containsCase(int caseId) {
+        synchronized (entries) {
+            for (Entry e : entries.values()) {
+                if (e.caseId != null && e.caseId == caseId) return true;
+            }
+        }
+        return false;
+    }
+
+    public Entry get(String location) {
+        return entries.get(location);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /** Replace the file with this run's failures (an empty list when everything passed) */
+    public void write() throws IOException {
+        JSONArray failed = new JSONArray();
+        synchronized (entries) {
+            for (Entry e : entries.values()) {
+                JSONObject json = new JSONObject()
+                        .put("location", e.location)
+                        .put("name", e.name)
+                        .put("failureType", e.failureType);
+                if (e.caseId != null) json.put("caseId", e.caseId);
+                if (e.message != null) json.put("message", e.message);
+                failed.put(json);
+            }
+        }
+        AtomicFiles.writeString(file, new JSONObject()
+                .put("generated", java.time.Instant.now().toString())
+                .put("failed", failed)
+                .toString(2));
+    }
+
+    /**
+     * One failed scenario and why it failed
+     */
+    public static class Entry {
+        private final String location;
+        private final String name;
+        private final Integer caseId;
+        private final String failureType;
+        private final String message;
+
+        Entry(String location, String name, Integer caseId, String failureType, String message) {
+            this.location = location;
+            this.name = name;
+            this.caseId = caseId;
+            this.failureType = failureType;
+            this.message = message;
+        }
+
+        public String getLocation() { return location; }
+        public String getName() { return name; }
+        public Integer getCaseId() { return caseId; }
+        public String getFailureType() { return failureType; }
+        public String getMessage() { return message; }
+    }
+}
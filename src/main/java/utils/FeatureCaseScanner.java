@@ -0,0 +1,40 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 🔹 FeatureCaseScanner
+ * Collects the TestRail case IDs referenced by the feature files that are about to run
+ * (@CaseID_40 as written by FeatureGenerator, @C40 as written by TestRailFeatureGenerator),
+ * so the run can be planned with every case in a single add_run call.
+ */
+public class FeatureCaseScanner {
+
+    private static final Pattern CASE_TAG = Pattern.compile("@(?:CaseID_|C)(\\d+)\\b");
+
+    public static Set<Integer> scan(String featuresDir) throws IOException {
+        Set<Integer> caseIds = new LinkedHashSet<>();
+        Path root = Path.of(featuresDir);
+        if (!Files.isDirectory(root)) return caseIds;
+
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(p -> p.toString().endsWith(".feature")).sorted()::iterator) {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    String trimmed = line.trim();
+                    if (!trimmed.startsWith("@")) continue;
+                    Matcher m = CASE_TAG.matcher(trimmed);
+                    while (m.find()) caseIds.add(Integer.parseInt(m.group(1)));
+                }
+            }
+        }
+        return caseIds;
+    }
+}
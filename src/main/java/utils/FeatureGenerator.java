@@ -4,20 +4,50 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * 🔹 FeatureGenerator
  * Fetches TestRail cases and generates .feature files (Gherkin format)
  */
 public class FeatureGenerator {
+
+    /** Bump whenever the generated output changes for the same input (invalidates the feature manifest) */
+    public static final int FORMAT_VERSION = 2;
+
+    public static final String DEFAULT_DIR = "src/test/resources/features";
+
+    /** Every case field buildFeature reads; changes elsewhere in a case do not affect the output */
+    public static final List<String> SOURCE_FIELDS = Collections.unmodifiableList(Arrays.asList(
+            "title", "custom_preconds", "custom_testrail_bdd_scenario", "custom_steps_separated",
+            "custom_steps", "custom_gherkin", "custom_bdd_scenario", "custom_bdd", "custom_scenario"));
+
     private final Client testRailClient;
+    private final CaseCache caseCache;
     private final String featuresDir;
 
     public FeatureGenerator(Client testRailClient) {
+        this(testRailClient, null);
+    }
+
+    /**
+     * Generator that resolves cases through the local case cache (null = always live)
+     */
+    public FeatureGenerator(Client testRailClient, CaseCache caseCache) {
+        this(testRailClient, caseCache, DEFAULT_DIR);
+    }
+
+    /**
+     * Generator writing its feature files into featuresDir instead of the default directory
+     */
+    public FeatureGenerator(Client testRailClient, CaseCache caseCache, String featuresDir) {
         this.testRailClient = testRailClient;
-        this.featuresDir = "src/test/resources/features";
+        this.caseCache = caseCache;
+        this.featuresDir = featuresDir;
 
         // Create directory if missing
         File dir = new File(featuresDir);
@@ -32,32 +62,40 @@ public class FeatureGenerator {
     public String generateFeatureFile(int caseId) throws IOException {
         System.out.println("📝 Generating feature file for TestRail case C" + caseId + "...");
 
-        // Fetch case from TestRail
-        JSONObject testCase = testRailClient.fetchTestCase(caseId);
+        // Fetch case from the local cache, or TestRail when no cache is configured
+        JSONObject testCase = caseCache != null ? caseCache.getCase(caseId) : testRailClient.fetchTestCase(caseId);
 
-        // Extract data
+        return writeFeature(caseId, buildFeature(caseId, testCase));
+    }
+
+    /**
+     * Transform a TestRail case (get_case / get_cases shape) into .feature content.
+     * No I/O and no shared state, so it is safe to call from several threads.
+     */
+    public String buildFeature(int caseId, JSONObject testCase) {
         String title = testCase.optString("title", "Untitled Test Case");
         String description = testCase.optString("custom_preconds", "");
         String stepsContent = extractBDDSteps(testCase);
 
-        if (stepsContent != null && !stepsContent.isEmpty()) {
-        } else {
-            System.out.println("⚠️ No BDD steps found, will generate default scenario");
+        if (stepsContent == null || stepsContent.isEmpty()) {
+            System.out.println("⚠️ No BDD steps found for C" + caseId + ", will generate default scenario");
         }
+        return generateFeatureContent(caseId, title, description, stepsContent);
+    }
 
-        // Compose feature content
-        String featureContent = generateFeatureContent(caseId, title, description, stepsContent);
-
-        // Save file
-        String fileName = "TestCase_" + caseId + ".feature";
-        String filePath = featuresDir + "/" + fileName;
-
-        try (FileWriter writer = new FileWriter(filePath)) {
-            writer.write(featureContent);
-        }
+    /**
+     * Write TestCase_&lt;id&gt;.feature atomically, so Cucumber never picks up a half-written file
+     */
+    public String writeFeature(int caseId, String featureContent) throws IOException {
+        String filePath = getFeatureFilePath(caseId);
+        AtomicFiles.writeString(Path.of(filePath), featureContent);
         return filePath;
     }
 
+    public String getFeatureFilePath(int caseId) {
+        return featuresDir + "/TestCase_" + caseId + ".feature";
+    }
+
     /**
      * Extract BDD steps from TestRail JSON fields
      */
@@ -75,7 +113,7 @@ public class FeatureGenerator {
                     JSONObject bddItem = bddArray.getJSONObject(i);
                     String content = bddItem.optString("content", "");
                     if (!content.isEmpty()) {
-                        steps.append(cleanHtml(content)).append("\n");
+                        steps.append(GherkinTranspiler.toText(content)).append("\n");
                     }
                 }
 
@@ -98,10 +136,10 @@ public class FeatureGenerator {
                     String expected = step.optString("expected", "");
 
                     if (!content.isEmpty()) {
-                        steps.append(formatGherkinStep(cleanHtml(content), i)).append("\n");
+                        GherkinTranspiler.appendSteps(steps, content, i, false);
                     }
                     if (!expected.isEmpty()) {
-                        steps.append(formatGherkinStep(cleanHtml(expected), i, true)).append("\n");
+                        GherkinTranspiler.appendSteps(steps, expected, i, true);
                     }
                 }
 
@@ -127,7 +165,7 @@ public class FeatureGenerator {
                 String gherkin = testCase.optString(field, "");
                 if (!gherkin.isEmpty()) {
                     System.out.println("🔍 Found '" + field + "'");
-                    return cleanHtml(gherkin);
+                    return GherkinTranspiler.toText(gherkin);
                 }
             }
         }
@@ -140,54 +178,10 @@ public class FeatureGenerator {
      */
     private String parseTextSteps(String textSteps) {
         StringBuilder gherkin = new StringBuilder();
-        String[] lines = cleanHtml(textSteps).split("\n");
-
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i].trim();
-            if (!line.isEmpty()) {
-                gherkin.append(formatGherkinStep(line, i)).append("\n");
-            }
-        }
+        GherkinTranspiler.appendSteps(gherkin, textSteps, 0, false);
         return gherkin.toString();
     }
 
-    /**
-     * Format steps with Gherkin keywords
-     */
-    private String formatGherkinStep(String step, int index) {
-        return formatGherkinStep(step, index, false);
-    }
-
-    private String formatGherkinStep(String step, int index, boolean isExpected) {
-        if (step.matches("^(Given|When|Then|And|But)\\s.*")) return step;
-
-        if (isExpected) return "Then " + step;
-        if (index == 0) return "Given " + step;
-
-        String lower = step.toLowerCase();
-        if (lower.contains("click") || lower.contains("enter") || lower.contains("select"))
-            return "When " + step;
-        if (lower.contains("should") || lower.contains("verify") || lower.contains("validate"))
-            return "Then " + step;
-
-        return "And " + step;
-    }
-
-    /**
-     * Clean HTML and entities
-     */
-    private String cleanHtml(String text) {
-        if (text == null || text.isEmpty()) return "";
-        return text.replaceAll("<[^>]*>", "")
-                .replace("&nbsp;", " ")
-                .replace("&amp;", "&")
-                .replace("&lt;", "<")
-                .replace("&gt;", ">")
-                .replace("&quot;", "\"")
-                .replace("&#39;", "'")
-                .trim();
-    }
-
     /**
      * Build final .feature file content
      */
@@ -196,16 +190,23 @@ public class FeatureGenerator {
         sb.append("@TestRail\n");
         sb.append("Feature: ").append(title).append("\n\n");
 
-        if (description != null && !description.isEmpty())
-            sb.append("  ").append(cleanHtml(description)).append("\n\n");
+        String descriptionText = GherkinTranspiler.toText(description);
+        if (!descriptionText.isEmpty()) {
+            for (String line : descriptionText.split("\n")) {
+                sb.append("  ").append(line).append("\n");
+            }
+            sb.append("\n");
+        }
 
         sb.append("@CaseID_").append(caseId).append("\n");
         sb.append("Scenario: ").append(title).append("\n");
 
         if (stepsContent != null && !stepsContent.isEmpty()) {
             for (String line : stepsContent.split("\\n")) {
-                if (!line.trim().isEmpty()) {
-                    sb.append("  ").append(line.trim()).append("\n");
+                String step = line.trim();
+                if (!step.isEmpty()) {
+                    // Data table rows sit one level below their step
+                    sb.append(step.startsWith("|") ? "    " : "  ").append(step).append("\n");
                 }
             }
         } else {
@@ -221,12 +222,7 @@ public class FeatureGenerator {
      */
     public String generateFeatureFileWithGherkin(int caseId, String title, String gherkinSteps) throws IOException {
         String featureContent = generateFeatureContent(caseId, title, null, gherkinSteps);
-        String fileName = "TestCase_" + caseId + ".feature";
-        String filePath = featuresDir + "/" + fileName;
-
-        try (FileWriter writer = new FileWriter(filePath)) {
-            writer.write(featureContent);
-        }
+        String filePath = writeFeature(caseId, featureContent);
 
         System.out.println("✅ Feature file generated: " + filePath);
         return filePath;
@@ -0,0 +1,184 @@
+package utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🔹 FeatureManifest
+ * Remembers what each generated feature file was built from, so regeneration only touches
+ * cases that actually changed:
+ *   case ID → (updated_on, hash of the case fields the generator reads, hash of the output, path)
+ * Stored as feature-manifest.json next to the case cache. A different generator format
+ * version invalidates every entry.
+ */
+public class FeatureManifest {
+
+    public static final String FILE_NAME = "feature-manifest.json";
+
+    private final Path file;
+    private final int formatVersion;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    private FeatureManifest(Path file, int formatVersion) {
+        this.file = file;
+        this.formatVersion = formatVersion;
+    }
+
+    /**
+     * Load the manifest; a missing, unreadable or outdated file yields an empty manifest
+     */
+    public static FeatureManifest load(Path file, int formatVersion) {
+        FeatureManifest manifest = new FeatureManifest(file, formatVersion);
+        if (!Files.exists(file)) return manifest;
+        try {
+            JSONObject json = new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+            if (json.optInt("formatVersion") != formatVersion) {
+                System.out.println("🔄 Feature format changed, regenerating every feature file");
+                return manifest;
+            }
+            JSONObject cases = json.optJSONObject("cases");
+            if (cases != null) {
+                for (String key : cases.keySet()) {
+                    JSONObject e = cases.getJSONObject(key);
+                    manifest.entries.put(Integer.parseInt(key), new Entry(e.optLong("updatedOn"),
+                            e.optString("contentHash"), e.optString("outputHash"), e.optString("path")));
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Ignoring unreadable feature manifest " + file + ": " + e.getMessage());
+        }
+        return manifest;
+    }
+
+    public Entry get(int caseId) {
+        return entries.get(caseId);
+    }
+
+    public void put(int caseId, Entry entry) {
+        entries.put(caseId, entry);
+    }
+
+    public Entry remove(int caseId) {
+        return entries.remove(caseId);
+    }
+
+    public Set<Integer> caseIds() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    public void save() throws IOException {
+        JSONObject cases = new JSONObject();
+        for (Map.Entry<Integer, Entry> e : new TreeMap<>(entries).entrySet()) {
+            Entry entry = e.getValue();
+            cases.put(String.valueOf(e.getKey()), new JSONObject()
+                    .put("updatedOn", entry.updatedOn)
+                    .put("contentHash", entry.contentHash)
+                    .put("outputHash", entry.outputHash)
+                    .put("path", entry.path));
+        }
+        JSONObject json = new JSONObject();
+        json.put("formatVersion", formatVersion);
+        json.put("cases", cases);
+        AtomicFiles.writeString(file, json.toString(2));
+    }
+
+    // ==========================
+    // 🔹 Hashing
+    // ==========================
+
+    /**
+     * Hash of the given case fields in canonical form (sorted keys), so the same case hashes
+     * the same whether it came from get_case, get_cases or the local cache
+     */
+    public static String contentHash(JSONObject testCase, List<String> fields) {
+        StringBuilder sb = new StringBuilder();
+        for (String field : fields) {
+            sb.append(field).append('=');
+            canonical(testCase.opt(field), sb);
+            sb.append('\n');
+        }
+        return sha256(sb.toString());
+    }
+
+    /** Hash of a file on disk, or null when it does not exist */
+    public static String fileHash(Path path) throws IOException {
+        if (!Files.exists(path)) return null;
+        return sha256(Files.readString(path, StandardCharsets.UTF_8));
+    }
+
+    public static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void canonical(Object value, StringBuilder sb) {
+        if (value instanceof JSONObject) {
+            JSONObject obj = (JSONObject) value;
+            List<String> keys = new ArrayList<>(obj.keySet());
+            keys.sort(null);
+            sb.append('{');
+            for (String key : keys) {
+                sb.append(JSONObject.quote(key)).append(':');
+                canonical(obj.opt(key), sb);
+                sb.append(',');
+            }
+            sb.append('}');
+        } else if (value instanceof JSONArray) {
+            JSONArray arr = (JSONArray) value;
+            sb.append('[');
+            for (int i = 0; i < arr.length(); i++) {
+                canonical(arr.opt(i), sb);
+                sb.append(',');
+            }
+            sb.append(']');
+        } else if (value == null || value == JSONObject.NULL) {
+            sb.append("null");
+        } else if (value instanceof String) {
+            sb.append(JSONObject.quote((String) value));
+        } else {
+            sb.append(value);
+        }
+    }
+
+    /**
+     * What one feature file was generated from
+     */
+    public static class Entry {
+        private final long updatedOn;
+        private final String contentHash;
+        private final String outputHash;
+        private final String path;
+
+        public Entry(long updatedOn, String contentHash, String outputHash, String path) {
+            this.updatedOn = updatedOn;
+            this.contentHash = contentHash;
+            this.outputHash = outputHash;
+            this.path = path;
+        }
+
+        public long getUpdatedOn() { return updatedOn; }
+        public String getContentHash() { return contentHash; }
+        public String getOutputHash() { return outputHash; }
+        public String getPath() { return path; }
+    }
+}
@@ -0,0 +1,145 @@
+package utils;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🔹 FlakeHistory
+ * Per-scenario outcome counts across runs: how often a scenario passed first time, only
+ * passed on a retry (flaky) or failed for good. Kept as JSON next to the scenario
+ * timings so CI can cache both; save() merges with the file on disk.
+ */
+public class FlakeHistory {
+
+    public static final String DEFAULT_PATH = ".scenario-timings/flake-history.json";
+
+    public enum Outcome { PASSED, FLAKY, FAILED }
+
+    private final Path file;
+    private final Map<String, Counts> observed = new ConcurrentHashMap<>();
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+
+    private FlakeHistory(Path file) {
+        this.file = file;
+    }
+
+    public static FlakeHistory load(Path file) {
+        return new FlakeHistory(file);
+    }
+
+    /** Record the final outcome of one scenario in this run */
+    public void record(String location, String name, Outcome outcome) {
+        names.put(location, name);
+        observed.computeIfAbsent(location, k -> new Counts()).add(outcome);
+    }
+
+    /** Flaky outcomes of this run, by location */
+    public Map<String, String> flakyThisRun() {
+        Map<String, String> flaky = new LinkedHashMap<>();
+        observed.forEach((location, counts) -> {
+            if (counts.flaky > 0) flaky.put(location, names.get(location));
+        });
+        return flaky;
+    }
+
+    /**
+     * Add this run's outcomes to the history file and print the flaky scenarios with their record
+     */
+    public synchronized void save() throws IOException {
+        if (observed.isEmpty()) return;
+        Map<String, Counts> merged = read(file);
+        observed.forEach((location, counts) -> merged.computeIfAbsent(location, k -> new Counts()).merge(counts));
+
+        JSONObject scenarios = new JSONObject();
+        merged.forEach((location, counts) -> {
+            JSONObject json = counts.toJson();
+            String name = names.get(location);
+            json.put("name", name != null ? name : counts.name);
+            scenarios.put(location, json);
+        });
+        AtomicFiles.writeString(file, new JSONObject()
+                .put("updated", java.time.Instant.now().toString())
+                .put("scenarios", scenarios)
+                .toString(2));
+
+        Map<String, String> flaky = flakyThisRun();
+        if (!flaky.isEmpty()) {
+            System.out.println("🔁 " + flaky.size() + " flaky scenario(s) in this run:");
+            flaky.forEach((location, name) -> {
+                Counts total = merged.get(location);
+                System.out.println("   ⚠️ " + name + " (" + location + ") flaky in " + total.flaky + " of "
+                        + total.runs() + " run(s)");
+            });
+        }
+        observed.clear();
+    }
+
+    private static Map<String, Counts> read(Path file) {
+        Map<String, Counts> values = new LinkedHashMap<>();
+        if (!Files.exists(file)) return values;
+        try {
+            JSONObject scenarios = new JSONObject(Files.readString(file, StandardCharsets.UTF_8)).getJSONObject("scenarios");
+            for (String location : scenarios.keySet()) {
+                values.put(location, Counts.fromJson(scenarios.getJSONObject(location)));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Ignoring unreadable flake history " + file + ": " + e.getMessage());
+            values.clear();
+        }
+        return values;
+    }
+
+    private static final class Counts {
+        int passed;
+        int flaky;
+        int failed;
+        String last;
+        String name;
+
+        synchronized void add(Outcome outcome) {
+            switch (outcome) {
+                case PASSED: passed++; break;
+                case FLAKY: flaky++; break;
+                default: failed++; break;
+            }
+            last = outcome.name();
+        }
+
+        void merge(Counts other) {
+            passed += other.passed;
+            flaky += other.flaky;
+            failed += other.failed;
+            last = other.last;
+        }
+
+        int runs() {
+            return passed + flaky + failed;
+        }
+
+        JSONObject toJson() {
+            return new JSONObject()
+                    .put("passed", passed)
+                    .put("flaky", flaky)
+                    .put("failed", failed)
+                    .put("last", last)
+                    .put("flakeRate", runs() == 0 ? 0 : Math.round(1000.0 * flaky / runs()) / 1000.0);
+        }
+
+        static Counts fromJson(JSONObject json) {
+            Counts counts = new Counts();
+            counts.passed = json.optInt("passed");
+            counts.flaky = json.optInt("flaky");
+            counts.failed = json.optInt("failed");
+            counts.last = json.optString("last", null);
+            counts.name = json.optString("name", null);
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package utils;
+
+import config.ConfigReader;
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * 🔹 FlightRecording
+ * Custom Java Flight Recorder events for what the tests were doing, so a recording shows
+ * scenarios, steps, waits, WebDriver commands, browser sessions and TestRail calls on the
+ * same timeline as GC, threads and I/O (JDK Mission Control: Event Browser > AutoZen).
+ * - The events cost next to nothing unless a recording is running; fields are only filled
+ *   in when shouldCommit() says the event will be kept
+ * - jfr.record=true (or -Djfr.record=true) starts a recording in TestRunner.beforeSuite and
+ *   writes it to jfr.output at the end of the suite; it is also dumped if the JVM exits
+ *   before that (crash of the run, Ctrl+C). jfr.settings: default, profile or a .jfc file
+ * - An externally started recording (-XX:StartFlightRecording) picks the events up as well
+ */
+public final class FlightRecording {
+
+    public static final String DEFAULT_OUTPUT = "test-output/flight-recording.jfr";
+
+    private static Recording recording;
+
+    private FlightRecording() {}
+
+    // ==========================
+    // 🔹 Recording control
+    // ==========================
+
+    public static boolean isRequested() {
+        return Boolean.parseBoolean(System.getProperty("jfr.record", ConfigReader.get("jfr.record", "false")).trim());
+    }
+
+    /** True while any recording runs in this JVM (ours or one started with -XX:StartFlightRecording) */
+    public static boolean isRecording() {
+        return recording != null
+                || (FlightRecorder.isInitialized() && !FlightRecorder.getFlightRecorder().getRecordings().isEmpty());
+    }
+
+    /** Start the run's recording when jfr.record is set; a second call is a no-op */
+    public static synchronized void start() {
+        if (recording != null || !isRequested()) return;
+        if (!FlightRecorder.isAvailable()) {
+            System.err.println("⚠️ Flight Recorder is not available in this JVM, jfr.record ignored");
+            return;
+        }
+        String settings = System.getProperty("jfr.settings", ConfigReader.get("jfr.settings", "default")).trim();
+        Path output = Path.of(System.getProperty("jfr.output", ConfigReader.get("jfr.output", DEFAULT_OUTPUT)));
+        try {
+            Configuration configuration = settings.endsWith(".jfc")
+                    ? Configuration.create(Path.of(settings))
+                    : Configuration.getConfiguration(settings);
+            if (output.getParent() != null) Files.createDirectories(output.getParent());
+            Recording r = new Recording(configuration);
+            r.setName("AutoZen run");
+            r.setToDisk(true);
+            r.setDestination(output);
+            r.setDumpOnExit(true);
+            r.start();
+            recording = r;
+            System.out.println("🎥 Flight recording started (" + settings + "), written to " + output);
+        } catch (IOException | ParseException | RuntimeException e) {
+            System.err.println("⚠️ Could not start flight recording: " + e.getMessage());
+        }
+    }
+
+    /** Stop the run's recording and write it to its destination */
+    public static synchronized void stop() {
+        if (recording == null) return;
+        Path output = recording.getDestination();
+        try {
+            recording.stop();
+            System.out.println("🎥 Flight recording written: " + output);
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Could not write flight recording: " + e.getMessage());
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    // ==========================
+    // 🔹 Events
+    // ==========================
+
+    @Name("autozen.Scenario")
+    @Label("Scenario")
+    @Category({"AutoZen", "Cucumber"})
+    @StackTrace(false)
+    public static final class ScenarioEvent extends Event {
+        @Label("Name") public String name;
+        @Label("Location") public String location;
+        @Label("Status") public String status;
+    }
+
+    @Name("autozen.Step")
+    @Label("Step")
+    @Category({"AutoZen", "Cucumber"})
+    @StackTrace(false)
+    public static final class StepEvent extends Event {
+        @Label("Step") public String text;
+        @Label("Step Definition") public String pattern;
+        @Label("Status") public String status;
+    }
+
+    @Name("autozen.Wait")
+    @Label("Wait")
+    @Description("A SeleniumActions wait, from start until satisfied or timed out")
+    @Category({"AutoZen", "Selenium"})
+    @StackTrace(false)
+    public static final class WaitEvent extends Event {
+        @Label("Target") public String target;
+        @Label("Condition") public String condition;
+        @Label("Outcome") public String outcome;
+    }
+
+    @Name("autozen.WebDriverCommand")
+    @Label("WebDriver Command")
+    @Category({"AutoZen", "Selenium"})
+    @StackTrace(false)
+    public static final class CommandEvent extends Event {
+        @Label("Command") public String command;
+        @Label("Target") public String target;
+        @Label("Succeeded") public boolean ok;
+    }
+
+    @Name("autozen.BrowserSession")
+    @Label("Browser Session")
+    @Description("Creating or quitting a WebDriver session")
+    @Category({"AutoZen", "Selenium"})
+    @StackTrace(false)
+    public static final class SessionEvent extends Event {
+        @Label("Action") public String action;
+        @Label("Browser") public String browser;
+        @Label("Headless") public boolean headless;
+        @Label("Succeeded") public boolean ok;
+    }
+
+    @Name("autozen.HttpCall")
+    @Label("TestRail HTTP Call")
+    @Description("Request sent until response headers received; the body is read afterwards")
+    @Category({"AutoZen", "TestRail"})
+    @StackTrace(false)
+    public static final class HttpEvent extends Event {
+        @Label("Method") public String method;
+        @Label("Endpoint") public String endpoint;
+        @Label("Status") public int status;
+    }
+}
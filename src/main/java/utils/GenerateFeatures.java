@@ -0,0 +1,60 @@
+package utils;
+
+import config.ConfigReader;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * 🔹 GenerateFeatures
+ * Standalone feature generation, run at build time instead of inside the test JVM:
+ *   mvn -Pgenerate-features generate-test-resources   (or as part of mvn -Pgenerate-features test)
+ * Syncs the case cache, then generates the configured scope (testrail.generate.suite /
+ * testrail.sectionId, testrail.caseIds or testrail.caseId). Suite mode takes its cases from the
+ * synced cache instead of listing the suite again; with the cache and the feature manifest in
+ * place, an unreachable TestRail falls back to the cached cases.
+ */
+public final class GenerateFeatures {
+
+    private GenerateFeatures() {}
+
+    public static void main(String[] args) throws IOException {
+        try {
+            SuiteFeatureGenerator.Result result = generate();
+            if (result.getFeatures().isEmpty()) {
+                // Thrown rather than System.exit: exec:java runs inside the Maven JVM
+                throw new IllegalStateException("❌ No feature files generated " + result.getFailures());
+            }
+            System.out.println("✅ Feature files ready: " + result.getFeatures().size()
+                    + " in " + result.getElapsedMillis() + " ms");
+        } finally {
+            HttpTransport.shutdown();
+        }
+    }
+
+    public static SuiteFeatureGenerator.Result generate() throws IOException {
+        Client testRailClient = new Client();
+        Integer suiteId = testRailClient.getSuiteId() > 0 ? testRailClient.getSuiteId() : null;
+
+        CaseCache caseCache = new CaseCache(testRailClient);
+        if (ConfigReader.getBoolean("testrail.cache.sync", true)) {
+            caseCache.syncQuietly(testRailClient.getProjectId(), suiteId);
+        }
+        SuiteFeatureGenerator generator = new SuiteFeatureGenerator(testRailClient, caseCache);
+
+        // Scope: a whole suite/section, an explicit case list, or the single configured case
+        if (ConfigReader.getBoolean("testrail.generate.suite", false)) {
+            String sectionId = ConfigReader.get("testrail.sectionId", "");
+            return generator.generateSuite(testRailClient.getProjectId(), suiteId,
+                    sectionId.isEmpty() ? null : Integer.parseInt(sectionId));
+        }
+        Set<Integer> caseIds = SuiteFeatureGenerator.parseCaseIds(ConfigReader.get("testrail.caseIds", ""));
+        if (caseIds.isEmpty()) {
+            caseIds = SuiteFeatureGenerator.parseCaseIds(ConfigReader.get("testrail.caseId", ""));
+        }
+        if (caseIds.isEmpty()) {
+            throw new IllegalStateException("❌ testrail.caseId not configured in config.properties");
+        }
+        return generator.generateCases(caseIds);
+    }
+}
@@ -0,0 +1,173 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🔹 GherkinParseCache
+ * Compiled scenarios of each .feature file, keyed by the SHA-256 of the file content and
+ * kept in one compact binary file under target/. An unchanged feature is never parsed
+ * twice; a changed one is re-parsed and replaces its entry. Entries for files that no
+ * longer exist are dropped on save.
+ * Like git's index, size + mtime are recorded too: when both match, the file is not even
+ * read; otherwise the content hash decides (a touched but identical file is still a hit).
+ * Scope: the cache serves the framework's own catalog passes (step preflight, the circuit
+ * breaker's step lookup), so they no longer parse the whole tree on top of Cucumber. Cucumber
+ * still parses every feature itself; it is not fed from here, since a feature list limited to
+ * changed files would also limit the scenarios that run.
+ */
+public class GherkinParseCache {
+
+    public static final String DEFAULT_PATH = "target/gherkin-cache/scenarios.bin";
+    private static final int MAGIC = 0x47504332; // "GPC2"
+
+    private final Path file;
+    private final Map<String, CachedFile> entries = new ConcurrentHashMap<>();
+    private final Map<String, CachedFile> used = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+    private int hits;
+    private int misses;
+
+    private GherkinParseCache(Path file) {
+        this.file = file;
+    }
+
+    /** Load the cache; a missing or unreadable file just means everything is parsed once */
+    public static GherkinParseCache load(Path file) {
+        GherkinParseCache cache = new GherkinParseCache(file);
+        if (!Files.exists(file)) return cache;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) return cache;
+            int files = in.readInt();
+            for (int f = 0; f < files; f++) {
+                String path = in.readUTF();
+                String hash = in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                int count = in.readInt();
+                List<ScenarioCatalog.Scenario> scenarios = new ArrayList<>(count);
+                Path featurePath = Path.of(path);
+                for (int s = 0; s < count; s++) {
+                    int line = in.readInt();
+                    int scenarioLine = in.readInt();
+                    String name = in.readUTF();
+                    scenarios.add(new ScenarioCatalog.Scenario(featurePath, line, scenarioLine, name,
+                            readStrings(in), readStrings(in)));
+                }
+                cache.entries.put(path, new CachedFile(hash, size, modified, scenarios));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Ignoring unreadable Gherkin cache " + file + ": " + e.getMessage());
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    /** Cached scenarios when the file's size and mtime are unchanged, or null */
+    List<ScenarioCatalog.Scenario> getIfUnmodified(Path feature, long size, long modified) {
+        String key = feature.toAbsolutePath().normalize().toString();
+        CachedFile cached = entries.get(key);
+        if (cached != null && cached.size == size && cached.modified == modified) {
+            used.put(key, cached);
+            synchronized (this) { hits++; }
+            return cached.scenarios;
+        }
+        return null;
+    }
+
+    /** Cached scenarios for this exact content (refreshing size/mtime), or null */
+    List<ScenarioCatalog.Scenario> get(Path feature, String contentHash, long size, long modified) {
+        String key = feature.toAbsolutePath().normalize().toString();
+        CachedFile cached = entries.get(key);
+        if (cached != null && cached.hash.equals(contentHash)) {
+            put(feature, contentHash, size, modified, cached.scenarios);
+            synchronized (this) { hits++; }
+            return cached.scenarios;
+        }
+        synchronized (this) { misses++; }
+        return null;
+    }
+
+    void put(Path feature, String contentHash, long size, long modified, List<ScenarioCatalog.Scenario> scenarios) {
+        String key = feature.toAbsolutePath().normalize().toString();
+        CachedFile entry = new CachedFile(contentHash, size, modified, scenarios);
+        entries.put(key, entry);
+        used.put(key, entry);
+        dirty = true;
+    }
+
+    /**
+     * Persist the entries used in this pass (so deleted features fall out), if anything changed
+     */
+    public void save() throws IOException {
+        if (!dirty && used.size() == entries.size()) return;
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "scenarios", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                Map<String, CachedFile> snapshot = new HashMap<>(used);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, CachedFile> e : snapshot.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeUTF(e.getValue().hash);
+                    out.writeLong(e.getValue().size);
+                    out.writeLong(e.getValue().modified);
+                    out.writeInt(e.getValue().scenarios.size());
+                    for (ScenarioCatalog.Scenario s : e.getValue().scenarios) {
+                        out.writeInt(s.getLine());
+                        out.writeInt(s.getScenarioLine());
+                        out.writeUTF(s.getName());
+                        writeStrings(out, s.getTags());
+                        writeStrings(out, s.getSteps());
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        dirty = false;
+    }
+
+    public synchronized int getHits() { return hits; }
+    public synchronized int getMisses() { return misses; }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        List<String> values = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) values.add(in.readUTF());
+        return values;
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) out.writeUTF(value);
+    }
+
+    private static final class CachedFile {
+        final String hash;
+        final long size;
+        final long modified;
+        final List<ScenarioCatalog.Scenario> scenarios;
+
+        CachedFile(String hash, long size, long modified, List<ScenarioCatalog.Scenario> scenarios) {
+            this.hash = hash;
+            this.size = size;
+            this.modified = modified;
+            this.scenarios = scenarios;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package utils;
+
+import org.jsoup.nodes.Entities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 🔹 GherkinTranspiler
+ * Single-pass conversion of TestRail HTML fields into Gherkin-ready text.
+ * - Tags are dropped in the same scan that decodes entities (every HTML5 named entity,
+ *   decimal and hex numeric references)
+ * - Block elements, &lt;br&gt; and list items become line breaks; each list item is its own step
+ * - Tables become Gherkin data tables (| a | b |) that attach to the preceding step
+ * - Step keywords are chosen in one scan of the line, without lower-casing or regexes
+ */
+public final class GherkinTranspiler {
+
+    private static final String[] STEP_KEYWORDS = {"Given", "When", "Then", "And", "But"};
+    // Longest named entity is 31 characters plus '&' and ';'
+    private static final int MAX_ENTITY_LENGTH = 33;
+
+    private static final int TAG_OTHER = 0;
+    private static final int TAG_BLOCK = 1;
+    private static final int TAG_ROW = 2;
+    private static final int TAG_CELL = 3;
+    private static final int TAG_TABLE = 4;
+    private static final int TAG_SKIP = 5;
+
+    private GherkinTranspiler() {}
+
+    // ==========================
+    // 🔹 HTML → text
+    // ==========================
+
+    /**
+     * Plain text with one logical line per block/list item/table row, blank lines removed
+     */
+    public static String toText(String html) {
+        if (html == null || html.isEmpty()) return "";
+
+        Buffer out = new Buffer(html.length(), false);
+        Buffer cell = null;
+        List<String> row = null;
+        int n = html.length();
+        int i = 0;
+        while (i < n) {
+            char c = html.charAt(i);
+            Buffer target = cell != null ? cell : out;
+
+            if (c == '<' && i + 1 < n && isTagStart(html.charAt(i + 1))) {
+                if (html.startsWith("<!--", i)) {
+                    int end = html.indexOf("-->", i + 4);
+                    i = end < 0 ? n : end + 3;
+                    continue;
+                }
+                int end = html.indexOf('>', i + 1);
+                if (end < 0) end = n - 1;
+                boolean closing = html.charAt(i + 1) == '/';
+                int nameStart = closing ? i + 2 : i + 1;
+                int tag = tagKind(html, nameStart, end);
+                i = end + 1;
+
+                switch (tag) {
+                    case TAG_SKIP:
+                        if (!closing) {
+                            String close = is(html, nameStart, "script") ? "</script" : "</style";
+                            int at = indexOfIgnoreCase(html, close, i);
+                            i = at < 0 ? n : at;
+                        }
+                        break;
+                    case TAG_ROW:
+                        if (closing) {
+                            if (cell != null) row.add(cell.finish());
+                            cell = null;
+                            if (row != null && !row.isEmpty()) out.line(tableRow(row));
+                            row = null;
+                        } else {
+                            out.breakLine();
+                            row = new ArrayList<>();
+                        }
+                        break;
+                    case TAG_CELL:
+                        if (row == null) row = new ArrayList<>();
+                        if (cell != null) row.add(cell.finish());
+                        cell = closing ? null : new Buffer(16, true);
+                        break;
+                    case TAG_TABLE:
+                        if (closing && row != null) {
+                            if (cell != null) row.add(cell.finish());
+                            if (!row.isEmpty()) out.line(tableRow(row));
+                        }
+                        cell = null;
+                        row = null;
+                        out.breakLine();
+                        break;
+                    case TAG_BLOCK:
+                        target.breakLine();
+                        break;
+                    default:
+                        break;
+                }
+            } else if (c == '&') {
+                i = decodeEntity(html, i, target);
+            } else if (isPlain(c)) {
+                // Copy a whole run of ordinary text (single spaces included) in one go
+                int j = i + 1;
+                while (j < n) {
+                    char d = html.charAt(j);
+                    if (isPlain(d)) j++;
+                    else if (d == ' ' && j + 1 < n && isPlain(html.charAt(j + 1))) j += 2;
+                    else break;
+                }
+                target.append(html, i, j);
+                i = j;
+            } else {
+                if (c == '\n') target.breakLine();
+                else if (c != '\r') target.append(c);
+                i++;
+            }
+        }
+        if (row != null) {
+            if (cell != null) row.add(cell.finish());
+            if (!row.isEmpty()) out.line(tableRow(row));
+        }
+        return out.finish();
+    }
+
+    /** Anything that needs no tag, entity, line or whitespace handling */
+    private static boolean isPlain(char c) {
+        return c > ' ' && c != '<' && c != '&' && c != '\u00A0';
+    }
+
+    private static boolean isTagStart(char c) {
+        return Character.isLetter(c) || c == '/' || c == '!';
+    }
+
+    /** Classify a tag by its name without allocating it; unknown tags are simply dropped */
+    private static int tagKind(String html, int from, int end) {
+        int i = from;
+        while (i < end && Character.isLetterOrDigit(html.charAt(i))) i++;
+        switch (i - from) {
+            case 1:
+                return is(html, from, "p") ? TAG_BLOCK : TAG_OTHER;
+            case 2:
+                if (is(html, from, "tr")) return TAG_ROW;
+                if (is(html, from, "td") || is(html, from, "th")) return TAG_CELL;
+                if (is(html, from, "br") || is(html, from, "li") || is(html, from, "ul") || is(html, from, "ol")
+                        || is(html, from, "hr") || is(html, from, "dd") || is(html, from, "dt")) return TAG_BLOCK;
+                char level = html.charAt(from + 1);
+                return (html.charAt(from) == 'h' || html.charAt(from) == 'H') && level >= '1' && level <= '6'
+                        ? TAG_BLOCK : TAG_OTHER;
+            case 3:
+                return is(html, from, "div") || is(html, from, "pre") ? TAG_BLOCK : TAG_OTHER;
+            case 5:
+                if (is(html, from, "table")) return TAG_TABLE;
+                return is(html, from, "style") ? TAG_SKIP : TAG_OTHER;
+            case 6:
+                return is(html, from, "script") ? TAG_SKIP : TAG_OTHER;
+            case 10:
+                return is(html, from, "blockquote") ? TAG_BLOCK : TAG_OTHER;
+            default:
+                return TAG_OTHER;
+        }
+    }
+
+    private static boolean is(String html, int from, String name) {
+        return html.regionMatches(true, from, name, 0, name.length());
+    }
+
+    private static int indexOfIgnoreCase(String s, String needle, int from) {
+        for (int i = from; i <= s.length() - needle.length(); i++) {
+            if (s.regionMatches(true, i, needle, 0, needle.length())) return i;
+        }
+        return -1;
+    }
+
+    /** Decode the reference at html[start] == '&'; unknown or malformed references stay literal */
+    private static int decodeEntity(String html, int start, Buffer out) {
+        int limit = Math.min(html.length(), start + MAX_ENTITY_LENGTH);
+        int semi = -1;
+        for (int j = start + 1; j < limit; j++) {
+            char c = html.charAt(j);
+            if (c == ';') {
+                semi = j;
+                break;
+            }
+            if (!Character.isLetterOrDigit(c) && c != '#') break;
+        }
+        if (semi > start + 1) {
+            char common = commonEntity(html, start + 1, semi - start - 1);
+            if (common != 0) {
+                out.append(common);
+                return semi + 1;
+            }
+            String name = html.substring(start + 1, semi);
+            if (name.charAt(0) == '#') {
+                int cp = parseCodePoint(name);
+                if (cp >= 0) {
+                    out.appendCodePoint(cp);
+                    return semi + 1;
+                }
+            } else {
+                String decoded = Entities.getByName(name);
+                if (!decoded.isEmpty()) {
+                    for (int k = 0; k < decoded.length(); k++) out.append(decoded.charAt(k));
+                    return semi + 1;
+                }
+            }
+        }
+        out.append('&');
+        return start + 1;
+    }
+
+    /** The handful of entities TestRail's editor emits constantly, without touching the full table */
+    private static char commonEntity(String html, int from, int len) {
+        switch (len) {
+            case 2:
+                if (html.startsWith("lt", from)) return '<';
+                if (html.startsWith("gt", from)) return '>';
+                return 0;
+            case 3:
+                return html.startsWith("amp", from) ? '&' : 0;
+            case 4:
+                if (html.startsWith("nbsp", from)) return '\u00A0';
+                if (html.startsWith("quot", from)) return '"';
+                if (html.startsWith("apos", from)) return '\'';
+                return 0;
+            default:
+                return 0;
+        }
+    }
+
+    private static int parseCodePoint(String ref) {
+        try {
+            int cp = ref.length() > 1 && (ref.charAt(1) == 'x' || ref.charAt(1) == 'X')
+                    ? Integer.parseInt(ref.substring(2), 16)
+                    : Integer.parseInt(ref.substring(1));
+            return Character.isValidCodePoint(cp) && cp != 0 ? cp : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String tableRow(List<String> cells) {
+        StringBuilder sb = new StringBuilder("|");
+        for (String cell : cells) {
+            sb.append(' ');
+            for (int i = 0; i < cell.length(); i++) {
+                char c = cell.charAt(i);
+                if (c == '|' || c == '\\') sb.append('\\');
+                sb.append(c);
+            }
+            sb.append(" |");
+        }
+        return sb.toString();
+    }
+
+    // ==========================
+    // 🔹 Text → steps
+    // ==========================
+
+    /**
+     * Append one TestRail step field as Gherkin steps: the first line is classified with the
+     * given step index, further lines continue the step, table rows are kept as data tables.
+     */
+    public static void appendSteps(StringBuilder out, String html, int index, boolean expected) {
+        String text = toText(html);
+        if (text.isEmpty()) return;
+        int line = 0;
+        int start = 0;
+        while (start <= text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) end = text.length();
+            String step = text.substring(start, end);
+            if (line == 0) out.append(classify(step, index, expected));
+            else out.append(expected ? continuation(step) : classify(step, index + line, false));
+            out.append('\n');
+            line++;
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Prefix a step with a Gherkin keyword unless it already has one (or is a data table row):
+     * expected results are Then, the first step is Given, actions are When, checks are Then
+     */
+    public static String classify(String step, int index, boolean expected) {
+        if (hasKeyword(step) || step.startsWith("|")) return step;
+        if (expected) return "Then " + step;
+        if (index == 0) return "Given " + step;
+        return keywordFor(step) + " " + step;
+    }
+
+    private static String continuation(String step) {
+        return hasKeyword(step) || step.startsWith("|") ? step : "And " + step;
+    }
+
+    private static boolean hasKeyword(String step) {
+        for (String keyword : STEP_KEYWORDS) {
+            int len = keyword.length();
+            if (step.length() > len && step.startsWith(keyword) && Character.isWhitespace(step.charAt(len))) return true;
+        }
+        return false;
+    }
+
+    /** One pass over the step: any action word wins (When), else any check word (Then), else And */
+    static String keywordFor(String step) {
+        boolean check = false;
+        for (int i = 0; i < step.length(); i++) {
+            switch (step.charAt(i)) {
+                case 'c': case 'C':
+                    if (startsAt(step, i, "click")) return "When";
+                    break;
+                case 'e': case 'E':
+                    if (startsAt(step, i, "enter")) return "When";
+                    break;
+                case 's': case 'S':
+                    if (startsAt(step, i, "select")) return "When";
+                    if (!check && startsAt(step, i, "should")) check = true;
+                    break;
+                case 'v': case 'V':
+                    if (!check && (startsAt(step, i, "verify") || startsAt(step, i, "validate"))) check = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return check ? "Then" : "And";
+    }
+
+    private static boolean startsAt(String s, int i, String word) {
+        return s.regionMatches(true, i, word, 0, word.length());
+    }
+
+    /**
+     * Output buffer that collapses whitespace runs, drops blank lines and trims line ends.
+     * A single-line buffer (table cell) turns line breaks into spaces.
+     */
+    private static final class Buffer {
+        private final StringBuilder sb;
+        private final boolean singleLine;
+        private boolean atLineStart = true;
+        private boolean pendingSpace;
+
+        Buffer(int capacity, boolean singleLine) {
+            this.sb = new StringBuilder(capacity);
+            this.singleLine = singleLine;
+        }
+
+        void append(char c) {
+            if (c == ' ' || c == '\t' || c == '\u00A0' || c == '\f') {
+                if (!atLineStart) pendingSpace = true;
+                return;
+            }
+            if (pendingSpace) sb.append(' ');
+            pendingSpace = false;
+            atLineStart = false;
+            sb.append(c);
+        }
+
+        void append(String s, int from, int to) {
+            if (pendingSpace) sb.append(' ');
+            pendingSpace = false;
+            atLineStart = false;
+            sb.append(s, from, to);
+        }
+
+        void appendCodePoint(int cp) {
+            if (Character.isBmpCodePoint(cp)) {
+                append((char) cp);
+            } else {
+                append(Character.highSurrogate(cp));
+                sb.append(Character.lowSurrogate(cp));
+            }
+        }
+
+        void breakLine() {
+            if (singleLine) {
+                append(' ');
+                return;
+            }
+            if (!atLineStart) sb.append('\n');
+            atLineStart = true;
+            pendingSpace = false;
+        }
+
+        void line(String text) {
+            breakLine();
+            sb.append(text).append('\n');
+            atLineStart = true;
+            pendingSpace = false;
+        }
+
+        String finish() {
+            int len = sb.length();
+            while (len > 0 && sb.charAt(len - 1) == '\n') len--;
+            sb.setLength(len);
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package utils;
+
+import config.ConfigReader;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🔹 HttpTransport
+ * One tuned OkHttpClient shared by every TestRail client in the JVM, so connections
+ * and TLS sessions are reused across Client, TestRailClient, TestRunner and Hooks.
+ * - Sized connection pool with keep-alive
+ * - HTTP/2 negotiated via ALPN where the server supports it, HTTP/1.1 otherwise
+ * - gzip: OkHttp sends "Accept-Encoding: gzip" and inflates responses transparently
+ *   (do not set that header by hand, it turns transparent decompression off)
+ * - Explicit connect/read/write timeouts
+ * - Every call (sync or async, each retry) is a flight recorder event with endpoint and status
+ *
+ * Tunables (config.properties): http.maxIdleConnections, http.keepAliveSeconds,
+ * http.connectTimeoutSeconds, http.readTimeoutSeconds, http.writeTimeoutSeconds,
+ * http.maxRequestsPerHost
+ */
+public final class HttpTransport {
+
+    private static volatile OkHttpClient shared;
+
+    private HttpTransport() {}
+
+    public static OkHttpClient shared() {
+        OkHttpClient client = shared;
+        if (client == null) {
+            synchronized (HttpTransport.class) {
+                client = shared;
+                if (client == null) {
+                    client = build();
+                    shared = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private static OkHttpClient build() {
+        int maxIdle = ConfigReader.getInt("http.maxIdleConnections", 8);
+        int keepAlive = ConfigReader.getInt("http.keepAliveSeconds", 300);
+        int maxPerHost = ConfigReader.getInt("http.maxRequestsPerHost", 8);
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Math.max(64, maxPerHost));
+        dispatcher.setMaxRequestsPerHost(maxPerHost);
+
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdle, keepAlive, TimeUnit.SECONDS))
+                .dispatcher(dispatcher)
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(ConfigReader.getInt("http.connectTimeoutSeconds", 10), TimeUnit.SECONDS)
+                .readTimeout(ConfigReader.getInt("http.readTimeoutSeconds", 60), TimeUnit.SECONDS)
+                .writeTimeout(ConfigReader.getInt("http.writeTimeoutSeconds", 60), TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .addInterceptor(HttpTransport::record)
+                .build();
+    }
+
+    private static Response record(Interceptor.Chain chain) throws IOException {
+        FlightRecording.HttpEvent event = new FlightRecording.HttpEvent();
+        event.begin();
+        int status = 0;
+        try {
+            Response response = chain.proceed(chain.request());
+            status = response.code();
+            return response;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = chain.request().method();
+                event.endpoint = endpointOf(chain.request().url());
+                event.status = status;
+                event.commit();
+            }
+        }
+    }
+
+    /** TestRail routes through the query ("index.php?/api/v2/get_case/12"): that part names the endpoint */
+    private static String endpointOf(HttpUrl url) {
+        String query = url.encodedQuery();
+        if (query != null && query.startsWith("/api/v2/")) return query.substring("/api/v2/".length());
+        return url.encodedPath();
+    }
+
+    /**
+     * Release pooled connections and dispatcher threads at the end of the run. The shared
+     * RequestScheduler is built on this client, so it is shut down and dropped first.
+     */
+    public static void shutdown() {
+        // Outside the class lock: RequestScheduler.shared() takes its own lock, then ours
+        RequestScheduler.shutdownShared();
+        synchronized (HttpTransport.class) {
+            if (shared != null) {
+                shared.dispatcher().executorService().shutdown();
+                shared.connectionPool().evictAll();
+                shared = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package utils;
+
+import config.ConfigReader;
+import org.json.JSONObject;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * 🔹 PagePerformance
+ * Front-end performance of the pages the scenarios open, read from the browser's own
+ * timeline in one executeAsyncScript round trip per page (perf.page.capture=true):
+ * - Navigation Timing: TTFB, DOMContentLoaded, load, transfer size
+ * - Resource Timing summary: count and bytes per initiator type, the slowest three
+ * - Paint: FCP, LCP (and its element), CLS (largest session window), long tasks
+ *   (PerformanceObserver with buffered entries; metrics the browser does not support are null)
+ * Each capture is logged on the scenario's Extent test and appended as one JSON line to
+ * perf.page.path, a time series across runs (run = JVM start, t = capture time).
+ */
+public final class PagePerformance {
+
+    public static final String DEFAULT_PATH = ".scenario-timings/page-performance.jsonl";
+
+    private static final long RUN = System.currentTimeMillis();
+
+    // arguments[0] = settle millis: buffered observer entries arrive asynchronously, and a page
+    // still loading is waited for (never longer than 5 s) before the numbers are read
+    private static final String SCRIPT = String.join("\n",
+            "var done = arguments[arguments.length - 1], settle = arguments[0];",
+            "var types = (window.PerformanceObserver && PerformanceObserver.supportedEntryTypes) || [];",
+            "var out = {url: location.href, lcp: null, lcpElement: null, cls: null, longTasks: null}, observers = [];",
+            "function observe(type, onEntry) {",
+            "  if (types.indexOf(type) < 0) return false;",
+            "  var o = new PerformanceObserver(function (list) { list.getEntries().forEach(onEntry); });",
+            "  o.observe({type: type, buffered: true});",
+            "  observers.push([o, onEntry]);",
+            "  return true;",
+            "}",
+            "observe('largest-contentful-paint', function (e) {",
+            "  out.lcp = Math.round(e.startTime); out.lcpElement = e.element ? e.element.tagName.toLowerCase() : null; });",
+            "var session = 0, sessionStart = 0, last = 0;",
+            "if (observe('layout-shift', function (e) {",
+            "  if (e.hadRecentInput) return;",
+            "  if (session && (e.startTime - last > 1000 || e.startTime - sessionStart > 5000)) session = 0;",
+            "  if (!session) sessionStart = e.startTime;",
+            "  session += e.value; last = e.startTime;",
+            "  out.cls = Math.max(out.cls || 0, Math.round(session * 1000) / 1000); })) out.cls = 0;",
+            "if (observe('longtask', function (e) {",
+            "  out.longTasks.count++; out.longTasks.totalMs += Math.round(e.duration);",
+            "  out.longTasks.maxMs = Math.max(out.longTasks.maxMs, Math.round(e.duration)); }))",
+            "  out.longTasks = {count: 0, totalMs: 0, maxMs: 0};",
+            "function finish() {",
+            "  observers.forEach(function (p) { p[0].takeRecords().forEach(p[1]); p[0].disconnect(); });",
+            "  var nav = performance.getEntriesByType('navigation')[0];",
+            "  if (nav) out.navigation = {type: nav.type, ttfbMs: Math.round(nav.responseStart),",
+            "    domContentLoadedMs: Math.round(nav.domContentLoadedEventEnd), loadMs: Math.round(nav.loadEventEnd),",
+            "    transferBytes: nav.transferSize || 0};",
+            "  var fcp = performance.getEntriesByName('first-contentful-paint')[0];",
+            "  out.fcp = fcp ? Math.round(fcp.startTime) : null;",
+            "  var res = performance.getEntriesByType('resource'), byType = {}, bytes = 0;",
+            "  res.forEach(function (e) {",
+            "    var t = byType[e.initiatorType] || (byType[e.initiatorType] = {count: 0, bytes: 0});",
+            "    t.count++; t.bytes += e.transferSize || 0; bytes += e.transferSize || 0; });",
+            "  out.resources = {count: res.length, bytes: bytes, byType: byType,",
+            "    slowest: res.slice().sort(function (a, b) { return b.duration - a.duration; }).slice(0, 3)",
+            "      .map(function (e) { return {name: e.name, ms: Math.round(e.duration)}; })};",
+            "  done(out);",
+            "}",
+            "var finished = false;",
+            "function settleThenFinish() { if (!finished) { finished = true; setTimeout(finish, settle); } }",
+            "if (document.readyState === 'complete') settleThenFinish();",
+            "else { window.addEventListener('load', settleThenFinish); setTimeout(settleThenFinish, 5000); }");
+
+    private PagePerformance() {}
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("perf.page.capture", ConfigReader.get("perf.page.capture", "false")).trim());
+    }
+
+    /**
+     * Capture the current page (perf.page.capture), log it to Extent and the time series.
+     * Never fails the step: a browser that cannot answer just leaves a warning.
+     */
+    public static JSONObject capture(WebDriver driver, String label) {
+        if (!isEnabled() || !(driver instanceof JavascriptExecutor)) return null;
+        try {
+            Object result = ((JavascriptExecutor) driver).executeAsyncScript(SCRIPT,
+                    ConfigReader.getInt("perf.page.settleMillis", 100));
+            if (!(result instanceof Map)) return null;
+            JSONObject page = new JSONObject((Map<?, ?>) result)
+                    .put("label", label)
+                    .put("run", RUN)
+                    .put("t", System.currentTimeMillis());
+            ExtentReportManager.logInfo("📈 Page performance (" + label + "): " + summary(page));
+            append(page);
+            return page;
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Page performance not captured for " + label + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** One line: TTFB · DCL · load · FCP · LCP · CLS · long tasks · resources */
+    private static String summary(JSONObject page) {
+        StringBuilder line = new StringBuilder();
+        JSONObject nav = page.optJSONObject("navigation");
+        if (nav != null) {
+            line.append("TTFB ").append(millis(nav.optLong("ttfbMs")))
+                    .append(" · DCL ").append(millis(nav.optLong("domContentLoadedMs")))
+                    .append(" · load ").append(millis(nav.optLong("loadMs")));
+        }
+        if (!page.isNull("fcp")) line.append(" · FCP ").append(millis(page.getLong("fcp")));
+        if (!page.isNull("lcp")) {
+            line.append(" · LCP ").append(millis(page.getLong("lcp")));
+            if (!page.isNull("lcpElement")) line.append(" (").append(page.getString("lcpElement")).append(')');
+        }
+        if (!page.isNull("cls")) line.append(" · CLS ").append(page.get("cls"));
+        JSONObject longTasks = page.optJSONObject("longTasks");
+        if (longTasks != null) {
+            line.append(" · long tasks ").append(longTasks.optInt("count"));
+            if (longTasks.optInt("count") > 0) line.append(" (").append(millis(longTasks.optLong("totalMs"))).append(')');
+        }
+        JSONObject resources = page.optJSONObject("resources");
+        if (resources != null) {
+            line.append(" · ").append(resources.optInt("count")).append(" resources, ")
+                    .append(resources.optLong("bytes") / 1024).append(" KB");
+        }
+        String text = line.toString();
+        return text.startsWith(" · ") ? text.substring(3) : text;
+    }
+
+    private static String millis(long ms) {
+        return ms < 1000 ? ms + "ms" : String.format("%.2fs", ms / 1000.0);
+    }
+
+    private static synchronized void append(JSONObject page) {
+        Path file = Path.of(ConfigReader.get("perf.page.path", DEFAULT_PATH));
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(page.toString());
+                out.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not append page performance to " + file + ": " + e.getMessage());
+        }
+    }
+}
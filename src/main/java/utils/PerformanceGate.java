@@ -0,0 +1,328 @@
+package utils;
+
+import config.ConfigReader;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 🔹 PerformanceGate
+ * Compares this run's step, scenario and suite durations against a baseline file of
+ * duration histograms (perf.baseline) produced by earlier runs.
+ * - perf.gate=record: fold this run into the baseline; check: compare against it
+ *   (perf.gate.updateOnPass=true also folds a passing check in); off: nothing
+ * - A regression needs all of: p95 up by more than perf.tolerance.percent, by more than
+ *   perf.tolerance.minMillis, and statistically significant. With perf.minSamples or more
+ *   samples on both sides that is a one-sided Mann-Whitney test at perf.alpha; with fewer
+ *   (a scenario that ran once) every current sample has to lie above the baseline's p99
+ * - The baseline keeps at most perf.baseline.maxSamples per key, older runs weighing less;
+ *   the earlier runs always keep at least half of it, so one long run cannot replace them
+ * - Findings go to the console and to an Extent "Performance gate" test; with
+ *   perf.gate.fail=true TestRunner.afterSuite fails the suite on a regression
+ */
+public class PerformanceGate {
+
+    public static final String DEFAULT_PATH = "perf-baseline.json";
+    public static final String SUITE_KEY = "suite";
+    // Share of maxSamples the earlier runs keep however many samples the new run brings
+    private static final double OLD_WEIGHT_FLOOR = 0.5;
+
+    private static volatile Result lastResult;
+
+    private final Path file;
+    private final double tolerance;
+    private final long minMicros;
+    private final int minSamples;
+    private final double alpha;
+    private final int maxSamples;
+
+    public PerformanceGate(Path file, double tolerancePercent, long minMillis, int minSamples, double alpha, int maxSamples) {
+        this.file = file;
+        this.tolerance = tolerancePercent / 100.0;
+        this.minMicros = minMillis * 1000;
+        this.minSamples = minSamples;
+        this.alpha = alpha;
+        this.maxSamples = maxSamples;
+    }
+
+    /** Gate configured from config.properties (-D overrides for the mode and the fail switch) */
+    public static PerformanceGate fromConfig() {
+        return new PerformanceGate(Path.of(ConfigReader.get("perf.baseline", DEFAULT_PATH)),
+                Double.parseDouble(ConfigReader.get("perf.tolerance.percent", "20")),
+                ConfigReader.getInt("perf.tolerance.minMillis", 200),
+                ConfigReader.getInt("perf.minSamples", 5),
+                Double.parseDouble(ConfigReader.get("perf.alpha", "0.01")),
+                ConfigReader.getInt("perf.baseline.maxSamples", 50));
+    }
+
+    /** off | record | check */
+    public static String mode() {
+        return System.getProperty("perf.gate", ConfigReader.get("perf.gate", "off")).trim().toLowerCase();
+    }
+
+    public static boolean failOnRegression() {
+        return Boolean.parseBoolean(System.getProperty("perf.gate.fail", ConfigReader.get("perf.gate.fail", "false")).trim());
+    }
+
+    /** Outcome of this JVM's last check, or null when the gate did not run */
+    public static Result lastResult() {
+        return lastResult;
+    }
+
+    // ==========================
+    // 🔹 Run end
+    // ==========================
+
+    /**
+     * Apply the configured mode to a finished run.
+     * @param suiteNanos wall time of the whole run
+     * @return the check result, or null when nothing was checked
+     */
+    public Result finishRun(TimingHistograms run, long suiteNanos) throws IOException {
+        String mode = mode();
+        if ("off".equals(mode)) return null;
+        Map<String, TimingHistograms.Histogram> current = flatten(run, suiteNanos);
+        Result result = null;
+        if ("check".equals(mode)) {
+            Map<String, TimingHistograms.Histogram> baseline = loadBaseline();
+            if (baseline.isEmpty()) {
+                System.out.println("⏱️ No performance baseline at " + file + " yet, recording this run");
+            } else {
+                result = compare(baseline, current);
+                lastResult = result;
+                result.print();
+            }
+        }
+        boolean update = "record".equals(mode) || result == null
+                || (!result.hasRegressions() && ConfigReader.getBoolean("perf.gate.updateOnPass", false));
+        if (update) {
+            record(current);
+            System.out.println("⏱️ Performance baseline updated: " + file);
+        }
+        return result;
+    }
+
+    /** step:/scenario:/suite keys, as stored in the baseline */
+    private static Map<String, TimingHistograms.Histogram> flatten(TimingHistograms run, long suiteNanos) {
+        Map<String, TimingHistograms.Histogram> all = new HashMap<>();
+        run.getSteps().forEach((k, h) -> all.put("step:" + k, h));
+        run.getScenarios().forEach((k, h) -> all.put("scenario:" + k, h));
+        if (suiteNanos > 0) {
+            TimingHistograms.Histogram suite = new TimingHistograms.Histogram();
+            suite.record(suiteNanos);
+            all.put(SUITE_KEY, suite);
+        }
+        return all;
+    }
+
+    // ==========================
+    // 🔹 Comparison
+    // ==========================
+
+    public Result compare(Map<String, TimingHistograms.Histogram> baseline, Map<String, TimingHistograms.Histogram> current) {
+        List<Finding> findings = new ArrayList<>();
+        for (Map.Entry<String, TimingHistograms.Histogram> e : current.entrySet()) {
+            TimingHistograms.Histogram before = baseline.get(e.getKey());
+            TimingHistograms.Histogram now = e.getValue();
+            if (before == null || before.count() == 0 || now.count() == 0) continue;
+            long was = before.percentileMicros(0.95);
+            long is = now.percentileMicros(0.95);
+            if (is <= was * (1 + tolerance) || is - was <= minMicros) continue;
+
+            Finding finding;
+            if (before.count() >= minSamples && now.count() >= minSamples) {
+                double p = mannWhitneyGreater(before.bucketCounts(), now.bucketCounts());
+                finding = new Finding(e.getKey(), was, is, before.count(), now.count(), p < alpha,
+                        String.format("Mann-Whitney p=%.4f", p));
+            } else {
+                long baselineP99 = before.percentileMicros(0.99);
+                long fastest = now.percentileMicros(0.0);
+                finding = new Finding(e.getKey(), was, is, before.count(), now.count(), fastest > baselineP99,
+                        fastest > baselineP99 ? "every sample above baseline p99" : "within baseline range");
+            }
+            findings.add(finding);
+        }
+        findings.sort((a, b) -> Double.compare(b.change(), a.change()));
+        return new Result(findings, tolerance);
+    }
+
+    /**
+     * One-sided Mann-Whitney U test on bucketed samples (bucket midpoints, ties averaged):
+     * probability of seeing current this much slower than baseline by chance
+     */
+    static double mannWhitneyGreater(long[] baseline, long[] current) {
+        long n1 = 0, n2 = 0;
+        for (int i = 0; i < baseline.length; i++) {
+            n1 += baseline[i];
+            n2 += current[i];
+        }
+        double n = n1 + n2;
+        double rankSum = 0, ties = 0, rank = 0;
+        for (int i = 0; i < baseline.length; i++) {
+            double t = baseline[i] + current[i];
+            if (t == 0) continue;
+            rankSum += current[i] * (rank + (t + 1) / 2);
+            ties += t * t * t - t;
+            rank += t;
+        }
+        double u = rankSum - n2 * (n2 + 1) / 2.0;
+        double mean = n1 * n2 / 2.0;
+        double variance = n1 * n2 / 12.0 * ((n + 1) - ties / (n * (n - 1)));
+        if (variance <= 0) return 1.0;
+        double z = (u - mean - 0.5) / Math.sqrt(variance);
+        return 1 - normalCdf(z);
+    }
+
+    private static double normalCdf(double z) {
+        // Abramowitz-Stegun 7.1.26, absolute error below 1.5e-7
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * x);
+        double erf = 1 - ((((1.061405429 * t - 1.453152027) * t + 1.421413741) * t - 0.284496736) * t + 0.254829592) * t * Math.exp(-x * x);
+        return z >= 0 ? 0.5 * (1 + erf) : 0.5 * (1 - erf);
+    }
+
+    // ==========================
+    // 🔹 Baseline file
+    // ==========================
+
+    Map<String, TimingHistograms.Histogram> loadBaseline() {
+        Map<String, TimingHistograms.Histogram> baseline = new HashMap<>();
+        if (!Files.exists(file)) return baseline;
+        try {
+            JSONObject keys = new JSONObject(Files.readString(file, StandardCharsets.UTF_8)).getJSONObject("keys");
+            for (String key : keys.keySet()) {
+                baseline.put(key, TimingHistograms.Histogram.fromJson(keys.getJSONObject(key).getJSONObject("buckets")));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Ignoring unreadable performance baseline " + file + ": " + e.getMessage());
+        }
+        return baseline;
+    }
+
+    /**
+     * Fold a run into the baseline. Past maxSamples the earlier runs are scaled down so recent
+     * runs count more, but they keep at least OLD_WEIGHT_FLOOR of maxSamples; a run with more
+     * samples than the rest of the room is scaled down itself
+     */
+    void record(Map<String, TimingHistograms.Histogram> run) throws IOException {
+        Map<String, TimingHistograms.Histogram> baseline = loadBaseline();
+        run.forEach((key, h) -> {
+            TimingHistograms.Histogram merged = new TimingHistograms.Histogram();
+            TimingHistograms.Histogram old = baseline.get(key);
+            long incoming = h.count();
+            long kept = 0;
+            if (old != null && old.count() > 0) {
+                long room = Math.max(maxSamples - incoming, (long) Math.ceil(maxSamples * OLD_WEIGHT_FLOOR));
+                kept = Math.min(old.count(), room);
+                merged.add(old, kept / (double) old.count());
+            }
+            long roomForRun = Math.max(1, maxSamples - kept);
+            merged.add(h, incoming > roomForRun ? roomForRun / (double) incoming : 1.0);
+            baseline.put(key, merged);
+        });
+
+        JSONObject keys = new JSONObject();
+        baseline.forEach((key, h) -> keys.put(key, new JSONObject()
+                .put("count", h.count())
+                .put("p50ms", h.percentileMicros(0.50) / 1000)
+                .put("p95ms", h.percentileMicros(0.95) / 1000)
+                .put("p99ms", h.percentileMicros(0.99) / 1000)
+                .put("buckets", h.toJson())));
+        AtomicFiles.writeString(file, new JSONObject()
+                .put("version", 1)
+                .put("updated", java.time.Instant.now().toString())
+                .put("keys", keys)
+                .toString(1));
+    }
+
+    // ==========================
+    // 🔹 Results
+    // ==========================
+
+    /**
+     * Findings of one check: every key whose p95 grew past the tolerance, significant or not
+     */
+    public static class Result {
+        private final List<Finding> findings;
+        private final double tolerance;
+
+        Result(List<Finding> findings, double tolerance) {
+            this.findings = findings;
+            this.tolerance = tolerance;
+        }
+
+        public List<Finding> getFindings() {
+            return Collections.unmodifiableList(findings);
+        }
+
+        public List<Finding> getRegressions() {
+            List<Finding> regressions = new ArrayList<>();
+            for (Finding f : findings) if (f.isSignificant()) regressions.add(f);
+            return regressions;
+        }
+
+        public boolean hasRegressions() {
+            return !getRegressions().isEmpty();
+        }
+
+        void print() {
+            if (findings.isEmpty()) {
+                System.out.println("✅ Performance gate: no p95 more than " + Math.round(tolerance * 100) + "% over baseline");
+                return;
+            }
+            System.out.println("⏱️ Performance gate: " + getRegressions().size() + " regression(s), "
+                    + (findings.size() - getRegressions().size()) + " slower but not significant");
+            for (Finding f : findings) System.out.println("   " + (f.isSignificant() ? "❌ " : "⚠️ ") + f);
+        }
+    }
+
+    /**
+     * One key whose p95 grew past the tolerance
+     */
+    public static class Finding {
+        private final String key;
+        private final long baselineP95Micros;
+        private final long currentP95Micros;
+        private final long baselineSamples;
+        private final long currentSamples;
+        private final boolean significant;
+        private final String evidence;
+
+        Finding(String key, long baselineP95Micros, long currentP95Micros, long baselineSamples, long currentSamples,
+                boolean significant, String evidence) {
+            this.key = key;
+            this.baselineP95Micros = baselineP95Micros;
+            this.currentP95Micros = currentP95Micros;
+            this.baselineSamples = baselineSamples;
+            this.currentSamples = currentSamples;
+            this.significant = significant;
+            this.evidence = evidence;
+        }
+
+        public String getKey() { return key; }
+        public long getBaselineP95Micros() { return baselineP95Micros; }
+        public long getCurrentP95Micros() { return currentP95Micros; }
+        public boolean isSignificant() { return significant; }
+        public String getEvidence() { return evidence; }
+
+        /** Relative change of p95 (0.25 = 25% slower) */
+        public double change() {
+            return baselineP95Micros > 0 ? (currentP95Micros - baselineP95Micros) / (double) baselineP95Micros : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: p95 %s → %s (%+.0f%%, n=%d vs %d, %s)", key,
+                    TimingHistograms.formatMicros(baselineP95Micros), TimingHistograms.formatMicros(currentP95Micros),
+                    change() * 100, baselineSamples, currentSamples, evidence);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package utils;
+
+import config.ConfigReader;
+import constants.Constants;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 🔹 PrerequisiteCircuitBreaker
+ * Run-wide circuit breaker for the prerequisites most scenarios share (login, dashboard).
+ * A prerequisite is a set of step texts (circuit.<name>.steps, a regex); a scenario
+ * depends on it when one of its steps matches.
+ * - CLOSED: everything runs; circuit.threshold consecutive failures of a prerequisite step open it
+ * - OPEN: dependent scenarios are blocked before a browser is started
+ * - HALF_OPEN: every circuit.probeSeconds one dependent scenario is let through as a probe;
+ *   if its prerequisite steps pass the circuit closes, otherwise it opens again. The probe is
+ *   remembered by scenario ID, so only its own end can send the circuit back to open
+ * Any passing prerequisite step resets the failure count.
+ */
+public class PrerequisiteCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static volatile PrerequisiteCircuitBreaker shared;
+
+    private final Map<String, Circuit> circuits = new LinkedHashMap<>();
+    private final int threshold;
+    private final long probeMillis;
+
+    public PrerequisiteCircuitBreaker(Map<String, Pattern> prerequisites, int threshold, long probeMillis) {
+        prerequisites.forEach((name, steps) -> circuits.put(name, new Circuit(name, steps)));
+        this.threshold = threshold;
+        this.probeMillis = probeMillis;
+    }
+
+    /**
+     * JVM-wide breaker from config: circuit.prerequisites (names), circuit.<name>.steps,
+     * circuit.threshold (K) and circuit.probeSeconds. circuit.enabled=false disables it.
+     */
+    public static PrerequisiteCircuitBreaker shared() {
+        PrerequisiteCircuitBreaker b = shared;
+        if (b == null) {
+            synchronized (PrerequisiteCircuitBreaker.class) {
+                b = shared;
+                if (b == null) {
+                    Map<String, Pattern> prerequisites = new LinkedHashMap<>();
+                    if (ConfigReader.getBoolean("circuit.enabled", true)) {
+                        for (String name : ConfigReader.get("circuit.prerequisites", "login,dashboard").split(",")) {
+                            name = name.trim();
+                            String regex = ConfigReader.get("circuit." + name + ".steps", defaultSteps(name));
+                            if (!name.isEmpty() && regex != null && !regex.isEmpty()) prerequisites.put(name, Pattern.compile(regex));
+                        }
+                    }
+                    b = new PrerequisiteCircuitBreaker(prerequisites,
+                            ConfigReader.getInt("circuit.threshold", 3),
+                            ConfigReader.getInt("circuit.probeSeconds", 60) * 1000L);
+                    shared = b;
+                }
+            }
+        }
+        return b;
+    }
+
+    private static String defaultSteps(String name) {
+        switch (name) {
+            case "login":
+                return "^User opens the \"" + Pattern.quote(Constants.URLs.LOGIN_PAGE) + "\" page$|^User enters valid credentials$";
+            case "dashboard":
+                return "^User should be logged in successfully$";
+            default:
+                return null;
+        }
+    }
+
+    /** The prerequisite a step belongs to, or null */
+    public String prerequisiteOf(String stepText) {
+        for (Circuit circuit : circuits.values()) {
+            if (circuit.steps.matcher(stepText).find()) return circuit.name;
+        }
+        return null;
+    }
+
+    /**
+     * Decide whether a scenario with these steps may start.
+     * @param scenarioId identifies this scenario execution (location + thread) until probeFinished
+     * @return the open prerequisite that blocks it, or null (also when it is let through as a probe)
+     */
+    public synchronized String admit(String scenarioId, List<String> scenarioSteps) {
+        long now = System.currentTimeMillis();
+        for (Circuit circuit : circuits.values()) {
+            if (circuit.state == State.CLOSED || !dependsOn(scenarioSteps, circuit)) continue;
+            if (circuit.state == State.OPEN && now - circuit.openedAt >= probeMillis) {
+                circuit.state = State.HALF_OPEN;
+                circuit.probe = scenarioId;
+                System.out.println("🔌 Circuit '" + circuit.name + "' half-open: probing with the next scenario");
+                continue;
+            }
+            circuit.blocked++;
+            return circuit.name;
+        }
+        return null;
+    }
+
+    /** A prerequisite step passed: reset its failures, and close the circuit after a successful probe */
+    public synchronized void recordSuccess(String prerequisite) {
+        Circuit circuit = circuits.get(prerequisite);
+        if (circuit == null) return;
+        circuit.consecutiveFailures = 0;
+        if (circuit.state != State.CLOSED) {
+            circuit.state = State.CLOSED;
+            circuit.probe = null;
+            System.out.println("✅ Circuit '" + prerequisite + "' closed: prerequisite is back");
+        }
+    }
+
+    /**
+     * A prerequisite step failed.
+     * @return true when this failure opened the circuit (the caller files the consolidated defect)
+     */
+    public synchronized boolean recordFailure(String prerequisite, String scenarioName, Integer caseId, String message) {
+        Circuit circuit = circuits.get(prerequisite);
+        if (circuit == null) return false;
+        circuit.consecutiveFailures++;
+        circuit.failures.add((caseId != null ? "C" + caseId + " " : "") + scenarioName
+                + (message != null ? ": " + message : ""));
+        if (circuit.state == State.HALF_OPEN) {
+            circuit.state = State.OPEN;
+            circuit.openedAt = System.currentTimeMillis();
+            circuit.probe = null;
+            System.out.println("🔌 Circuit '" + prerequisite + "' probe failed, open again");
+            return false;
+        }
+        if (circuit.state == State.CLOSED && circuit.consecutiveFailures >= threshold) {
+            circuit.state = State.OPEN;
+            circuit.openedAt = System.currentTimeMillis();
+            circuit.openCount++;
+            System.out.println("🔌 Circuit '" + prerequisite + "' OPEN after " + circuit.consecutiveFailures
+                    + " consecutive failure(s): dependent scenarios are blocked");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * End of a scenario: if it was a circuit's probe and never reached its prerequisite step, it
+     * proved nothing, so that circuit goes back to open until the next probe. Other scenarios
+     * ending meanwhile leave the half-open circuit alone.
+     */
+    public synchronized void probeFinished(String scenarioId) {
+        for (Circuit circuit : circuits.values()) {
+            if (circuit.state == State.HALF_OPEN && scenarioId.equals(circuit.probe)) {
+                circuit.state = State.OPEN;
+                circuit.openedAt = System.currentTimeMillis();
+                circuit.probe = null;
+            }
+        }
+    }
+
+    public synchronized State state(String prerequisite) {
+        Circuit circuit = circuits.get(prerequisite);
+        return circuit != null ? circuit.state : State.CLOSED;
+    }
+
+    public synchronized int consecutiveFailures(String prerequisite) {
+        Circuit circuit = circuits.get(prerequisite);
+        return circuit != null ? circuit.consecutiveFailures : 0;
+    }
+
+    /** The last failures of a prerequisite (newest last), for the consolidated defect */
+    public synchronized List<String> recentFailures(String prerequisite) {
+        Circuit circuit = circuits.get(prerequisite);
+        if (circuit == null) return new ArrayList<>();
+        List<String> all = circuit.failures;
+        return new ArrayList<>(all.subList(Math.max(0, all.size() - threshold), all.size()));
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public synchronized void printSummary() {
+        for (Circuit circuit : circuits.values()) {
+            if (circuit.openCount == 0 && circuit.blocked == 0) continue;
+            System.out.println("🔌 Circuit '" + circuit.name + "': opened " + circuit.openCount + " time(s), "
+                    + circuit.blocked + " scenario(s) blocked, now " + circuit.state);
+        }
+    }
+
+    private static boolean dependsOn(List<String> steps, Circuit circuit) {
+        for (String step : steps) {
+            if (circuit.steps.matcher(step).find()) return true;
+        }
+        return false;
+    }
+
+    private static final class Circuit {
+        final String name;
+        final Pattern steps;
+        final List<String> failures = new ArrayList<>();
+        State state = State.CLOSED;
+        // Scenario ID of the probe while HALF_OPEN
+        String probe;
+        int consecutiveFailures;
+        long openedAt;
+        int openCount;
+        int blocked;
+
+        Circuit(String name, Pattern steps) {
+            this.name = name;
+            this.steps = steps;
+        }
+    }
+}
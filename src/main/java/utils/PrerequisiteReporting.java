@@ -0,0 +1,207 @@
+package utils;
+
+import config.ConfigReader;
+import constants.Constants;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 🔹 PrerequisiteReporting
+ * What the scenario hooks report around the {@link PrerequisiteCircuitBreaker}:
+ * - a scenario blocked by an open circuit: Blocked (status 2) in TestRail, no defect of its own,
+ *   listed in the failure manifest so a rerun picks it up
+ * - defects of prerequisite failures wait until the circuit either opens (one consolidated
+ *   [PREREQUISITE DOWN] defect) or the prerequisite passes again (the defects are filed one by one)
+ */
+public class PrerequisiteReporting {
+
+    private static final int STATUS_BLOCKED = 2;
+
+    private final PrerequisiteCircuitBreaker breaker;
+    private final Path featuresDir;
+    private final Map<String, List<Runnable>> deferredDefects = new ConcurrentHashMap<>();
+    private final ThreadLocal<String> blockedBy = new ThreadLocal<>();
+    private final ThreadLocal<String> failedPrerequisite = new ThreadLocal<>();
+    private final ThreadLocal<String> scenarioId = new ThreadLocal<>();
+    private volatile Map<String, List<String>> scenarioSteps;
+
+    /**
+     * @param featuresDir feature files the scenarios' steps are looked up in (by path:line)
+     */
+    public PrerequisiteReporting(PrerequisiteCircuitBreaker breaker, Path featuresDir) {
+        this.breaker = breaker;
+        this.featuresDir = featuresDir;
+    }
+
+    // ==========================
+    // 🔹 Scenario lifecycle
+    // ==========================
+
+    /**
+     * Start of a scenario on this thread.
+     * @return the open prerequisite that blocks it, or null when it may run
+     */
+    public String admit(String location) {
+        failedPrerequisite.remove();
+        // Location alone is not unique: the same scenario may run on several threads at once
+        String id = location + "@" + Thread.currentThread().getId();
+        scenarioId.set(id);
+        String openCircuit = breaker.admit(id, stepsOf(location));
+        if (openCircuit != null) blockedBy.set(openCircuit);
+        else blockedBy.remove();
+        return openCircuit;
+    }
+
+    /** The open circuit that blocked the current scenario, or null */
+    public String blockedBy() {
+        return blockedBy.get();
+    }
+
+    /** A step finished (status name): prerequisite steps drive the circuit breaker */
+    public void stepFinished(String stepText, String status) {
+        String prerequisite = breaker.prerequisiteOf(stepText);
+        if (prerequisite == null) return;
+        if ("PASSED".equals(status)) {
+            breaker.recordSuccess(prerequisite);
+            flushDeferredDefects(prerequisite);
+        } else if ("FAILED".equals(status)) {
+            failedPrerequisite.set(prerequisite);
+        }
+    }
+
+    /** The prerequisite the current scenario failed on, or null */
+    public String failedPrerequisite() {
+        return failedPrerequisite.get();
+    }
+
+    /**
+     * The current scenario failed; counts against its failed prerequisite, if any.
+     * @return true when this failure opened the circuit
+     */
+    public boolean recordFailure(String scenarioName, Integer caseId, String message) {
+        String prerequisite = failedPrerequisite.get();
+        return prerequisite != null && breaker.recordFailure(prerequisite, scenarioName, caseId, message);
+    }
+
+    /** End of a scenario on this thread */
+    public void scenarioFinished() {
+        String id = scenarioId.get();
+        if (id != null) breaker.probeFinished(id);
+        scenarioId.remove();
+        blockedBy.remove();
+        failedPrerequisite.remove();
+    }
+
+    public void printSummary() {
+        breaker.printSummary();
+    }
+
+    // ==========================
+    // 🔹 Defects
+    // ==========================
+
+    /**
+     * File the defect of a scenario that failed on a prerequisite: the consolidated defect when
+     * its failure opened the circuit, otherwise defect (the scenario's own) once the circuit decides.
+     */
+    public void fileDefect(String prerequisite, boolean circuitOpened, TestRailJournalSender sender, int runId,
+                           int caseId, String resultKey, Runnable defect) {
+        if (circuitOpened) {
+            // One defect for the outage instead of one per scenario
+            deferredDefects.remove(prerequisite);
+            createPrerequisiteDefect(prerequisite, sender, runId, caseId, resultKey);
+        } else if (breaker.state(prerequisite) == PrerequisiteCircuitBreaker.State.CLOSED) {
+            deferredDefects.computeIfAbsent(prerequisite, k -> new CopyOnWriteArrayList<>()).add(defect);
+        }
+    }
+
+    /** End of the run: prerequisite failures that never opened a circuit still get their own defects */
+    public void flushDeferredDefects() {
+        for (String prerequisite : new ArrayList<>(deferredDefects.keySet())) flushDeferredDefects(prerequisite);
+    }
+
+    private void flushDeferredDefects(String prerequisite) {
+        List<Runnable> pending = deferredDefects.remove(prerequisite);
+        if (pending != null) pending.forEach(Runnable::run);
+    }
+
+    private void createPrerequisiteDefect(String prerequisite, TestRailJournalSender sender, int runId, int caseId, String resultKey) {
+        try {
+            StringBuilder desc = new StringBuilder();
+            desc.append("# 🔌 Prerequisite Down: ").append(prerequisite).append("\n\n");
+            desc.append("The last ").append(breaker.getThreshold()).append(" scenarios failed on the same '")
+                    .append(prerequisite).append("' step, so the circuit breaker opened. Dependent scenarios of this run ")
+                    .append("are reported as Blocked instead of failing one by one; one scenario is let through every ")
+                    .append(ConfigReader.get("circuit.probeSeconds", "60")).append("s as a probe.\n\n");
+            desc.append("## Failures\n");
+            for (String failure : breaker.recentFailures(prerequisite)) desc.append("- ").append(failure).append("\n");
+            desc.append("\n## Environment\n");
+            desc.append("- **Login page:** ").append(Constants.URLs.LOGIN_PAGE).append("\n");
+            desc.append("- **Browser:** ").append(ConfigReader.get("browser")).append("\n");
+            desc.append("- **Time:** ").append(LocalDateTime.now()).append("\n");
+            sender.recordDefect(resultKey, runId, caseId, "[PREREQUISITE DOWN] " + prerequisite, desc.toString());
+            System.out.println("✅ Consolidated defect journaled for prerequisite '" + prerequisite + "'");
+        } catch (Exception e) {
+            System.err.println("⚠️  Error creating defect: " + e.getMessage());
+        }
+    }
+
+    // ==========================
+    // 🔹 Blocked scenarios
+    // ==========================
+
+    /**
+     * Report the current scenario as blocked by its open circuit.
+     * @param sender journal sender, or null when TestRail is off
+     * @return key of the journaled Blocked result, or null when nothing was journaled
+     */
+    public String reportBlocked(String scenarioName, Integer caseId, String location, TestRailJournalSender sender, int runId) {
+        String prerequisite = blockedBy.get();
+        String reason = "Prerequisite '" + prerequisite + "' is down: " + breaker.consecutiveFailures(prerequisite)
+                + " consecutive failure(s), circuit open";
+        System.out.println("⛔ Blocked: " + scenarioName + " - " + reason);
+        if (location != null) {
+            RerunSession.current().record(location, scenarioName, caseId, "BLOCKED_PREREQUISITE", reason);
+        }
+        if (sender == null || caseId == null) return null;
+        try {
+            String comment = "**Automated Test Execution**\n\n" +
+                    "**Scenario:** " + scenarioName + "\n" +
+                    "**Status:** ⛔ BLOCKED\n" +
+                    "**Reason:** " + reason + " (see the [PREREQUISITE DOWN] defect of this run)\n" +
+                    "**Executed:** " + LocalDateTime.now() + "\n";
+            return sender.recordResult(runId, caseId, STATUS_BLOCKED, comment);
+        } catch (Exception e) {
+            System.err.println("❌ TestRail update failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Step texts of a scenario from the compiled feature files (cached under target/) */
+    private List<String> stepsOf(String location) {
+        if (scenarioSteps == null) {
+            synchronized (this) {
+                if (scenarioSteps == null) {
+                    Map<String, List<String>> steps = new HashMap<>();
+                    try {
+                        for (ScenarioCatalog.Scenario s : ScenarioCatalog.parse(featuresDir)) {
+                            steps.put(ScenarioCatalog.location(s.getFile().toUri(), s.getLine()), s.getSteps());
+                        }
+                    } catch (Exception e) {
+                        System.err.println("⚠️ Could not compile features for the circuit breaker: " + e.getMessage());
+                    }
+                    scenarioSteps = steps;
+                }
+            }
+        }
+        return scenarioSteps.getOrDefault(location, Collections.emptyList());
+    }
+}
@@ -0,0 +1,363 @@
+package utils;
+
+import config.ConfigReader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 🔹 ReportBundler
+ * Packages the Extent report plus the screenshot files into ZIP bundles that are streamed
+ * straight into the TestRail upload through a pipe, so no bundle is ever held in memory
+ * or written to disk.
+ * - Screenshots (PNG) are already compressed: they are STORED, with their CRC32 computed
+ *   in parallel up front; only text entries (the HTML report) are deflated
+ * - Entries are packed into parts no larger than report.bundle.maxBytes (default 20 MB),
+ *   so TestRail's attachment limit is never exceeded
+ * - Screenshots are stored under the report's own link prefix (screenshot.rel.path), so the
+ *   unpacked bundle displays them; {@link #inlineScreenshots} is the fallback for a single
+ *   HTML file (report.bundle.enabled=false)
+ * - Several reports sharing one screenshot directory (a merged report split in files) go
+ *   into one bundle, so their screenshots are uploaded once
+ * - A retry sends only the parts its {@link Progress} has not seen delivered yet; a single
+ *   file larger than a part fails the bundle with {@link EntryTooLargeException}
+ */
+public class ReportBundler {
+
+    private static final long DEFAULT_MAX_PART_BYTES = 20L * 1024 * 1024;
+    // Local header + central directory overhead per entry, generously rounded up
+    private static final long ENTRY_OVERHEAD = 512;
+
+    /** Remembers which parts of a bundle already reached TestRail, so a retry sends only the rest */
+    public interface Progress {
+        Progress NONE = new Progress() {
+            @Override
+            public boolean isDelivered(String partName) {
+                return false;
+            }
+
+            @Override
+            public void delivered(String partName) {
+            }
+        };
+
+        boolean isDelivered(String partName);
+
+        void delivered(String partName) throws IOException;
+    }
+
+    private final List<File> reports;
+    private final File screenshotDir;
+    private final String screenshotPrefix;
+    private final long maxPartBytes;
+
+    /** Bundler for an Extent report: screenshots from where its links point (screenshot.rel.path) */
+    public static ReportBundler forReport(File report) {
+        String prefix = ExtentReportManager.screenshotRelativePath();
+        return new ReportBundler(report, new File(report.getAbsoluteFile().getParentFile(), prefix), prefix, maxPartBytes());
+    }
+
+    /** report.bundle.maxBytes */
+    static long maxPartBytes() {
+        return Long.parseLong(ConfigReader.get("report.bundle.maxBytes", String.valueOf(DEFAULT_MAX_PART_BYTES)));
+    }
+
+    public ReportBundler(File report, File screenshotDir, long maxPartBytes) {
+        this(report, screenshotDir, "screenshots/", maxPartBytes);
+    }
+
+    public ReportBundler(File report, File screenshotDir, String screenshotPrefix, long maxPartBytes) {
+        this(report != null ? List.of(report) : List.of(), screenshotDir, screenshotPrefix, maxPartBytes);
+    }
+
+    /** One bundle for several reports linking into the same screenshot directory; the first names it */
+    public ReportBundler(List<File> reports, File screenshotDir, String screenshotPrefix, long maxPartBytes) {
+        this.reports = List.copyOf(reports);
+        this.screenshotDir = screenshotDir;
+        this.screenshotPrefix = screenshotPrefix.endsWith("/") ? screenshotPrefix : screenshotPrefix + "/";
+        this.maxPartBytes = maxPartBytes;
+    }
+
+    /**
+     * Upload the report bundle(s) to a TestRail result, stopping at the first part TestRail
+     * refuses (the whole bundle is uploaded again on a later attempt).
+     * @return true when every part was uploaded, false when there was nothing to bundle
+     * @throws TestRailApiException for the part TestRail refused
+     */
+    public boolean uploadTo(Client client, int resultId) throws IOException {
+        return uploadTo(client, resultId, Progress.NONE);
+    }
+
+    /**
+     * Upload the parts progress has not seen delivered, stopping at the first part TestRail
+     * refuses; every part that lands is reported to progress right away.
+     * @return true when every part is delivered, false when there was nothing to bundle
+     * @throws TestRailApiException for the part TestRail refused
+     * @throws EntryTooLargeException when one file alone exceeds the part size (nothing is uploaded)
+     */
+    public boolean uploadTo(Client client, int resultId, Progress progress) throws IOException {
+        List<Part> parts = plan();
+        if (parts.isEmpty() || reports.isEmpty()) {
+            System.out.println("⚠️ Nothing to bundle for result " + resultId);
+            return false;
+        }
+
+        String stem = reports.get(0).getName().replaceFirst("\\.html?$", "");
+        for (int i = 0; i < parts.size(); i++) {
+            String name = parts.size() == 1 ? stem + ".zip" : stem + "_part" + (i + 1) + "of" + parts.size() + ".zip";
+            if (progress.isDelivered(name)) {
+                System.out.println("📦 " + name + " already attached, skipped");
+                continue;
+            }
+            Part part = parts.get(i);
+            System.out.println("📦 Streaming bundle " + name + " (" + part.entries.size() + " files, ≤ " + (part.bytes / 1024) + " KB)");
+            if (!client.uploadStreamToResult(resultId, name, "application/zip", () -> open(part))) return false;
+            progress.delivered(name);
+        }
+        return true;
+    }
+
+    // ==========================
+    // 🔹 Planning
+    // ==========================
+
+    /**
+     * Group the files into parts, reports first.
+     * @throws EntryTooLargeException when a file does not fit in a part on its own
+     */
+    List<Part> plan() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (File report : reports) {
+            if (report.isFile()) entries.add(new Entry(report, report.getName(), false));
+        }
+
+        File[] shots = screenshotDir != null && screenshotDir.isDirectory()
+                ? screenshotDir.listFiles(f -> f.isFile() && f.getName().toLowerCase().endsWith(".png"))
+                : null;
+        if (shots != null) {
+            Arrays.sort(shots, Comparator.comparing(File::getName));
+            for (File shot : shots) entries.add(new Entry(shot, screenshotPrefix + shot.getName(), true));
+        }
+
+        for (Entry entry : entries) {
+            if (entry.file.length() + ENTRY_OVERHEAD > maxPartBytes) {
+                throw new EntryTooLargeException(entry.name + " (" + entry.file.length() / 1024
+                        + " KB) does not fit in a bundle part of report.bundle.maxBytes=" + maxPartBytes);
+            }
+        }
+        computeCrcsInParallel(entries);
+
+        List<Part> parts = new ArrayList<>();
+        Part current = new Part();
+        for (Entry entry : entries) {
+            long cost = entry.file.length() + ENTRY_OVERHEAD;
+            if (!current.entries.isEmpty() && current.bytes + cost > maxPartBytes) {
+                parts.add(current);
+                current = new Part();
+            }
+            current.entries.add(entry);
+            current.bytes += cost;
+        }
+        if (!current.entries.isEmpty()) parts.add(current);
+        return parts;
+    }
+
+    private void computeCrcsInParallel(List<Entry> entries) throws IOException {
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Entry entry : entries) {
+                if (entry.stored) futures.add(pool.submit(() -> {
+                    entry.crc = crcOf(entry.file);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } catch (Exception e) {
+            throw new IOException("Failed to checksum screenshots: " + e.getMessage(), e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static long crcOf(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buf = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(buf)) > 0) crc.update(buf, 0, n);
+        }
+        return crc.getValue();
+    }
+
+    // ==========================
+    // 🔹 Single-file fallback
+    // ==========================
+
+    /**
+     * Copy of the report (in a temp directory, same file name) with every screenshot link
+     * replaced by a Base64 data URI, for uploads of the bare HTML. Read and written line by
+     * line, so only one image is encoded in memory at a time.
+     */
+    public static File inlineScreenshots(File report, File screenshotDir, String screenshotPrefix) throws IOException {
+        Pattern link = Pattern.compile(Pattern.quote(screenshotPrefix) + "([^\"'\\s<>/]+\\.png)");
+        Path copy = Files.createTempDirectory("report-inline").resolve(report.getName());
+        copy.toFile().deleteOnExit();
+        copy.getParent().toFile().deleteOnExit();
+        try (BufferedReader in = Files.newBufferedReader(report.toPath(), StandardCharsets.UTF_8);
+             BufferedWriter out = Files.newBufferedWriter(copy, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                Matcher m = link.matcher(line);
+                StringBuilder inlined = new StringBuilder(line.length());
+                while (m.find()) {
+                    File shot = new File(screenshotDir, m.group(1));
+                    String replacement = shot.isFile()
+                            ? "data:image/png;base64," + Base64.getEncoder().encodeToString(Files.readAllBytes(shot.toPath()))
+                            : m.group();
+                    m.appendReplacement(inlined, Matcher.quoteReplacement(replacement));
+                }
+                m.appendTail(inlined);
+                out.write(inlined.toString());
+                out.newLine();
+            }
+        }
+        return copy.toFile();
+    }
+
+    // ==========================
+    // 🔹 Streaming
+    // ==========================
+
+    /**
+     * Stream one part as a ZIP: a writer thread fills the pipe while the upload drains it.
+     * A failed write surfaces as an IOException at the reader's end of the stream, so a
+     * truncated ZIP is never uploaded as if it were complete.
+     */
+    InputStream open(Part part) throws IOException {
+        PipedInputStream in = new PipedInputStream(256 * 1024);
+        PipedOutputStream pipe = new PipedOutputStream(in);
+        BundleStream stream = new BundleStream(in);
+        Thread writer = new Thread(() -> {
+            try {
+                writeZip(part, pipe);
+            } catch (IOException | RuntimeException e) {
+                // Recorded before the pipe closes: the reader checks it when it reaches the end
+                stream.failure = e;
+                System.err.println("⚠️ Report bundling failed: " + e.getMessage());
+            } finally {
+                try {
+                    pipe.close();
+                } catch (IOException ignored) {
+                    // reader already gone
+                }
+            }
+        }, "report-bundler");
+        writer.setDaemon(true);
+        writer.start();
+        return stream;
+    }
+
+    /** Reading end of the pipe: the end of the stream is only clean when the writer finished */
+    private static final class BundleStream extends FilterInputStream {
+        private volatile Exception failure;
+
+        BundleStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return checked(super.read());
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return checked(super.read(b, off, len));
+        }
+
+        private int checked(int n) throws IOException {
+            Exception e = failure;
+            if (n < 0 && e != null) throw new IOException("Report bundle incomplete: " + e.getMessage(), e);
+            return n;
+        }
+    }
+
+    private static void writeZip(Part part, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        zip.setLevel(Deflater.BEST_SPEED);
+        byte[] buf = new byte[64 * 1024];
+        for (Entry entry : part.entries) {
+            ZipEntry ze = new ZipEntry(entry.name);
+            ze.setTime(entry.file.lastModified());
+            if (entry.stored) {
+                ze.setMethod(ZipEntry.STORED);
+                ze.setSize(entry.file.length());
+                ze.setCompressedSize(entry.file.length());
+                ze.setCrc(entry.crc);
+            } else {
+                ze.setMethod(ZipEntry.DEFLATED);
+            }
+            zip.putNextEntry(ze);
+            try (InputStream in = new FileInputStream(entry.file)) {
+                int n;
+                while ((n = in.read(buf)) > 0) zip.write(buf, 0, n);
+            }
+            zip.closeEntry();
+        }
+        zip.finish();
+    }
+
+    static class Entry {
+        final File file;
+        final String name;
+        final boolean stored;
+        long crc;
+
+        Entry(File file, String name, boolean stored) {
+            this.file = file;
+            this.name = name;
+            this.stored = stored;
+        }
+    }
+
+    static class Part {
+        final List<Entry> entries = new ArrayList<>();
+        long bytes;
+    }
+
+    /** A single file larger than a bundle part: uploading it would exceed TestRail's limit, on every retry */
+    public static class EntryTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        EntryTooLargeException(String message) {
+            super(message);
+        }
+    }
+}
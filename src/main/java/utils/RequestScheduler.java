@@ -0,0 +1,416 @@
+package utils;
+
+import config.ConfigReader;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 🔹 RequestScheduler
+ * Every TestRail call goes through here so the whole JVM stays inside the instance's API limit.
+ * - Token bucket: testrail.rateLimit.perMinute requests/minute, bursts up to testrail.rateLimit.burst
+ * - At most testrail.maxConcurrentRequests calls in flight; a call keeps its slot until its
+ *   response is closed, so a body still streaming in counts against the limit
+ * - 429 is retried for every call (TestRail rejected it, nothing was processed), honouring Retry-After
+ * - 5xx and network errors are retried only for idempotent calls (GET/HEAD)
+ * - Backoff uses full jitter so parallel runs do not retry in lockstep
+ * Throttle counts and queue latency are reported by {@link #printStats()}.
+ * HttpTransport.shutdown() also shuts the shared scheduler down; the next shared() builds a
+ * new one on the new client.
+ */
+public class RequestScheduler {
+
+    private static volatile RequestScheduler shared;
+
+    private final OkHttpClient httpClient;
+    private final TokenBucket bucket;
+    private final Semaphore inFlight;
+    private final int maxRetries;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    // Waits for slots/tokens and retry delays of async calls; the HTTP I/O itself runs on OkHttp's dispatcher
+    private final ScheduledExecutorService asyncExecutor;
+
+    // Stats
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong queueNanosTotal = new AtomicLong();
+    private final AtomicLong queueNanosMax = new AtomicLong();
+
+    public RequestScheduler(OkHttpClient httpClient, double permitsPerSecond, int burst, int maxConcurrent,
+                            int maxRetries, long baseBackoffMillis, long maxBackoffMillis) {
+        this.httpClient = httpClient;
+        this.bucket = new TokenBucket(permitsPerSecond, burst);
+        this.inFlight = new Semaphore(maxConcurrent, true);
+        this.maxRetries = maxRetries;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.asyncExecutor = Executors.newScheduledThreadPool(Math.max(1, maxConcurrent), r -> {
+            Thread t = new Thread(r, "testrail-async");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** JVM-wide scheduler: the API limit is per TestRail instance, not per client */
+    public static RequestScheduler shared() {
+        RequestScheduler s = shared;
+        if (s == null) {
+            synchronized (RequestScheduler.class) {
+                s = shared;
+                if (s == null) {
+                    s = new RequestScheduler(HttpTransport.shared(),
+                            ConfigReader.getInt("testrail.rateLimit.perMinute", 180) / 60.0,
+                            ConfigReader.getInt("testrail.rateLimit.burst", 10),
+                            ConfigReader.getInt("testrail.maxConcurrentRequests", 4),
+                            ConfigReader.getInt("testrail.maxRetries", 5),
+                            500, 30_000);
+                    shared = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    /** Shut the JVM-wide scheduler down and forget it (called by HttpTransport.shutdown()) */
+    static void shutdownShared() {
+        RequestScheduler s;
+        synchronized (RequestScheduler.class) {
+            s = shared;
+            shared = null;
+        }
+        if (s != null) s.shutdown();
+    }
+
+    /**
+     * Stop the async executor. Retries already scheduled still run; new async calls and
+     * further retries complete exceptionally.
+     */
+    public void shutdown() {
+        asyncExecutor.shutdown();
+    }
+
+    /**
+     * Execute with rate limiting and retries. Idempotency is derived from the HTTP method.
+     */
+    public Response execute(Request request) throws IOException {
+        return execute(request, isIdempotent(request));
+    }
+
+    /**
+     * Execute with rate limiting and retries. The returned response may still be non-2xx
+     * once retries are exhausted; the caller reads and closes it as usual.
+     */
+    public Response execute(Request request, boolean idempotent) throws IOException {
+        requests.incrementAndGet();
+        for (int attempt = 0; ; attempt++) {
+            acquire();
+            Response response;
+            try {
+                response = releaseOnClose(httpClient.newCall(request).execute());
+            } catch (IOException e) {
+                inFlight.release();
+                if (!idempotent || attempt >= maxRetries) throw e;
+                retries.incrementAndGet();
+                sleep(backoff(attempt, -1));
+                continue;
+            }
+
+            int code = response.code();
+            boolean retryable = code == 429 || (idempotent && (code == 502 || code == 503 || code == 504));
+            if (!retryable || attempt >= maxRetries) return response;
+
+            if (code == 429) throttled.incrementAndGet();
+            retries.incrementAndGet();
+            long retryAfter = parseRetryAfter(response.header("Retry-After"));
+            response.close();
+            long wait = backoff(attempt, retryAfter);
+            if (code == 429) {
+                System.out.println("⏳ TestRail throttled request (429), retrying in " + wait + " ms");
+                // Hold back everyone else too: the limit applies to the whole instance
+                bucket.pauseFor(wait);
+            }
+            sleep(wait);
+        }
+    }
+
+    /**
+     * Non-blocking variant built on OkHttp's enqueue: same rate limit, concurrency bound
+     * and retry policy as {@link #execute(Request, boolean)}. The future completes with the
+     * final response (possibly non-2xx), which the caller must close.
+     */
+    public CompletableFuture<Response> executeAsync(Request request) {
+        return executeAsync(request, isIdempotent(request));
+    }
+
+    public CompletableFuture<Response> executeAsync(Request request, boolean idempotent) {
+        requests.incrementAndGet();
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        try {
+            asyncExecutor.execute(() -> attemptAsync(request, idempotent, 0, future));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new IOException("TestRail request scheduler is shut down", e));
+        }
+        return future;
+    }
+
+    private void attemptAsync(Request request, boolean idempotent, int attempt, CompletableFuture<Response> future) {
+        try {
+            acquire();
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        httpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                inFlight.release();
+                if (!idempotent || attempt >= maxRetries) {
+                    future.completeExceptionally(e);
+                    return;
+                }
+                retries.incrementAndGet();
+                retryLater(request, idempotent, attempt, backoff(attempt, -1), future);
+            }
+
+            @Override
+            public void onResponse(Call call, Response received) {
+                Response response = releaseOnClose(received);
+                int code = response.code();
+                boolean retryable = code == 429 || (idempotent && (code == 502 || code == 503 || code == 504));
+                if (!retryable || attempt >= maxRetries) {
+                    future.complete(response);
+                    return;
+                }
+                if (code == 429) throttled.incrementAndGet();
+                retries.incrementAndGet();
+                long wait = backoff(attempt, parseRetryAfter(response.header("Retry-After")));
+                response.close();
+                if (code == 429) bucket.pauseFor(wait);
+                retryLater(request, idempotent, attempt, wait, future);
+            }
+        });
+    }
+
+    private void retryLater(Request request, boolean idempotent, int attempt, long delayMillis, CompletableFuture<Response> future) {
+        try {
+            asyncExecutor.schedule(() -> attemptAsync(request, idempotent, attempt + 1, future), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new IOException("TestRail request scheduler is shut down", e));
+        }
+    }
+
+    /** Hand the in-flight slot over to the response: it is released when the body is closed */
+    private Response releaseOnClose(Response response) {
+        ResponseBody body = response.body();
+        if (body == null) {
+            inFlight.release();
+            return response;
+        }
+        return response.newBuilder().body(new SlotReleasingBody(body, inFlight)).build();
+    }
+
+    static boolean isIdempotent(Request request) {
+        String method = request.method();
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
+    private void acquire() throws IOException {
+        long start = System.nanoTime();
+        try {
+            inFlight.acquire();
+            try {
+                bucket.take();
+            } catch (InterruptedException e) {
+                inFlight.release();
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a TestRail request slot");
+        }
+        long waited = System.nanoTime() - start;
+        queueNanosTotal.addAndGet(waited);
+        queueNanosMax.accumulateAndGet(waited, Math::max);
+    }
+
+    /** Retry-After wins when present; otherwise exponential backoff with full jitter */
+    long backoff(int attempt, long retryAfterMillis) {
+        if (retryAfterMillis >= 0) {
+            // Small jitter on top so clients released at the same moment spread out
+            return retryAfterMillis + ThreadLocalRandom.current().nextLong(0, Math.max(1, baseBackoffMillis));
+        }
+        long cap = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 16));
+        return ThreadLocalRandom.current().nextLong(0, cap + 1);
+    }
+
+    static long parseRetryAfter(String header) {
+        if (header == null || header.isBlank()) return -1;
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(header.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                long at = java.time.ZonedDateTime.parse(header.trim(),
+                        java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                return Math.max(0, at - System.currentTimeMillis());
+            } catch (Exception ignored) {
+                return -1;
+            }
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during TestRail retry backoff");
+        }
+    }
+
+    // ==========================
+    // 🔹 Stats
+    // ==========================
+
+    public long getRequestCount() { return requests.get(); }
+    public long getThrottleCount() { return throttled.get(); }
+    public long getRetryCount() { return retries.get(); }
+
+    public double getAverageQueueMillis() {
+        long n = requests.get() + retries.get();
+        return n == 0 ? 0 : queueNanosTotal.get() / 1e6 / n;
+    }
+
+    public double getMaxQueueMillis() {
+        return queueNanosMax.get() / 1e6;
+    }
+
+    public void printStats() {
+        System.out.println("📊 TestRail API: " + getRequestCount() + " requests, "
+                + getThrottleCount() + " throttled (429), " + getRetryCount() + " retries, queue latency avg "
+                + String.format("%.1f", getAverageQueueMillis()) + " ms / max "
+                + String.format("%.1f", getMaxQueueMillis()) + " ms");
+    }
+
+    /**
+     * Response body that gives the in-flight slot back once, when it is closed (directly,
+     * through Response.close() or by string()/bytes() reading it to the end)
+     */
+    private static final class SlotReleasingBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final Semaphore slots;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private BufferedSource source;
+
+        SlotReleasingBody(ResponseBody delegate, Semaphore slots) {
+            this.delegate = delegate;
+            this.slots = slots;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public synchronized BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            release();
+                        }
+                    }
+                });
+            }
+            return source;
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) slots.release();
+        }
+    }
+
+    /**
+     * Classic token bucket refilled continuously; take() blocks until a token is available
+     */
+    static class TokenBucket {
+        private final double permitsPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill;
+        private long pausedUntil;
+
+        TokenBucket(double permitsPerSecond, int burst) {
+            this.permitsPerNano = permitsPerSecond / 1e9;
+            this.capacity = Math.max(1, burst);
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        void take() throws InterruptedException {
+            while (true) {
+                long waitNanos;
+                synchronized (this) {
+                    long now = System.nanoTime();
+                    if (now < pausedUntil) {
+                        waitNanos = pausedUntil - now;
+                    } else {
+                        tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+                        lastRefill = now;
+                        if (tokens >= 1) {
+                            tokens -= 1;
+                            return;
+                        }
+                        waitNanos = (long) Math.ceil((1 - tokens) / permitsPerNano);
+                    }
+                }
+                TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1_000_000));
+            }
+        }
+
+        /** Stop handing out tokens for a while (server told us to back off) and drop the burst */
+        synchronized void pauseFor(long millis) {
+            pausedUntil = Math.max(pausedUntil, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+            tokens = 0;
+            lastRefill = pausedUntil;
+        }
+    }
+}
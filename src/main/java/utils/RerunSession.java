@@ -0,0 +1,133 @@
+package utils;
+
+import config.ConfigReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🔹 RerunSession
+ * Per-run state shared by TestRunner, its retry analyzer and Hooks:
+ * - the failure manifest of the previous run (what -Drerun.failed=true re-executes)
+ *   and the one this run writes
+ * - attempts per scenario, against the rerun retry budget (rerun.retries)
+ * - the flake history, updated with every scenario's final outcome
+ * Scenarios are identified by location, see {@link ScenarioCatalog#location}.
+ */
+public final class RerunSession {
+
+    private static final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+    private static final Map<String, String> lastFailure = new ConcurrentHashMap<>();
+    private static volatile FailureManifest previous;
+    private static volatile FailureManifest current;
+    private static volatile FlakeHistory history;
+
+    private RerunSession() {}
+
+    /** -Drerun.failed=true (or rerun.failed): run only what the previous run's manifest lists */
+    public static boolean enabled() {
+        return Boolean.parseBoolean(System.getProperty("rerun.failed", ConfigReader.get("rerun.failed", "false")).trim());
+    }
+
+    /** Extra attempts a rerun scenario gets after its first one fails (rerun.retries) */
+    public static int retryBudget() {
+        return Integer.parseInt(System.getProperty("rerun.retries", ConfigReader.get("rerun.retries", "2")).trim());
+    }
+
+    public static Path manifestPath() {
+        return Path.of(System.getProperty("rerun.manifest", ConfigReader.get("rerun.manifest", FailureManifest.DEFAULT_PATH)));
+    }
+
+    /** Failures of the previous run, loaded once before this run overwrites the file */
+    public static synchronized FailureManifest previous() {
+        if (previous == null) previous = FailureManifest.load(manifestPath());
+        return previous;
+    }
+
+    /** Failures of this run */
+    public static synchronized FailureManifest current() {
+        if (current == null) {
+            previous();
+            current = FailureManifest.create(manifestPath());
+        }
+        return current;
+    }
+
+    public static synchronized FlakeHistory history() {
+        if (history == null) {
+            history = FlakeHistory.load(Path.of(System.getProperty("rerun.flakeHistory",
+                    ConfigReader.get("rerun.flakeHistory", FlakeHistory.DEFAULT_PATH))));
+        }
+        return history;
+    }
+
+    /** Forget attempts, manifests and history, e.g. before a second run in the same JVM */
+    public static synchronized void reset() {
+        attempts.clear();
+        lastFailure.clear();
+        previous = null;
+        current = null;
+        history = null;
+    }
+
+    /** Count the attempt that is starting; returns its number (1 = first) */
+    public static int startAttempt(String location) {
+        return attempts.merge(location, 1, Integer::sum);
+    }
+
+    public static int attempts(String location) {
+        return attempts.getOrDefault(location, 0);
+    }
+
+    /** Whether a failure of the current attempt will be retried */
+    public static boolean willRetry(String location) {
+        return enabled() && attempts(location) <= retryBudget();
+    }
+
+    /** Whether a pass now means the scenario is flaky: it failed before, in this run or the previous one */
+    public static boolean isRetryPass(String location) {
+        return attempts(location) > 1 || (enabled() && previous().contains(location));
+    }
+
+    /**
+     * Final outcome of a scenario whose last attempt just ended: a pass after an earlier failure
+     * is flaky, a failure once the retries are used up is a genuine failure
+     */
+    public static FlakeHistory.Outcome outcome(String location, boolean passed) {
+        if (!passed) return FlakeHistory.Outcome.FAILED;
+        return isRetryPass(location) ? FlakeHistory.Outcome.FLAKY : FlakeHistory.Outcome.PASSED;
+    }
+
+    /** Remember why an attempt failed, so the passing retry can say what it recovered from */
+    public static void attemptFailed(String location, String failureType) {
+        lastFailure.put(location, failureType);
+    }
+
+    /** Failure type of the last failed attempt in this run, else the one from the previous run's manifest */
+    public static String previousFailure(String location) {
+        String failure = lastFailure.get(location);
+        if (failure != null) return failure;
+        FailureManifest.Entry entry = enabled() ? previous().get(location) : null;
+        return entry != null ? entry.getFailureType() : null;
+    }
+
+    /** Write this run's manifest and add its outcomes to the flake history */
+    public static void finish() {
+        try {
+            current().write();
+            if (!current().isEmpty()) {
+                System.out.println("📝 " + current().size() + " failed scenario(s) written to " + manifestPath()
+                        + " - rerun them with -Drerun.failed=true");
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not write failure manifest: " + e.getMessage());
+        }
+        try {
+            history().save();
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not save flake history: " + e.getMessage());
+        }
+    }
+}
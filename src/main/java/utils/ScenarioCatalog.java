@@ -0,0 +1,226 @@
+package utils;
+
+import io.cucumber.gherkin.GherkinParser;
+import io.cucumber.messages.types.Envelope;
+import io.cucumber.messages.types.Examples;
+import io.cucumber.messages.types.FeatureChild;
+import io.cucumber.messages.types.GherkinDocument;
+import io.cucumber.messages.types.Pickle;
+import io.cucumber.messages.types.PickleStep;
+import io.cucumber.messages.types.PickleTag;
+import io.cucumber.messages.types.RuleChild;
+import io.cucumber.messages.types.TableRow;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 🔹 ScenarioCatalog
+ * Compiles .feature files into their scenarios (one per pickle, so every Examples row is its
+ * own entry) with the same Gherkin parser Cucumber uses. Entries are keyed by absolute file
+ * path + line, which is exactly what io.cucumber.testng.Pickle exposes (getUri/getLine), so
+ * the runner can match them against the scenarios Cucumber hands to TestNG.
+ */
+public class ScenarioCatalog {
+
+    private ScenarioCatalog() {}
+
+    /**
+     * Every scenario of every .feature file under the directory, in file order. Unchanged
+     * files come from the parse cache under target/ instead of being parsed again.
+     */
+    public static List<Scenario> parse(Path featuresDir) throws IOException {
+        GherkinParseCache cache = GherkinParseCache.load(Path.of(GherkinParseCache.DEFAULT_PATH));
+        List<Scenario> scenarios = parse(featuresDir, cache);
+        try {
+            cache.save();
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not save the Gherkin parse cache: " + e.getMessage());
+        }
+        return scenarios;
+    }
+
+    /**
+     * @param cache parse cache to consult and fill (null = always parse)
+     */
+    public static List<Scenario> parse(Path featuresDir, GherkinParseCache cache) throws IOException {
+        if (!Files.isDirectory(featuresDir)) return Collections.emptyList();
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(featuresDir)) {
+            files = walk.filter(p -> p.toString().endsWith(".feature")).sorted().collect(Collectors.toList());
+        }
+        List<List<Scenario>> perFile;
+        try {
+            // Misses are parsed concurrently; order is preserved by the stream
+            perFile = files.parallelStream().map(file -> load(file, cache)).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        List<Scenario> scenarios = new ArrayList<>();
+        for (List<Scenario> fileScenarios : perFile) {
+            scenarios.addAll(fileScenarios);
+        }
+        return scenarios;
+    }
+
+    /**
+     * Machine-independent location of a scenario: feature path relative to the working
+     * directory + ":" + line (e.g. "src/test/resources/features/TestCase_40.feature:5")
+     */
+    public static String location(URI uri, int line) {
+        String location = uri.toString();
+        if ("file".equals(uri.getScheme())) {
+            Path path = Path.of(uri).toAbsolutePath().normalize();
+            Path cwd = Path.of("").toAbsolutePath();
+            location = path.startsWith(cwd) ? cwd.relativize(path).toString().replace('\\', '/') : path.toString();
+        }
+        return location + ":" + line;
+    }
+
+    private static List<Scenario> load(Path file, GherkinParseCache cache) {
+        try {
+            if (cache == null) return parseFile(file);
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            long size = attrs.size();
+            long modified = attrs.lastModifiedTime().toMillis();
+            List<Scenario> cached = cache.getIfUnmodified(file, size, modified);
+            if (cached != null) return cached;
+
+            byte[] source = Files.readAllBytes(file);
+            String hash = sha256(source);
+            cached = cache.get(file, hash, size, modified);
+            if (cached != null) return cached;
+            List<Scenario> parsed = parseSource(file, source);
+            cache.put(file, hash, size, modified, parsed);
+            return parsed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static List<Scenario> parseFile(Path file) throws IOException {
+        return parseSource(file, Files.readAllBytes(file));
+    }
+
+    private static List<Scenario> parseSource(Path file, byte[] source) {
+        Path absolute = file.toAbsolutePath().normalize();
+        AtomicInteger ids = new AtomicInteger();
+        GherkinParser parser = GherkinParser.builder()
+                .includeSource(false)
+                .includeGherkinDocument(true)
+                .includePickles(true)
+                .idGenerator(() -> Integer.toString(ids.incrementAndGet()))
+                .build();
+
+        List<Envelope> envelopes;
+        try (Stream<Envelope> stream = parser.parse(absolute.toString(), source)) {
+            envelopes = stream.collect(Collectors.toList());
+        }
+
+        Map<String, Integer> lines = new HashMap<>();
+        List<Scenario> scenarios = new ArrayList<>();
+        for (Envelope envelope : envelopes) {
+            envelope.getParseError().ifPresent(error ->
+                    System.err.println("⚠️ Gherkin parse error in " + absolute + ": " + error.getMessage()));
+            envelope.getGherkinDocument().ifPresent(doc -> indexLines(doc, lines));
+            envelope.getPickle().ifPresent(pickle -> scenarios.add(toScenario(absolute, pickle, lines)));
+        }
+        return scenarios;
+    }
+
+    private static Scenario toScenario(Path file, Pickle pickle, Map<String, Integer> lines) {
+        List<String> astIds = pickle.getAstNodeIds();
+        int scenarioLine = lines.getOrDefault(astIds.get(0), 0);
+        // Outline pickles carry the Examples row as their last AST node
+        int line = astIds.size() > 1 ? lines.getOrDefault(astIds.get(astIds.size() - 1), scenarioLine) : scenarioLine;
+
+        List<String> tags = new ArrayList<>();
+        for (PickleTag tag : pickle.getTags()) tags.add(tag.getName());
+        List<String> steps = new ArrayList<>();
+        for (PickleStep step : pickle.getSteps()) steps.add(step.getText());
+        return new Scenario(file, line, scenarioLine, pickle.getName(), tags, steps);
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void indexLines(GherkinDocument doc, Map<String, Integer> lines) {
+        doc.getFeature().ifPresent(feature -> {
+            for (FeatureChild child : feature.getChildren()) {
+                child.getScenario().ifPresent(s -> indexScenario(s, lines));
+                child.getRule().ifPresent(rule -> {
+                    for (RuleChild ruleChild : rule.getChildren()) {
+                        ruleChild.getScenario().ifPresent(s -> indexScenario(s, lines));
+                    }
+                });
+            }
+        });
+    }
+
+    private static void indexScenario(io.cucumber.messages.types.Scenario scenario, Map<String, Integer> lines) {
+        lines.put(scenario.getId(), scenario.getLocation().getLine().intValue());
+        for (Examples examples : scenario.getExamples()) {
+            for (TableRow row : examples.getTableBody()) {
+                lines.put(row.getId(), row.getLocation().getLine().intValue());
+            }
+        }
+    }
+
+    /**
+     * One executable scenario (pickle): where it is, its tags and its step texts
+     */
+    public static class Scenario {
+        private final Path file;
+        private final int line;
+        private final int scenarioLine;
+        private final String name;
+        private final List<String> tags;
+        private final List<String> steps;
+
+        public Scenario(Path file, int line, int scenarioLine, String name, List<String> tags, List<String> steps) {
+            this.file = file;
+            this.line = line;
+            this.scenarioLine = scenarioLine;
+            this.name = name;
+            this.tags = Collections.unmodifiableList(tags);
+            this.steps = Collections.unmodifiableList(steps);
+        }
+
+        public Path getFile() { return file; }
+        public int getLine() { return line; }
+        public int getScenarioLine() { return scenarioLine; }
+        public String getName() { return name; }
+        public List<String> getTags() { return tags; }
+        public List<String> getSteps() { return steps; }
+
+        /** absolute-path:line, the identity shared with io.cucumber.testng.Pickle */
+        public String getKey() {
+            return key(file, line);
+        }
+
+        public static String key(Path file, int line) {
+            return file.toAbsolutePath().normalize() + ":" + line;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package utils;
+
+import config.ConfigReader;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🔹 ScenarioTimings
+ * How long each scenario took in previous runs, persisted as JSON so the next run can
+ * balance shards by duration. Scenarios are keyed by their @CaseID_ tag, or by
+ * feature path (relative to the working directory) + line when they have none.
+ * - Outline rows sharing a @CaseID_ tag share one per-row average
+ * - A new observation is blended with the stored one (half each), so one slow run
+ *   does not reshuffle every shard
+ * - save() re-reads the file first under an exclusive lock on <file>.lock, so JVMs
+ *   finishing on one machine do not overwrite each other's timings
+ * - Shards plan with one pinned snapshot (-Dshard.timings) and never write it: each shard
+ *   leaves its observations in test-output/scenario-timings.json and ShardMerger blends
+ *   them into the snapshot once, after the last shard
+ */
+public class ScenarioTimings {
+
+    public static final String DEFAULT_PATH = ".scenario-timings/timings.json";
+    /** This run's raw observations, left for ShardMerger when the snapshot is pinned */
+    public static final String OBSERVED_PATH = "test-output/scenario-timings.json";
+    private static final double NEW_WEIGHT = 0.5;
+
+    private final Path file;
+    private final Map<String, Long> estimates = new ConcurrentHashMap<>();
+    private final Map<String, long[]> observed = new ConcurrentHashMap<>();
+
+    private ScenarioTimings(Path file) {
+        this.file = file;
+    }
+
+    /** The timings snapshot to plan with: -Dshard.timings or shard.timings */
+    public static Path configuredPath() {
+        return Path.of(System.getProperty("shard.timings", ConfigReader.get("shard.timings", DEFAULT_PATH)));
+    }
+
+    /**
+     * True when this run must leave the snapshot alone and only record its observations:
+     * always for shards, or with shard.timings.deferToMerge=true
+     */
+    public static boolean deferToMerge() {
+        return ShardPlanner.total() > 1 || Boolean.parseBoolean(
+                System.getProperty("shard.timings.deferToMerge", ConfigReader.get("shard.timings.deferToMerge", "false")));
+    }
+
+    /** Load the stored timings; a missing or unreadable file just means no history yet */
+    public static ScenarioTimings load(Path file) {
+        ScenarioTimings timings = new ScenarioTimings(file);
+        timings.estimates.putAll(read(file));
+        return timings;
+    }
+
+    /** Stored duration of a scenario in milliseconds, or null if it never ran */
+    public Long estimate(String key) {
+        return estimates.get(key);
+    }
+
+    public Map<String, Long> getEstimates() {
+        return new HashMap<>(estimates);
+    }
+
+    /** Record one finished scenario of this run */
+    public void record(String key, long millis) {
+        observed.compute(key, (k, acc) -> {
+            if (acc == null) return new long[]{millis, 1};
+            acc[0] += millis;
+            acc[1]++;
+            return acc;
+        });
+    }
+
+    public int recordedCount() {
+        return observed.size();
+    }
+
+    /** Write this run's observations (total millis + count per scenario) for ShardMerger */
+    public void saveObserved(Path out) throws IOException {
+        JSONObject scenarios = new JSONObject();
+        observed.forEach((key, acc) -> scenarios.put(key, new JSONObject().put("millis", acc[0]).put("count", acc[1])));
+        AtomicFiles.writeString(out, new JSONObject().put("version", 1).put("observed", scenarios).toString(2));
+    }
+
+    /**
+     * Add another run's observations (a shard's saveObserved file) to this one's.
+     * @return number of scenarios read; 0 when the file is missing or unreadable
+     */
+    public int addObserved(Path in) {
+        if (!Files.exists(in)) return 0;
+        try {
+            JSONObject scenarios = new JSONObject(Files.readString(in, StandardCharsets.UTF_8)).getJSONObject("observed");
+            for (String key : scenarios.keySet()) {
+                JSONObject value = scenarios.getJSONObject(key);
+                long millis = value.getLong("millis");
+                long count = value.getLong("count");
+                observed.compute(key, (k, acc) -> {
+                    if (acc == null) return new long[]{millis, count};
+                    acc[0] += millis;
+                    acc[1] += count;
+                    return acc;
+                });
+            }
+            return scenarios.length();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Ignoring unreadable scenario observations " + in + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Blend this run's observations into the file (merged with whatever is on disk now).
+     * Read, merge and write happen under a file lock shared by every JVM saving to the file.
+     */
+    public void save() throws IOException {
+        if (observed.isEmpty()) return;
+        Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        if (lockFile.getParent() != null) Files.createDirectories(lockFile.getParent());
+        // A FileLock is held per JVM, so threads of this JVM queue on the class first
+        synchronized (ScenarioTimings.class) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    merge();
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    private void merge() throws IOException {
+        Map<String, Long> merged = read(file);
+        for (Map.Entry<String, long[]> e : observed.entrySet()) {
+            long current = e.getValue()[0] / e.getValue()[1];
+            Long previous = merged.get(e.getKey());
+            merged.put(e.getKey(), previous == null
+                    ? current
+                    : Math.round(previous * (1 - NEW_WEIGHT) + current * NEW_WEIGHT));
+        }
+        JSONObject scenarios = new JSONObject();
+        merged.forEach(scenarios::put);
+        JSONObject json = new JSONObject()
+                .put("version", 1)
+                .put("updated", java.time.Instant.now().toString())
+                .put("millis", scenarios);
+        AtomicFiles.writeString(file, json.toString(2));
+        estimates.putAll(merged);
+    }
+
+    /**
+     * Timing key of a scenario: "@CaseID_123" when tagged, otherwise "path/to.feature:line"
+     */
+    public static String key(Collection<String> tags, URI uri, int line) {
+        for (String tag : tags) {
+            if (tag.startsWith("@CaseID_")) return tag;
+        }
+        return ScenarioCatalog.location(uri, line);
+    }
+
+    private static Map<String, Long> read(Path file) {
+        Map<String, Long> values = new HashMap<>();
+        if (!Files.exists(file)) return values;
+        try {
+            JSONObject millis = new JSONObject(Files.readString(file, StandardCharsets.UTF_8)).optJSONObject("millis");
+            if (millis != null) {
+                for (String key : millis.keySet()) values.put(key, millis.getLong(key));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Ignoring unreadable scenario timings " + file + ": " + e.getMessage());
+        }
+        return values;
+    }
+}
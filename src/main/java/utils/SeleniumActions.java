@@ -1,6 +1,7 @@
 package utils;
 
 import org.openqa.selenium.*;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
@@ -38,6 +39,7 @@ public class SeleniumActions {
             System.out.println("🌐 Navigating to: " + url);
             driver.get(url);
             System.out.println("✅ Navigation successful");
+            PagePerformance.capture(driver, url);
         } catch (TimeoutException e) {
             String error = "Timeout: Page failed to load - URL: " + url;
             captureFailure(error, e);
@@ -49,6 +51,13 @@ public class SeleniumActions {
         }
     }
     
+    /**
+     * Capture the current page's performance (perf.page.capture), e.g. after switching to a new tab
+     */
+    public void capturePagePerformance(String label) {
+        PagePerformance.capture(driver, label);
+    }
+    
     // ==================== ELEMENT LOCATION ====================
     
     /**
@@ -56,7 +65,7 @@ public class SeleniumActions {
      */
     public WebElement findElement(By locator) {
         try {
-            WebElement element = wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+            WebElement element = await(wait, ExpectedConditions.presenceOfElementLocated(locator), locator);
             return element;
         } catch (NoSuchElementException e) {
             String error = "XPath Issue: Element not found - Locator: " + locator.toString();
@@ -93,7 +102,7 @@ public class SeleniumActions {
      */
     public void click(By locator) {
         try {
-            WebElement element = wait.until(ExpectedConditions.elementToBeClickable(locator));
+            WebElement element = await(wait, ExpectedConditions.elementToBeClickable(locator), locator);
             element.click();
             System.out.println("✅ Clicked element: " + locator.toString());
         } catch (NoSuchElementException e) {
@@ -124,7 +133,7 @@ public class SeleniumActions {
      */
     public void click(WebElement element, String elementDescription) {
         try {
-            wait.until(ExpectedConditions.elementToBeClickable(element));
+            await(wait, ExpectedConditions.elementToBeClickable(element), elementDescription);
             element.click();
             System.out.println("✅ Clicked element: " + elementDescription);
         } catch (StaleElementReferenceException e) {
@@ -145,7 +154,7 @@ public class SeleniumActions {
      */
     public void type(By locator, String text) {
         try {
-            WebElement element = wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+            WebElement element = await(wait, ExpectedConditions.presenceOfElementLocated(locator), locator);
             element.clear();
             element.sendKeys(text);
             System.out.println("✅ Entered text in element: " + locator.toString());
@@ -173,7 +182,7 @@ public class SeleniumActions {
      */
     public void typeWithoutClear(By locator, String text) {
         try {
-            WebElement element = wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+            WebElement element = await(wait, ExpectedConditions.presenceOfElementLocated(locator), locator);
             element.sendKeys(text);
             System.out.println("✅ Appended text in element: " + locator.toString());
         } catch (Exception e) {
@@ -190,7 +199,7 @@ public class SeleniumActions {
      */
     public boolean isDisplayed(By locator) {
         try {
-            WebElement element = wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+            WebElement element = await(wait, ExpectedConditions.presenceOfElementLocated(locator), locator);
             return element.isDisplayed();
         } catch (NoSuchElementException e) {
             String error = "XPath Issue: Element not found for visibility check - Locator: " + locator.toString();
@@ -206,7 +215,7 @@ public class SeleniumActions {
      */
     public void verifyTextEquals(By locator, String expectedText) {
         try {
-            WebElement element = wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+            WebElement element = await(wait, ExpectedConditions.presenceOfElementLocated(locator), locator);
             String actualText = element.getText().trim();
             
             if (!actualText.equals(expectedText)) {
@@ -234,7 +243,7 @@ public class SeleniumActions {
      */
     public void verifyTextContains(By locator, String expectedText) {
         try {
-            WebElement element = wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+            WebElement element = await(wait, ExpectedConditions.presenceOfElementLocated(locator), locator);
             String actualText = element.getText().trim();
             
             if (!actualText.contains(expectedText)) {
@@ -282,7 +291,7 @@ public class SeleniumActions {
     public boolean elementExists(By locator, int timeoutSeconds) {
         try {
             WebDriverWait shortWait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
-            shortWait.until(ExpectedConditions.presenceOfElementLocated(locator));
+            await(shortWait, ExpectedConditions.presenceOfElementLocated(locator), locator);
             return true;
         } catch (Exception e) {
             return false;
@@ -296,7 +305,7 @@ public class SeleniumActions {
      */
     public WebElement waitForVisibility(By locator) {
         try {
-            return wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+            return await(wait, ExpectedConditions.visibilityOfElementLocated(locator), locator);
         } catch (TimeoutException e) {
             String error = "Timeout: Element not visible within timeout - Locator: " + locator.toString();
             captureFailure(error, e);
@@ -325,7 +334,7 @@ public class SeleniumActions {
      */
     public WebElement waitForClickable(By locator) {
         try {
-            return wait.until(ExpectedConditions.elementToBeClickable(locator));
+            return await(wait, ExpectedConditions.elementToBeClickable(locator), locator);
         } catch (TimeoutException e) {
             String error = "Timeout: Element not clickable within timeout - Locator: " + locator.toString();
             captureFailure(error, e);
@@ -342,7 +351,7 @@ public class SeleniumActions {
      */
     public void waitForTitleContains(String titlePart) {
         try {
-            wait.until(ExpectedConditions.titleContains(titlePart));
+            await(wait, ExpectedConditions.titleContains(titlePart), titlePart);
             System.out.println("✅ Page title contains: " + titlePart);
         } catch (TimeoutException e) {
             String error = "Timeout: Page title does not contain '" + titlePart + "' - Actual title: " + driver.getTitle();
@@ -358,7 +367,7 @@ public class SeleniumActions {
      */
     public String getText(By locator) {
         try {
-            WebElement element = wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+            WebElement element = await(wait, ExpectedConditions.presenceOfElementLocated(locator), locator);
             String text = element.getText().trim();
             System.out.println("✅ Retrieved text: " + text);
             return text;
@@ -378,7 +387,7 @@ public class SeleniumActions {
      */
     public String getAttribute(By locator, String attributeName) {
         try {
-            WebElement element = wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+            WebElement element = await(wait, ExpectedConditions.presenceOfElementLocated(locator), locator);
             return element.getAttribute(attributeName);
         } catch (NoSuchElementException e) {
             String error = "XPath Issue: Element not found for getting attribute - Locator: " + locator.toString();
@@ -423,6 +432,32 @@ public class SeleniumActions {
     }
     
     // ==================== PRIVATE HELPER ====================
+
+    /**
+     * Wait for a condition, recorded as a flight recorder event (target, condition, and
+     * whether it was satisfied or timed out)
+     */
+    private static <T> T await(WebDriverWait on, ExpectedCondition<T> condition, Object target) {
+        FlightRecording.WaitEvent event = new FlightRecording.WaitEvent();
+        event.begin();
+        String outcome = "failed";
+        try {
+            T value = on.until(condition);
+            outcome = "satisfied";
+            return value;
+        } catch (TimeoutException e) {
+            outcome = "timed out";
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.target = String.valueOf(target);
+                event.condition = String.valueOf(condition);
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
     
     /**
      * Capture failure information for TestRail defect creation
@@ -0,0 +1,602 @@
+package utils;
+
+import com.aventstack.extentreports.ExtentReports;
+import config.ConfigReader;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 🔹 ShardMerger
+ * Combines the output of N shard runs into one. Each input is a shard's working directory
+ * (or its unpacked CI artifact) with test-output/ and reports/ inside.
+ * - reports/cucumber.json: features are streamed one at a time; a feature whose scenarios
+ *   ran on several shards becomes one feature again (its scenarios are spooled to disk)
+ * - ExtentReport.html: every shard's test archive (test-output/extent-tests.jsonl) is replayed
+ *   line by line into one report; screenshots are stored once per SHA-256 under screenshots/.
+ *   Extent keeps every test of a report in memory, so after merge.extent.maxTests (default
+ *   2000) tests the report continues in ExtentReport-2.html, ExtentReport-3.html, ...
+ * - TestRail (merge.post=true): shards run with testrail.deferToMerge=true only journal their
+ *   results; they are posted here as one add_results_for_cases batch per run, then the
+ *   journaled defects and attachments follow and the merged report is attached
+ * - Scenario timings: the shards' observed durations are blended into the pinned shard.timings
+ *   snapshot once, here, instead of by each shard
+ * - Timing histograms: the shards' test-output/histograms.json are added up and stored in
+ *   histograms.path, so the next run compares against the whole run rather than one shard
+ * - Shared run (merge.closeRun=true): shards leave testrail.runId open; it is closed here
+ *   once no shard journal holds anything undelivered
+ *
+ *   mvn -Pmerge-shards process-classes -Dmerge.shards=shard-1,shard-2 [-Dmerge.out=merged] [-Dmerge.post=true] [-Dmerge.closeRun=true]
+ *   java ... utils.ShardMerger [--post] [--close-run] <outDir> <shardDir>...
+ */
+public final class ShardMerger {
+
+    private static final String CUCUMBER_JSON = "reports/cucumber.json";
+    private static final String EXTENT_ARCHIVE = "test-output/extent-tests.jsonl";
+    private static final String SCREENSHOTS = "screenshots/";
+    private static final int FLUSH_EVERY = 50;
+    private static final String REPORT_STEM = "ExtentReport";
+
+    private final File outDir;
+    private final List<File> shards;
+    // Source screenshot file → merged path, and content hash → merged path
+    private final Map<String, String> screenshotsBySource = new HashMap<>();
+    private final Map<String, String> screenshotsByHash = new HashMap<>();
+    private int screenshotRefs;
+    private int missingScreenshots;
+    private long duplicateBytes;
+    private int featuresWritten;
+    private int scenariosMerged;
+
+    public ShardMerger(File outDir, List<File> shards) {
+        this.outDir = outDir;
+        this.shards = shards;
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> positional = new ArrayList<>();
+        boolean post = Boolean.parseBoolean(System.getProperty("merge.post", "false"));
+        boolean closeRun = Boolean.parseBoolean(System.getProperty("merge.closeRun", "false"));
+        for (String arg : args) {
+            if ("--post".equals(arg)) post = true;
+            else if ("--close-run".equals(arg)) closeRun = true;
+            else positional.add(arg);
+        }
+        if (positional.isEmpty()) {
+            positional.add(System.getProperty("merge.out", "merged"));
+            for (String shard : System.getProperty("merge.shards", "").split(",")) {
+                if (!shard.isBlank()) positional.add(shard.trim());
+            }
+        }
+        if (positional.size() < 2) {
+            // Thrown rather than System.exit: exec:java runs inside the Maven JVM
+            throw new IllegalArgumentException("❌ Usage: ShardMerger [--post] [--close-run] <outDir> <shardDir>... (or -Dmerge.shards=a,b)");
+        }
+
+        List<File> shards = new ArrayList<>();
+        for (String shard : positional.subList(1, positional.size())) shards.add(new File(shard));
+        ShardMerger merger = new ShardMerger(new File(positional.get(0)), shards);
+        try {
+            merger.mergeCucumberJson();
+            merger.mergeExtent();
+            merger.mergeTimings(ScenarioTimings.configuredPath());
+            merger.mergeHistograms(TimingHistograms.configuredPath());
+            if (post) merger.postToTestRail(TestRailSession.sharedRunId());
+            if (closeRun) merger.closeRun(TestRailSession.sharedRunId());
+        } finally {
+            if (post || closeRun) HttpTransport.shutdown();
+        }
+    }
+
+    // ==========================
+    // 🔹 Cucumber JSON
+    // ==========================
+
+    /**
+     * Merge the shards' reports/cucumber.json into outDir/reports/cucumber.json.
+     * @return number of features written
+     */
+    public int mergeCucumberJson() throws IOException {
+        // Pass 1: features that occur in more than one shard have to be stitched together
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (File shard : shards) {
+            forEachFeature(new File(shard, CUCUMBER_JSON), feature -> occurrences.merge(feature.optString("uri"), 1, Integer::sum));
+        }
+
+        Path out = outDir.toPath().resolve(CUCUMBER_JSON);
+        Files.createDirectories(out.getParent());
+        Path spoolDir = Files.createTempDirectory("cucumber-merge");
+        Map<String, JSONObject> splitHeaders = new LinkedHashMap<>();
+        Map<String, Path> spools = new HashMap<>();
+        featuresWritten = 0;
+        scenariosMerged = 0;
+
+        try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            writer.write('[');
+            for (File shard : shards) {
+                forEachFeature(new File(shard, CUCUMBER_JSON), feature -> {
+                    String uri = feature.optString("uri");
+                    JSONArray elements = feature.optJSONArray("elements");
+                    scenariosMerged += elements != null ? elements.length() : 0;
+                    if (occurrences.getOrDefault(uri, 0) <= 1) {
+                        separate(writer);
+                        feature.write(writer);
+                        return;
+                    }
+                    // Spool this shard's scenarios; the feature is written once all shards are read
+                    feature.remove("elements");
+                    splitHeaders.putIfAbsent(uri, feature);
+                    Path spool = spools.computeIfAbsent(uri, u -> spoolDir.resolve(spools.size() + ".jsonl"));
+                    try (BufferedWriter w = Files.newBufferedWriter(spool, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                        for (int i = 0; elements != null && i < elements.length(); i++) {
+                            w.write(elements.get(i).toString());
+                            w.newLine();
+                        }
+                    }
+                });
+            }
+            for (Map.Entry<String, JSONObject> split : splitHeaders.entrySet()) {
+                separate(writer);
+                String header = split.getValue().toString();
+                writer.write(header, 0, header.length() - 1);
+                writer.write(header.length() > 2 ? ",\"elements\":[" : "\"elements\":[");
+                try (BufferedReader reader = Files.newBufferedReader(spools.get(split.getKey()), StandardCharsets.UTF_8)) {
+                    String line;
+                    boolean first = true;
+                    while ((line = reader.readLine()) != null) {
+                        if (!first) writer.write(',');
+                        writer.write(line);
+                        first = false;
+                    }
+                }
+                writer.write("]}");
+            }
+            writer.write(']');
+        } finally {
+            for (Path spool : spools.values()) Files.deleteIfExists(spool);
+            Files.deleteIfExists(spoolDir);
+        }
+        System.out.println("🥒 Merged cucumber.json: " + featuresWritten + " feature(s), " + scenariosMerged + " scenario(s) from "
+                + shards.size() + " shard(s), " + splitHeaders.size() + " feature(s) stitched across shards");
+        return featuresWritten;
+    }
+
+    private void separate(Writer writer) throws IOException {
+        if (featuresWritten++ > 0) writer.write(',');
+    }
+
+    private interface FeatureConsumer {
+        void accept(JSONObject feature) throws IOException;
+    }
+
+    /** Parse a Cucumber JSON array one feature at a time */
+    private static void forEachFeature(File file, FeatureConsumer action) throws IOException {
+        if (!file.exists()) {
+            System.err.println("⚠️ No " + CUCUMBER_JSON + " in " + file.getParentFile().getParent());
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            JSONTokener tokener = new JSONTokener(reader);
+            char c = tokener.nextClean();
+            if (c == 0) return; // an interrupted shard can leave an empty file
+            if (c != '[') throw new IOException("Not a Cucumber JSON array: " + file);
+            if (tokener.nextClean() == ']') return;
+            tokener.back();
+            while (true) {
+                action.accept(new JSONObject(tokener));
+                c = tokener.nextClean();
+                if (c == ']') return;
+                if (c != ',') throw new IOException("Malformed Cucumber JSON in " + file + " near " + tokener);
+            }
+        }
+    }
+
+    // ==========================
+    // 🔹 Extent report
+    // ==========================
+
+    /**
+     * Replay every shard's Extent test archive into outDir/ExtentReport.html (plus a merged
+     * archive, so merged outputs can be merged again). A full report (merge.extent.maxTests)
+     * is flushed and let go, and the next tests go into ExtentReport-2.html and so on.
+     * @return number of tests in the merged report(s)
+     */
+    public int mergeExtent() throws IOException {
+        Files.createDirectories(outDir.toPath().resolve(SCREENSHOTS));
+        for (File stale : reportFiles()) Files.delete(stale.toPath());
+        int maxTests = Integer.parseInt(System.getProperty("merge.extent.maxTests",
+                ConfigReader.get("merge.extent.maxTests", "2000")).trim());
+        Properties props = ExtentReportManager.loadExtentProperties();
+        ExtentReports reports = ExtentReportManager.newReports(props, new File(outDir, REPORT_STEM + ".html"));
+        int tests = 0;
+        int inReport = 0;
+        int reportCount = 1;
+
+        try (BufferedWriter archive = Files.newBufferedWriter(outDir.toPath().resolve("extent-tests.jsonl"), StandardCharsets.UTF_8)) {
+            for (File shard : shards) {
+                File source = new File(shard, EXTENT_ARCHIVE);
+                if (!source.exists()) {
+                    System.err.println("⚠️ No " + EXTENT_ARCHIVE + " in " + shard + ", its tests are missing from the merged report");
+                    continue;
+                }
+                // Archived paths are relative to the shard's report directory
+                File reportDir = source.getParentFile();
+                try (BufferedReader reader = Files.newBufferedReader(source.toPath(), StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank()) continue;
+                        JSONObject test;
+                        try {
+                            test = new JSONObject(line);
+                        } catch (Exception e) {
+                            // A shard killed mid-write leaves a torn last line
+                            System.err.println("⚠️ Skipping unreadable archived test in " + shard + ": " + e.getMessage());
+                            continue;
+                        }
+                        relocateScreenshots(test, reportDir);
+                        if (maxTests > 0 && inReport == maxTests) {
+                            reports.flush();
+                            reports = ExtentReportManager.newReports(props, new File(outDir, REPORT_STEM + "-" + (++reportCount) + ".html"));
+                            inReport = 0;
+                        }
+                        ExtentReportManager.replay(reports, test);
+                        archive.write(test.toString());
+                        archive.newLine();
+                        inReport++;
+                        if (++tests % FLUSH_EVERY == 0) reports.flush();
+                    }
+                }
+            }
+        }
+        reports.flush();
+        System.out.println("📊 Merged Extent report: " + tests + " test(s)"
+                + (reportCount > 1 ? " in " + reportCount + " files" : "") + ", " + screenshotRefs + " screenshot reference(s) → "
+                + screenshotsByHash.size() + " file(s), " + (duplicateBytes / 1024) + " KB of duplicates dropped"
+                + (missingScreenshots > 0 ? ", " + missingScreenshots + " missing" : ""));
+        return tests;
+    }
+
+    /** Point every screenshot of an archived test at its de-duplicated copy under outDir/screenshots/ */
+    private void relocateScreenshots(JSONObject test, File reportDir) throws IOException {
+        JSONArray events = test.optJSONArray("events");
+        for (int i = 0; events != null && i < events.length(); i++) {
+            JSONObject event = events.getJSONObject(i);
+            String merged = null;
+            if (event.has("path")) {
+                File file = new File(reportDir, event.getString("path"));
+                merged = screenshotsBySource.get(file.getCanonicalPath());
+                if (merged == null) {
+                    if (!file.exists()) {
+                        missingScreenshots++;
+                        continue;
+                    }
+                    merged = store(file.toPath(), extensionOf(file.getName()));
+                    screenshotsBySource.put(file.getCanonicalPath(), merged);
+                }
+            } else if (event.has("base64")) {
+                // Embedded screenshots become files too, so identical ones are stored once
+                String data = event.getString("base64");
+                byte[] bytes = Base64.getDecoder().decode(data.substring(data.indexOf(',') + 1));
+                Path temp = Files.createTempFile(outDir.toPath().resolve(SCREENSHOTS), "embedded", ".png");
+                Files.write(temp, bytes);
+                merged = store(temp, ".png");
+                Files.deleteIfExists(temp);
+                event.remove("base64");
+            }
+            if (merged != null) {
+                event.put("path", merged);
+                screenshotRefs++;
+            }
+        }
+    }
+
+    /** Copy a screenshot into outDir/screenshots/ under its SHA-256, unless that content is already there */
+    private String store(Path file, String extension) throws IOException {
+        String hash = sha256(file);
+        String existing = screenshotsByHash.get(hash);
+        if (existing != null) {
+            duplicateBytes += Files.size(file);
+            return existing;
+        }
+        String merged = SCREENSHOTS + hash + extension;
+        Files.copy(file, outDir.toPath().resolve(merged), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        screenshotsByHash.put(hash, merged);
+        return merged;
+    }
+
+    private static String extensionOf(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot) : ".png";
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance("SHA-256"))) {
+            byte[] buffer = new byte[64 * 1024];
+            while (in.read(buffer) != -1) {
+                // digest is updated as the stream is read
+            }
+            return HexFormat.of().formatHex(((DigestInputStream) in).getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ==========================
+    // 🔹 Scenario timings
+    // ==========================
+
+    /**
+     * Blend every shard's observed durations (test-output/scenario-timings.json) into the timings
+     * snapshot in one save, so the next run's shards all plan with the same numbers.
+     * @return number of shards that left observations
+     */
+    public int mergeTimings(Path timingsFile) throws IOException {
+        ScenarioTimings timings = ScenarioTimings.load(timingsFile);
+        int contributing = 0;
+        for (File shard : shards) {
+            if (timings.addObserved(shard.toPath().resolve(ScenarioTimings.OBSERVED_PATH)) > 0) contributing++;
+        }
+        if (contributing == 0) return 0;
+        timings.save();
+        System.out.println("⏱️ Timings of " + timings.recordedCount() + " scenario(s) from " + contributing
+                + " shard(s) merged into " + timingsFile);
+        return contributing;
+    }
+
+    /**
+     * Add up every shard's step and scenario histograms (test-output/histograms.json) and store
+     * them as the previous run's in one save.
+     * @return number of shards that left histograms
+     */
+    public int mergeHistograms(Path histogramsFile) throws IOException {
+        TimingHistograms histograms = TimingHistograms.load(histogramsFile);
+        int contributing = 0;
+        for (File shard : shards) {
+            if (histograms.addObserved(shard.toPath().resolve(TimingHistograms.OBSERVED_PATH)) > 0) contributing++;
+        }
+        if (contributing == 0) return 0;
+        histograms.save();
+        System.out.println("📊 Histograms of " + histograms.getSteps().size() + " step(s) and " + histograms.getScenarios().size()
+                + " scenario(s) from " + contributing + " shard(s) merged into " + histogramsFile);
+        return contributing;
+    }
+
+    // ==========================
+    // 🔹 TestRail
+    // ==========================
+
+    /**
+     * Post the results the shards journaled (testrail.deferToMerge=true) as one batch per run,
+     * then deliver their journaled defects and attachments, and attach the merged report.
+     * - Every entry is marked in its journal before its batch goes out; a later merge looks such
+     *   entries up by their journal-ref tag (get_results_for_run), so a lost response never
+     *   posts them twice
+     * - add_results_for_cases is all-or-nothing: a batch TestRail refuses (400, e.g. a case
+     *   removed from the run) is posted one result at a time, rejecting only the bad ones
+     * @param fallbackRunId run for results journaled without one (0: none)
+     * @return number of results posted
+     */
+    public int postToTestRail(int fallbackRunId) throws IOException {
+        return postToTestRail(TestRailSession.client(), fallbackRunId);
+    }
+
+    int postToTestRail(Client client, int fallbackRunId) throws IOException {
+        // Pending results of every shard, grouped by run
+        Map<Integer, List<JSONObject>> byRun = new LinkedHashMap<>();
+        Map<String, TestRailJournal> journalOf = new HashMap<>();
+        Set<String> attempted = new HashSet<>();
+        Map<TestRailJournal, File> journals = shardJournals();
+        for (TestRailJournal journal : journals.keySet()) {
+            TestRailJournal.State state = journal.load();
+            for (JSONObject entry : state.getPending()) {
+                if (!TestRailJournal.TYPE_RESULT.equals(entry.optString("type"))) continue;
+                int runId = entry.optInt("runId") > 0 ? entry.optInt("runId") : fallbackRunId;
+                if (runId <= 0) {
+                    System.err.println("⚠️ Journaled result for C" + entry.optInt("caseId") + " has no run; set -Dtestrail.runId");
+                    continue;
+                }
+                byRun.computeIfAbsent(runId, r -> new ArrayList<>()).add(entry);
+                journalOf.put(entry.getString("key"), journal);
+                if (state.getAttempts(entry.getString("key")) > 0) attempted.add(entry.getString("key"));
+            }
+        }
+
+        int posted = 0;
+        int lastResultId = 0;
+        for (Map.Entry<Integer, List<JSONObject>> run : byRun.entrySet()) {
+            int runId = run.getKey();
+            List<JSONObject> entries = new ArrayList<>(run.getValue());
+
+            // An earlier batch whose response was lost may have landed: acknowledge what is already there
+            if (entries.stream().anyMatch(entry -> attempted.contains(entry.getString("key")))) {
+                Map<String, Integer> existing = taggedResults(client, runId);
+                for (Iterator<JSONObject> it = entries.iterator(); it.hasNext(); ) {
+                    String key = it.next().getString("key");
+                    Integer resultId = existing.get(key);
+                    if (resultId == null) continue;
+                    System.out.println("♻️ Journal entry " + key + " already in TestRail (Result ID: " + resultId + ")");
+                    journalOf.get(key).acknowledge(key, resultId);
+                    lastResultId = resultId;
+                    posted++;
+                    it.remove();
+                }
+            }
+            if (entries.isEmpty()) continue;
+
+            JSONArray batch = new JSONArray();
+            for (JSONObject entry : entries) {
+                String key = entry.getString("key");
+                journalOf.get(key).recordAttempt(key, "add_results_for_cases/" + runId);
+                batch.put(new JSONObject()
+                        .put("case_id", entry.getInt("caseId"))
+                        .put("status_id", entry.getInt("statusId"))
+                        .put("comment", entry.optString("comment") + TestRailJournalSender.tag(key)));
+            }
+            System.out.println("📤 Posting " + batch.length() + " result(s) to R" + runId + " in one batch...");
+            JSONArray created;
+            try {
+                created = client.addResultsAsync(runId, batch).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof TestRailApiException && ((TestRailApiException) cause).getStatusCode() == 400) {
+                    System.err.println("⚠️ Batch for R" + runId + " refused (" + cause.getMessage() + "), posting its results one by one");
+                    for (JSONObject entry : entries) {
+                        int resultId = postOne(client, runId, entry, journalOf.get(entry.getString("key")));
+                        if (resultId < 0) break;
+                        if (resultId > 0) {
+                            lastResultId = resultId;
+                            posted++;
+                        }
+                    }
+                    continue;
+                }
+                System.err.println("❌ Batch for R" + runId + " failed, results stay journaled in the shards: " + cause.getMessage());
+                continue;
+            }
+            for (int i = 0; created != null && i < created.length() && i < entries.size(); i++) {
+                String key = entries.get(i).getString("key");
+                int resultId = created.getJSONObject(i).getInt("id");
+                journalOf.get(key).acknowledge(key, resultId);
+                lastResultId = resultId;
+                posted++;
+            }
+        }
+
+        // Defects and attachments now find their parent's result id
+        int pending = 0;
+        for (Map.Entry<TestRailJournal, File> journal : journals.entrySet()) {
+            pending += Math.max(0, new TestRailJournalSender(journal.getKey(), client, journal.getValue()).drain());
+        }
+
+        // One bundle: the report file(s) with the merged screenshots they link to
+        List<File> reports = reportFiles();
+        if (lastResultId > 0 && !reports.isEmpty()) {
+            ReportBundler bundler = new ReportBundler(reports, new File(outDir, SCREENSHOTS), SCREENSHOTS, ReportBundler.maxPartBytes());
+            try {
+                if (bundler.uploadTo(client, lastResultId)) System.out.println("📎 Merged report attached to result " + lastResultId);
+            } catch (TestRailApiException | ReportBundler.EntryTooLargeException e) {
+                System.err.println("⚠️ Merged report upload failed: " + e.getMessage());
+            }
+        }
+        System.out.println("✅ " + posted + " result(s) posted" + (pending > 0 ? ", " + pending + " entries still journaled" : ""));
+        return posted;
+    }
+
+    /**
+     * Post one result of a refused batch.
+     * @return its result id, 0 when TestRail refused it (rejected in its journal), -1 when
+     *         TestRail is unavailable (it and the rest stay journaled)
+     */
+    private static int postOne(Client client, int runId, JSONObject entry, TestRailJournal journal) throws IOException {
+        String key = entry.getString("key");
+        try {
+            int resultId = client.addResultForCase(runId, entry.getInt("caseId"), entry.getInt("statusId"),
+                    entry.optString("comment") + TestRailJournalSender.tag(key), null);
+            journal.acknowledge(key, resultId);
+            return resultId;
+        } catch (TestRailApiException e) {
+            if (e.isTransient()) {
+                System.err.println("⚠️ TestRail unavailable (" + e.getStatusCode() + "), results stay journaled in the shards");
+                return -1;
+            }
+            System.err.println("❌ TestRail refused C" + entry.getInt("caseId") + ": " + e.getMessage());
+            journal.reject(key, e.getMessage());
+            return 0;
+        } catch (IOException e) {
+            System.err.println("⚠️ TestRail unreachable (" + e.getMessage() + "), results stay journaled in the shards");
+            return -1;
+        }
+    }
+
+    /** Journal key → result id of every tagged result already in the run */
+    private static Map<String, Integer> taggedResults(Client client, int runId) throws IOException {
+        Map<String, Integer> tagged = new HashMap<>();
+        try (TestRailPageIterator<JSONObject> results = client.iterateResults(runId)) {
+            while (results.hasNext()) {
+                JSONObject result = results.next();
+                String key = TestRailJournalSender.refOf(result.optString("comment", null));
+                if (key != null) tagged.put(key, result.getInt("id"));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return tagged;
+    }
+
+    /**
+     * Close the run the shards shared, unless a shard journal still holds entries for it
+     * (they would have nowhere to go).
+     * @return true when TestRail closed the run
+     */
+    public boolean closeRun(int runId) throws IOException {
+        if (runId <= 0) {
+            System.err.println("⚠️ No shared run to close; set -Dtestrail.runId");
+            return false;
+        }
+        int pending = 0;
+        for (TestRailJournal journal : shardJournals().keySet()) pending += journal.load().getPending().size();
+        if (pending > 0) {
+            System.out.println("📒 R" + runId + " left open: " + pending + " journaled entries not delivered yet");
+            return false;
+        }
+        Client client = TestRailSession.client();
+        client.setRunId(runId);
+        boolean closed = client.closeTestRun();
+        if (closed) System.out.println("🏁 Shared run R" + runId + " closed");
+        return closed;
+    }
+
+    /** outDir/ExtentReport.html, ExtentReport-2.html, ... in order */
+    private List<File> reportFiles() {
+        File[] files = outDir.listFiles(f -> f.getName().matches(REPORT_STEM + "(-\\d+)?\\.html"));
+        List<File> reports = new ArrayList<>(files != null ? Arrays.asList(files) : List.of());
+        reports.sort(Comparator.comparingInt(f -> {
+            String name = f.getName();
+            int dash = name.indexOf('-');
+            return dash < 0 ? 1 : Integer.parseInt(name.substring(dash + 1, name.length() - ".html".length()));
+        }));
+        return reports;
+    }
+
+    /** Every shard's TestRail journal (testrail.journal inside the shard directory) → its shard */
+    private Map<TestRailJournal, File> shardJournals() {
+        String journalPath = ConfigReader.get("testrail.journal", TestRailJournal.DEFAULT_PATH);
+        Map<TestRailJournal, File> journals = new LinkedHashMap<>();
+        for (File shard : shards) {
+            File file = new File(shard, journalPath);
+            if (file.exists()) journals.put(new TestRailJournal(file.getPath()), shard);
+        }
+        return journals;
+    }
+}
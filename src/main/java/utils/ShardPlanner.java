@@ -0,0 +1,126 @@
+package utils;
+
+import config.ConfigReader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 🔹 ShardPlanner
+ * Splits the scenarios of one run over -Dshard.total JVMs (CI agents) so they finish
+ * together, using the durations from {@link ScenarioTimings}.
+ * - Longest processing time first: scenarios sorted by duration, longest first, each
+ *   placed on the shard with the least work so far
+ * - Scenarios without history are assumed to take the median of the known ones
+ * - Every shard computes the same plan from the same features and timings file, so no
+ *   coordination is needed; ties are broken by key and position, never by chance
+ */
+public final class ShardPlanner {
+
+    /** Assumed duration when there is no history at all */
+    public static final long DEFAULT_ESTIMATE_MILLIS = 60_000;
+
+    private ShardPlanner() {}
+
+    /** Zero-based shard of this JVM (-Dshard.index or shard.index), 0 when not sharded */
+    public static int index() {
+        return Integer.parseInt(System.getProperty("shard.index", ConfigReader.get("shard.index", "0")).trim());
+    }
+
+    /** Number of shards (-Dshard.total or shard.total), 1 when not sharded */
+    public static int total() {
+        return Integer.parseInt(System.getProperty("shard.total", ConfigReader.get("shard.total", "1")).trim());
+    }
+
+    /**
+     * @param keys      timing key of every scenario, in run order (keys may repeat)
+     * @param estimates stored durations by key
+     */
+    public static Plan plan(List<String> keys, Map<String, Long> estimates, int total) {
+        if (total < 1) throw new IllegalArgumentException("shard.total must be at least 1, was " + total);
+
+        long fallback = median(keys, estimates);
+        long[] durations = new long[keys.size()];
+        Integer[] order = new Integer[keys.size()];
+        int unknown = 0;
+        for (int i = 0; i < durations.length; i++) {
+            Long known = estimates.get(keys.get(i));
+            if (known == null) unknown++;
+            durations[i] = known != null ? known : fallback;
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> durations[i]).reversed()
+                .thenComparing(keys::get)
+                .thenComparingInt(i -> i));
+
+        long[] loads = new long[total];
+        int[] counts = new int[total];
+        int[] shardOf = new int[keys.size()];
+        PriorityQueue<Integer> shards = new PriorityQueue<>(Comparator.<Integer>comparingLong(s -> loads[s])
+                .thenComparingInt(s -> s));
+        for (int s = 0; s < total; s++) shards.add(s);
+        for (int item : order) {
+            int shard = shards.poll();
+            shardOf[item] = shard;
+            loads[shard] += durations[item];
+            counts[shard]++;
+            shards.add(shard);
+        }
+        return new Plan(shardOf, loads, counts, unknown, fallback);
+    }
+
+    private static long median(List<String> keys, Map<String, Long> estimates) {
+        List<Long> known = new ArrayList<>();
+        for (String key : keys) {
+            Long value = estimates.get(key);
+            if (value != null) known.add(value);
+        }
+        if (known.isEmpty()) return DEFAULT_ESTIMATE_MILLIS;
+        known.sort(null);
+        return known.get(known.size() / 2);
+    }
+
+    /**
+     * Which shard runs each scenario, and the predicted work per shard
+     */
+    public static class Plan {
+        private final int[] shardOf;
+        private final long[] loads;
+        private final int[] counts;
+        private final int unknown;
+        private final long fallback;
+
+        Plan(int[] shardOf, long[] loads, int[] counts, int unknown, long fallback) {
+            this.shardOf = shardOf;
+            this.loads = loads;
+            this.counts = counts;
+            this.unknown = unknown;
+            this.fallback = fallback;
+        }
+
+        /** Shard of the scenario at this position of the planned key list */
+        public int shardOf(int item) { return shardOf[item]; }
+        public long predictedMillis(int shard) { return loads[shard]; }
+        public int scenarioCount(int shard) { return counts[shard]; }
+        public int shardCount() { return loads.length; }
+
+        public void print(int ownShard) {
+            long max = Arrays.stream(loads).max().orElse(0);
+            long min = Arrays.stream(loads).min().orElse(0);
+            System.out.println("🧩 Shard " + ownShard + "/" + loads.length + ": " + counts[ownShard] + " of "
+                    + shardOf.length + " scenario(s), predicted " + seconds(loads[ownShard])
+                    + " (slowest shard " + seconds(max) + ", spread " + seconds(max - min) + ")");
+            if (unknown > 0) {
+                System.out.println("   ℹ️ " + unknown + " scenario(s) without timing history, assumed " + seconds(fallback) + " each");
+            }
+        }
+
+        private static String seconds(long millis) {
+            return String.format("%.1fs", millis / 1000.0);
+        }
+    }
+}
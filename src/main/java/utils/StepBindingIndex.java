@@ -0,0 +1,257 @@
+package utils;
+
+import io.cucumber.cucumberexpressions.Expression;
+import io.cucumber.cucumberexpressions.ExpressionFactory;
+import io.cucumber.cucumberexpressions.ParameterType;
+import io.cucumber.cucumberexpressions.ParameterTypeRegistry;
+import io.cucumber.cucumberexpressions.Transformer;
+import io.cucumber.java.StepDefinitionAnnotation;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Pattern;
+
+/**
+ * 🔹 StepBindingIndex
+ * Every step definition expression found in the glue packages, compiled with the same
+ * cucumber-expressions engine Cucumber uses, so a step's binding can be checked without
+ * starting Cucumber (or a browser).
+ * - Classes are only loaded, never instantiated (step classes grab the driver in their constructor)
+ * - @ParameterType methods in the glue are registered so custom parameters resolve
+ * - For an unbound step, closest() ranks the expressions by edit distance
+ */
+public class StepBindingIndex {
+
+    private static final Pattern QUOTED = Pattern.compile("\"[^\"]*\"|'[^']*'");
+    private static final Pattern NUMBER = Pattern.compile("(?<![\\w.])-?\\d+(\\.\\d+)?(?![\\w.])");
+
+    private final List<Binding> bindings;
+    private final Map<String, List<Binding>> matchCache = new ConcurrentHashMap<>();
+
+    private StepBindingIndex(List<Binding> bindings) {
+        this.bindings = bindings;
+    }
+
+    /**
+     * Build the index from the glue packages (e.g. "com.stepsdefs", "hooks")
+     */
+    public static StepBindingIndex fromGlue(ClassLoader loader, String... gluePackages) throws IOException {
+        List<Class<?>> classes = new ArrayList<>();
+        for (String pkg : gluePackages) {
+            for (String className : classNames(loader, pkg)) {
+                try {
+                    classes.add(Class.forName(className, false, loader));
+                } catch (Throwable e) {
+                    System.err.println("⚠️ Skipping glue class " + className + ": " + e);
+                }
+            }
+        }
+
+        ParameterTypeRegistry registry = new ParameterTypeRegistry(Locale.ENGLISH);
+        for (Class<?> cls : classes) {
+            for (Method method : declaredMethods(cls)) {
+                io.cucumber.java.ParameterType pt = method.getAnnotation(io.cucumber.java.ParameterType.class);
+                if (pt == null) continue;
+                String name = pt.name().isEmpty() ? method.getName() : pt.name();
+                // Only the regexp matters for matching; values are never transformed here
+                registry.defineParameterType(new ParameterType<>(name, pt.value(), Object.class,
+                        (Transformer<Object>) arg -> arg));
+            }
+        }
+
+        ExpressionFactory factory = new ExpressionFactory(registry);
+        List<Binding> bindings = new ArrayList<>();
+        for (Class<?> cls : classes) {
+            for (Method method : declaredMethods(cls)) {
+                for (String source : stepExpressions(method)) {
+                    String location = cls.getName() + "." + method.getName();
+                    try {
+                        bindings.add(new Binding(source, location, factory.createExpression(source)));
+                    } catch (RuntimeException e) {
+                        System.err.println("⚠️ Invalid step expression '" + source + "' on " + location + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+        return new StepBindingIndex(bindings);
+    }
+
+    /** All bindings matching the step text: none = undefined, more than one = ambiguous */
+    public List<Binding> match(String stepText) {
+        return matchCache.computeIfAbsent(stepText, text -> {
+            List<Binding> found = new ArrayList<>(1);
+            for (Binding binding : bindings) {
+                if (binding.expression.match(text) != null) found.add(binding);
+            }
+            return found;
+        });
+    }
+
+    /**
+     * The expressions closest to an unbound step, best first. Quoted values and numbers in
+     * the step are compared as {string}/{int} placeholders.
+     */
+    public List<String> closest(String stepText, int limit) {
+        String probe = normalize(stepText);
+        List<Object[]> scored = new ArrayList<>();
+        for (Binding binding : bindings) {
+            String candidate = binding.source.toLowerCase(Locale.ROOT);
+            scored.add(new Object[]{levenshtein(probe, candidate), binding.source});
+        }
+        scored.sort(Comparator.comparingInt(o -> (Integer) o[0]));
+        List<String> result = new ArrayList<>();
+        for (Object[] s : scored) {
+            if (result.size() >= limit) break;
+            result.add((String) s[1]);
+        }
+        return result;
+    }
+
+    public int size() {
+        return bindings.size();
+    }
+
+    static String normalize(String stepText) {
+        String text = QUOTED.matcher(stepText).replaceAll("{string}");
+        text = NUMBER.matcher(text).replaceAll("{int}");
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /** Classic two-row dynamic programming edit distance */
+    static int levenshtein(String a, String b) {
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+            }
+            int[] tmp = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        return prev[b.length()];
+    }
+
+    // ==========================
+    // 🔹 Glue scanning
+    // ==========================
+
+    private static List<String> stepExpressions(Method method) {
+        List<String> sources = new ArrayList<>();
+        for (Annotation annotation : method.getAnnotations()) {
+            collectStepExpressions(annotation, sources);
+        }
+        return sources;
+    }
+
+    /** Step annotations (any language) plus their @Repeatable containers */
+    private static void collectStepExpressions(Annotation annotation, List<String> sink) {
+        Class<? extends Annotation> type = annotation.annotationType();
+        try {
+            Method value = type.getMethod("value");
+            Object result = value.invoke(annotation);
+            if (type.isAnnotationPresent(StepDefinitionAnnotation.class) && result instanceof String) {
+                sink.add((String) result);
+            } else if (result instanceof Annotation[]) {
+                for (Annotation nested : (Annotation[]) result) collectStepExpressions(nested, sink);
+            }
+        } catch (NoSuchMethodException ignored) {
+            // Not a step annotation
+        } catch (ReflectiveOperationException e) {
+            System.err.println("⚠️ Could not read " + type.getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    private static Method[] declaredMethods(Class<?> cls) {
+        try {
+            return cls.getDeclaredMethods();
+        } catch (Throwable e) {
+            // A step class whose dependencies are missing from the classpath
+            System.err.println("⚠️ Could not inspect glue class " + cls.getName() + ": " + e);
+            return new Method[0];
+        }
+    }
+
+    private static Set<String> classNames(ClassLoader loader, String pkg) throws IOException {
+        Set<String> names = new LinkedHashSet<>();
+        String path = pkg.replace('.', '/');
+        Enumeration<URL> roots = loader.getResources(path);
+        while (roots.hasMoreElements()) {
+            URL root = roots.nextElement();
+            if ("file".equals(root.getProtocol())) {
+                File dir = new File(URLDecoder.decode(root.getPath(), StandardCharsets.UTF_8));
+                collectFromDirectory(dir, pkg, names);
+            } else if ("jar".equals(root.getProtocol())) {
+                JarURLConnection connection = (JarURLConnection) root.openConnection();
+                // An uncached JarFile of our own: closing the cached one would break the class loader
+                connection.setUseCaches(false);
+                try (JarFile jar = connection.getJarFile()) {
+                    Enumeration<JarEntry> entries = jar.entries();
+                    while (entries.hasMoreElements()) {
+                        String name = entries.nextElement().getName();
+                        if (name.startsWith(path + "/") && name.endsWith(".class") && !name.contains("$")) {
+                            names.add(name.substring(0, name.length() - 6).replace('/', '.'));
+                        }
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    private static void collectFromDirectory(File dir, String pkg, Set<String> names) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collectFromDirectory(file, pkg + "." + file.getName(), names);
+            } else if (file.getName().endsWith(".class") && !file.getName().contains("$")) {
+                names.add(pkg + "." + file.getName().substring(0, file.getName().length() - 6));
+            }
+        }
+    }
+
+    /**
+     * One step definition: its expression source, where it is declared, and the compiled form
+     */
+    public static class Binding {
+        private final String source;
+        private final String location;
+        private final Expression expression;
+
+        Binding(String source, String location, Expression expression) {
+            this.source = source;
+            this.location = location;
+            this.expression = expression;
+        }
+
+        public String getSource() { return source; }
+        public String getLocation() { return location; }
+
+        @Override
+        public String toString() {
+            return "\"" + source + "\" (" + location + ")";
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 🔹 StepPreflight
+ * Checks every step of every scenario against the StepBindingIndex before anything runs.
+ * A scenario with an undefined or ambiguous step can never pass, so the runner drops it
+ * instead of launching a browser for it. Each problem is reported with the closest
+ * step expressions, and the full report is written as JSON.
+ */
+public class StepPreflight {
+
+    public static final String DEFAULT_REPORT = "reports/preflight-unbound-steps.json";
+    private static final int SUGGESTIONS = 3;
+
+    private StepPreflight() {}
+
+    public static Report check(List<ScenarioCatalog.Scenario> scenarios, StepBindingIndex index) {
+        Report report = new Report(scenarios.size(), index.size());
+        for (ScenarioCatalog.Scenario scenario : scenarios) {
+            List<Problem> problems = new ArrayList<>();
+            for (String step : scenario.getSteps()) {
+                List<StepBindingIndex.Binding> matches = index.match(step);
+                if (matches.isEmpty()) {
+                    problems.add(new Problem(step, "undefined", index.closest(step, SUGGESTIONS)));
+                } else if (matches.size() > 1) {
+                    List<String> candidates = new ArrayList<>();
+                    for (StepBindingIndex.Binding b : matches) candidates.add(b.toString());
+                    problems.add(new Problem(step, "ambiguous", candidates));
+                }
+            }
+            if (!problems.isEmpty()) report.unrunnable.put(scenario.getKey(), new Entry(scenario, problems));
+        }
+        return report;
+    }
+
+    /**
+     * A step that cannot be bound, and the expressions it was closest to (or collided with)
+     */
+    public static class Problem {
+        private final String step;
+        private final String kind;
+        private final List<String> candidates;
+
+        Problem(String step, String kind, List<String> candidates) {
+            this.step = step;
+            this.kind = kind;
+            this.candidates = candidates;
+        }
+
+        public String getStep() { return step; }
+        public String getKind() { return kind; }
+        public List<String> getCandidates() { return candidates; }
+    }
+
+    static class Entry {
+        final ScenarioCatalog.Scenario scenario;
+        final List<Problem> problems;
+
+        Entry(ScenarioCatalog.Scenario scenario, List<Problem> problems) {
+            this.scenario = scenario;
+            this.problems = problems;
+        }
+    }
+
+    /**
+     * Outcome of a preflight: which scenarios (by path:line) cannot run, and why
+     */
+    public static class Report {
+        private final int scenarioCount;
+        private final int bindingCount;
+        private final Map<String, Entry> unrunnable = new LinkedHashMap<>();
+
+        Report(int scenarioCount, int bindingCount) {
+            this.scenarioCount = scenarioCount;
+            this.bindingCount = bindingCount;
+        }
+
+        public boolean isClean() {
+            return unrunnable.isEmpty();
+        }
+
+        public boolean isRunnable(Path file, int line) {
+            return !unrunnable.containsKey(ScenarioCatalog.Scenario.key(file, line));
+        }
+
+        public Map<String, List<Problem>> getProblems() {
+            Map<String, List<Problem>> result = new LinkedHashMap<>();
+            unrunnable.forEach((key, entry) -> result.put(key, entry.problems));
+            return Collections.unmodifiableMap(result);
+        }
+
+        public void print() {
+            if (isClean()) {
+                System.out.println("✅ Step preflight: all " + scenarioCount + " scenario(s) bound to "
+                        + bindingCount + " step definition(s)");
+                return;
+            }
+            System.out.println("⚠️ Step preflight: " + unrunnable.size() + " of " + scenarioCount
+                    + " scenario(s) cannot run");
+            for (Entry entry : unrunnable.values()) {
+                System.out.println("   ❌ " + entry.scenario.getName() + " (" + entry.scenario.getFile().getFileName()
+                        + ":" + entry.scenario.getLine() + ") " + entry.scenario.getTags());
+                for (Problem problem : entry.problems) {
+                    System.out.println("      " + problem.kind + ": " + problem.step);
+                    for (String candidate : problem.candidates) {
+                        System.out.println("         ↳ " + candidate);
+                    }
+                }
+            }
+        }
+
+        public void writeJson(Path file) throws IOException {
+            JSONArray scenarios = new JSONArray();
+            for (Map.Entry<String, Entry> e : unrunnable.entrySet()) {
+                JSONArray problems = new JSONArray();
+                for (Problem problem : e.getValue().problems) {
+                    problems.put(new JSONObject()
+                            .put("step", problem.step)
+                            .put("kind", problem.kind)
+                            .put("candidates", new JSONArray(problem.candidates)));
+                }
+                ScenarioCatalog.Scenario scenario = e.getValue().scenario;
+                scenarios.put(new JSONObject()
+                        .put("location", e.getKey())
+                        .put("name", scenario.getName())
+                        .put("tags", new JSONArray(scenario.getTags()))
+                        .put("problems", problems));
+            }
+            JSONObject json = new JSONObject()
+                    .put("scenarios", scenarioCount)
+                    .put("bindings", bindingCount)
+                    .put("unrunnable", scenarios);
+            AtomicFiles.writeString(file, json.toString(2));
+        }
+    }
+}
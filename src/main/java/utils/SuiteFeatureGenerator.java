@@ -0,0 +1,288 @@
+package utils;
+
+import config.ConfigReader;
+import model.TestCaseRecord;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 🔹 SuiteFeatureGenerator
+ * Generates one TestCase_&lt;id&gt;.feature per case for a whole suite, section or case-ID list.
+ * - Case list: cases missing from the cache are fetched asynchronously (inside the
+ *   RequestScheduler limits) and each one is transformed on the bounded worker pool as soon as
+ *   it arrives, so no worker blocks on TestRail
+ * - Suite/section: taken from the synced case cache when it covers the suite (also offline);
+ *   otherwise get_cases is streamed once. Either way every case is transformed in parallel and
+ *   the bounded queue keeps the listing from running ahead of the writers
+ * - Every file is written atomically; one failing case does not stop the others
+ * - The feature manifest skips cases whose source fields are unchanged (and whose file is
+ *   intact), leaves identical output untouched, and removes generated features of cases that
+ *   are no longer in scope or no longer exist in TestRail
+ */
+public class SuiteFeatureGenerator {
+
+    private final Client client;
+    private final CaseCache caseCache;
+    private final FeatureGenerator generator;
+    private final int threads;
+    private final FeatureManifest manifest;
+
+    public SuiteFeatureGenerator(Client client, CaseCache caseCache) {
+        this(client, caseCache, ConfigReader.getInt("feature.generator.threads", 8),
+                Path.of(ConfigReader.get("testrail.cache.dir", CaseCache.DEFAULT_DIR), FeatureManifest.FILE_NAME));
+    }
+
+    /**
+     * @param manifestFile where the feature manifest lives (null = regenerate everything every time)
+     */
+    public SuiteFeatureGenerator(Client client, CaseCache caseCache, int threads, Path manifestFile) {
+        this(client, caseCache, threads, manifestFile, FeatureGenerator.DEFAULT_DIR);
+    }
+
+    /**
+     * @param featuresDir where the TestCase_&lt;id&gt;.feature files are written
+     */
+    public SuiteFeatureGenerator(Client client, CaseCache caseCache, int threads, Path manifestFile, String featuresDir) {
+        this.client = client;
+        this.caseCache = caseCache;
+        this.generator = new FeatureGenerator(client, caseCache, featuresDir);
+        this.threads = Math.max(1, threads);
+        this.manifest = manifestFile != null ? FeatureManifest.load(manifestFile, FeatureGenerator.FORMAT_VERSION) : null;
+    }
+
+    // ==========================
+    // 🔹 Case-ID list
+    // ==========================
+    public Result generateCases(Collection<Integer> caseIds) throws IOException {
+        long start = System.currentTimeMillis();
+        System.out.println("📝 Generating " + caseIds.size() + " feature file(s) with " + threads + " worker(s)...");
+
+        Result result = new Result();
+        ExecutorService pool = newPool();
+        try {
+            Map<Integer, Future<Boolean>> futures = new TreeMap<>();
+            for (int caseId : new LinkedHashSet<>(caseIds)) {
+                CompletableFuture<JSONObject> testCase = caseCache != null
+                        ? caseCache.getCaseAsync(caseId) : client.fetchTestCaseAsync(caseId);
+                futures.put(caseId, testCase.thenApplyAsync(fetched -> {
+                    try {
+                        return generate(caseId, fetched);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, pool));
+            }
+            for (Map.Entry<Integer, Future<Boolean>> entry : futures.entrySet()) {
+                collect(result, entry.getKey(), entry.getValue());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        finish(result);
+        result.elapsedMillis = System.currentTimeMillis() - start;
+        result.print();
+        return result;
+    }
+
+    // ==========================
+    // 🔹 Whole suite or one section
+    // ==========================
+    public Result generateSuite(int projectId, Integer suiteId, Integer sectionId) throws IOException {
+        boolean fromCache = caseCache != null && caseCache.isSynced(projectId, suiteId);
+        if (!fromCache && caseCache != null && caseCache.isOffline()) {
+            throw new IOException("The offline case cache has never been synced for this suite; set testrail.caseIds or sync it first");
+        }
+        long start = System.currentTimeMillis();
+        System.out.println("📝 Generating feature files for project " + projectId
+                + (suiteId != null ? ", suite " + suiteId : "")
+                + (sectionId != null ? ", section " + sectionId : "")
+                + " with " + threads + " worker(s)" + (fromCache ? " from the case cache" : "") + "...");
+
+        Result result = new Result();
+        // Small queue + caller-runs: the listing never runs far ahead of the writers
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4), daemonThreads(), new ThreadPoolExecutor.CallerRunsPolicy());
+        Map<Integer, Future<Boolean>> futures = new TreeMap<>();
+        try {
+            if (fromCache) {
+                // The sync already pulled every change; listing the suite again would refetch it all
+                for (JSONObject testCase : caseCache.cachedCases(suiteId, sectionId)) {
+                    int caseId = testCase.getInt("id");
+                    futures.put(caseId, pool.submit(() -> generate(caseId, testCase)));
+                }
+            } else {
+                try (TestRailCaseIterator it = client.iterateCases(projectId, suiteId, sectionId, null)) {
+                    while (it.hasNext()) {
+                        TestCaseRecord record = it.next();
+                        int caseId = record.getId();
+                        String rawJson = record.getRawJson();
+                        futures.put(caseId, pool.submit(() -> generate(caseId, new JSONObject(rawJson))));
+                    }
+                }
+            }
+            for (Map.Entry<Integer, Future<Boolean>> entry : futures.entrySet()) {
+                collect(result, entry.getKey(), entry.getValue());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdownNow();
+        }
+        finish(result);
+        result.elapsedMillis = System.currentTimeMillis() - start;
+        result.print();
+        return result;
+    }
+
+    /**
+     * Generate one case unless the manifest shows nothing changed.
+     * @return true if the feature file was (re)written
+     */
+    private boolean generate(int caseId, JSONObject testCase) throws IOException {
+        Path path = Path.of(generator.getFeatureFilePath(caseId));
+        long updatedOn = testCase.optLong("updated_on");
+        String contentHash = FeatureManifest.contentHash(testCase, FeatureGenerator.SOURCE_FIELDS);
+
+        FeatureManifest.Entry previous = manifest != null ? manifest.get(caseId) : null;
+        String onDisk = previous != null ? FeatureManifest.fileHash(path) : null;
+        if (previous != null && previous.getContentHash().equals(contentHash)
+                && previous.getOutputHash().equals(onDisk)) {
+            if (previous.getUpdatedOn() != updatedOn) {
+                manifest.put(caseId, new FeatureManifest.Entry(updatedOn, contentHash, onDisk, previous.getPath()));
+            }
+            return false;
+        }
+
+        String content = generator.buildFeature(caseId, testCase);
+        String outputHash = FeatureManifest.sha256(content);
+        if (onDisk == null && manifest != null) onDisk = FeatureManifest.fileHash(path);
+        boolean rewrite = !outputHash.equals(onDisk);
+        if (rewrite) generator.writeFeature(caseId, content);
+        if (manifest != null) {
+            manifest.put(caseId, new FeatureManifest.Entry(updatedOn, contentHash, outputHash, path.toString()));
+        }
+        return rewrite;
+    }
+
+    private void collect(Result result, int caseId, Future<Boolean> future) throws IOException {
+        try {
+            if (future.get()) result.rewritten++;
+            result.features.put(caseId, generator.getFeatureFilePath(caseId));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating feature files");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("❌ Failed to generate feature for C" + caseId + ": " + cause.getMessage());
+            result.failures.put(caseId, String.valueOf(cause.getMessage()));
+            // 400/404 from get_case: the case is gone, its feature must go too
+            if (cause instanceof TestRailApiException && !((TestRailApiException) cause).isTransient()) {
+                result.missing.add(caseId);
+            }
+        }
+    }
+
+    /**
+     * Drop generated features that fell out of scope, then persist the manifest
+     */
+    private void finish(Result result) throws IOException {
+        if (manifest == null) return;
+        for (int caseId : manifest.caseIds()) {
+            boolean keep = result.features.containsKey(caseId)
+                    || (result.failures.containsKey(caseId) && !result.missing.contains(caseId));
+            if (keep) continue;
+            FeatureManifest.Entry entry = manifest.remove(caseId);
+            if (Files.deleteIfExists(Path.of(entry.getPath()))) {
+                System.out.println("🗑️ Removed feature for case C" + caseId + " (no longer in scope)");
+                result.removed++;
+            }
+        }
+        manifest.save();
+    }
+
+    private ExecutorService newPool() {
+        return Executors.newFixedThreadPool(threads, daemonThreads());
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "feature-gen-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    public String getFeaturesDirectory() {
+        return generator.getFeaturesDirectory();
+    }
+
+    /**
+     * Parse "C40, 41 ,C42" style case lists (the C prefix is optional)
+     */
+    public static Set<Integer> parseCaseIds(String value) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        if (value == null) return ids;
+        for (String part : value.split("[,;\\s]+")) {
+            String id = part.trim();
+            if (id.startsWith("C") || id.startsWith("c")) id = id.substring(1);
+            if (!id.isEmpty()) ids.add(Integer.parseInt(id));
+        }
+        return ids;
+    }
+
+    /**
+     * Outcome of one generation pass: case ID → feature path, and case ID → error
+     */
+    public static class Result {
+        private final Map<Integer, String> features = new TreeMap<>();
+        private final Map<Integer, String> failures = new TreeMap<>();
+        private final Set<Integer> missing = new HashSet<>();
+        private int rewritten;
+        private int removed;
+        private long elapsedMillis;
+
+        /** Every feature in scope, whether rewritten or already up to date */
+        public Map<Integer, String> getFeatures() { return Collections.unmodifiableMap(features); }
+        public Map<Integer, String> getFailures() { return Collections.unmodifiableMap(failures); }
+        public int getRewritten() { return rewritten; }
+        public int getUnchanged() { return features.size() - rewritten; }
+        public int getRemoved() { return removed; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public List<String> getFeaturePaths() {
+            return new ArrayList<>(features.values());
+        }
+
+        void print() {
+            System.out.println("✅ " + features.size() + " feature file(s) in " + elapsedMillis + " ms: "
+                    + rewritten + " written, " + getUnchanged() + " unchanged, " + removed + " removed"
+                    + (failures.isEmpty() ? "" : ", " + failures.size() + " failed " + failures.keySet()));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package utils;
+
+import java.io.IOException;
+
+/**
+ * 🔹 IOException raised for a non-2xx TestRail API response.
+ * Carries the HTTP status so callers can tell transient failures (5xx, 429)
+ * from permanent ones (400, 403, 404).
+ */
+public class TestRailApiException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public TestRailApiException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /** True when retrying the same request later may succeed */
+    public boolean isTransient() {
+        return statusCode == 429 || statusCode >= 500;
+    }
+}
@@ -0,0 +1,52 @@
+package utils;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import model.TestCaseRecord;
+
+/**
+ * 🔹 TestRailCaseIterator
+ * Lazily walks every page of get_cases (250 cases per page by default), following
+ * _links.next. Each page body is pulled through a streaming JsonReader and exactly one
+ * case is materialized at a time, so suites with tens of thousands of cases are fetched
+ * completely in constant memory. Paging lives in {@link TestRailPageIterator}.
+ */
+public class TestRailCaseIterator extends TestRailPageIterator<TestCaseRecord> {
+
+    public TestRailCaseIterator(PageOpener opener, String firstPath) {
+        super(opener, firstPath, "cases", reader -> toRecord(JsonParser.parseReader(reader).getAsJsonObject()));
+    }
+
+    private static TestCaseRecord toRecord(JsonObject json) {
+        return new TestCaseRecord(
+                intField(json, "id"),
+                stringField(json, "title", ""),
+                intField(json, "section_id"),
+                intField(json, "suite_id"),
+                intField(json, "template_id"),
+                intField(json, "type_id"),
+                intField(json, "priority_id"),
+                stringField(json, "refs", null),
+                longField(json, "created_on"),
+                longField(json, "updated_on"),
+                json.toString());
+    }
+
+    private static int intField(JsonObject json, String name) {
+        JsonElement e = json.get(name);
+        return e == null || e.isJsonNull() ? 0 : e.getAsInt();
+    }
+
+    private static long longField(JsonObject json, String name) {
+        JsonElement e = json.get(name);
+        return e == null || e.isJsonNull() ? 0L : e.getAsLong();
+    }
+
+    private static String stringField(JsonObject json, String name, String def) {
+        JsonElement e = json.get(name);
+        return e == null || e.isJsonNull() ? def : e.getAsString();
+    }
+
+    public int getCasesYielded() { return getItemsYielded(); }
+}
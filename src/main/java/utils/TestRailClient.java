@@ -5,13 +5,14 @@ import okhttp3.*;
 import okio.ByteString;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 public class TestRailClient {
 
     private final String base;
     private final String auth;
-    private final OkHttpClient http = new OkHttpClient();
+    private final RequestScheduler scheduler = RequestScheduler.shared();
     private final Gson gson = new Gson();
 
     public TestRailClient(String baseUrl, String user, String apiKey) {
@@ -24,7 +25,7 @@ public class TestRailClient {
                 .url(base + path)
                 .addHeader("Authorization", auth)
                 .build();
-        try (Response r = http.newCall(req).execute()) {
+        try (Response r = scheduler.execute(req)) {
             if (!r.isSuccessful()) throw new IOException("GET " + path + " -> " + r.code());
             return r.body().string();
         }
@@ -37,7 +38,7 @@ public class TestRailClient {
                 .addHeader("Authorization", auth)
                 .post(rb)
                 .build();
-        try (Response r = http.newCall(req).execute()) {
+        try (Response r = scheduler.execute(req)) {
             if (!r.isSuccessful())
                 throw new IOException("POST " + path + " -> " + r.code() + " " + r.message());
             return JsonParser.parseString(r.body().string()).getAsJsonObject();
@@ -46,22 +47,38 @@ public class TestRailClient {
 
     // ---- Cases ----
     public List<JsonObject> getCases(int projectId, Integer suiteId) throws IOException {
-        String path = suiteId == null
-                ? "index.php?/api/v2/get_cases/" + projectId
-                : "index.php?/api/v2/get_cases/" + projectId + "&suite_id=" + suiteId;
-
-        String json = get(path);
-        JsonObject obj = JsonParser.parseString(json).getAsJsonObject();
-
-        // The "cases" field contains the array of test cases
-        JsonArray arr = obj.getAsJsonArray("cases");
         List<JsonObject> cases = new ArrayList<>();
-        for (JsonElement e : arr) {
-            cases.add(e.getAsJsonObject());
+        try (TestRailCaseIterator it = iterateCases(projectId, suiteId)) {
+            while (it.hasNext()) {
+                cases.add(JsonParser.parseString(it.next().getRawJson()).getAsJsonObject());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
         return cases;
     }
 
+    /** Lazily walk every get_cases page; one case in memory at a time */
+    public TestRailCaseIterator iterateCases(int projectId, Integer suiteId) {
+        String path = suiteId == null
+                ? "get_cases/" + projectId
+                : "get_cases/" + projectId + "&suite_id=" + suiteId;
+        return new TestRailCaseIterator(this::open, path);
+    }
+
+    private Response open(String apiPath) throws IOException {
+        Request req = new Request.Builder()
+                .url(base + "index.php?/api/v2/" + apiPath)
+                .addHeader("Authorization", auth)
+                .build();
+        Response r = scheduler.execute(req);
+        if (!r.isSuccessful()) {
+            r.close();
+            throw new IOException("GET " + apiPath + " -> " + r.code());
+        }
+        return r;
+    }
+
     // ---- Update result for a case ----
     public void updateResult(int runId, int caseId, int statusId, String comment) throws IOException {
         JsonObject body = new JsonObject();
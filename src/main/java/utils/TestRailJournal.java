@@ -0,0 +1,247 @@
+package utils;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 🔹 TestRailJournal
+ * Append-only, fsync'd JSONL journal of everything we intend to report to TestRail
+ * (results, defects, attachment references). Entries are written BEFORE any API call,
+ * and an "ack" line is appended once TestRail accepted the entry. Whatever is not
+ * acknowledged is replayed by {@link TestRailJournalSender}, including on the next run.
+ */
+public class TestRailJournal {
+
+    public static final String DEFAULT_PATH = "test-output/testrail-journal.jsonl";
+
+    public static final String TYPE_RESULT = "result";
+    public static final String TYPE_DEFECT = "defect";
+    public static final String TYPE_ATTACHMENT = "attachment";
+    private static final String TYPE_ACK = "ack";
+    private static final String TYPE_REJECT = "reject";
+    private static final String TYPE_ATTEMPT = "attempt";
+    private static final String TYPE_PART = "part";
+
+    private final File file;
+
+    public TestRailJournal() {
+        this(DEFAULT_PATH);
+    }
+
+    public TestRailJournal(String path) {
+        this.file = new File(path);
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists()) dir.mkdirs();
+    }
+
+    // ==========================
+    // 🔹 Write side
+    // ==========================
+
+    /**
+     * Journal a result for a case. runId 0 means "the run of whichever session replays it".
+     * @return idempotency key of the entry
+     */
+    public String appendResult(int runId, int caseId, int statusId, String comment) throws IOException {
+        JSONObject entry = newEntry(TYPE_RESULT);
+        entry.put("runId", runId);
+        entry.put("caseId", caseId);
+        entry.put("statusId", statusId);
+        entry.put("comment", comment);
+        append(entry);
+        return entry.getString("key");
+    }
+
+    /** Journal a defect that belongs to a previously journaled result */
+    public String appendDefect(String parentKey, int runId, int caseId, String title, String description) throws IOException {
+        JSONObject entry = newEntry(TYPE_DEFECT);
+        entry.put("parent", parentKey);
+        entry.put("runId", runId);
+        entry.put("caseId", caseId);
+        entry.put("title", title);
+        entry.put("description", description);
+        append(entry);
+        return entry.getString("key");
+    }
+
+    /** Journal a file reference to attach to a previously journaled result */
+    public String appendAttachment(String parentKey, File attachment) throws IOException {
+        return appendAttachment(parentKey, 0, attachment);
+    }
+
+    /**
+     * Journal a file reference to attach to a previously journaled result. parentResultId is
+     * the parent's TestRail result id when it was already delivered (0 when still pending):
+     * the attachment then does not depend on the parent's ack, which a truncated journal no
+     * longer has.
+     */
+    public String appendAttachment(String parentKey, int parentResultId, File attachment) throws IOException {
+        JSONObject entry = newEntry(TYPE_ATTACHMENT);
+        entry.put("parent", parentKey);
+        if (parentResultId > 0) entry.put("parentResultId", parentResultId);
+        entry.put("file", attachment.getPath());
+        append(entry);
+        return entry.getString("key");
+    }
+
+    /** Mark an entry as accepted by TestRail */
+    public void acknowledge(String key, int resultId) throws IOException {
+        JSONObject entry = new JSONObject();
+        entry.put("type", TYPE_ACK);
+        entry.put("key", key);
+        entry.put("resultId", resultId);
+        append(entry);
+    }
+
+    /** Mark an entry as permanently refused (4xx, missing file) so it is not replayed forever */
+    public void reject(String key, String reason) throws IOException {
+        JSONObject entry = new JSONObject();
+        entry.put("type", TYPE_REJECT);
+        entry.put("key", key);
+        entry.put("reason", reason);
+        append(entry);
+    }
+
+    /** Record a failed delivery attempt that may succeed later (5xx, 429, network) */
+    public void recordAttempt(String key, String reason) throws IOException {
+        JSONObject entry = new JSONObject();
+        entry.put("type", TYPE_ATTEMPT);
+        entry.put("key", key);
+        entry.put("reason", reason);
+        append(entry);
+    }
+
+    /** Record one delivered part of a multi-part attachment, so a retry skips it */
+    public void recordPart(String key, String partName) throws IOException {
+        JSONObject entry = new JSONObject();
+        entry.put("type", TYPE_PART);
+        entry.put("key", key);
+        entry.put("part", partName);
+        append(entry);
+    }
+
+    private JSONObject newEntry(String type) {
+        JSONObject entry = new JSONObject();
+        entry.put("type", type);
+        entry.put("key", UUID.randomUUID().toString());
+        entry.put("ts", System.currentTimeMillis());
+        return entry;
+    }
+
+    private synchronized void append(JSONObject entry) throws IOException {
+        byte[] line = (entry.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(line);
+            out.getFD().sync();
+        }
+    }
+
+    // ==========================
+    // 🔹 Read side
+    // ==========================
+
+    /**
+     * Current journal state: pending entries in append order plus the TestRail result id
+     * of every acknowledged entry (children need their parent's result id).
+     */
+    public synchronized State load() throws IOException {
+        Map<String, JSONObject> entries = new LinkedHashMap<>();
+        Map<String, Integer> acked = new HashMap<>();
+        Map<String, Integer> attempts = new HashMap<>();
+        Map<String, Set<String>> parts = new HashMap<>();
+
+        if (file.exists()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    JSONObject entry;
+                    try {
+                        entry = new JSONObject(line);
+                    } catch (Exception e) {
+                        // A torn last line from a crash mid-write: everything before it is intact
+                        System.err.println("⚠️ Skipping unreadable journal line: " + e.getMessage());
+                        continue;
+                    }
+                    String type = entry.optString("type");
+                    String key = entry.optString("key");
+                    if (TYPE_ACK.equals(type)) {
+                        acked.put(key, entry.optInt("resultId"));
+                        entries.remove(key);
+                    } else if (TYPE_REJECT.equals(type)) {
+                        acked.put(key, 0);
+                        entries.remove(key);
+                    } else if (TYPE_ATTEMPT.equals(type)) {
+                        attempts.merge(key, 1, Integer::sum);
+                    } else if (TYPE_PART.equals(type)) {
+                        parts.computeIfAbsent(key, k -> new HashSet<>()).add(entry.optString("part"));
+                    } else if (!acked.containsKey(key)) {
+                        entries.put(key, entry);
+                    }
+                }
+            }
+        }
+        return new State(new ArrayList<>(entries.values()), acked, attempts, parts);
+    }
+
+    /** Drop the journal once nothing in it is pending anymore */
+    public synchronized void truncateIfDrained() throws IOException {
+        if (file.exists() && load().pending.isEmpty() && !file.delete()) {
+            System.err.println("⚠️ Could not truncate journal: " + file.getPath());
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Snapshot of the journal
+     */
+    public static class State {
+        private final List<JSONObject> pending;
+        private final Map<String, Integer> resultIds;
+        private final Map<String, Integer> attempts;
+        private final Map<String, Set<String>> parts;
+
+        State(List<JSONObject> pending, Map<String, Integer> resultIds, Map<String, Integer> attempts,
+              Map<String, Set<String>> parts) {
+            this.pending = pending;
+            this.resultIds = resultIds;
+            this.attempts = attempts;
+            this.parts = parts;
+        }
+
+        public List<JSONObject> getPending() { return pending; }
+
+        /** Result id of an acknowledged entry, or null when still pending */
+        public Integer getResultId(String key) { return resultIds.get(key); }
+
+        /** Failed attempts recorded for a pending entry */
+        public int getAttempts(String key) { return attempts.getOrDefault(key, 0); }
+
+        /** Parts of a pending attachment that already reached TestRail */
+        public Set<String> getDeliveredParts(String key) { return parts.getOrDefault(key, Set.of()); }
+
+        public boolean isPending(String key) {
+            for (JSONObject entry : pending) {
+                if (key.equals(entry.optString("key"))) return true;
+            }
+            return false;
+        }
+    }
+}
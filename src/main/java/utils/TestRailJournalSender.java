@@ -0,0 +1,351 @@
+package utils;
+
+import config.ConfigReader;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 🔹 TestRailJournalSender
+ * Writes reporting intents to the {@link TestRailJournal} first, then drains every
+ * unacknowledged entry to TestRail in journal order.
+ * - Transient failures (timeouts, 5xx, 429) stop the drain; entries stay pending for later
+ * - Permanent failures (4xx, missing files) are rejected so they are not replayed forever
+ * - Attachment uploads that fail transiently are retried on later drains, up to
+ *   testrail.journal.uploadAttempts times, then rejected; of a multi-part report bundle only
+ *   the parts not yet delivered are sent again
+ * - Each result/defect comment carries its idempotency key; entries that may already have
+ *   reached TestRail (left over from an earlier attempt) are looked up by that key first,
+ *   so a replay never posts the same result twice
+ */
+public class TestRailJournalSender {
+
+    private static final String REF_PREFIX = "[journal-ref:";
+    private static final int DEFAULT_UPLOAD_ATTEMPTS = 5;
+
+    private final TestRailJournal journal;
+    private final Client client;
+    // Directory relative attachment paths are resolved against (the journal's working directory)
+    private final File baseDir;
+    // Keys appended by this sender and never sent: safe to post without a remote lookup
+    private final Set<String> freshKeys = new HashSet<>();
+    // Result ids this sender got acknowledged, for children recorded after the journal was truncated
+    private final Map<String, Integer> deliveredResultIds = new HashMap<>();
+
+    public TestRailJournalSender(TestRailJournal journal, Client client) {
+        this(journal, client, null);
+    }
+
+    /** Sender for a journal written in another working directory (e.g. a shard's, see {@link ShardMerger}) */
+    public TestRailJournalSender(TestRailJournal journal, Client client, File baseDir) {
+        this.journal = journal;
+        this.client = client;
+        this.baseDir = baseDir;
+    }
+
+    // ==========================
+    // 🔹 Record (journal first, send later)
+    // ==========================
+
+    public synchronized String recordResult(int runId, int caseId, boolean passed, String comment) throws IOException {
+        return recordResult(runId, caseId, passed ? 1 : 5, comment);
+    }
+
+    /** Result with an explicit TestRail status (1 passed, 2 blocked, 4 retest, 5 failed) */
+    public synchronized String recordResult(int runId, int caseId, int statusId, String comment) throws IOException {
+        String key = journal.appendResult(runId, caseId, statusId, comment);
+        freshKeys.add(key);
+        return key;
+    }
+
+    public synchronized String recordDefect(String resultKey, int runId, int caseId, String title, String description) throws IOException {
+        String key = journal.appendDefect(resultKey, runId, caseId, title, description);
+        freshKeys.add(key);
+        return key;
+    }
+
+    public synchronized String recordAttachment(String resultKey, File file) throws IOException {
+        // A parent delivered earlier may already be gone from a truncated journal: carry its id
+        Integer parentResultId = deliveredResultIds.get(resultKey);
+        if (parentResultId == null) parentResultId = journal.load().getResultId(resultKey);
+        String key = journal.appendAttachment(resultKey, parentResultId != null ? parentResultId : 0, file);
+        freshKeys.add(key);
+        return key;
+    }
+
+    // ==========================
+    // 🔹 Drain / replay
+    // ==========================
+
+    /**
+     * Send all pending entries in order.
+     * @return number of entries still pending afterwards
+     */
+    public synchronized int drain() {
+        TestRailJournal.State state;
+        try {
+            state = journal.load();
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not read TestRail journal: " + e.getMessage());
+            return -1;
+        }
+
+        int remaining = state.getPending().size();
+        if (remaining == 0) return 0;
+        System.out.println("📒 Replaying " + remaining + " journaled TestRail entr" + (remaining == 1 ? "y" : "ies") + "...");
+
+        // Result ids acknowledged during this drain, so children can follow their parent immediately
+        Map<String, Integer> sentNow = new HashMap<>();
+        // Attachment uploads overlap with the result posts that follow them
+        Map<String, CompletableFuture<Boolean>> uploads = new LinkedHashMap<>();
+        Map<String, Integer> uploadTargets = new HashMap<>();
+
+        for (JSONObject entry : state.getPending()) {
+            String key = entry.getString("key");
+            try {
+                if (TestRailJournal.TYPE_ATTACHMENT.equals(entry.optString("type"))) {
+                    Integer parentResultId = resolveParentResultId(entry, state, sentNow);
+                    if (parentResultId == null) continue;
+                    if (parentResultId == 0) throw new RejectedEntry("parent result was rejected or is unknown");
+                    File file = new File(entry.getString("file"));
+                    if (baseDir != null && !file.isAbsolute()) file = new File(baseDir, file.getPath());
+                    if (!file.exists()) throw new RejectedEntry("attachment no longer exists: " + file.getPath());
+                    uploads.put(key, client.uploadExtentReportToResultAsync(parentResultId, file, progressOf(key, state)));
+                    uploadTargets.put(key, parentResultId);
+                    continue;
+                }
+                int resultId = send(entry, state);
+                journal.acknowledge(key, resultId);
+                sentNow.put(key, resultId);
+                deliveredResultIds.put(key, resultId);
+                freshKeys.remove(key);
+                remaining--;
+            } catch (TestRailApiException e) {
+                if (e.isTransient()) {
+                    System.err.println("⚠️ TestRail unavailable (" + e.getStatusCode() + "), keeping " + remaining + " journaled entries");
+                    return remaining - awaitUploads(uploads, uploadTargets, state);
+                }
+                rejectQuietly(key, e.getMessage());
+                sentNow.put(key, 0);
+                remaining--;
+            } catch (RejectedEntry e) {
+                rejectQuietly(key, e.getMessage());
+                sentNow.put(key, 0);
+                remaining--;
+            } catch (Exception e) {
+                // Network errors may or may not have reached TestRail: look up by key next time
+                freshKeys.remove(key);
+                System.err.println("⚠️ TestRail unreachable (" + e.getMessage() + "), keeping " + remaining + " journaled entries");
+                return remaining - awaitUploads(uploads, uploadTargets, state);
+            }
+        }
+        remaining -= awaitUploads(uploads, uploadTargets, state);
+
+        if (remaining == 0) {
+            try {
+                journal.truncateIfDrained();
+            } catch (IOException e) {
+                System.err.println("⚠️ Could not truncate TestRail journal: " + e.getMessage());
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Wait for in-flight attachment uploads: acknowledge the ones that landed, reject the ones
+     * TestRail refused for good or that ran out of attempts, count an attempt for the rest.
+     * @return number of uploads settled (acknowledged or rejected)
+     */
+    private int awaitUploads(Map<String, CompletableFuture<Boolean>> uploads, Map<String, Integer> targets,
+                             TestRailJournal.State state) {
+        int settled = 0;
+        for (Map.Entry<String, CompletableFuture<Boolean>> upload : uploads.entrySet()) {
+            String key = upload.getKey();
+            try {
+                if (Boolean.TRUE.equals(upload.getValue().join())) {
+                    journal.acknowledge(key, targets.get(key));
+                } else {
+                    rejectQuietly(key, "nothing to upload");
+                }
+                freshKeys.remove(key);
+                settled++;
+            } catch (Exception e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                int attempts = state.getAttempts(key) + 1;
+                if (cause instanceof TestRailApiException && !((TestRailApiException) cause).isTransient()
+                        || cause instanceof ReportBundler.EntryTooLargeException) {
+                    rejectQuietly(key, cause.getMessage());
+                    settled++;
+                } else if (attempts >= maxUploadAttempts()) {
+                    rejectQuietly(key, "gave up after " + attempts + " attempts: " + cause.getMessage());
+                    settled++;
+                } else {
+                    System.err.println("⚠️ Attachment upload failed (attempt " + attempts + "), keeping it journaled: " + cause.getMessage());
+                    try {
+                        journal.recordAttempt(key, String.valueOf(cause.getMessage()));
+                    } catch (IOException io) {
+                        System.err.println("⚠️ Could not record upload attempt: " + io.getMessage());
+                    }
+                }
+            }
+        }
+        return settled;
+    }
+
+    /** Delivered bundle parts of an attachment entry, journaled as they land */
+    private ReportBundler.Progress progressOf(String key, TestRailJournal.State state) {
+        Set<String> delivered = state.getDeliveredParts(key);
+        return new ReportBundler.Progress() {
+            @Override
+            public boolean isDelivered(String partName) {
+                return delivered.contains(partName);
+            }
+
+            @Override
+            public void delivered(String partName) throws IOException {
+                journal.recordPart(key, partName);
+            }
+        };
+    }
+
+    /** testrail.journal.uploadAttempts */
+    private static int maxUploadAttempts() {
+        return Math.max(1, ConfigReader.getInt("testrail.journal.uploadAttempts", DEFAULT_UPLOAD_ATTEMPTS));
+    }
+
+    /** Number of entries not yet acknowledged by TestRail */
+    public synchronized int pendingCount() {
+        try {
+            return journal.load().getPending().size();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private int send(JSONObject entry, TestRailJournal.State state) throws IOException {
+        String key = entry.getString("key");
+        switch (entry.getString("type")) {
+            case TestRailJournal.TYPE_RESULT: {
+                int runId = resolveRun(entry.optInt("runId"), state);
+                int caseId = entry.getInt("caseId");
+                if (!freshKeys.contains(key)) {
+                    Integer existing = findExisting(runId, caseId, key);
+                    if (existing != null) return existing;
+                }
+                return client.addResultForCase(runId, caseId, entry.getInt("statusId"),
+                        entry.optString("comment") + tag(key), null);
+            }
+            case TestRailJournal.TYPE_DEFECT: {
+                int runId = resolveRun(entry.optInt("runId"), state);
+                int caseId = entry.getInt("caseId");
+                if (!freshKeys.contains(key)) {
+                    Integer existing = findExisting(runId, caseId, key);
+                    if (existing != null) return existing;
+                }
+                String title = entry.optString("title");
+                return client.addResultForCase(runId, caseId, 5,
+                        "🐛 DEFECT: " + title + "\n\n" + entry.optString("description") + tag(key), title);
+            }
+            default:
+                throw new RejectedEntry("unknown journal entry type: " + entry.optString("type"));
+        }
+    }
+
+    /**
+     * Result id of the parent entry: null while the parent is pending, 0 when it was rejected
+     * or is in neither the journal nor this sender's memory (it would never resolve)
+     */
+    private Integer resolveParentResultId(JSONObject entry, TestRailJournal.State state, Map<String, Integer> sentNow) {
+        if (entry.optInt("parentResultId") > 0) return entry.getInt("parentResultId");
+        String parentKey = entry.optString("parent");
+        if (sentNow.containsKey(parentKey)) return sentNow.get(parentKey);
+        Integer acked = state.getResultId(parentKey);
+        if (acked != null) return acked;
+        if (deliveredResultIds.containsKey(parentKey)) return deliveredResultIds.get(parentKey);
+        return state.isPending(parentKey) ? null : 0;
+    }
+
+    /**
+     * Run of an entry journaled before any run existed: the run this session is creating or
+     * joining (TestRailSession.pendingRun) when there is one, a new run only otherwise
+     * (no planned run, or it failed). A new run holds every case the journal has without a run.
+     */
+    private int resolveRun(int journaledRunId, TestRailJournal.State state) throws IOException {
+        if (journaledRunId > 0) return journaledRunId;
+        CompletableFuture<Integer> pendingRun = TestRailSession.pendingRun();
+        if (client.getRunId() == 0 && pendingRun != null) {
+            try {
+                client.setRunId(pendingRun.join());
+            } catch (CompletionException e) {
+                System.err.println("⚠️ Planned TestRail run failed (" + e.getCause().getMessage() + "), creating one for the journal");
+            }
+        }
+        if (client.getRunId() == 0) {
+            client.createTestRun("Automated Run - " + java.time.LocalDateTime.now(), casesWithoutRun(state));
+        }
+        return client.getRunId();
+    }
+
+    /** Cases of the pending results/defects journaled without a run */
+    private static Set<Integer> casesWithoutRun(TestRailJournal.State state) {
+        Set<Integer> caseIds = new LinkedHashSet<>();
+        for (JSONObject entry : state.getPending()) {
+            if (entry.has("caseId") && entry.optInt("runId") <= 0) caseIds.add(entry.getInt("caseId"));
+        }
+        return caseIds;
+    }
+
+    private Integer findExisting(int runId, int caseId, String key) throws IOException {
+        JSONArray results = client.getResultsForCase(runId, caseId);
+        String marker = tag(key).trim();
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            if (result.optString("comment", "").contains(marker)) {
+                System.out.println("♻️ Journal entry " + key + " already in TestRail (Result ID: " + result.getInt("id") + ")");
+                return result.getInt("id");
+            }
+        }
+        return null;
+    }
+
+    /** Idempotency marker appended to every result/defect comment */
+    static String tag(String key) {
+        return "\n\n" + REF_PREFIX + key + "]";
+    }
+
+    /** Journal key a result comment was tagged with, or null */
+    static String refOf(String comment) {
+        int start = comment != null ? comment.lastIndexOf(REF_PREFIX) : -1;
+        if (start < 0) return null;
+        int end = comment.indexOf(']', start);
+        return end < 0 ? null : comment.substring(start + REF_PREFIX.length(), end);
+    }
+
+    private void rejectQuietly(String key, String reason) {
+        System.err.println("❌ TestRail refused journal entry " + key + ": " + reason);
+        try {
+            journal.reject(key, reason);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not record rejection: " + e.getMessage());
+        }
+    }
+
+    /** Entry that can never be delivered */
+    private static class RejectedEntry extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        RejectedEntry(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package utils;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import okhttp3.Response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 🔹 TestRailPageIterator
+ * Lazily walks every page of a paginated TestRail list endpoint (get_cases, get_tests, ...),
+ * following _links.next. Each page body is pulled through a streaming JsonReader and one
+ * item is read at a time, so long lists are fetched in constant memory.
+ *
+ * Handles both the paginated response ({offset, limit, size, _links, &lt;items&gt;}) and the
+ * legacy bare array returned by older TestRail versions.
+ */
+public class TestRailPageIterator<T> implements Iterator<T>, Closeable {
+
+    /** Opens a GET on a path relative to /api/v2/ and returns the live (unread) response */
+    public interface PageOpener {
+        Response open(String relativePath) throws IOException;
+    }
+
+    /** Reads one item (the reader is positioned on it) */
+    public interface ItemReader<T> {
+        T read(JsonReader reader) throws IOException;
+    }
+
+    private static final String API_PREFIX = "/api/v2/";
+
+    private final PageOpener opener;
+    private final String itemsField;
+    private final ItemReader<T> itemReader;
+    private String nextPath;
+    private Response response;
+    private JsonReader reader;
+    private boolean inObjectPage;
+    private T lookahead;
+    private int pages;
+    private int yielded;
+
+    /**
+     * @param itemsField name of the item array in a paginated page ("cases", "tests")
+     */
+    public TestRailPageIterator(PageOpener opener, String firstPath, String itemsField, ItemReader<T> itemReader) {
+        this.opener = opener;
+        this.nextPath = firstPath;
+        this.itemsField = itemsField;
+        this.itemReader = itemReader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (lookahead != null) return true;
+        try {
+            lookahead = advance();
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        }
+        return lookahead != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        T item = lookahead;
+        lookahead = null;
+        yielded++;
+        return item;
+    }
+
+    private T advance() throws IOException {
+        while (true) {
+            if (reader == null) {
+                if (nextPath == null) return null;
+                String path = nextPath;
+                nextPath = null;
+                openPage(path);
+                continue;
+            }
+            if (reader.hasNext()) {
+                T item = itemReader.read(reader);
+                if (item != null) return item;
+                continue;
+            }
+            finishPage();
+        }
+    }
+
+    private void openPage(String path) throws IOException {
+        response = opener.open(path);
+        if (response.body() == null) throw new IOException("Empty TestRail response for " + path);
+        reader = new JsonReader(response.body().charStream());
+        pages++;
+
+        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+            // Legacy shape: the whole list as one array, no pagination
+            inObjectPage = false;
+            reader.beginArray();
+            return;
+        }
+
+        inObjectPage = true;
+        reader.beginObject();
+        // Read header fields until the item array; _links may come before or after it
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (itemsField.equals(name)) {
+                reader.beginArray();
+                return;
+            }
+            readPageField(name);
+        }
+        // Page without an item array: treat as empty
+        reader.endObject();
+        closePage();
+        reader = null;
+    }
+
+    private void finishPage() throws IOException {
+        reader.endArray();
+        if (inObjectPage) {
+            while (reader.hasNext()) {
+                readPageField(reader.nextName());
+            }
+            reader.endObject();
+        }
+        closePage();
+        reader = null;
+    }
+
+    private void readPageField(String name) throws IOException {
+        if ("_links".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String link = reader.nextName();
+                if ("next".equals(link) && reader.peek() == JsonToken.STRING) {
+                    nextPath = toRelative(reader.nextString());
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } else {
+            reader.skipValue();
+        }
+    }
+
+    /** _links.next relative to /api/v2/ (TestRail sends "/api/v2/get_tests/1&offset=250") */
+    static String toRelative(String link) {
+        int idx = link.indexOf(API_PREFIX);
+        return idx >= 0 ? link.substring(idx + API_PREFIX.length()) : link.replaceFirst("^/+", "");
+    }
+
+    private void closePage() {
+        if (response != null) {
+            response.close();
+            response = null;
+        }
+    }
+
+    public int getPagesFetched() { return pages; }
+    public int getItemsYielded() { return yielded; }
+
+    @Override
+    public void close() {
+        closePage();
+        reader = null;
+        nextPath = null;
+    }
+}
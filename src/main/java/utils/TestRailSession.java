@@ -0,0 +1,95 @@
+package utils;
+
+import config.ConfigReader;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 🔹 TestRailSession
+ * Per-run singleton holding the TestRail identity (URL, user, API key) as one {@link Client}.
+ * TestRunner and Hooks share it instead of each building their own client, so the run id,
+ * test ids and pooled connections are the same everywhere in the JVM.
+ */
+public final class TestRailSession {
+
+    private static volatile Client client;
+    private static volatile CompletableFuture<Integer> pendingRun;
+
+    private TestRailSession() {}
+
+    public static Client client() {
+        Client c = client;
+        if (c == null) {
+            synchronized (TestRailSession.class) {
+                c = client;
+                if (c == null) {
+                    c = new Client();
+                    client = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Start creating the run in the background (e.g. while features are being generated).
+     * Later callers pick it up through {@link #pendingRun()} instead of creating a second run.
+     */
+    public static synchronized CompletableFuture<Integer> createRunAsync(String runName) {
+        if (pendingRun == null) {
+            pendingRun = client().createTestRunAsync(runName);
+        }
+        return pendingRun;
+    }
+
+    /** Same as {@link #createRunAsync(String)}, planning the run with every given case */
+    public static synchronized CompletableFuture<Integer> createRunAsync(String runName, Collection<Integer> caseIds) {
+        if (pendingRun == null) {
+            pendingRun = caseIds.isEmpty()
+                    ? client().createTestRunAsync(runName)
+                    : client().createTestRunAsync(runName, caseIds);
+        }
+        return pendingRun;
+    }
+
+    /**
+     * Run id every shard of a split run reports into (-Dtestrail.runId or testrail.runId), or 0.
+     * A shared run is joined instead of created and left open by every shard; it is closed
+     * once after the last shard, by {@link ShardMerger} with --close-run (merge.closeRun).
+     */
+    public static int sharedRunId() {
+        String value = System.getProperty("testrail.runId", ConfigReader.get("testrail.runId", "")).trim();
+        if (value.isEmpty()) return 0;
+        try {
+            return Integer.parseInt(value.replaceFirst("^[Rr]", ""));
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️ Ignoring invalid testrail.runId: " + value);
+            return 0;
+        }
+    }
+
+    /** Join the shared run in the background; later callers pick it up through {@link #pendingRun()} */
+    public static synchronized CompletableFuture<Integer> joinRunAsync(int runId) {
+        if (pendingRun == null) {
+            pendingRun = client().joinTestRunAsync(runId);
+        }
+        return pendingRun;
+    }
+
+    /** Run creation started by {@link #createRunAsync(String)}, or null */
+    public static CompletableFuture<Integer> pendingRun() {
+        return pendingRun;
+    }
+
+    /** Use a run that is already being created or joined elsewhere (tests) */
+    static synchronized void setPendingRun(CompletableFuture<Integer> run) {
+        pendingRun = run;
+    }
+
+    /** Drop the session (e.g. after config reload); pooled connections stay in {@link HttpTransport} */
+    public static synchronized void reset() {
+        client = null;
+        pendingRun = null;
+    }
+}
@@ -0,0 +1,328 @@
+package utils;
+
+import config.ConfigReader;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 🔹 TimingHistograms
+ * Duration histograms of this run per step definition (its pattern) and per scenario,
+ * derived from the {@link ExecutionLog} as one of its sinks ({@link #sink()}): passed and
+ * failed STEP events by definition, SCENARIO_FINISHED events by "name [feature:line]".
+ * - Recording is a few atomic increments: log-linear buckets of 16 per power of two
+ *   (about 6% resolution, microseconds up to days), no lock and no allocation once a
+ *   key has its histogram
+ * - At the end of the run the slowest steps and scenarios (by p95) are printed with
+ *   p50/p95/p99 and the change against the previous run's histograms, which are stored
+ *   next to the scenario timings (histograms.path)
+ * - save() merges under a lock on &lt;file&gt;.lock: a key this run measured replaces the
+ *   stored one, keys it did not reach (a rerun's skipped scenarios) keep theirs
+ * - Shards leave their histograms in test-output/histograms.json and ShardMerger adds
+ *   them up into the stored file once, like the scenario timings
+ */
+public class TimingHistograms {
+
+    public static final String DEFAULT_PATH = ".scenario-timings/histograms.json";
+    // A shard's own histograms, for ShardMerger (relative to the shard's working directory)
+    public static final String OBSERVED_PATH = "test-output/histograms.json";
+
+    private final Path file;
+    private final Map<String, Histogram> steps = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> scenarios = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> previousSteps = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> previousScenarios = new ConcurrentHashMap<>();
+
+    private TimingHistograms(Path file) {
+        this.file = file;
+    }
+
+    /** histograms.path, overridable with -Dhistograms.path */
+    public static Path configuredPath() {
+        return Path.of(System.getProperty("histograms.path", ConfigReader.get("histograms.path", DEFAULT_PATH)));
+    }
+
+    /** This run's (empty) histograms, plus the previous run's from the file for the trend */
+    public static TimingHistograms load(Path file) {
+        TimingHistograms histograms = new TimingHistograms(file);
+        if (!Files.exists(file)) return histograms;
+        try {
+            JSONObject json = new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+            readAll(json.optJSONObject("steps"), histograms.previousSteps);
+            readAll(json.optJSONObject("scenarios"), histograms.previousScenarios);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Ignoring unreadable histograms " + file + ": " + e.getMessage());
+        }
+        return histograms;
+    }
+
+    public void recordStep(String stepDefinition, long nanos) {
+        steps.computeIfAbsent(stepDefinition, k -> new Histogram()).record(nanos);
+    }
+
+    public void recordScenario(String scenario, long nanos) {
+        scenarios.computeIfAbsent(scenario, k -> new Histogram()).record(nanos);
+    }
+
+    /**
+     * Sink recording this run from the execution log. Scenario locations come from each
+     * thread's SCENARIO_STARTED event (a thread runs one scenario at a time).
+     */
+    public ExecutionLog.Sink sink() {
+        Map<String, String> locationByThread = new HashMap<>();
+        return event -> {
+            switch (event.getType()) {
+                case SCENARIO_STARTED:
+                    locationByThread.put(event.getThread(), event.getName());
+                    break;
+                case STEP:
+                    if (event.getDefinition() != null && isTimed(event.getStatus())) recordStep(event.getDefinition(), event.getDurationNanos());
+                    break;
+                case SCENARIO_FINISHED:
+                    String location = locationByThread.remove(event.getThread());
+                    if (isTimed(event.getStatus())) {
+                        recordScenario(event.getName() + (location != null ? " [" + location + "]" : ""), event.getDurationNanos());
+                    }
+                    break;
+                default:
+            }
+        };
+    }
+
+    /** Skipped/undefined steps and scenarios say nothing about how long a real run takes */
+    private static boolean isTimed(String status) {
+        return "PASSED".equals(status) || "FAILED".equals(status);
+    }
+
+    public Map<String, Histogram> getSteps() { return Collections.unmodifiableMap(steps); }
+    public Map<String, Histogram> getScenarios() { return Collections.unmodifiableMap(scenarios); }
+    public Map<String, Histogram> getPreviousSteps() { return Collections.unmodifiableMap(previousSteps); }
+    public Map<String, Histogram> getPreviousScenarios() { return Collections.unmodifiableMap(previousScenarios); }
+
+    /**
+     * Store this run's histograms as "the previous run" for the next one (nothing when nothing ran).
+     * The file is re-read under the lock, so only the keys measured in this run are replaced.
+     */
+    public void save() throws IOException {
+        if (steps.isEmpty() && scenarios.isEmpty()) return;
+        Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        if (lockFile.getParent() != null) Files.createDirectories(lockFile.getParent());
+        // A FileLock is held per JVM, so threads of this JVM queue on the class first
+        synchronized (TimingHistograms.class) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    Map<String, Histogram> storedSteps = new HashMap<>();
+                    Map<String, Histogram> storedScenarios = new HashMap<>();
+                    if (Files.exists(file)) {
+                        try {
+                            JSONObject json = new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+                            readAll(json.optJSONObject("steps"), storedSteps);
+                            readAll(json.optJSONObject("scenarios"), storedScenarios);
+                        } catch (RuntimeException e) {
+                            System.err.println("⚠️ Replacing unreadable histograms " + file + ": " + e.getMessage());
+                        }
+                    }
+                    storedSteps.putAll(steps);
+                    storedScenarios.putAll(scenarios);
+                    AtomicFiles.writeString(file, toJson(storedSteps, storedScenarios));
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    /** Write only this run's histograms, for ShardMerger to add up (nothing when nothing ran) */
+    public void saveObserved(Path out) throws IOException {
+        if (steps.isEmpty() && scenarios.isEmpty()) return;
+        AtomicFiles.writeString(out, toJson(steps, scenarios));
+    }
+
+    /**
+     * Add another run's histograms (a shard's saveObserved file) to this run's.
+     * @return number of keys read; 0 when the file is missing or unreadable
+     */
+    public int addObserved(Path in) {
+        if (!Files.exists(in)) return 0;
+        try {
+            JSONObject json = new JSONObject(Files.readString(in, StandardCharsets.UTF_8));
+            Map<String, Histogram> shardSteps = new HashMap<>();
+            Map<String, Histogram> shardScenarios = new HashMap<>();
+            readAll(json.optJSONObject("steps"), shardSteps);
+            readAll(json.optJSONObject("scenarios"), shardScenarios);
+            shardSteps.forEach((key, h) -> steps.computeIfAbsent(key, k -> new Histogram()).add(h, 1.0));
+            shardScenarios.forEach((key, h) -> scenarios.computeIfAbsent(key, k -> new Histogram()).add(h, 1.0));
+            return shardSteps.size() + shardScenarios.size();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Ignoring unreadable shard histograms " + in + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static String toJson(Map<String, Histogram> steps, Map<String, Histogram> scenarios) {
+        return new JSONObject()
+                .put("version", 1)
+                .put("updated", java.time.Instant.now().toString())
+                .put("steps", writeAll(steps))
+                .put("scenarios", writeAll(scenarios))
+                .toString();
+    }
+
+    // ==========================
+    // 🔹 Summary
+    // ==========================
+
+    public void printSummary(int top) {
+        print("🐢 Slowest steps", steps, previousSteps, top);
+        print("🐢 Slowest scenarios", scenarios, previousScenarios, top);
+    }
+
+    private static void print(String title, Map<String, Histogram> current, Map<String, Histogram> previous, int top) {
+        if (current.isEmpty()) return;
+        List<Map.Entry<String, Histogram>> slowest = new ArrayList<>(current.entrySet());
+        slowest.sort(Comparator.comparingLong((Map.Entry<String, Histogram> e) -> e.getValue().percentileMicros(0.95)).reversed());
+        System.out.println(title + " (p50 / p95 / p99, change of p95 vs previous run):");
+        for (Map.Entry<String, Histogram> e : slowest.subList(0, Math.min(top, slowest.size()))) {
+            Histogram h = e.getValue();
+            Histogram before = previous.get(e.getKey());
+            String trend = "new";
+            if (before != null && before.count() > 0) {
+                long was = before.percentileMicros(0.95);
+                long now = h.percentileMicros(0.95);
+                trend = was > 0 ? String.format("%+.0f%%", (now - was) * 100.0 / was) : "n/a";
+            }
+            System.out.println(String.format("   %8s %8s %8s  x%-4d %-6s %s",
+                    formatMicros(h.percentileMicros(0.50)), formatMicros(h.percentileMicros(0.95)),
+                    formatMicros(h.percentileMicros(0.99)), h.count(), trend, abbreviate(e.getKey(), 80)));
+        }
+    }
+
+    static String formatMicros(long micros) {
+        if (micros < 1_000) return micros + "µs";
+        if (micros < 1_000_000) return String.format("%.0fms", micros / 1e3);
+        return String.format("%.1fs", micros / 1e6);
+    }
+
+    private static String abbreviate(String text, int max) {
+        return text.length() <= max ? text : text.substring(0, max - 1) + "…";
+    }
+
+    private static JSONObject writeAll(Map<String, Histogram> histograms) {
+        JSONObject json = new JSONObject();
+        histograms.forEach((key, h) -> json.put(key, h.toJson()));
+        return json;
+    }
+
+    private static void readAll(JSONObject json, Map<String, Histogram> target) {
+        if (json == null) return;
+        for (String key : json.keySet()) target.put(key, Histogram.fromJson(json.getJSONObject(key)));
+    }
+
+    /**
+     * Log-linear histogram of durations in microseconds: values below 16 µs are exact, above
+     * that every power of two is split into 16 buckets
+     */
+    public static final class Histogram {
+        private static final int SUB_BUCKETS = 16;
+        private static final int SUB_BITS = 4;
+        // 16 exact values + 16 per power of two up to 2^44 µs (about 200 days)
+        private static final int BUCKETS = SUB_BUCKETS * 42;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        public void record(long nanos) {
+            counts.incrementAndGet(indexOf(Math.max(0, nanos / 1000)));
+        }
+
+        public long count() {
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) n += counts.get(i);
+            return n;
+        }
+
+        /** Upper bound (µs) of the bucket holding the q-quantile, 0 when empty */
+        public long percentileMicros(double q) {
+            long total = count();
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) return upperBoundOf(i);
+            }
+            return upperBoundOf(BUCKETS - 1);
+        }
+
+        /**
+         * Add another histogram's counts scaled by factor. The rounding remainder is carried
+         * to the next bucket, so the total stays at the scaled total and scattered single
+         * counts are not all rounded away
+         */
+        void add(Histogram other, double factor) {
+            double carry = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                long c = other.counts.get(i);
+                if (c == 0) continue;
+                double scaled = c * factor + carry;
+                long n = Math.round(scaled);
+                carry = scaled - n;
+                if (n > 0) counts.addAndGet(i, n);
+            }
+        }
+
+        /** Count per bucket (a snapshot), for comparisons between runs */
+        public long[] bucketCounts() {
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) snapshot[i] = counts.get(i);
+            return snapshot;
+        }
+
+        static int indexOf(long micros) {
+            if (micros < SUB_BUCKETS) return (int) micros;
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            int shift = exponent - SUB_BITS;
+            int index = (shift + 1) * SUB_BUCKETS + (int) ((micros >> shift) & (SUB_BUCKETS - 1));
+            return Math.min(index, BUCKETS - 1);
+        }
+
+        static long upperBoundOf(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int shift = bucket / SUB_BUCKETS - 1;
+            return ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS + 1) << shift) - 1;
+        }
+
+        /** Sparse form: {"bucket index": count} */
+        JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            for (int i = 0; i < BUCKETS; i++) {
+                long c = counts.get(i);
+                if (c > 0) json.put(String.valueOf(i), c);
+            }
+            return json;
+        }
+
+        static Histogram fromJson(JSONObject json) {
+            Histogram h = new Histogram();
+            for (String bucket : json.keySet()) {
+                int i = Integer.parseInt(bucket);
+                if (i >= 0 && i < BUCKETS) h.counts.addAndGet(i, json.getLong(bucket));
+            }
+            return h;
+        }
+    }
+}
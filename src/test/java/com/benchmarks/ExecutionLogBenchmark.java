@@ -0,0 +1,82 @@
+package com.benchmarks;
+
+import utils.ExecutionLog;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 🔹 ExecutionLogBenchmark
+ * Cost on the scenario threads of recording execution facts: formatting a line and printing
+ * it under the console lock (what the hooks do today) vs publishing to the ExecutionLog ring.
+ * Events come in bursts of 500 with a 5 ms pause (a scenario's steps between browser waits);
+ * only the time inside the recording calls is counted. Checks afterwards that the log holds
+ * every published event.
+ *
+ * Usage: java ... com.benchmarks.ExecutionLogBenchmark [threads] [eventsPerThread]
+ *   defaults: 4 threads x 100000 events
+ * Run from a scratch directory with src/test/resources/config.properties (the log goes to
+ * eventlog.path). Not a test: run by hand, prints the numbers.
+ */
+public class ExecutionLogBenchmark {
+
+    private static final int BURST = 500;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int events = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        System.out.println("📚 " + threads + " threads x " + events + " events");
+
+        Path console = Files.createTempFile("console", ".log");
+        try (java.io.PrintStream out = new java.io.PrintStream(Files.newOutputStream(console), false)) {
+            long nanos = run(threads, events, (t, i) ->
+                    out.println("📝 Current Step: When user clicks " + i + " on thread " + t + " (" + System.nanoTime() + " ns)"));
+            System.out.println(String.format("🖨️ Println:   %6.0f ns per event on the scenario thread", nanos / (double) threads / events));
+        }
+        Files.deleteIfExists(console);
+
+        ExecutionLog.runStarted("benchmark");
+        long nanos = run(threads, events, (t, i) -> ExecutionLog.step("When user clicks " + i, "PASSED", 1000 + i, null));
+        System.out.println(String.format("📜 Event log: %6.0f ns per event on the scenario thread", nanos / (double) threads / events));
+        long start = System.nanoTime();
+        ExecutionLog.runFinished("PASSED");
+        System.out.println(String.format("   writer finished %d ms after the last publish", (System.nanoTime() - start) / 1_000_000));
+
+        long[] count = new long[1];
+        ExecutionLog.read(Path.of(ExecutionLog.DEFAULT_PATH), e -> {
+            if (e.getType() == ExecutionLog.Type.STEP) count[0]++;
+        });
+        System.out.println("   " + count[0] + " of " + ((long) threads * events) + " step events in the log");
+    }
+
+    private interface Publisher {
+        void publish(int thread, int index);
+    }
+
+    private static long run(int threads, int events, Publisher publisher) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicLong spent = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < events; i += BURST) {
+                    long start = System.nanoTime();
+                    for (int j = i; j < Math.min(events, i + BURST); j++) publisher.publish(thread, j);
+                    spent.addAndGet(System.nanoTime() - start);
+                    Thread.sleep(5);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+        return spent.get();
+    }
+}
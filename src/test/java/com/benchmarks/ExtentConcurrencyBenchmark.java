@@ -0,0 +1,103 @@
+package com.benchmarks;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import utils.ExtentReportManager;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 🔹 ExtentConcurrencyBenchmark
+ * Many scenario threads logging at once: one shared ExtentReports used directly from every
+ * thread (what the manager did before) vs ExtentReportManager's per-thread buffers and
+ * writer thread. Reports the time the scenario threads spend in reporting calls, and checks
+ * that every test made it into the report.
+ *
+ * Usage: java ... com.benchmarks.ExtentConcurrencyBenchmark [threads] [testsPerThread] [logsPerTest]
+ *   defaults: 16 threads x 50 tests x 40 log lines
+ * Run from a scratch directory (the manager writes test-output/ under the working directory).
+ * Not a test: run by hand, prints the numbers.
+ */
+public class ExtentConcurrencyBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int tests = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int logs = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        Path dir = Files.createTempDirectory("extent-concurrency");
+        System.out.println("📚 " + threads + " threads x " + tests + " tests x " + logs + " log lines");
+
+        // Direct: every thread creates and logs on the shared ExtentReports, flushing every 5 tests
+        ExtentReports shared = new ExtentReports();
+        File directReport = dir.resolve("direct.html").toFile();
+        shared.attachReporter(new ExtentSparkReporter(directReport));
+        AtomicLong errors = new AtomicLong();
+        long directNanos = run(threads, tests, (t, i) -> {
+            try {
+                ExtentTest test = shared.createTest("T" + t + "-" + i);
+                for (int l = 0; l < logs; l++) test.info("step " + l);
+                test.pass("done");
+                if (i % 5 == 4) shared.flush();
+            } catch (RuntimeException e) {
+                errors.incrementAndGet();
+            }
+        });
+        shared.flush();
+        System.out.println(String.format("🔒 Direct:   %7.1f ms in reporting calls per thread, %d error(s), %d test(s) in report",
+                directNanos / 1e6 / threads, errors.get(), countTests(directReport)));
+
+        // Manager: buffered per thread, written and flushed by the writer thread
+        long managerNanos = run(threads, tests, (t, i) -> {
+            ExtentReportManager.createTest("T" + t + "-" + i);
+            for (int l = 0; l < logs; l++) ExtentReportManager.logInfo("step " + l);
+            ExtentReportManager.logPass("done");
+            ExtentReportManager.endTest();
+        });
+        ExtentReportManager.flushReports();
+        System.out.println(String.format("🌊 Manager:  %7.1f ms in reporting calls per thread, %d test(s) in report",
+                managerNanos / 1e6 / threads, countTests(new File("test-output/ExtentReport.html"))));
+    }
+
+    private interface Scenario {
+        void run(int thread, int index);
+    }
+
+    /** Total nanoseconds the threads spent inside the scenario bodies */
+    private static long run(int threads, int tests, Scenario scenario) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicLong spent = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < tests; i++) {
+                    long start = System.nanoTime();
+                    scenario.run(thread, i);
+                    spent.addAndGet(System.nanoTime() - start);
+                }
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+        return spent.get();
+    }
+
+    private static long countTests(File report) throws Exception {
+        if (!report.exists()) return 0;
+        Matcher m = Pattern.compile("class=\"test-item\"").matcher(Files.readString(report.toPath()));
+        long n = 0;
+        while (m.find()) n++;
+        return n;
+    }
+}
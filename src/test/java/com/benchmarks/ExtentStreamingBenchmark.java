@@ -0,0 +1,102 @@
+package com.benchmarks;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import utils.ExtentReportManager;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 🔹 ExtentStreamingBenchmark
+ * Retained heap of ExtentReportManager with Base64-embedded screenshots vs streaming mode
+ * (screenshots by path, incremental flushes). Each mode runs in its own JVM, since the
+ * mode is fixed when the report is initialized.
+ *
+ * Usage: java ... com.benchmarks.ExtentStreamingBenchmark [tests] [stepsPerTest] [screenshotKB]
+ *   defaults: 200 tests x 8 steps with a 150 KB screenshot each (the captureAllSteps case)
+ * Writes into a temporary working directory. Not a test: run by hand, prints the numbers.
+ */
+public class ExtentStreamingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "--child".equals(args[0])) {
+            runChild(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        String tests = args.length > 0 ? args[0] : "200";
+        String steps = args.length > 1 ? args[1] : "8";
+        String kb = args.length > 2 ? args[2] : "150";
+        System.out.println("📚 " + tests + " tests x " + steps + " screenshots of " + kb + " KB");
+        for (String streaming : new String[]{"false", "true"}) {
+            Path dir = Files.createTempDirectory("extent-bench");
+            Files.createDirectories(dir.resolve("src/test/resources"));
+            Files.writeString(dir.resolve("src/test/resources/config.properties"), "browser=chrome\n");
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.add("-Dextent.stream.enabled=" + streaming);
+            command.add("-Dstdout.encoding=UTF-8");
+            command.add("-cp");
+            command.add(absoluteClasspath());
+            command.add(ExtentStreamingBenchmark.class.getName());
+            command.add("--child");
+            command.add(tests);
+            command.add(steps);
+            command.add(kb);
+            Process process = new ProcessBuilder(command).directory(dir.toFile()).redirectErrorStream(true).start();
+            String out = new String(process.getInputStream().readAllBytes());
+            process.waitFor();
+            for (String line : out.split("\n")) {
+                if (line.startsWith("RESULT")) {
+                    System.out.println(("true".equals(streaming) ? "🌊 Streaming:  " : "📦 Base64:     ") + line.substring(7));
+                }
+            }
+        }
+    }
+
+    private static void runChild(int tests, int steps, int kb) throws Exception {
+        byte[] image = new byte[kb * 1024];
+        new Random(7).nextBytes(image);
+        WebDriver driver = (WebDriver) Proxy.newProxyInstance(ExtentStreamingBenchmark.class.getClassLoader(),
+                new Class<?>[]{WebDriver.class, TakesScreenshot.class}, (proxy, method, a) ->
+                        "getScreenshotAs".equals(method.getName()) && a[0] == OutputType.BYTES ? image : null);
+
+        long peak = 0;
+        long start = System.nanoTime();
+        for (int t = 0; t < tests; t++) {
+            ExtentReportManager.createTest("Scenario " + t);
+            for (int s = 0; s < steps; s++) {
+                ExtentReportManager.captureAndAttachScreenshot(driver, "Step " + s);
+            }
+            ExtentReportManager.logPass("Scenario passed");
+            ExtentReportManager.endTest();
+            if (t % 20 == 19) peak = Math.max(peak, usedAfterGc());
+        }
+        ExtentReportManager.flushReports();
+        long elapsed = System.nanoTime() - start;
+        long report = new File("test-output/ExtentReport.html").length();
+        System.out.println(String.format("RESULT retained heap %6.1f MB (peak sampled), report %6.1f MB, %5.1f s",
+                Math.max(peak, usedAfterGc()) / 1048576.0, report / 1048576.0, elapsed / 1e9));
+    }
+
+    private static long usedAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static String absoluteClasspath() {
+        StringBuilder cp = new StringBuilder();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (cp.length() > 0) cp.append(File.pathSeparator);
+            cp.append(new File(entry).getAbsolutePath());
+        }
+        return cp.toString();
+    }
+}
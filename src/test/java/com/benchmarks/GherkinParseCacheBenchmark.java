@@ -0,0 +1,98 @@
+package com.benchmarks;
+
+import io.cucumber.core.gherkin.FeatureParser;
+import utils.GherkinParseCache;
+import utils.ScenarioCatalog;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ServiceLoader;
+import java.util.UUID;
+
+/**
+ * 🔹 GherkinParseCacheBenchmark
+ * Cost of one ScenarioCatalog pass over a large feature set, with and without the parse cache.
+ *
+ * Usage: java ... com.benchmarks.GherkinParseCacheBenchmark [features] [rounds]
+ *   features - number of generated feature files, each with one scenario and a
+ *              two-row outline (default 600 files = 1,800 scenarios)
+ *   rounds   - timed rounds per variant (default 5)
+ * Cucumber's own parser is timed as well for reference: the runner pays it regardless, the cache
+ * only removes the catalog passes the framework adds on top.
+ * Not a test: it is run by hand and prints the timings.
+ */
+public class GherkinParseCacheBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int featureCount = args.length > 0 ? Integer.parseInt(args[0]) : 600;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Path dir = Files.createTempDirectory("gherkin-bench");
+        Path cacheFile = dir.resolve("cache/scenarios.bin");
+        Path featuresDir = dir.resolve("features");
+        Files.createDirectories(featuresDir);
+        for (int i = 0; i < featureCount; i++) {
+            Files.writeString(featuresDir.resolve("TestCase_" + i + ".feature"), feature(i), StandardCharsets.UTF_8);
+        }
+
+        int scenarios = ScenarioCatalog.parse(featuresDir, null).size();
+        System.out.println("📚 " + featureCount + " feature files, " + scenarios + " scenarios");
+
+        long uncached = Long.MAX_VALUE;
+        long cached = Long.MAX_VALUE;
+        long cucumber = Long.MAX_VALUE;
+        FeatureParser cucumberParser = ServiceLoader.load(FeatureParser.class).iterator().next();
+
+        // Populate the cache once, as the first run after a change would
+        GherkinParseCache warmup = GherkinParseCache.load(cacheFile);
+        ScenarioCatalog.parse(featuresDir, warmup);
+        warmup.save();
+
+        for (int r = 0; r < rounds; r++) {
+            long t0 = System.nanoTime();
+            ScenarioCatalog.parse(featuresDir, null);
+            long t1 = System.nanoTime();
+            GherkinParseCache cache = GherkinParseCache.load(cacheFile);
+            ScenarioCatalog.parse(featuresDir, cache);
+            cache.save();
+            long t2 = System.nanoTime();
+            try (var files = Files.list(featuresDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        cucumberParser.parse(file.toUri(), in, UUID::randomUUID);
+                    }
+                }
+            }
+            long t3 = System.nanoTime();
+            uncached = Math.min(uncached, t1 - t0);
+            cached = Math.min(cached, t2 - t1);
+            cucumber = Math.min(cucumber, t3 - t2);
+        }
+
+        System.out.println(String.format("⏱️ Parse every file:            %8.1f ms", uncached / 1e6));
+        System.out.println(String.format("⏱️ Parse cache (hash + load):   %8.1f ms", cached / 1e6));
+        System.out.println(String.format("⏱️ Cucumber FeatureParser:      %8.1f ms (reference)", cucumber / 1e6));
+        System.out.println(String.format("🚀 Saved per catalog pass: %.1f ms (%.1fx)", (uncached - cached) / 1e6, (double) uncached / cached));
+    }
+
+    private static String feature(int i) {
+        return "@TestRail\n"
+                + "Feature: Generated case " + i + "\n\n"
+                + "  @CaseID_" + i + "\n"
+                + "  Scenario: Login and open dashboard " + i + "\n"
+                + "    Given User opens the \"https://example.com/login\" page\n"
+                + "    When User enters valid credentials\n"
+                + "    Then User should be logged in successfully\n"
+                + "    And User verifies \"Dashboard\" Tile is displaying in Dashboard\n\n"
+                + "  Scenario Outline: Open tile <tile> " + i + "\n"
+                + "    Given User opens the \"https://example.com/login\" page\n"
+                + "    When User Clicks on \"<cta>\" CTA on \"<tile>\" Tile in Dashboard\n"
+                + "    Then User verifies \"<tile>\" opened in new tab\n"
+                + "    Examples:\n"
+                + "      | tile    | cta  |\n"
+                + "      | Courses | Open |\n"
+                + "      | Labs    | Go   |\n";
+    }
+}
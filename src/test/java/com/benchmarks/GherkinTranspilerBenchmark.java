@@ -0,0 +1,169 @@
+package com.benchmarks;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import utils.GherkinTranspiler;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 🔹 GherkinTranspilerBenchmark
+ * Compares the single-pass GherkinTranspiler with the previous regex-chain conversion
+ * (cleanHtml + formatGherkinStep, copied below) on a case corpus.
+ *
+ * Usage: java ... com.benchmarks.GherkinTranspilerBenchmark [casesDir] [iterations]
+ *   casesDir   - directory of cached case JSON files (default .testrail-cache/cases);
+ *                a synthetic corpus of 5,000 cases is used when it is missing or empty
+ *   iterations - timed passes over the corpus (default 20)
+ * Not a test: it is run by hand and prints throughput for both implementations.
+ */
+public class GherkinTranspilerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        File casesDir = new File(args.length > 0 ? args[0] : ".testrail-cache/cases");
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        List<String[]> fields = loadCorpus(casesDir);
+        if (fields.isEmpty()) {
+            System.out.println("ℹ️ No cached cases in " + casesDir + ", using a synthetic corpus");
+            fields = syntheticCorpus(5_000, 42);
+        }
+        long chars = 0;
+        for (String[] f : fields) chars += f[0].length() + f[1].length();
+        System.out.println("📚 Corpus: " + fields.size() + " step fields, " + (chars / 1024) + " KB");
+
+        // Warm-up so the JIT has compiled both paths before timing
+        for (int i = 0; i < 5; i++) {
+            runLegacy(fields);
+            runTranspiler(fields);
+        }
+
+        long legacyNanos = 0;
+        long transpilerNanos = 0;
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            long t0 = System.nanoTime();
+            sink += runLegacy(fields);
+            long t1 = System.nanoTime();
+            sink += runTranspiler(fields);
+            long t2 = System.nanoTime();
+            legacyNanos += t1 - t0;
+            transpilerNanos += t2 - t1;
+        }
+
+        double legacyMs = legacyNanos / 1e6 / iterations;
+        double transpilerMs = transpilerNanos / 1e6 / iterations;
+        System.out.println(String.format("⏱️ Regex chain:        %8.2f ms/pass  (%.1f MB/s)", legacyMs, chars / 1e3 / legacyMs));
+        System.out.println(String.format("⏱️ GherkinTranspiler:  %8.2f ms/pass  (%.1f MB/s)", transpilerMs, chars / 1e3 / transpilerMs));
+        System.out.println(String.format("🚀 Speed-up: %.2fx  (checksum %d)", legacyMs / transpilerMs, sink));
+    }
+
+    private static long runLegacy(List<String[]> fields) {
+        long total = 0;
+        for (int i = 0; i < fields.size(); i++) {
+            String[] f = fields.get(i);
+            total += Legacy.formatGherkinStep(Legacy.cleanHtml(f[0]), i % 7, false).length();
+            total += Legacy.formatGherkinStep(Legacy.cleanHtml(f[1]), i % 7, true).length();
+        }
+        return total;
+    }
+
+    private static long runTranspiler(List<String[]> fields) {
+        long total = 0;
+        StringBuilder sb = new StringBuilder(512);
+        for (int i = 0; i < fields.size(); i++) {
+            String[] f = fields.get(i);
+            sb.setLength(0);
+            GherkinTranspiler.appendSteps(sb, f[0], i % 7, false);
+            GherkinTranspiler.appendSteps(sb, f[1], i % 7, true);
+            total += sb.length();
+        }
+        return total;
+    }
+
+    // ==========================
+    // 🔹 Corpus
+    // ==========================
+
+    /** (content, expected) pairs from custom_steps_separated, or custom_steps as content */
+    private static List<String[]> loadCorpus(File dir) throws Exception {
+        List<String[]> fields = new ArrayList<>();
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
+        if (files == null) return fields;
+        for (File file : files) {
+            JSONObject testCase = new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            JSONArray steps = testCase.optJSONArray("custom_steps_separated");
+            if (steps != null) {
+                for (int i = 0; i < steps.length(); i++) {
+                    JSONObject step = steps.optJSONObject(i);
+                    if (step != null) fields.add(new String[]{step.optString("content"), step.optString("expected")});
+                }
+            } else if (!testCase.optString("custom_steps").isEmpty()) {
+                fields.add(new String[]{testCase.optString("custom_steps"), testCase.optString("custom_expected")});
+            }
+        }
+        return fields;
+    }
+
+    private static List<String[]> syntheticCorpus(int cases, long seed) {
+        String[] actions = {"Click the &quot;Login&quot; button", "Enter <strong>username</strong> &amp; password",
+                "Select &lsquo;Courses&rsquo; from the menu", "Open the dashboard &rarr; Virtual Labs",
+                "Scroll to the footer&nbsp;section", "Navigate to <a href=\"https://example.com\">the portal</a>"};
+        String[] checks = {"The user <em>should</em> see the dashboard", "Verify the title is &#8220;Home&#8221;",
+                "Validate the error message &lt;Required&gt;", "Page loads within 3&#x202F;seconds"};
+        Random random = new Random(seed);
+        List<String[]> fields = new ArrayList<>();
+        for (int c = 0; c < cases; c++) {
+            StringBuilder content = new StringBuilder("<p>").append(actions[random.nextInt(actions.length)]).append("</p>");
+            if (random.nextInt(3) == 0) {
+                content.append("<ul>");
+                for (int k = 0; k < 3; k++) content.append("<li>").append(actions[random.nextInt(actions.length)]).append("</li>");
+                content.append("</ul>");
+            }
+            if (random.nextInt(5) == 0) {
+                content.append("<table><tr><th>username</th><th>password</th></tr>")
+                        .append("<tr><td>user").append(c).append("@example.com</td><td>s3cr&#101;t|").append(c).append("</td></tr></table>");
+            }
+            String expected = "<p>" + checks[random.nextInt(checks.length)] + "</p>";
+            fields.add(new String[]{content.toString(), expected});
+        }
+        return fields;
+    }
+
+    /**
+     * The previous FeatureGenerator conversion, kept verbatim as the baseline
+     */
+    static final class Legacy {
+        static String formatGherkinStep(String step, int index, boolean isExpected) {
+            if (step.matches("^(Given|When|Then|And|But)\\s.*")) return step;
+
+            if (isExpected) return "Then " + step;
+            if (index == 0) return "Given " + step;
+
+            String lower = step.toLowerCase();
+            if (lower.contains("click") || lower.contains("enter") || lower.contains("select"))
+                return "When " + step;
+            if (lower.contains("should") || lower.contains("verify") || lower.contains("validate"))
+                return "Then " + step;
+
+            return "And " + step;
+        }
+
+        static String cleanHtml(String text) {
+            if (text == null || text.isEmpty()) return "";
+            return text.replaceAll("<[^>]*>", "")
+                    .replace("&nbsp;", " ")
+                    .replace("&amp;", "&")
+                    .replace("&lt;", "<")
+                    .replace("&gt;", ">")
+                    .replace("&quot;", "\"")
+                    .replace("&#39;", "'")
+                    .trim();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.runners;
+
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.PickleWrapper;
+import org.testng.IRetryAnalyzer;
+import org.testng.ITestResult;
+import utils.RerunSession;
+import utils.ScenarioCatalog;
+
+/**
+ * ✅ Retries a failed scenario of a rerun (-Drerun.failed=true) until rerun.retries is used up.
+ * Attempts are counted by Hooks, so the analyzer and Hooks agree on whether a failure is final.
+ */
+public class RerunRetryAnalyzer implements IRetryAnalyzer {
+
+    @Override
+    public boolean retry(ITestResult result) {
+        Object[] params = result.getParameters();
+        if (params.length == 0 || !(params[0] instanceof PickleWrapper)) return false;
+        Pickle pickle = ((PickleWrapper) params[0]).getPickle();
+        return retry(ScenarioCatalog.location(pickle.getUri(), pickle.getLine()), pickle.getName());
+    }
+
+    /** Whether the scenario at location gets another attempt after the one that just failed */
+    static boolean retry(String location, String name) {
+        boolean retry = RerunSession.willRetry(location);
+        if (retry) {
+            System.out.println("🔁 Retrying " + name + " (attempt " + (RerunSession.attempts(location) + 1)
+                    + " of " + (RerunSession.retryBudget() + 1) + ")");
+        }
+        return retry;
+    }
+}
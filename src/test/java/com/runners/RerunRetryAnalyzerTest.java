@@ -0,0 +1,69 @@
+package com.runners;
+
+import org.testng.ITestResult;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import utils.RerunSession;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔹 RerunRetryAnalyzerTest
+ * The analyzer retries exactly as long as RerunSession has budget left for the scenario.
+ */
+public class RerunRetryAnalyzerTest {
+
+    private static final String LOGIN = "features/login.feature:12";
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        Path dir = Files.createTempDirectory("rerun-analyzer-test");
+        System.setProperty("rerun.manifest", dir.resolve("failed-scenarios.json").toString());
+        System.setProperty("rerun.flakeHistory", dir.resolve("flake-history.json").toString());
+        System.setProperty("rerun.retries", "1");
+        System.setProperty("rerun.failed", "true");
+        RerunSession.reset();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        System.clearProperty("rerun.manifest");
+        System.clearProperty("rerun.flakeHistory");
+        System.clearProperty("rerun.retries");
+        System.clearProperty("rerun.failed");
+        RerunSession.reset();
+    }
+
+    @Test
+    public void retriesUntilTheBudgetIsUsedUp() {
+        RerunSession.startAttempt(LOGIN);
+        assertTrue(RerunRetryAnalyzer.retry(LOGIN, "Sign in"));
+
+        RerunSession.startAttempt(LOGIN);
+        assertFalse(RerunRetryAnalyzer.retry(LOGIN, "Sign in"), "rerun.retries=1");
+    }
+
+    @Test
+    public void plainRunsAreNotRetried() {
+        System.setProperty("rerun.failed", "false");
+        RerunSession.startAttempt(LOGIN);
+
+        assertFalse(RerunRetryAnalyzer.retry(LOGIN, "Sign in"));
+    }
+
+    @Test
+    public void resultsWithoutAPickleAreNotRetried() {
+        ITestResult result = (ITestResult) Proxy.newProxyInstance(ITestResult.class.getClassLoader(),
+                new Class<?>[]{ITestResult.class},
+                (proxy, method, args) -> method.getName().equals("getParameters") ? new Object[]{"not a pickle"} : null);
+
+        assertFalse(new RerunRetryAnalyzer().retry(result));
+    }
+}
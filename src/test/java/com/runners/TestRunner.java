@@ -2,12 +2,32 @@ package com.runners;
 
 import io.cucumber.testng.AbstractTestNGCucumberTests;
 import io.cucumber.testng.CucumberOptions;
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.FeatureWrapper;
+import io.cucumber.testng.PickleWrapper;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.AfterSuite;
+import org.testng.annotations.Test;
 import config.ConfigReader;
-import utils.Client;
-import utils.FeatureGenerator;
+import utils.TestRailSession;
+import utils.FailureManifest;
+import utils.RerunSession;
+import utils.FeatureCaseScanner;
+import utils.ScenarioCatalog;
+import utils.FlightRecording;
+import utils.PerformanceGate;
+import utils.ScenarioTimings;
+import utils.ShardPlanner;
+import utils.StepBindingIndex;
+import utils.StepPreflight;
 import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 @CucumberOptions(
     features = "src/test/resources/features",
@@ -23,33 +43,164 @@ import java.io.File;
 )
 public class TestRunner extends AbstractTestNGCucumberTests {
 
+    static final String FEATURES_DIR = "src/test/resources/features";
+
     static {
-        // Generate feature files BEFORE Cucumber initialization
-        generateFeaturesBeforeCucumber();
+        // Features are generated at build time (mvn -Pgenerate-features ...), startup only reads them
+        planTestRailRun();
     }
 
-    private static void generateFeaturesBeforeCucumber() {
+    private static void planTestRailRun() {
+        Set<Integer> caseIds;
         try {
-            System.out.println("✅ Configuration loaded successfully from: src/test/resources/config.properties\n");
-            String testCaseIdStr = ConfigReader.get("testrail.caseId");
-            if (testCaseIdStr == null || testCaseIdStr.isEmpty()) {
-                throw new RuntimeException("❌ testrail.caseId not configured in config.properties");
+            caseIds = FeatureCaseScanner.scan(FEATURES_DIR);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not scan " + FEATURES_DIR + " for TestRail cases: " + e.getMessage());
+            return;
+        }
+        if (caseIds.isEmpty()) {
+            System.err.println("⚠️ No TestRail features found in " + FEATURES_DIR
+                    + " - generate them with: mvn -Pgenerate-features generate-test-resources");
+            return;
+        }
+        System.out.println("📂 Using " + caseIds.size() + " generated TestRail case(s) from " + FEATURES_DIR);
+
+        if (RerunSession.enabled()) {
+            // A rerun only plans the cases that failed last time
+            Set<Integer> failedCases = new java.util.TreeSet<>();
+            for (Integer caseId : caseIds) {
+                if (RerunSession.previous().containsCase(caseId)) failedCases.add(caseId);
+            }
+            if (!failedCases.isEmpty()) caseIds = failedCases;
+        }
+
+        // Plan one run with every case the features select; created in the background
+        // while Cucumber starts up, Hooks picks it up in @BeforeAll
+        if (!"false".equalsIgnoreCase(ConfigReader.get("testrail.enabled", "true"))) {
+            int sharedRunId = TestRailSession.sharedRunId();
+            if (sharedRunId > 0) {
+                TestRailSession.joinRunAsync(sharedRunId);
+                return;
+            }
+            if (ShardPlanner.total() > 1) {
+                System.err.println("⚠️ Sharded without testrail.runId: this shard creates a TestRail run of its own");
+            }
+            TestRailSession.createRunAsync("Automated Test Run - " + java.time.LocalDateTime.now()
+                    .format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")), caseIds);
+        }
+    }
+
+    /**
+     * Cucumber's scenarios minus the ones the step preflight proved unrunnable, so no
+     * driver is ever created for a scenario with undefined or ambiguous steps; with
+     * -Drerun.failed=true only the previous run's failures, and with -Dshard.total only
+     * this shard's part of them
+     */
+    @Override
+    @DataProvider
+    public Object[][] scenarios() {
+        return selectShard(selectRerun(dropUnrunnable(super.scenarios())));
+    }
+
+    /**
+     * Same test as Cucumber's, with the rerun retry budget attached
+     */
+    @Override
+    @Test(groups = "cucumber", description = "Runs Cucumber Scenarios", dataProvider = "scenarios",
+            retryAnalyzer = RerunRetryAnalyzer.class)
+    public void runScenario(PickleWrapper pickleWrapper, FeatureWrapper featureWrapper) {
+        super.runScenario(pickleWrapper, featureWrapper);
+    }
+
+    /**
+     * Keep only the scenarios listed in the previous run's failure manifest
+     */
+    private static Object[][] selectRerun(Object[][] scenarios) {
+        if (!RerunSession.enabled()) return scenarios;
+        FailureManifest previous = RerunSession.previous();
+        if (previous.isEmpty()) {
+            System.out.println("✅ Nothing to rerun: " + RerunSession.manifestPath() + " lists no failures");
+            return new Object[0][];
+        }
+
+        List<Object[]> failed = new ArrayList<>();
+        for (Object[] row : scenarios) {
+            Pickle pickle = ((PickleWrapper) row[0]).getPickle();
+            if (previous.contains(ScenarioCatalog.location(pickle.getUri(), pickle.getLine()))) failed.add(row);
+        }
+        System.out.println("🔁 Rerunning " + failed.size() + " of " + previous.size() + " failed scenario(s) with "
+                + RerunSession.retryBudget() + " retry(ies) each");
+        if (failed.size() < previous.size()) {
+            System.out.println("   ℹ️ " + (previous.size() - failed.size()) + " failed scenario(s) no longer exist or are unrunnable");
+        }
+        return failed.toArray(new Object[0][]);
+    }
+
+    private static Object[][] dropUnrunnable(Object[][] scenarios) {
+        StepPreflight.Report report = runStepPreflight();
+        if (report == null || report.isClean()) return scenarios;
+
+        List<Object[]> runnable = new ArrayList<>();
+        for (Object[] row : scenarios) {
+            Pickle pickle = ((PickleWrapper) row[0]).getPickle();
+            URI uri = pickle.getUri();
+            if (!"file".equals(uri.getScheme()) || report.isRunnable(Path.of(uri), pickle.getLine())) {
+                runnable.add(row);
             }
-            // Handle both "C40" and "40" formats
-            if (testCaseIdStr.startsWith("C")) {
-                testCaseIdStr = testCaseIdStr.substring(1);
+        }
+        System.out.println("⏭️ Skipping " + (scenarios.length - runnable.size()) + " unrunnable scenario(s), see "
+                + StepPreflight.DEFAULT_REPORT);
+        return runnable.toArray(new Object[0][]);
+    }
+
+    /**
+     * Balance the scenarios over the shards by their recorded durations and keep this shard's
+     */
+    private static Object[][] selectShard(Object[][] scenarios) {
+        int total = ShardPlanner.total();
+        if (total <= 1) return scenarios;
+        int index = ShardPlanner.index();
+        if (index < 0 || index >= total) {
+            throw new IllegalStateException("❌ shard.index must be between 0 and " + (total - 1) + ", was " + index);
+        }
+
+        List<String> keys = new ArrayList<>(scenarios.length);
+        for (Object[] row : scenarios) {
+            Pickle pickle = ((PickleWrapper) row[0]).getPickle();
+            keys.add(ScenarioTimings.key(pickle.getTags(), pickle.getUri(), pickle.getLine()));
+        }
+        // Every shard plans with the same pinned snapshot, so they agree on the split
+        ScenarioTimings timings = ScenarioTimings.load(ScenarioTimings.configuredPath());
+        ShardPlanner.Plan plan = ShardPlanner.plan(keys, timings.getEstimates(), total);
+        plan.print(index);
+
+        List<Object[]> own = new ArrayList<>();
+        for (int i = 0; i < scenarios.length; i++) {
+            if (plan.shardOf(i) == index) own.add(scenarios[i]);
+        }
+        return own.toArray(new Object[0][]);
+    }
+
+    /**
+     * preflight.steps: skip (default) drops unrunnable scenarios, fail aborts the suite, off disables the check
+     */
+    private static StepPreflight.Report runStepPreflight() {
+        String mode = ConfigReader.get("preflight.steps", "skip");
+        if ("off".equalsIgnoreCase(mode)) return null;
+        try {
+            String[] glue = TestRunner.class.getAnnotation(CucumberOptions.class).glue();
+            StepBindingIndex index = StepBindingIndex.fromGlue(TestRunner.class.getClassLoader(), glue);
+            StepPreflight.Report report = StepPreflight.check(ScenarioCatalog.parse(Path.of(FEATURES_DIR)), index);
+            report.print();
+            report.writeJson(Path.of(StepPreflight.DEFAULT_REPORT));
+            if (!report.isClean() && "fail".equalsIgnoreCase(mode)) {
+                throw new IllegalStateException("❌ Step preflight found " + report.getProblems().size()
+                        + " unrunnable scenario(s), see " + StepPreflight.DEFAULT_REPORT);
             }
-            int testCaseId = Integer.parseInt(testCaseIdStr);
-            // Initialize TestRail client and feature generator
-            Client testRailClient = new Client();
-            FeatureGenerator generator = new FeatureGenerator(testRailClient);
-            System.out.println("📝 Generating feature file for TestRail case C" + testCaseId + "...");
-            String featureFilePath = generator.generateFeatureFile(testCaseId);
-            System.out.println("✅ Feature file generated successfully: " + featureFilePath + "\n");
-        } catch (Exception e) {
-            System.err.println("❌ Error generating features from TestRail: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Failed to generate feature files", e);
+            return report;
+        } catch (IOException e) {
+            System.err.println("⚠️ Step preflight skipped: " + e.getMessage());
+            return null;
         }
     }
 
@@ -61,6 +212,8 @@ public class TestRunner extends AbstractTestNGCucumberTests {
             reportsDir.mkdirs();
             System.out.println("✅ Created reports directory");
         }
+        // ✅ Flight recording of the whole suite (jfr.record=true)
+        FlightRecording.start();
     }
 
     @AfterSuite
@@ -71,5 +224,13 @@ public class TestRunner extends AbstractTestNGCucumberTests {
         System.out.println("📊 Check Extent Report: test-output/ExtentReport.html");
         System.out.println("📈 Cucumber HTML: reports/cucumber-html-report.html");
         System.out.println("=".repeat(90) + "\n");
+        FlightRecording.stop();
+
+        // ✅ Fail the suite on a significant slowdown (perf.gate=check with perf.gate.fail=true)
+        PerformanceGate.Result performance = PerformanceGate.lastResult();
+        if (performance != null && performance.hasRegressions() && PerformanceGate.failOnRegression()) {
+            throw new AssertionError("❌ Performance gate: " + performance.getRegressions().size()
+                    + " significant regression(s), first: " + performance.getRegressions().get(0));
+        }
     }
 }
\ No newline at end of file
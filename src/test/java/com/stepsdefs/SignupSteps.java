@@ -127,12 +127,14 @@ public class SignupSteps {
 
         verify.switchToNewTab();
         verify.waitForPageLoad();
+        actions.capturePagePerformance(courseTitle);
     }
     @Then("User verifies {string} redirecting in new tab and closed the tab")
     public void verifyelibraryOpenedInNewTab(String courseTitle) {
 
         verify.switchToNewTab();
         verify.waitForPageLoad();
+        actions.capturePagePerformance(courseTitle);
         verify.closeCurrentTabAndSwitchToMain();
     }
 
@@ -159,6 +161,7 @@ public class SignupSteps {
  
         verify.switchToNewTab();
         verify.waitForPageLoad();
+        actions.capturePagePerformance(elementName);
         verify.verifyURLOpened(elementName, Constants.PROJECT_PORTAL);
     }
 
@@ -3,17 +3,41 @@ package hooks;
 import io.cucumber.java.*;
 import io.cucumber.plugin.ConcurrentEventListener;
 import io.cucumber.plugin.event.*;
+import io.cucumber.plugin.event.Status;
+import jdk.jfr.Event;
+import org.testng.SkipException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import drivers.DriverFactory;
 import config.ConfigReader;
 import utils.Client;
+import utils.ExecutionLog;
+import utils.FlightRecording;
 import utils.ExtentReportManager;
+import utils.TestRailJournal;
+import utils.TestRailJournalSender;
+import utils.TestRailSession;
+import utils.HttpTransport;
+import utils.RequestScheduler;
+import utils.FlakeHistory;
+import utils.PerformanceGate;
+import utils.PrerequisiteCircuitBreaker;
+import utils.PrerequisiteReporting;
+import utils.RerunSession;
+import utils.ScenarioCatalog;
+import utils.ScenarioTimings;
+import utils.TimingHistograms;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * ✅ Merged Hooks with Cucumber Event Listener for capturing Gherkin step text
@@ -22,12 +46,25 @@ public class Hooks implements ConcurrentEventListener {
 
     private static WebDriver driver;
     private static Client testRailClient;
+    private static TestRailJournalSender journalSender;
+    private static String lastResultKey;
     private static int runId = 0;
     private static boolean testRailEnabled = true;
     private static boolean captureAllSteps = true;
+    private static boolean deferToMerge = false; // ✅ Shard run: ShardMerger posts the journaled results
     private static ThreadLocal<String> failureMessage = new ThreadLocal<>();
     private static ThreadLocal<Throwable> failureCause = new ThreadLocal<>();
     private static ThreadLocal<String> currentStepText = new ThreadLocal<>(); // ✅ For Gherkin step text
+    private static ThreadLocal<String> scenarioLocation = new ThreadLocal<>(); // ✅ path:line, for reruns
+    private static final ThreadLocal<FlightRecording.ScenarioEvent> scenarioEvent = new ThreadLocal<>();
+    private static final ThreadLocal<FlightRecording.StepEvent> stepEvent = new ThreadLocal<>();
+    // ✅ Blocked scenarios and held-back prerequisite defects of the circuit breaker
+    private static final PrerequisiteReporting prerequisites =
+            new PrerequisiteReporting(PrerequisiteCircuitBreaker.shared(), Path.of("src/test/resources/features"));
+    private static final ScenarioTimings timings = ScenarioTimings.load(ScenarioTimings.configuredPath());
+    private static volatile Instant runStarted;
+    private static final TimingHistograms histograms =
+            TimingHistograms.load(TimingHistograms.configuredPath());
 
     // ========== Cucumber Event Listener Methods ==========
     
@@ -35,6 +72,152 @@ public class Hooks implements ConcurrentEventListener {
     public void setEventPublisher(EventPublisher publisher) {
         // ✅ Listen to test step started events to capture Gherkin step text
         publisher.registerHandlerFor(TestStepStarted.class, this::handleTestStepStarted);
+        // ✅ Prerequisite (login/dashboard) step outcomes drive the circuit breaker
+        publisher.registerHandlerFor(TestStepFinished.class, this::handleTestStepFinished);
+        // ✅ Scenario durations for duration-balanced sharding of later runs
+        publisher.registerHandlerFor(TestCaseFinished.class, this::recordScenarioTiming);
+        publisher.registerHandlerFor(TestRunStarted.class, event -> runStarted = event.getInstant());
+        // ✅ Run/scenario/step facts for the execution log (formatted off the test thread); the
+        // step/scenario histograms are derived from it
+        ExecutionLog.addSink(histograms.sink());
+        publisher.registerHandlerFor(TestRunStarted.class, event -> ExecutionLog.runStarted("Cucumber run"));
+        publisher.registerHandlerFor(TestCaseStarted.class, event -> ExecutionLog.scenarioStarted(event.getTestCase().getName(),
+                ScenarioCatalog.location(event.getTestCase().getUri(), event.getTestCase().getLocation().getLine())));
+        publisher.registerHandlerFor(TestStepFinished.class, this::recordStep);
+        publisher.registerHandlerFor(TestCaseFinished.class, event -> ExecutionLog.scenarioFinished(event.getTestCase().getName(),
+                event.getResult().getStatus().name(), event.getResult().getDuration().toNanos()));
+        // runFinished waits for the writer, so the histograms are complete before they are saved
+        publisher.registerHandlerFor(TestRunFinished.class, event -> ExecutionLog.runFinished(event.getResult().getStatus().name()));
+        publisher.registerHandlerFor(TestRunFinished.class, event -> saveRunHistory(event));
+        // ✅ Scenario/step flight recorder events (jfr.record), begun and committed on the scenario thread
+        publisher.registerHandlerFor(TestCaseStarted.class, event -> begin(scenarioEvent, new FlightRecording.ScenarioEvent()));
+        publisher.registerHandlerFor(TestStepStarted.class, event -> {
+            if (event.getTestStep() instanceof PickleStepTestStep) begin(stepEvent, new FlightRecording.StepEvent());
+        });
+        publisher.registerHandlerFor(TestStepFinished.class, this::commitStepEvent);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::commitScenarioEvent);
+    }
+
+    private static <E extends Event> void begin(ThreadLocal<E> slot, E event) {
+        event.begin();
+        slot.set(event);
+    }
+
+    private void commitStepEvent(TestStepFinished event) {
+        FlightRecording.StepEvent jfr = stepEvent.get();
+        if (jfr == null || !(event.getTestStep() instanceof PickleStepTestStep)) return;
+        stepEvent.remove();
+        jfr.end();
+        if (!jfr.shouldCommit()) return;
+        PickleStepTestStep step = (PickleStepTestStep) event.getTestStep();
+        jfr.text = step.getStep().getKeyword().trim() + " " + step.getStep().getText();
+        jfr.pattern = step.getPattern();
+        jfr.status = event.getResult().getStatus().name();
+        jfr.commit();
+    }
+
+    private void commitScenarioEvent(TestCaseFinished event) {
+        FlightRecording.ScenarioEvent jfr = scenarioEvent.get();
+        if (jfr == null) return;
+        scenarioEvent.remove();
+        jfr.end();
+        if (!jfr.shouldCommit()) return;
+        TestCase testCase = event.getTestCase();
+        jfr.name = testCase.getName();
+        jfr.location = ScenarioCatalog.location(testCase.getUri(), testCase.getLocation().getLine());
+        jfr.status = event.getResult().getStatus().name();
+        jfr.commit();
+    }
+
+    private void recordStep(TestStepFinished event) {
+        if (!(event.getTestStep() instanceof PickleStepTestStep)) return;
+        Result result = event.getResult();
+        // The pattern groups every text matching the step definition into one histogram
+        PickleStepTestStep step = (PickleStepTestStep) event.getTestStep();
+        ExecutionLog.step(step.getStep().getText(), step.getPattern(), result.getStatus().name(),
+                result.getDuration().toNanos(), result.getError() != null ? result.getError().getMessage() : null);
+    }
+
+    private void recordScenarioTiming(TestCaseFinished event) {
+        Status status = event.getResult().getStatus();
+        // Skipped/undefined scenarios say nothing about how long a real run takes
+        if (status != Status.PASSED && status != Status.FAILED) return;
+        TestCase testCase = event.getTestCase();
+        timings.record(ScenarioTimings.key(testCase.getTags(), testCase.getUri(), testCase.getLocation().getLine()),
+                event.getResult().getDuration().toMillis());
+    }
+
+    private static void saveRunHistory(TestRunFinished event) {
+        try {
+            if (ScenarioTimings.deferToMerge()) {
+                // The snapshot stays pinned for the other shards; ShardMerger blends this run in
+                timings.saveObserved(Path.of(ScenarioTimings.OBSERVED_PATH));
+                System.out.println("⏱️ Timings of " + timings.recordedCount() + " scenario(s) left for ShardMerger in " + ScenarioTimings.OBSERVED_PATH);
+            } else {
+                timings.save();
+                if (timings.recordedCount() > 0) System.out.println("⏱️ Saved timings of " + timings.recordedCount() + " scenario(s)");
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not save scenario timings: " + e.getMessage());
+        }
+        // ✅ Slowest steps/scenarios with p50/p95/p99 against the previous run
+        try {
+            histograms.printSummary(ConfigReader.getInt("histograms.top", 10));
+            if (ScenarioTimings.deferToMerge()) {
+                // Each shard saw only part of the run; ShardMerger adds the shards up
+                histograms.saveObserved(Path.of(TimingHistograms.OBSERVED_PATH));
+            } else {
+                histograms.save();
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not save timing histograms: " + e.getMessage());
+        }
+        // ✅ Performance gate against the baseline (perf.gate=record|check)
+        try {
+            long suiteNanos = runStarted != null ? Duration.between(runStarted, event.getInstant()).toNanos() : 0;
+            reportPerformanceGate(PerformanceGate.fromConfig().finishRun(histograms, suiteNanos));
+        } catch (Exception e) {
+            System.err.println("⚠️ Performance gate failed: " + e.getMessage());
+        }
+        // ✅ Failure manifest for -Drerun.failed=true, plus flake history
+        RerunSession.finish();
+    }
+
+    /** Performance findings as one Extent test, flushed into the already written report */
+    private static void reportPerformanceGate(PerformanceGate.Result result) {
+        if (result == null) return;
+        ExtentReportManager.createTest("⏱️ Performance gate", "p95 durations against " + ConfigReader.get("perf.baseline", PerformanceGate.DEFAULT_PATH));
+        ExtentReportManager.assignCategory("Performance");
+        for (PerformanceGate.Finding finding : result.getFindings()) {
+            if (finding.isSignificant()) ExtentReportManager.logFail("❌ Regression: " + finding);
+            else ExtentReportManager.logWarning("⚠️ Slower, not significant: " + finding);
+        }
+        if (result.getFindings().isEmpty()) ExtentReportManager.logPass("✅ No step or scenario p95 over tolerance");
+        else if (!result.hasRegressions()) ExtentReportManager.logPass("✅ No significant regression");
+        ExtentReportManager.endTest();
+        ExtentReportManager.flushReports();
+    }
+
+    private void handleTestStepFinished(TestStepFinished event) {
+        if (!(event.getTestStep() instanceof PickleStepTestStep)) return;
+        prerequisites.stepFinished(((PickleStepTestStep) event.getTestStep()).getStep().getText(),
+                event.getResult().getStatus().name());
+    }
+
+    /** The scenario's defect, with its failure info, for when its prerequisite circuit decides */
+    private Runnable deferredDefect(Scenario scenario, int caseId, String resultKey) {
+        String message = failureMessage.get();
+        Throwable cause = failureCause.get();
+        return () -> {
+            String currentMessage = failureMessage.get();
+            Throwable currentCause = failureCause.get();
+            setFailureInfo(message, cause);
+            try {
+                createDetailedDefect(scenario, caseId, resultKey);
+            } finally {
+                setFailureInfo(currentMessage, currentCause);
+            }
+        };
     }
 
     /**
@@ -71,20 +254,43 @@ public class Hooks implements ConcurrentEventListener {
 
             testRailEnabled = !"false".equalsIgnoreCase(ConfigReader.get("testrail.enabled"));
             captureAllSteps = Boolean.parseBoolean(ConfigReader.get("screenshot.captureAllSteps", "true"));
+            deferToMerge = Boolean.parseBoolean(System.getProperty("testrail.deferToMerge",
+                    ConfigReader.get("testrail.deferToMerge", "false")).trim());
 
             if (!testRailEnabled) {
                 System.out.println("⚠️ TestRail integration disabled");
                 return;
             }
 
-            testRailClient = new Client();
-            String runName = "Automated Test Run - " +
-                    java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            runId = testRailClient.createTestRun(runName);
-            System.out.println("✅ TestRail run created: R" + runId);
+            testRailClient = TestRailSession.client();
+            journalSender = new TestRailJournalSender(
+                    new TestRailJournal(ConfigReader.get("testrail.journal", TestRailJournal.DEFAULT_PATH)), testRailClient);
         } catch (Exception e) {
             System.err.println("⚠️ TestRail setup failed: " + e.getMessage());
             testRailEnabled = false;
+            return;
+        }
+
+        try {
+            String runName = "Automated Test Run - " +
+                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+            // ✅ Reuse the run TestRunner started creating during feature generation
+            CompletableFuture<Integer> pendingRun = TestRailSession.pendingRun();
+            runId = pendingRun != null ? pendingRun.join() : testRailClient.createTestRun(runName);
+            System.out.println("✅ TestRail run created: R" + runId);
+        } catch (Exception e) {
+            // Results are still journaled; the run is created when the journal is replayed
+            System.err.println("⚠️ TestRail run creation failed, results will be journaled: " + e.getMessage());
+        }
+
+        // ✅ Replay whatever a previous run could not deliver, once this run exists: entries
+        // journaled without a run land in it instead of a run of their own
+        if (deferToMerge) System.out.println("📒 Shard run: results are journaled for ShardMerger to post");
+        try {
+            int leftover = deliverJournal();
+            if (leftover > 0) System.out.println("📒 " + leftover + " journaled entries still pending from earlier runs");
+        } catch (Exception e) {
+            System.err.println("⚠️ TestRail journal replay failed: " + e.getMessage());
         }
     }
 
@@ -94,10 +300,18 @@ public class Hooks implements ConcurrentEventListener {
         failureMessage.remove(); 
         failureCause.remove();
         currentStepText.remove();
+        String location = ScenarioCatalog.location(scenario.getUri(), scenario.getLine());
+        scenarioLocation.set(location);
+        int attempt = RerunSession.startAttempt(location);
         
         try {
             ExtentReportManager.createTest(scenario.getName());
             ExtentReportManager.logInfo("📋 Scenario: " + scenario.getName());
+            if (attempt > 1 || RerunSession.enabled()) {
+                String previous = RerunSession.previousFailure(location);
+                ExtentReportManager.logInfo("🔁 Rerun attempt " + attempt
+                        + (previous != null ? " (previously failed: " + previous + ")" : ""));
+            }
             if (!scenario.getSourceTagNames().isEmpty()) {
                 String tags = String.join(", ", scenario.getSourceTagNames());
                 ExtentReportManager.logInfo("🏷️ Tags: " + tags);
@@ -108,6 +322,14 @@ public class Hooks implements ConcurrentEventListener {
             System.err.println("⚠️ Failed Extent init: " + e.getMessage());
         }
 
+        // ✅ Fail fast while a shared prerequisite is down: no browser, no login timeout
+        String openCircuit = prerequisites.admit(location);
+        if (openCircuit != null) {
+            ExtentReportManager.logSkip("⛔ Blocked: prerequisite '" + openCircuit + "' is down (circuit open)");
+            ExtentReportManager.assignCategory("Blocked");
+            throw new SkipException("Blocked: prerequisite '" + openCircuit + "' is down (circuit open)");
+        }
+
         driver = DriverFactory.getDriver();
         ExtentReportManager.logPass("✅ Browser initialized");
     }
@@ -143,8 +365,47 @@ public class Hooks implements ConcurrentEventListener {
 
     @After(order = 1)
     public void updateTestRailResult(Scenario scenario) {
+        if (prerequisites.blockedBy() != null) {
+            String resultKey = prerequisites.reportBlocked(scenario.getName(), extractCaseIdFromScenario(scenario),
+                    scenarioLocation.get(), testRailEnabled && testRailClient != null ? journalSender : null, runId);
+            if (resultKey != null) {
+                lastResultKey = resultKey;
+                deliverJournal();
+            }
+            return;
+        }
         boolean passed = !scenario.isFailed();
+        String location = scenarioLocation.get();
+        String failureType = passed ? null : analyzeFailureType(scenario);
+        if (!passed) ExecutionLog.failure(failureType, failureMessage.get());
+        Integer failedCaseId = extractCaseIdFromScenario(scenario);
+        String prerequisite = passed ? null : prerequisites.failedPrerequisite();
+        boolean circuitOpened = !passed && prerequisites.recordFailure(scenario.getName(), failedCaseId, failureMessage.get());
+
+        // ✅ A failed rerun attempt that will be retried is neither reported nor counted
+        if (!passed && location != null && RerunSession.willRetry(location)) {
+            RerunSession.attemptFailed(location, failureType);
+            System.out.println("🔁 Attempt " + RerunSession.attempts(location) + " failed (" + failureType + "), retrying");
+            ExtentReportManager.discardTest();
+            return;
+        }
+
+        FlakeHistory.Outcome outcome = location != null ? RerunSession.outcome(location, passed) : null;
+        boolean flaky = outcome == FlakeHistory.Outcome.FLAKY;
+        if (location != null) {
+            RerunSession.history().record(location, scenario.getName(), outcome);
+            if (!passed) {
+                RerunSession.current().record(location, scenario.getName(), extractCaseIdFromScenario(scenario),
+                        failureType, failureMessage.get());
+            }
+        }
+
         try {
+            if (flaky) {
+                ExtentReportManager.logWarning("⚠️ Flaky: passed on attempt " + RerunSession.attempts(location)
+                        + " after " + RerunSession.previousFailure(location));
+                ExtentReportManager.assignCategory("Flaky");
+            }
             if (passed)
                 ExtentReportManager.logPass("✅ Scenario passed");
             else {
@@ -161,7 +422,7 @@ public class Hooks implements ConcurrentEventListener {
             Integer caseId = extractCaseIdFromScenario(scenario);
             if (caseId == null) return;
 
-            String comment = buildTestResultComment(scenario, passed);
+            String comment = buildTestResultComment(scenario, passed, flaky ? location : null);
             File screenshotFile = null;
 
             if (!passed && driver != null) {
@@ -169,11 +430,19 @@ public class Hooks implements ConcurrentEventListener {
                 screenshotFile = saveScreenshotForExtentReport(scr, scenario.getName(), "failure");
             }
 
-            Integer resultId = testRailClient.updateTestResult(caseId, passed, comment);
-            if (resultId != null) {
-                if (screenshotFile != null) testRailClient.uploadExtentReportToResult(resultId, screenshotFile);
-                if (!passed) createDetailedDefect(scenario, caseId, resultId);
+            // ✅ Journal first, then deliver; anything undelivered is replayed later
+            String resultKey = journalSender.recordResult(runId, caseId, passed, comment);
+            lastResultKey = resultKey;
+            if (screenshotFile != null) journalSender.recordAttachment(resultKey, screenshotFile);
+            if (!passed && prerequisite == null) {
+                createDetailedDefect(scenario, caseId, resultKey);
+            } else if (!passed) {
+                prerequisites.fileDefect(prerequisite, circuitOpened, journalSender, runId, caseId, resultKey,
+                        deferredDefect(scenario, caseId, resultKey));
             }
+
+            int pending = deliverJournal();
+            if (pending > 0) System.out.println("📒 TestRail result journaled, " + pending + " entries pending delivery");
         } catch (Exception e) {
             System.err.println("❌ TestRail update failed: " + e.getMessage());
         }
@@ -181,27 +450,50 @@ public class Hooks implements ConcurrentEventListener {
 
     @After(order = 0)
     public void tearDown(Scenario scenario) {
-        try {
-            if (driver != null) driver.quit();
-        } catch (Exception ignored) {}
+        // Through the factory: it owns this thread's driver and records the quit as a session event
+        DriverFactory.quitDriver();
+        driver = null;
+        prerequisites.scenarioFinished();
         currentStepText.remove();
-        ExtentReportManager.removeTest();
+        scenarioLocation.remove();
+        ExtentReportManager.endTest();
     }
 
     @AfterAll
     public static void teardownTestRail() {
         try {
+            prerequisites.printSummary();
             ExtentReportManager.flushReports();
             if (!testRailEnabled || testRailClient == null) return;
+            // Prerequisite failures that never opened a circuit still get their own defects
+            prerequisites.flushDeferredDefects();
+            // A shard's journal is delivered by ShardMerger, together with the merged report
+            if (deferToMerge) {
+                System.out.println("📒 " + journalSender.pendingCount() + " journaled TestRail entries left for ShardMerger");
+                return;
+            }
             File report = new File("test-output/ExtentReport.html");
-            if (report.exists() && testRailClient.getLastResultId() > 0)
-                testRailClient.uploadExtentReportToResult(testRailClient.getLastResultId(), report);
-            testRailClient.closeTestRun();
+            if (report.exists() && lastResultKey != null)
+                journalSender.recordAttachment(lastResultKey, report);
+
+            // Keep the run open while journaled results still have to land in it; a run shared
+            // by several shards is closed after the last one (ShardMerger --close-run)
+            if (journalSender.drain() != 0) System.out.println("📒 TestRail run left open, undelivered entries are kept in the journal");
+            else if (TestRailSession.sharedRunId() > 0) System.out.println("ℹ️ Shared TestRail run left open for the other shards (closed by ShardMerger --close-run)");
+            else testRailClient.closeTestRun();
         } catch (Exception e) {
             System.err.println("⚠️ Final teardown failed: " + e.getMessage());
+        } finally {
+            if (testRailEnabled) RequestScheduler.shared().printStats();
+            HttpTransport.shutdown();
         }
     }
 
+    /** Deliver the journal now, unless ShardMerger posts it after the shards finish (testrail.deferToMerge) */
+    private static int deliverJournal() {
+        return deferToMerge ? 0 : journalSender.drain();
+    }
+
     // ========== Utility methods retained exactly ==========
 
     private Integer extractCaseIdFromScenario(Scenario scenario) {
@@ -215,11 +507,16 @@ public class Hooks implements ConcurrentEventListener {
         return null;
     }
 
-    private String buildTestResultComment(Scenario scenario, boolean passed) {
-        return "**Automated Test Execution**\n\n" +
+    private String buildTestResultComment(Scenario scenario, boolean passed, String flakyLocation) {
+        String comment = "**Automated Test Execution**\n\n" +
                 "**Scenario:** " + scenario.getName() + "\n" +
                 "**Status:** " + (passed ? "✅ PASSED" : "❌ FAILED") + "\n" +
-                "**Executed:** " + java.time.LocalDateTime.now() + "\n";
+                "**Executed:** " + LocalDateTime.now() + "\n";
+        if (flakyLocation != null) {
+            comment += "**Flaky:** ⚠️ passed on attempt " + RerunSession.attempts(flakyLocation) + " after "
+                    + RerunSession.previousFailure(flakyLocation) + "\n";
+        }
+        return comment;
     }
 
     private File saveScreenshotForExtentReport(byte[] screenshot, String scenarioName, String type) {
@@ -241,7 +538,7 @@ public class Hooks implements ConcurrentEventListener {
     /**
      * Create detailed defect in TestRail based on failure type
      */
-    private void createDetailedDefect(Scenario scenario, int caseId, int resultId) {
+    private void createDetailedDefect(Scenario scenario, int caseId, String resultKey) {
         try {
             System.out.println("🐛 Analyzing failure and creating defect...");
             
@@ -252,16 +549,11 @@ public class Hooks implements ConcurrentEventListener {
             
             System.out.println("   Detected Failure Type: " + failureAnalysis);
             
-            // Create defect
-            boolean defectCreated = testRailClient.createDefect(defectTitle, defectDescription);
-            
-            if (defectCreated) {
-                System.out.println("✅ Defect created in TestRail");
-                System.out.println("   Type: " + failureAnalysis);
-                System.out.println("   Title: " + defectTitle);
-            } else {
-                System.out.println("⚠️  Failed to create defect");
-            }
+            // Journal defect; it is delivered together with its result
+            journalSender.recordDefect(resultKey, runId, caseId, defectTitle, defectDescription);
+            System.out.println("✅ Defect journaled for TestRail");
+            System.out.println("   Type: " + failureAnalysis);
+            System.out.println("   Title: " + defectTitle);
             
         } catch (Exception e) {
             System.err.println("⚠️  Error creating defect: " + e.getMessage());
@@ -273,9 +565,14 @@ public class Hooks implements ConcurrentEventListener {
      * Analyze failure type from captured failure information
      */
     private String analyzeFailureType(Scenario scenario) {
-        String scenarioName = scenario.getName().toLowerCase();
-        String failureMsg = failureMessage.get();
-        Throwable cause = failureCause.get();
+        return analyzeFailureType(scenario.getName(), failureMessage.get(), failureCause.get());
+    }
+
+    /**
+     * Classify a failure: XPATH_ISSUE, EXPECTED_OUTPUT_MISMATCH, TIMEOUT_ISSUE, STALE_ELEMENT or GENERAL_FAILURE
+     */
+    public static String analyzeFailureType(String name, String failureMsg, Throwable cause) {
+        String scenarioName = name.toLowerCase();
         
         // Priority 1: Check captured failure message from SeleniumActions
         if (failureMsg != null) {
@@ -373,8 +670,8 @@ public class Hooks implements ConcurrentEventListener {
         desc.append("- **Feature File:** ").append(scenario.getUri()).append("\n");
         desc.append("- **Tags:** ").append(scenario.getSourceTagNames()).append("\n");
         desc.append("- **Failed at:** ").append(
-            java.time.LocalDateTime.now().format(
-                java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            LocalDateTime.now().format(
+                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
             )
         ).append("\n");
         desc.append("- **Browser:** ").append(ConfigReader.get("browser")).append("\n\n");
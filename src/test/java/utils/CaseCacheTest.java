@@ -0,0 +1,121 @@
+package utils;
+
+import org.json.JSONObject;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔹 CaseCacheTest
+ * Incremental sync against the stand-in, and eviction of cases deleted in TestRail by a full sync.
+ */
+public class CaseCacheTest {
+
+    private static final int PROJECT = 1;
+    private static final int SUITE = 1;
+
+    private Path dir;
+    private long longAgo;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("case-cache-test");
+        longAgo = System.currentTimeMillis() / 1000 - 3600;
+    }
+
+    @Test
+    public void laterSyncsOnlyPullCasesChangedSinceTheLastOne() throws IOException {
+        try (TestRailStandIn testRail = new TestRailStandIn()) {
+            addCases(testRail, 1, 2, 3);
+            CaseCache cache = cache(testRail, CaseCache.DEFAULT_FULL_SYNC_HOURS);
+            assertEquals(cache.sync(PROJECT, SUITE), 3, "the first sync is full");
+            assertTrue(cache.isSynced(PROJECT, SUITE));
+
+            testRail.putCase(2, SUITE, "Case 2, reworded", System.currentTimeMillis() / 1000);
+
+            assertEquals(cache.sync(PROJECT, SUITE), 1, "only the changed case is listed");
+            assertEquals(cache.getCase(2).getString("title"), "Case 2, reworded");
+            assertEquals(ids(cache.cachedCases(SUITE, null)), List.of(1, 2, 3));
+        }
+    }
+
+    @Test
+    public void incrementalSyncCannotSeeDeletionsAndKeepsTheCase() throws IOException {
+        try (TestRailStandIn testRail = new TestRailStandIn()) {
+            addCases(testRail, 1, 2, 3);
+            CaseCache cache = cache(testRail, CaseCache.DEFAULT_FULL_SYNC_HOURS);
+            cache.sync(PROJECT, SUITE);
+            testRail.deleteCase(2);
+
+            cache.sync(PROJECT, SUITE);
+
+            assertTrue(cache.contains(2), "updated_after never reports a deletion");
+        }
+    }
+
+    @Test
+    public void fullSyncEvictsCasesDeletedInTestRail() throws IOException {
+        try (TestRailStandIn testRail = new TestRailStandIn()) {
+            addCases(testRail, 1, 2, 3);
+            CaseCache cache = cache(testRail, 0);
+            cache.sync(PROJECT, SUITE);
+            testRail.deleteCase(2);
+
+            assertEquals(cache.sync(PROJECT, SUITE), 2);
+
+            assertFalse(cache.contains(2));
+            assertEquals(ids(cache.cachedCases(SUITE, null)), List.of(1, 3));
+        }
+    }
+
+    @Test
+    public void fullSyncLeavesCasesOfOtherSuitesAlone() throws IOException {
+        try (TestRailStandIn testRail = new TestRailStandIn()) {
+            addCases(testRail, 1, 2);
+            CaseCache cache = cache(testRail, 0);
+            // Fetched one by one at some point, from another suite
+            AtomicFiles.writeString(dir.resolve("cases").resolve("C50.json"),
+                    new JSONObject().put("id", 50).put("suite_id", 7).put("updated_on", longAgo).toString());
+
+            cache.sync(PROJECT, SUITE);
+
+            assertTrue(cache.contains(50));
+            assertEquals(ids(cache.cachedCases(SUITE, null)), List.of(1, 2));
+        }
+    }
+
+    @Test
+    public void newScopeIsSyncedInFull() throws IOException {
+        try (TestRailStandIn testRail = new TestRailStandIn()) {
+            addCases(testRail, 1, 2);
+            testRail.putCase(3, 2, "Case 3", longAgo);
+            CaseCache cache = cache(testRail, CaseCache.DEFAULT_FULL_SYNC_HOURS);
+            cache.sync(PROJECT, SUITE);
+
+            assertEquals(cache.sync(PROJECT, 2), 1, "nothing changed recently, but suite 2 was never synced");
+            assertTrue(cache.isSynced(PROJECT, 2));
+            assertFalse(cache.isSynced(PROJECT, SUITE));
+        }
+    }
+
+    private CaseCache cache(TestRailStandIn testRail, long fullSyncHours) {
+        return new CaseCache(testRail.client(), dir.toString(), false, fullSyncHours);
+    }
+
+    private void addCases(TestRailStandIn testRail, int... caseIds) {
+        for (int caseId : caseIds) testRail.putCase(caseId, SUITE, "Case " + caseId, longAgo);
+    }
+
+    private static List<Integer> ids(List<JSONObject> cases) {
+        return cases.stream().map(testCase -> testCase.getInt("id")).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,122 @@
+package utils;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔹 ExecutionLogTest
+ * Ring wrap-around, a full ring holding publishers back, and close() draining what was published.
+ */
+public class ExecutionLogTest {
+
+    // The smallest ring ExecutionLog builds: 128 slots
+    private static final int CAPACITY = 64;
+
+    private Path file;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        file = Files.createTempDirectory("execution-log-test").resolve("execution-log.jsonl");
+    }
+
+    @Test
+    public void eventsKeepTheirOrderAcrossManyTurnsOfTheRing() throws IOException {
+        ExecutionLog log = new ExecutionLog(true, file, CAPACITY);
+        List<String> seen = new ArrayList<>();
+        log.register(event -> seen.add(event.getName()));
+
+        for (int i = 0; i < 1000; i++) log.publish(ExecutionLog.Type.STEP, "step " + i, "PASSED", i + 1, null);
+        log.close();
+
+        List<String> written = new ArrayList<>();
+        ExecutionLog.read(file, event -> written.add(event.getName()));
+        assertEquals(written.size(), 1000);
+        for (int i = 0; i < 1000; i++) assertEquals(written.get(i), "step " + i);
+        assertEquals(seen, written, "the sink saw the same events in the same order");
+    }
+
+    @Test
+    public void fullRingHoldsThePublisherBackInsteadOfDroppingEvents() throws Exception {
+        ExecutionLog log = new ExecutionLog(false, file, CAPACITY);
+        CountDownLatch gate = new CountDownLatch(1);
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        log.register(event -> {
+            awaitQuietly(gate);
+            seen.add(event.getName());
+        });
+
+        AtomicInteger published = new AtomicInteger();
+        Thread publisher = new Thread(() -> {
+            for (int i = 0; i < 300; i++) {
+                log.publish(ExecutionLog.Type.STEP, "step " + i, "PASSED", 1, null);
+                published.incrementAndGet();
+            }
+        });
+        publisher.start();
+        publisher.join(500);
+
+        assertTrue(publisher.isAlive(), "the publisher waits while the sink holds the writer up");
+        assertTrue(published.get() < 300, "published " + published.get());
+
+        gate.countDown();
+        publisher.join(10_000);
+        assertFalse(publisher.isAlive());
+        log.close();
+        assertEquals(seen.size(), 300, "nothing was dropped");
+        assertEquals(seen.get(299), "step 299");
+    }
+
+    @Test
+    public void closeDrainsEverythingPublishedAndClosesTheSinks() throws Exception {
+        ExecutionLog log = new ExecutionLog(true, file, CAPACITY);
+        AtomicInteger closes = new AtomicInteger();
+        log.register(new ExecutionLog.Sink() {
+            @Override
+            public void accept(ExecutionLog.Event event) {
+            }
+
+            @Override
+            public void close() {
+                closes.incrementAndGet();
+            }
+        });
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 100; i++) log.publish(ExecutionLog.Type.COMMAND, "click", "OK", 1, thread + ":" + i);
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        log.close();
+        log.publish(ExecutionLog.Type.COMMAND, "after close", "OK", 1, null);
+        log.close();
+
+        assertEquals(Files.readAllLines(file).size(), 400, "every published event is on disk once close() returns");
+        assertEquals(closes.get(), 1);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package utils;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔹 FailureManifestTest
+ * Write and load round-trip, and what a missing or unreadable manifest means for the next run.
+ */
+public class FailureManifestTest {
+
+    private Path file;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        file = Files.createTempDirectory("failure-manifest-test").resolve("reports/failed-scenarios.json");
+    }
+
+    @Test
+    public void failuresSurviveTheRoundTrip() throws IOException {
+        FailureManifest written = FailureManifest.create(file);
+        written.record("features/login.feature:12", "Sign in", 101, "ELEMENT_NOT_FOUND", "no #submit");
+        written.record("features/signup.feature:4", "Register", null, "ASSERTION_FAILURE", null);
+        written.write();
+
+        FailureManifest loaded = FailureManifest.load(file);
+
+        assertEquals(loaded.size(), 2);
+        FailureManifest.Entry login = loaded.get("features/login.feature:12");
+        assertEquals(login.getName(), "Sign in");
+        assertEquals(login.getCaseId(), Integer.valueOf(101));
+        assertEquals(login.getFailureType(), "ELEMENT_NOT_FOUND");
+        assertEquals(login.getMessage(), "no #submit");
+        FailureManifest.Entry signup = loaded.get("features/signup.feature:4");
+        assertNull(signup.getCaseId());
+        assertNull(signup.getMessage());
+        assertTrue(loaded.containsCase(101));
+        assertFalse(loaded.containsCase(4));
+    }
+
+    @Test
+    public void passingRunLeavesAnEmptyManifest() throws IOException {
+        FailureManifest previous = FailureManifest.create(file);
+        previous.record("features/login.feature:12", "Sign in", 101, "TIMEOUT", "slow");
+        previous.write();
+
+        FailureManifest.create(file).write();
+
+        assertTrue(FailureManifest.load(file).isEmpty(), "the file is replaced, not appended to");
+    }
+
+    @Test
+    public void missingOrUnreadableManifestListsNothing() throws IOException {
+        assertTrue(FailureManifest.load(file).isEmpty());
+
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "{\"failed\": [ {\"location\": ");
+        assertTrue(FailureManifest.load(file).isEmpty());
+    }
+}
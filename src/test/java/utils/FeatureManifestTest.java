@@ -0,0 +1,81 @@
+package utils;
+
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔹 FeatureManifestTest
+ * Manifest round trip, format invalidation and canonical case hashes.
+ */
+public class FeatureManifestTest {
+
+    @Test
+    public void savedEntriesLoadBack() throws IOException {
+        Path file = Files.createTempDirectory("manifest-test").resolve(FeatureManifest.FILE_NAME);
+        FeatureManifest manifest = FeatureManifest.load(file, 3);
+        manifest.put(42, new FeatureManifest.Entry(1700000000L, "content", "output", "features/C42.feature"));
+        manifest.save();
+
+        FeatureManifest loaded = FeatureManifest.load(file, 3);
+        assertEquals(loaded.caseIds(), Set.of(42));
+        FeatureManifest.Entry entry = loaded.get(42);
+        assertEquals(entry.getUpdatedOn(), 1700000000L);
+        assertEquals(entry.getContentHash(), "content");
+        assertEquals(entry.getOutputHash(), "output");
+        assertEquals(entry.getPath(), "features/C42.feature");
+    }
+
+    @Test
+    public void otherFormatVersionInvalidatesEveryEntry() throws IOException {
+        Path file = Files.createTempDirectory("manifest-test").resolve(FeatureManifest.FILE_NAME);
+        FeatureManifest manifest = FeatureManifest.load(file, 1);
+        manifest.put(1, new FeatureManifest.Entry(1, "a", "b", "p"));
+        manifest.save();
+
+        assertTrue(FeatureManifest.load(file, 2).caseIds().isEmpty());
+    }
+
+    @Test
+    public void unreadableFileGivesAnEmptyManifest() throws IOException {
+        Path file = Files.writeString(Files.createTempDirectory("manifest-test").resolve(FeatureManifest.FILE_NAME), "{torn");
+        assertTrue(FeatureManifest.load(file, 1).caseIds().isEmpty());
+    }
+
+    @Test
+    public void contentHashIgnoresKeyOrderAndUnreadFields() {
+        List<String> fields = List.of("title", "custom_steps_separated");
+        JSONObject a = new JSONObject("{\"title\":\"Login\",\"custom_steps_separated\":[{\"content\":\"x\",\"expected\":\"y\"}],\"updated_on\":1}");
+        JSONObject b = new JSONObject("{\"updated_on\":2,\"custom_steps_separated\":[{\"expected\":\"y\",\"content\":\"x\"}],\"title\":\"Login\"}");
+        assertEquals(FeatureManifest.contentHash(a, fields), FeatureManifest.contentHash(b, fields));
+    }
+
+    @Test
+    public void contentHashSeesChangesAndStepOrder() {
+        List<String> fields = List.of("title", "custom_steps_separated");
+        JSONObject steps = new JSONObject("{\"title\":\"Login\",\"custom_steps_separated\":[{\"content\":\"x\"},{\"content\":\"y\"}]}");
+        JSONObject swapped = new JSONObject("{\"title\":\"Login\",\"custom_steps_separated\":[{\"content\":\"y\"},{\"content\":\"x\"}]}");
+        JSONObject missing = new JSONObject("{\"title\":\"Login\"}");
+        JSONObject nulled = new JSONObject("{\"title\":\"Login\",\"custom_steps_separated\":null}");
+        assertNotEquals(FeatureManifest.contentHash(steps, fields), FeatureManifest.contentHash(swapped, fields));
+        assertEquals(FeatureManifest.contentHash(missing, fields), FeatureManifest.contentHash(nulled, fields));
+    }
+
+    @Test
+    public void fileHashIsNullForAMissingFile() throws IOException {
+        Path dir = Files.createTempDirectory("manifest-test");
+        assertNull(FeatureManifest.fileHash(dir.resolve("none.feature")));
+        Path file = Files.writeString(dir.resolve("a.feature"), "Feature: A");
+        assertEquals(FeatureManifest.fileHash(file), FeatureManifest.sha256("Feature: A"));
+    }
+}
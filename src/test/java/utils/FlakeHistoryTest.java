@@ -0,0 +1,78 @@
+package utils;
+
+import org.json.JSONObject;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+/**
+ * 🔹 FlakeHistoryTest
+ * Outcome counts per scenario, merged into the history file run after run.
+ */
+public class FlakeHistoryTest {
+
+    private static final String LOGIN = "features/login.feature:12";
+    private static final String SIGNUP = "features/signup.feature:4";
+
+    private Path file;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        file = Files.createTempDirectory("flake-history-test").resolve("flake-history.json");
+    }
+
+    @Test
+    public void onlyRetryPassesAreFlakyThisRun() {
+        FlakeHistory history = FlakeHistory.load(file);
+        history.record(LOGIN, "Sign in", FlakeHistory.Outcome.FLAKY);
+        history.record(SIGNUP, "Register", FlakeHistory.Outcome.FAILED);
+        history.record("features/home.feature:3", "Home", FlakeHistory.Outcome.PASSED);
+
+        assertEquals(history.flakyThisRun(), Map.of(LOGIN, "Sign in"));
+    }
+
+    @Test
+    public void runsAreAddedToTheCountsOnDisk() throws IOException {
+        FlakeHistory first = FlakeHistory.load(file);
+        first.record(LOGIN, "Sign in", FlakeHistory.Outcome.PASSED);
+        first.record(SIGNUP, "Register", FlakeHistory.Outcome.FAILED);
+        first.save();
+
+        FlakeHistory second = FlakeHistory.load(file);
+        second.record(LOGIN, "Sign in", FlakeHistory.Outcome.FLAKY);
+        second.save();
+
+        JSONObject login = scenario(LOGIN);
+        assertEquals(login.getInt("passed"), 1);
+        assertEquals(login.getInt("flaky"), 1);
+        assertEquals(login.getInt("failed"), 0);
+        assertEquals(login.getString("last"), "FLAKY");
+        assertEquals(login.getDouble("flakeRate"), 0.5);
+        assertEquals(login.getString("name"), "Sign in");
+        JSONObject signup = scenario(SIGNUP);
+        assertEquals(signup.getInt("failed"), 1, "untouched by the second run");
+        assertEquals(signup.getString("name"), "Register");
+    }
+
+    @Test
+    public void savingTwiceDoesNotCountTheRunTwice() throws IOException {
+        FlakeHistory history = FlakeHistory.load(file);
+        history.record(LOGIN, "Sign in", FlakeHistory.Outcome.FLAKY);
+        history.save();
+        history.save();
+
+        assertEquals(scenario(LOGIN).getInt("flaky"), 1);
+        assertFalse(history.flakyThisRun().containsKey(LOGIN));
+    }
+
+    private JSONObject scenario(String location) throws IOException {
+        return new JSONObject(Files.readString(file)).getJSONObject("scenarios").getJSONObject(location);
+    }
+}
@@ -0,0 +1,98 @@
+package utils;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+/**
+ * 🔹 GherkinParseCacheTest
+ * Hits, misses, touched-but-identical and deleted feature files across catalog passes.
+ */
+public class GherkinParseCacheTest {
+
+    private Path features;
+    private Path cacheFile;
+    private Path login;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        Path dir = Files.createTempDirectory("gherkin-cache-test");
+        features = Files.createDirectories(dir.resolve("features"));
+        cacheFile = dir.resolve("cache/scenarios.bin");
+        login = features.resolve("login.feature");
+        Files.writeString(login, "Feature: Login\n\n  Scenario: Sign in\n    Given the login page\n");
+    }
+
+    @Test
+    public void unchangedFileIsServedFromTheCache() throws IOException {
+        pass();
+
+        GherkinParseCache cache = GherkinParseCache.load(cacheFile);
+        List<ScenarioCatalog.Scenario> scenarios = ScenarioCatalog.parse(features, cache);
+
+        assertEquals(scenarios.size(), 1);
+        assertEquals(scenarios.get(0).getSteps(), List.of("the login page"));
+        assertEquals(cache.getHits(), 1);
+        assertEquals(cache.getMisses(), 0);
+    }
+
+    @Test
+    public void changedFileIsParsedAgain() throws IOException {
+        pass();
+        Files.writeString(login, "Feature: Login\n\n  Scenario: Sign in\n    Given the login page\n\n"
+                + "  Scenario: Sign out\n    Given a signed-in user\n");
+
+        GherkinParseCache cache = pass();
+
+        assertEquals(cache.getMisses(), 1);
+        assertEquals(ScenarioCatalog.parse(features, GherkinParseCache.load(cacheFile)).size(), 2);
+    }
+
+    @Test
+    public void touchedButIdenticalFileIsStillAHit() throws IOException {
+        pass();
+        Files.setLastModifiedTime(login, FileTime.fromMillis(Files.getLastModifiedTime(login).toMillis() + 10_000));
+
+        GherkinParseCache cache = pass();
+
+        assertEquals(cache.getHits(), 1, "content hash matched");
+        assertEquals(cache.getMisses(), 0);
+        // The new mtime was recorded, so the next pass does not even read the file
+        assertNotNull(GherkinParseCache.load(cacheFile).getIfUnmodified(login, Files.size(login),
+                Files.getLastModifiedTime(login).toMillis()));
+    }
+
+    @Test
+    public void deletedFileFallsOutOfTheCache() throws IOException {
+        Path signup = features.resolve("signup.feature");
+        Files.writeString(signup, "Feature: Signup\n\n  Scenario: Register\n    Given the signup page\n");
+        pass();
+        long size = Files.size(signup);
+        long modified = Files.getLastModifiedTime(signup).toMillis();
+        assertNotNull(GherkinParseCache.load(cacheFile).getIfUnmodified(signup, size, modified));
+
+        Files.delete(signup);
+        pass();
+
+        GherkinParseCache cache = GherkinParseCache.load(cacheFile);
+        assertNull(cache.getIfUnmodified(signup, size, modified));
+        assertNotNull(cache.getIfUnmodified(login, Files.size(login), Files.getLastModifiedTime(login).toMillis()));
+    }
+
+    /** One catalog pass the way ScenarioCatalog.parse(dir) runs it: load, parse, save */
+    private GherkinParseCache pass() throws IOException {
+        GherkinParseCache cache = GherkinParseCache.load(cacheFile);
+        ScenarioCatalog.parse(features, cache);
+        cache.save();
+        return cache;
+    }
+}
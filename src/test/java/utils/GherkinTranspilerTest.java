@@ -0,0 +1,64 @@
+package utils;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * 🔹 GherkinTranspilerTest
+ * TestRail HTML to text and text to Gherkin steps.
+ */
+public class GherkinTranspilerTest {
+
+    @Test
+    public void blocksAndListItemsBecomeLines() {
+        assertEquals(GherkinTranspiler.toText("<p>Open the login page</p><p>Enter &quot;admin&quot; &amp; password</p>"),
+                "Open the login page\nEnter \"admin\" & password");
+        assertEquals(GherkinTranspiler.toText("<ul><li>Click <b>Login</b></li><li>Verify dashboard</li></ul>"),
+                "Click Login\nVerify dashboard");
+        assertEquals(GherkinTranspiler.toText("line1<br>line2<br/>\n\nline3"), "line1\nline2\nline3");
+    }
+
+    @Test
+    public void entitiesAreDecodedAndUnknownOnesKept() {
+        assertEquals(GherkinTranspiler.toText("caf&eacute; &#233; &#xE9; &bogus; &lt;tag&gt;"), "café é é &bogus; <tag>");
+    }
+
+    @Test
+    public void scriptsStylesAndCommentsAreDropped() {
+        assertEquals(GherkinTranspiler.toText("a<script>alert('<p>')</script><style>p{}</style><!-- <p> -->b"), "ab");
+    }
+
+    @Test
+    public void tablesBecomeDataTablesWithEscapedPipes() {
+        assertEquals(GherkinTranspiler.toText("<p>Enter:</p><table><tr><th>user</th><th>pass</th></tr>"
+                        + "<tr><td>a|b</td><td>c</td></tr></table>"),
+                "Enter:\n| user | pass |\n| a\\|b | c |");
+    }
+
+    @Test
+    public void stepsGetKeywordsByPositionAndWording() {
+        StringBuilder out = new StringBuilder();
+        GherkinTranspiler.appendSteps(out, "<p>Open app</p><p>Click login</p>", 0, false);
+        GherkinTranspiler.appendSteps(out, "<p>Dashboard shown</p><p>Name visible</p>", 0, true);
+        GherkinTranspiler.appendSteps(out, "When user enters x", 2, false);
+        assertEquals(out.toString(), "Given Open app\nWhen Click login\nThen Dashboard shown\nAnd Name visible\nWhen user enters x\n");
+    }
+
+    @Test
+    public void actionWordsWinOverCheckWords() {
+        assertEquals(GherkinTranspiler.classify("user should see it", 3, false), "Then user should see it");
+        assertEquals(GherkinTranspiler.classify("Select country and verify it", 3, false), "When Select country and verify it");
+        assertEquals(GherkinTranspiler.classify("wait a bit", 3, false), "And wait a bit");
+        assertEquals(GherkinTranspiler.classify("| a | b |", 3, false), "| a | b |");
+    }
+
+    @Test
+    public void emptyInputGivesNoSteps() {
+        StringBuilder out = new StringBuilder();
+        GherkinTranspiler.appendSteps(out, "<p>&nbsp;</p>", 0, false);
+        GherkinTranspiler.appendSteps(out, null, 0, false);
+        assertEquals(GherkinTranspiler.toText(""), "");
+        assertEquals(out.toString(), "");
+    }
+}
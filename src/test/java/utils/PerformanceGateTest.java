@@ -0,0 +1,104 @@
+package utils;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔹 PerformanceGateTest
+ * Folding runs into the baseline, and the significance test of a slowdown.
+ */
+public class PerformanceGateTest {
+
+    @Test
+    public void longRunDoesNotWipeOutTheBaseline() throws IOException {
+        PerformanceGate gate = gate(Files.createTempDirectory("gate-test").resolve("baseline.json"), 50);
+        gate.record(Map.of("step", samples(40, 10_000_000L)));
+        gate.record(Map.of("step", samples(100, 20_000_000L)));
+
+        TimingHistograms.Histogram baseline = gate.loadBaseline().get("step");
+        assertEquals(baseline.count(), 50);
+        assertEquals(countAt(baseline, 10_000_000L), 25, "earlier runs keep half of the samples");
+    }
+
+    @Test
+    public void scatteredSingleCountsSurviveScaling() throws IOException {
+        Path file = Files.createTempDirectory("gate-test").resolve("baseline.json");
+        TimingHistograms.Histogram spread = new TimingHistograms.Histogram();
+        for (int i = 0; i < 60; i++) spread.record((long) (1_000_000 * Math.pow(1.1, i)));
+        gate(file, 100).record(Map.of("step", spread));
+
+        // 60 single counts scaled by 25/60: rounding each bucket alone would keep none
+        PerformanceGate gate = gate(file, 50);
+        gate.record(Map.of("step", samples(30, 10_000_000_000L)));
+
+        TimingHistograms.Histogram baseline = gate.loadBaseline().get("step");
+        assertEquals(baseline.count(), 50);
+        assertEquals(baseline.count() - countAt(baseline, 10_000_000_000L), 25);
+    }
+
+    @Test
+    public void smallRunsAreAddedUnscaled() throws IOException {
+        PerformanceGate gate = gate(Files.createTempDirectory("gate-test").resolve("baseline.json"), 50);
+        gate.record(Map.of("step", samples(10, 10_000_000L)));
+        gate.record(Map.of("step", samples(10, 20_000_000L)));
+        assertEquals(gate.loadBaseline().get("step").count(), 20);
+    }
+
+    @Test
+    public void clearlySlowerRunIsSignificant() {
+        long[] baseline = new long[8];
+        long[] current = new long[8];
+        baseline[1] = 20;
+        current[5] = 20;
+        assertTrue(PerformanceGate.mannWhitneyGreater(baseline, current) < 0.001);
+    }
+
+    @Test
+    public void identicalDistributionsAreNotSignificant() {
+        long[] same = {0, 5, 10, 5, 0};
+        double p = PerformanceGate.mannWhitneyGreater(same, same.clone());
+        assertTrue(p > 0.4 && p < 0.6, "p was " + p);
+    }
+
+    @Test
+    public void fasterRunIsNeverASlowdown() {
+        long[] baseline = {0, 0, 0, 20};
+        long[] current = {20, 0, 0, 0};
+        assertTrue(PerformanceGate.mannWhitneyGreater(baseline, current) > 0.999);
+    }
+
+    @Test
+    public void allSamplesInOneBucketGiveNoEvidence() {
+        // Every value tied: zero variance, the test cannot tell the runs apart
+        assertEquals(PerformanceGate.mannWhitneyGreater(new long[]{0, 7, 0}, new long[]{0, 9, 0}), 1.0);
+    }
+
+    @Test
+    public void matchesTheNormalApproximationOfASmallTextbookCase() {
+        // baseline {1, 2, 3}, current {4, 5, 6}: U = 9, mean 4.5, variance 5.25 → z = (9 - 4.5 - 0.5) / 2.291
+        long[] baseline = {0, 1, 1, 1, 0, 0, 0};
+        long[] current = {0, 0, 0, 0, 1, 1, 1};
+        assertEquals(PerformanceGate.mannWhitneyGreater(baseline, current), 0.0405, 0.001);
+    }
+
+    private static PerformanceGate gate(Path file, int maxSamples) {
+        return new PerformanceGate(file, 20, 200, 5, 0.01, maxSamples);
+    }
+
+    private static TimingHistograms.Histogram samples(int count, long nanos) {
+        TimingHistograms.Histogram h = new TimingHistograms.Histogram();
+        for (int i = 0; i < count; i++) h.record(nanos);
+        return h;
+    }
+
+    private static long countAt(TimingHistograms.Histogram h, long nanos) {
+        return h.bucketCounts()[TimingHistograms.Histogram.indexOf(nanos / 1000)];
+    }
+}
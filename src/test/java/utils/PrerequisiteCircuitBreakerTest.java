@@ -0,0 +1,66 @@
+package utils;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * 🔹 PrerequisiteCircuitBreakerTest
+ * The half-open probe belongs to the scenario that was let through.
+ */
+public class PrerequisiteCircuitBreakerTest {
+
+    private static final List<String> LOGIN_STEPS = List.of("User logs in", "the dashboard is shown");
+
+    private PrerequisiteCircuitBreaker breaker;
+
+    @BeforeMethod
+    public void setUp() {
+        // Threshold 1 and no probe delay: one failure opens, the next scenario probes
+        breaker = new PrerequisiteCircuitBreaker(Map.of("login", Pattern.compile("^User logs in$")), 1, 0);
+        assertNull(breaker.admit("a.feature:3@1", LOGIN_STEPS));
+        breaker.recordFailure("login", "Scenario A", 1, "timeout");
+        breaker.probeFinished("a.feature:3@1");
+        assertEquals(breaker.state("login"), PrerequisiteCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void otherScenariosEndingDoNotCancelTheProbe() {
+        assertNull(breaker.admit("probe.feature:3@1", LOGIN_STEPS), "let through as the probe");
+        assertEquals(breaker.admit("b.feature:3@2", LOGIN_STEPS), "login");
+        assertNull(breaker.admit("c.feature:3@3", List.of("an unrelated step")));
+
+        breaker.probeFinished("b.feature:3@2");
+        breaker.probeFinished("c.feature:3@3");
+        assertEquals(breaker.state("login"), PrerequisiteCircuitBreaker.State.HALF_OPEN);
+
+        breaker.recordSuccess("login");
+        breaker.probeFinished("probe.feature:3@1");
+        assertEquals(breaker.state("login"), PrerequisiteCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void probeEndingWithoutReachingItsPrerequisiteReopensTheCircuit() {
+        assertNull(breaker.admit("probe.feature:3@1", LOGIN_STEPS));
+
+        breaker.probeFinished("probe.feature:3@1");
+
+        assertEquals(breaker.state("login"), PrerequisiteCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void sameScenarioOnAnotherThreadIsNotTheProbe() {
+        assertNull(breaker.admit("probe.feature:3@1", LOGIN_STEPS));
+        assertEquals(breaker.admit("probe.feature:3@2", LOGIN_STEPS), "login");
+
+        breaker.probeFinished("probe.feature:3@2");
+
+        assertEquals(breaker.state("login"), PrerequisiteCircuitBreaker.State.HALF_OPEN);
+    }
+}
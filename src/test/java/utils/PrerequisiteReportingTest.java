@@ -0,0 +1,116 @@
+package utils;
+
+import org.json.JSONObject;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔹 PrerequisiteReportingTest
+ * Held-back prerequisite defects, the consolidated defect and Blocked results.
+ */
+public class PrerequisiteReportingTest {
+
+    private static final String LOGIN_STEP = "User logs in";
+
+    private TestRailStandIn testRail;
+    private Path dir;
+    private TestRailJournal journal;
+    private TestRailJournalSender sender;
+    private PrerequisiteReporting prerequisites;
+    private String location;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        testRail = new TestRailStandIn();
+        dir = Files.createTempDirectory("prerequisite-test");
+        Path features = Files.createDirectories(dir.resolve("features"));
+        Files.writeString(features.resolve("login.feature"),
+                "Feature: Login\n\n  Scenario: Open the dashboard\n    Given " + LOGIN_STEP + "\n    Then the dashboard is shown\n");
+        ScenarioCatalog.Scenario scenario = ScenarioCatalog.parse(features).get(0);
+        location = ScenarioCatalog.location(scenario.getFile().toUri(), scenario.getLine());
+
+        journal = new TestRailJournal(dir.resolve("journal.jsonl").toString());
+        sender = new TestRailJournalSender(journal, testRail.client());
+        PrerequisiteCircuitBreaker breaker = new PrerequisiteCircuitBreaker(
+                Map.of("login", Pattern.compile("^" + LOGIN_STEP + "$")), 2, 60_000);
+        prerequisites = new PrerequisiteReporting(breaker, features);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        testRail.close();
+    }
+
+    @Test
+    public void heldBackDefectIsFiledOnceThePrerequisitePassesAgain() throws IOException {
+        AtomicInteger filed = new AtomicInteger();
+        assertFalse(failLogin("Scenario A", 1, filed::incrementAndGet));
+        assertEquals(filed.get(), 0, "defect waits while the circuit is closed");
+
+        assertNull(prerequisites.admit(location));
+        prerequisites.stepFinished(LOGIN_STEP, "PASSED");
+        assertEquals(filed.get(), 1);
+        prerequisites.flushDeferredDefects();
+        assertEquals(filed.get(), 1, "filed only once");
+    }
+
+    @Test
+    public void openingCircuitFilesOneConsolidatedDefect() throws IOException {
+        AtomicInteger filed = new AtomicInteger();
+        failLogin("Scenario A", 1, filed::incrementAndGet);
+        assertTrue(failLogin("Scenario B", 2, filed::incrementAndGet));
+
+        prerequisites.flushDeferredDefects();
+        assertEquals(filed.get(), 0, "held-back defects are replaced by the consolidated one");
+        List<JSONObject> defects = journal.load().getPending().stream()
+                .filter(entry -> TestRailJournal.TYPE_DEFECT.equals(entry.getString("type"))).collect(Collectors.toList());
+        assertEquals(defects.size(), 1);
+        assertEquals(defects.get(0).getString("title"), "[PREREQUISITE DOWN] login");
+    }
+
+    @Test
+    public void scenarioBehindOpenCircuitIsJournaledAsBlocked() throws IOException {
+        failLogin("Scenario A", 1, () -> { });
+        failLogin("Scenario B", 2, () -> { });
+
+        assertEquals(prerequisites.admit(location), "login");
+        assertEquals(prerequisites.blockedBy(), "login");
+        String key = prerequisites.reportBlocked("Scenario C", 3, null, sender, 7);
+        prerequisites.scenarioFinished();
+
+        JSONObject result = journal.load().getPending().stream()
+                .filter(entry -> entry.getString("key").equals(key)).findFirst().orElseThrow();
+        assertEquals(result.getInt("statusId"), 2);
+        assertEquals(result.getInt("caseId"), 3);
+        assertNull(prerequisites.blockedBy());
+        assertNull(prerequisites.reportBlocked("Scenario C", 3, null, null, 7), "nothing journaled without TestRail");
+    }
+
+    /** One scenario failing on the login step, reported like the hooks do */
+    private boolean failLogin(String scenarioName, int caseId, Runnable defect) throws IOException {
+        assertNull(prerequisites.admit(location));
+        prerequisites.stepFinished(LOGIN_STEP, "FAILED");
+        String prerequisite = prerequisites.failedPrerequisite();
+        assertEquals(prerequisite, "login");
+        boolean circuitOpened = prerequisites.recordFailure(scenarioName, caseId, "timeout");
+        String resultKey = sender.recordResult(7, caseId, false, "failed");
+        prerequisites.fileDefect(prerequisite, circuitOpened, sender, 7, caseId, resultKey, defect);
+        prerequisites.scenarioFinished();
+        return circuitOpened;
+    }
+}
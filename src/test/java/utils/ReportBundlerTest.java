@@ -0,0 +1,161 @@
+package utils;
+
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔹 ReportBundlerTest
+ * Part planning and the streamed ZIP, including a writer that fails half way.
+ */
+public class ReportBundlerTest {
+
+    @Test
+    public void bundlesReportAndScreenshotsIntoOneZip() throws IOException {
+        Path dir = Files.createTempDirectory("bundle-test");
+        File report = Files.writeString(dir.resolve("ExtentReport.html"), "<html>report</html>").toFile();
+        Path shots = Files.createDirectories(dir.resolve("screenshots"));
+        Files.write(shots.resolve("b.png"), new byte[]{1, 2, 3});
+        Files.write(shots.resolve("a.png"), new byte[]{4, 5});
+
+        ReportBundler bundler = new ReportBundler(report, shots.toFile(), 1024 * 1024);
+        List<ReportBundler.Part> parts = bundler.plan();
+        assertEquals(parts.size(), 1);
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(bundler.open(parts.get(0)))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) names.add(entry.getName());
+        }
+        assertEquals(names, List.of("ExtentReport.html", "screenshots/a.png", "screenshots/b.png"));
+    }
+
+    @Test
+    public void screenshotEntriesFollowTheReportsLinkPrefix() throws IOException {
+        Path dir = Files.createTempDirectory("bundle-test");
+        File report = Files.writeString(dir.resolve("r.html"), "<html></html>").toFile();
+        Path shots = Files.createDirectories(dir.resolve("img"));
+        Files.write(shots.resolve("a.png"), new byte[]{1});
+
+        List<ReportBundler.Part> parts = new ReportBundler(report, shots.toFile(), "img", 1024 * 1024).plan();
+        assertEquals(parts.get(0).entries.get(1).name, "img/a.png");
+    }
+
+    @Test
+    public void reportsSharingScreenshotsGoIntoOneBundle() throws IOException {
+        Path dir = Files.createTempDirectory("bundle-test");
+        File first = Files.writeString(dir.resolve("ExtentReport.html"), "<html>1</html>").toFile();
+        File second = Files.writeString(dir.resolve("ExtentReport-2.html"), "<html>2</html>").toFile();
+        Path shots = Files.createDirectories(dir.resolve("screenshots"));
+        Files.write(shots.resolve("a.png"), new byte[]{1});
+
+        List<ReportBundler.Part> parts = new ReportBundler(List.of(first, second), shots.toFile(), "screenshots/", 1024 * 1024).plan();
+        assertEquals(parts.size(), 1);
+        List<String> names = new ArrayList<>();
+        for (ReportBundler.Entry entry : parts.get(0).entries) names.add(entry.name);
+        assertEquals(names, List.of("ExtentReport.html", "ExtentReport-2.html", "screenshots/a.png"));
+    }
+
+    @Test
+    public void inlinedCopyEmbedsLinkedScreenshots() throws IOException {
+        Path dir = Files.createTempDirectory("bundle-test");
+        Path shots = Files.createDirectories(dir.resolve("screenshots"));
+        Files.write(shots.resolve("a.png"), new byte[]{1, 2, 3});
+        File report = Files.writeString(dir.resolve("ExtentReport.html"),
+                "<img src=\"screenshots/a.png\" data-featherlight=\"screenshots/a.png\"><img src=\"screenshots/missing.png\">\n").toFile();
+
+        File copy = ReportBundler.inlineScreenshots(report, shots.toFile(), "screenshots/");
+        String html = Files.readString(copy.toPath());
+        assertEquals(copy.getName(), "ExtentReport.html");
+        assertFalse(html.contains("screenshots/a.png"));
+        assertEquals(html.split("data:image/png;base64,AQID", -1).length - 1, 2);
+        assertTrue(html.contains("screenshots/missing.png"), "unknown files keep their link");
+    }
+
+    @Test
+    public void splitsPartsAtTheSizeLimit() throws IOException {
+        Path dir = Files.createTempDirectory("bundle-test");
+        File report = Files.writeString(dir.resolve("r.html"), "x".repeat(600)).toFile();
+        Path shots = Files.createDirectories(dir.resolve("screenshots"));
+        Files.write(shots.resolve("a.png"), new byte[600]);
+        Files.write(shots.resolve("b.png"), new byte[600]);
+
+        assertEquals(new ReportBundler(report, shots.toFile(), 2500).plan().size(), 2);
+    }
+
+    @Test
+    public void fileLargerThanAPartFailsTheBundle() throws IOException {
+        Path dir = Files.createTempDirectory("bundle-test");
+        File report = Files.writeString(dir.resolve("r.html"), "<html></html>").toFile();
+        Path shots = Files.createDirectories(dir.resolve("screenshots"));
+        Files.write(shots.resolve("huge.png"), new byte[3000]);
+
+        assertThrows(ReportBundler.EntryTooLargeException.class,
+                () -> new ReportBundler(report, shots.toFile(), 2500).plan());
+    }
+
+    @Test
+    public void retrySendsOnlyThePartsNotDeliveredYet() throws IOException {
+        Path dir = Files.createTempDirectory("bundle-test");
+        File report = Files.writeString(dir.resolve("r.html"), "x".repeat(600)).toFile();
+        Path shots = Files.createDirectories(dir.resolve("screenshots"));
+        Files.write(shots.resolve("a.png"), new byte[600]);
+        Files.write(shots.resolve("b.png"), new byte[600]);
+        ReportBundler bundler = new ReportBundler(report, shots.toFile(), 2500);
+        Set<String> delivered = new HashSet<>();
+        ReportBundler.Progress progress = new ReportBundler.Progress() {
+            @Override
+            public boolean isDelivered(String partName) {
+                return delivered.contains(partName);
+            }
+
+            @Override
+            public void delivered(String partName) {
+                delivered.add(partName);
+            }
+        };
+
+        try (TestRailStandIn testRail = new TestRailStandIn()) {
+            Client client = testRail.client();
+            testRail.failLater("add_attachment_to_result", 1, 503, 1);
+            assertThrows(TestRailApiException.class, () -> bundler.uploadTo(client, 5, progress));
+            assertEquals(delivered, Set.of("r_part1of2.zip"));
+
+            assertTrue(bundler.uploadTo(client, 5, progress));
+            List<String> uploaded = new ArrayList<>();
+            for (JSONObject attachment : testRail.attachments()) uploaded.add(attachment.getString("name"));
+            assertEquals(uploaded, List.of("r_part1of2.zip", "r_part2of2.zip"));
+        }
+    }
+
+    @Test
+    public void failedWriterFailsTheReaderInsteadOfEndingTheStream() throws IOException {
+        Path dir = Files.createTempDirectory("bundle-test");
+        File report = Files.writeString(dir.resolve("r.html"), "<html></html>").toFile();
+        ReportBundler bundler = new ReportBundler(report, null, 1024 * 1024);
+        ReportBundler.Part part = bundler.plan().get(0);
+        part.entries.add(new ReportBundler.Entry(dir.resolve("gone.txt").toFile(), "gone.txt", false));
+
+        assertThrows(IOException.class, () -> {
+            try (InputStream in = bundler.open(part)) {
+                in.readAllBytes();
+            }
+        });
+    }
+}
@@ -0,0 +1,199 @@
+package utils;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * 🔹 RequestSchedulerTest
+ * Token bucket, Retry-After and backoff, in-flight slots held until the body is closed,
+ * and shutting the shared scheduler down with the transport.
+ */
+public class RequestSchedulerTest {
+
+    private HttpServer server;
+    private OkHttpClient httpClient;
+    // Scripted answers, oldest first: {status, Retry-After seconds or -1}; 200 once empty
+    private final ConcurrentLinkedQueue<int[]> script = new ConcurrentLinkedQueue<>();
+    private final List<Long> arrivals = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        script.clear();
+        arrivals.clear();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            arrivals.add(System.nanoTime());
+            exchange.getRequestBody().readAllBytes();
+            int[] answer = script.poll();
+            if (answer != null && answer[1] >= 0) exchange.getResponseHeaders().add("Retry-After", String.valueOf(answer[1]));
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(answer != null ? answer[0] : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        httpClient = new OkHttpClient();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        server.stop(0);
+        httpClient.dispatcher().executorService().shutdown();
+    }
+
+    @Test
+    public void bucketHandsOutTheBurstThenRefillsAtTheRate() throws InterruptedException {
+        RequestScheduler.TokenBucket bucket = new RequestScheduler.TokenBucket(20, 2);
+        long start = System.nanoTime();
+        bucket.take();
+        bucket.take();
+        assertTrue(millisSince(start) < 40, "the burst is immediate");
+
+        bucket.take();
+        assertTrue(millisSince(start) >= 40, "the third token waits for the refill (50 ms at 20/s)");
+    }
+
+    @Test
+    public void pausedBucketHandsOutNothingUntilThePauseEnds() throws InterruptedException {
+        RequestScheduler.TokenBucket bucket = new RequestScheduler.TokenBucket(1000, 10);
+        bucket.pauseFor(150);
+        long start = System.nanoTime();
+        bucket.take();
+        assertTrue(millisSince(start) >= 140);
+    }
+
+    @Test
+    public void retryAfterIsReadAsSecondsOrAsADate() {
+        assertEquals(RequestScheduler.parseRetryAfter("2"), 2000);
+        assertEquals(RequestScheduler.parseRetryAfter(null), -1);
+        assertEquals(RequestScheduler.parseRetryAfter("soon"), -1);
+        String inTenSeconds = ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(10).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        long millis = RequestScheduler.parseRetryAfter(inTenSeconds);
+        assertTrue(millis > 8000 && millis <= 10_000, "was " + millis);
+    }
+
+    @Test
+    public void backoffHonoursRetryAfterAndCapsTheJitteredExponent() {
+        RequestScheduler scheduler = scheduler(1, 3);
+        for (int i = 0; i < 100; i++) {
+            long withRetryAfter = scheduler.backoff(0, 1000);
+            assertTrue(withRetryAfter >= 1000 && withRetryAfter < 1010, "was " + withRetryAfter);
+            assertTrue(scheduler.backoff(2, -1) <= 40, "10 ms << 2");
+            assertTrue(scheduler.backoff(20, -1) <= 100, "capped at the maximum");
+        }
+    }
+
+    @Test
+    public void throttledCallIsRetriedAfterRetryAfter() throws IOException {
+        script.add(new int[]{429, 1});
+        RequestScheduler scheduler = scheduler(1, 3);
+
+        try (Response response = scheduler.execute(post())) {
+            assertEquals(response.code(), 200);
+        }
+        assertEquals(arrivals.size(), 2, "a 429 is retried even for a POST");
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(arrivals.get(1) - arrivals.get(0)) >= 900, "waited for Retry-After");
+        assertEquals(scheduler.getThrottleCount(), 1);
+    }
+
+    @Test
+    public void serverErrorIsRetriedOnlyForIdempotentCalls() throws IOException {
+        script.add(new int[]{503, -1});
+        RequestScheduler scheduler = scheduler(1, 3);
+        try (Response response = scheduler.execute(post())) {
+            assertEquals(response.code(), 503, "a POST might have been processed");
+        }
+
+        script.add(new int[]{503, -1});
+        try (Response response = scheduler.execute(get())) {
+            assertEquals(response.code(), 200);
+        }
+        assertEquals(scheduler.getRetryCount(), 1);
+    }
+
+    @Test
+    public void slotIsHeldUntilTheResponseIsClosed() throws Exception {
+        RequestScheduler scheduler = scheduler(1, 0);
+        Response open = scheduler.execute(get());
+
+        CompletableFuture<Response> next = scheduler.executeAsync(get());
+        Thread.sleep(300);
+        assertFalse(next.isDone(), "the only slot belongs to the unread response");
+
+        assertEquals(open.body().string(), "{}");
+        try (Response response = next.get(5, TimeUnit.SECONDS)) {
+            assertEquals(response.code(), 200);
+        }
+    }
+
+    @Test
+    public void shutDownSchedulerRejectsAsyncCalls() {
+        RequestScheduler scheduler = scheduler(1, 0);
+        scheduler.shutdown();
+
+        ExecutionException e = expectThrows(ExecutionException.class, () -> scheduler.executeAsync(get()).get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IOException);
+    }
+
+    @Test
+    public void transportShutdownReplacesTheSharedScheduler() throws Exception {
+        RequestScheduler before = RequestScheduler.shared();
+        HttpTransport.shutdown();
+
+        RequestScheduler after = RequestScheduler.shared();
+        assertNotSame(after, before);
+        try (Response response = after.executeAsync(get()).get(5, TimeUnit.SECONDS)) {
+            assertEquals(response.code(), 200, "the new scheduler runs on a live client");
+        }
+        assertThrows(ExecutionException.class, () -> before.executeAsync(get()).get(5, TimeUnit.SECONDS));
+    }
+
+    private RequestScheduler scheduler(int maxConcurrent, int maxRetries) {
+        return new RequestScheduler(httpClient, 1000, 100, maxConcurrent, maxRetries, 10, 100);
+    }
+
+    private Request get() {
+        return new Request.Builder().url(url()).get().build();
+    }
+
+    private Request post() {
+        return new Request.Builder().url(url()).post(RequestBody.create(new byte[0], null)).build();
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/index.php?/api/v2/get_case/1";
+    }
+
+    private static long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,112 @@
+package utils;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔹 RerunSessionTest
+ * Retry-budget accounting, flaky versus failed classification, and what a run leaves for the next one.
+ */
+public class RerunSessionTest {
+
+    private static final String LOGIN = "features/login.feature:12";
+    private static final String SIGNUP = "features/signup.feature:4";
+
+    private Path dir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("rerun-session-test");
+        System.setProperty("rerun.manifest", dir.resolve("failed-scenarios.json").toString());
+        System.setProperty("rerun.flakeHistory", dir.resolve("flake-history.json").toString());
+        System.setProperty("rerun.retries", "2");
+        System.setProperty("rerun.failed", "true");
+        RerunSession.reset();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        System.clearProperty("rerun.manifest");
+        System.clearProperty("rerun.flakeHistory");
+        System.clearProperty("rerun.retries");
+        System.clearProperty("rerun.failed");
+        RerunSession.reset();
+    }
+
+    @Test
+    public void retriesStopOnceTheBudgetIsUsedUp() {
+        assertEquals(RerunSession.startAttempt(LOGIN), 1);
+        assertTrue(RerunSession.willRetry(LOGIN), "first retry");
+        assertEquals(RerunSession.startAttempt(LOGIN), 2);
+        assertTrue(RerunSession.willRetry(LOGIN), "second retry");
+        assertEquals(RerunSession.startAttempt(LOGIN), 3);
+        assertFalse(RerunSession.willRetry(LOGIN), "1 attempt + 2 retries");
+        assertEquals(RerunSession.attempts(SIGNUP), 0, "counted per scenario");
+    }
+
+    @Test
+    public void plainRunsAreNeverRetried() {
+        System.setProperty("rerun.failed", "false");
+        RerunSession.startAttempt(LOGIN);
+
+        assertFalse(RerunSession.willRetry(LOGIN));
+    }
+
+    @Test
+    public void passAfterAFailedAttemptIsFlaky() {
+        RerunSession.startAttempt(LOGIN);
+        RerunSession.attemptFailed(LOGIN, "TIMEOUT");
+        RerunSession.startAttempt(LOGIN);
+
+        assertEquals(RerunSession.outcome(LOGIN, true), FlakeHistory.Outcome.FLAKY);
+        assertEquals(RerunSession.previousFailure(LOGIN), "TIMEOUT");
+    }
+
+    @Test
+    public void firstTimePassOfAScenarioThePreviousRunFailedIsFlaky() throws IOException {
+        FailureManifest previous = FailureManifest.create(RerunSession.manifestPath());
+        previous.record(LOGIN, "Sign in", 101, "ELEMENT_NOT_FOUND", "no #submit");
+        previous.write();
+        RerunSession.startAttempt(LOGIN);
+        RerunSession.startAttempt(SIGNUP);
+
+        assertEquals(RerunSession.outcome(LOGIN, true), FlakeHistory.Outcome.FLAKY);
+        assertEquals(RerunSession.previousFailure(LOGIN), "ELEMENT_NOT_FOUND");
+        assertEquals(RerunSession.outcome(SIGNUP, true), FlakeHistory.Outcome.PASSED);
+        assertNull(RerunSession.previousFailure(SIGNUP));
+    }
+
+    @Test
+    public void failureAfterTheLastRetryIsFailed() {
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            RerunSession.startAttempt(LOGIN);
+            if (RerunSession.willRetry(LOGIN)) RerunSession.attemptFailed(LOGIN, "ASSERTION_FAILURE");
+        }
+
+        assertEquals(RerunSession.outcome(LOGIN, false), FlakeHistory.Outcome.FAILED);
+    }
+
+    @Test
+    public void finishLeavesTheManifestAndTheHistoryForTheNextRun() throws IOException {
+        RerunSession.startAttempt(LOGIN);
+        RerunSession.current().record(LOGIN, "Sign in", 101, "TIMEOUT", "slow");
+        RerunSession.history().record(LOGIN, "Sign in", FlakeHistory.Outcome.FAILED);
+
+        RerunSession.finish();
+        RerunSession.reset();
+
+        assertTrue(RerunSession.previous().contains(LOGIN));
+        assertTrue(RerunSession.previous().containsCase(101));
+        assertTrue(Files.readString(dir.resolve("flake-history.json")).contains(LOGIN));
+    }
+}
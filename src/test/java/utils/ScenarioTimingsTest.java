@@ -0,0 +1,55 @@
+package utils;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * 🔹 ScenarioTimingsTest
+ * Blending and concurrent saves of shards sharing one timings file.
+ */
+public class ScenarioTimingsTest {
+
+    @Test
+    public void newObservationIsBlendedWithTheStoredOne() throws IOException {
+        Path file = Files.createTempDirectory("timings-test").resolve("timings.json");
+        ScenarioTimings first = ScenarioTimings.load(file);
+        first.record("@CaseID_1", 1000);
+        first.save();
+
+        ScenarioTimings second = ScenarioTimings.load(file);
+        second.record("@CaseID_1", 2000);
+        second.record("@CaseID_1", 4000);
+        second.save();
+
+        assertEquals(ScenarioTimings.load(file).estimate("@CaseID_1"), Long.valueOf(2000));
+    }
+
+    @Test
+    public void concurrentSavesKeepEveryShardsTimings() throws Exception {
+        Path file = Files.createTempDirectory("timings-test").resolve("timings.json");
+        int shards = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(shards);
+        try {
+            List<Future<?>> saves = new ArrayList<>();
+            for (int i = 0; i < shards; i++) {
+                ScenarioTimings timings = ScenarioTimings.load(file);
+                timings.record("@CaseID_" + i, 100L * (i + 1));
+                saves.add(pool.submit(() -> { timings.save(); return null; }));
+            }
+            for (Future<?> save : saves) save.get();
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(ScenarioTimings.load(file).getEstimates().size(), shards);
+    }
+}
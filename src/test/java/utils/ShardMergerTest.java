@@ -0,0 +1,186 @@
+package utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔹 ShardMergerTest
+ * Replaying shard Extent archives into merged report files, blending the shards' timings
+ * into the pinned snapshot, and posting the shards' journaled results as one batch.
+ */
+public class ShardMergerTest {
+
+    @AfterMethod(alwaysRun = true)
+    public void clearOverride() {
+        System.clearProperty("merge.extent.maxTests");
+    }
+
+    @Test
+    public void fullReportContinuesInTheNextFile() throws IOException {
+        Path root = Files.createTempDirectory("merge-test");
+        File shard = shardWithTests(root.resolve("shard-1"), 5);
+        File out = root.resolve("merged").toFile();
+        System.setProperty("merge.extent.maxTests", "2");
+
+        assertEquals(new ShardMerger(out, List.of(shard)).mergeExtent(), 5);
+
+        assertTrue(new File(out, "ExtentReport.html").isFile());
+        assertTrue(new File(out, "ExtentReport-2.html").isFile());
+        assertTrue(new File(out, "ExtentReport-3.html").isFile());
+        assertFalse(new File(out, "ExtentReport-4.html").exists());
+        assertEquals(Files.readAllLines(out.toPath().resolve("extent-tests.jsonl")).size(), 5, "the merged archive stays whole");
+    }
+
+    @Test
+    public void shardTimingsAreBlendedIntoThePinnedSnapshotOnce() throws IOException {
+        Path root = Files.createTempDirectory("merge-test");
+        Path snapshot = root.resolve("timings.json");
+        ScenarioTimings history = ScenarioTimings.load(snapshot);
+        history.record("@CaseID_1", 1000);
+        history.save();
+
+        for (int shard = 1; shard <= 2; shard++) {
+            ScenarioTimings observed = ScenarioTimings.load(snapshot);
+            observed.record("@CaseID_1", shard * 2000L);
+            observed.record("@CaseID_" + (shard + 1), 500);
+            observed.saveObserved(root.resolve("shard-" + shard).resolve(ScenarioTimings.OBSERVED_PATH));
+        }
+        assertEquals(ScenarioTimings.load(snapshot).getEstimates().size(), 1, "shards leave the snapshot alone");
+
+        ShardMerger merger = new ShardMerger(root.resolve("merged").toFile(),
+                List.of(root.resolve("shard-1").toFile(), root.resolve("shard-2").toFile(), root.resolve("shard-3").toFile()));
+        assertEquals(merger.mergeTimings(snapshot), 2);
+
+        ScenarioTimings merged = ScenarioTimings.load(snapshot);
+        // Both shards' runs (2000, 4000) average to 3000, blended once with the stored 1000
+        assertEquals(merged.estimate("@CaseID_1"), Long.valueOf(2000));
+        assertEquals(merged.estimate("@CaseID_3"), Long.valueOf(500));
+    }
+
+    @Test
+    public void shardHistogramsAreAddedUpIntoTheStoredFile() throws IOException {
+        Path root = Files.createTempDirectory("merge-test");
+        Path stored = root.resolve("histograms.json");
+        TimingHistograms earlier = TimingHistograms.load(stored);
+        earlier.recordScenario("Other [other.feature:1]", 1_000_000);
+        earlier.save();
+
+        for (int shard = 1; shard <= 2; shard++) {
+            TimingHistograms observed = TimingHistograms.load(stored);
+            observed.recordStep("user logs in", 1_000_000);
+            observed.saveObserved(root.resolve("shard-" + shard).resolve(TimingHistograms.OBSERVED_PATH));
+        }
+
+        ShardMerger merger = new ShardMerger(root.resolve("merged").toFile(),
+                List.of(root.resolve("shard-1").toFile(), root.resolve("shard-2").toFile(), root.resolve("shard-3").toFile()));
+        assertEquals(merger.mergeHistograms(stored), 2);
+
+        TimingHistograms next = TimingHistograms.load(stored);
+        assertEquals(next.getPreviousSteps().get("user logs in").count(), 2, "both shards' samples");
+        assertEquals(next.getPreviousScenarios().get("Other [other.feature:1]").count(), 1, "not reached by the shards, kept");
+    }
+
+    @Test
+    public void reMergeDropsReportFilesOfTheEarlierMerge() throws IOException {
+        Path root = Files.createTempDirectory("merge-test");
+        File shard = shardWithTests(root.resolve("shard-1"), 3);
+        File out = root.resolve("merged").toFile();
+        System.setProperty("merge.extent.maxTests", "1");
+        new ShardMerger(out, List.of(shard)).mergeExtent();
+
+        System.setProperty("merge.extent.maxTests", "0");
+        new ShardMerger(out, List.of(shard)).mergeExtent();
+
+        assertTrue(new File(out, "ExtentReport.html").isFile());
+        assertFalse(new File(out, "ExtentReport-2.html").exists());
+    }
+
+    @Test
+    public void refusedBatchIsPostedOneByOneRejectingTheBadResult() throws IOException {
+        Path root = Files.createTempDirectory("merge-test");
+        TestRailJournal journal = shardJournal(root.resolve("shard-1"));
+        journal.appendResult(7, 1, 1, "passed");
+        journal.appendResult(7, 3, 5, "removed from the run");
+        journal.appendResult(7, 2, 1, "passed");
+
+        try (TestRailStandIn testRail = new TestRailStandIn()) {
+            testRail.addTests(7, 1, 2);
+            ShardMerger merger = new ShardMerger(root.resolve("merged").toFile(), List.of(root.resolve("shard-1").toFile()));
+
+            assertEquals(merger.postToTestRail(testRail.client(), 0), 2);
+            assertEquals(testRail.results().size(), 2);
+            assertTrue(journal.load().getPending().isEmpty(), "the bad result is rejected, not retried forever");
+        }
+    }
+
+    @Test
+    public void batchWhoseResponseWasLostIsNotPostedTwice() throws IOException {
+        Path root = Files.createTempDirectory("merge-test");
+        TestRailJournal journal = shardJournal(root.resolve("shard-1"));
+        journal.appendResult(7, 1, 1, "passed");
+        journal.appendResult(7, 2, 5, "failed");
+
+        try (TestRailStandIn testRail = new TestRailStandIn()) {
+            ShardMerger merger = new ShardMerger(root.resolve("merged").toFile(), List.of(root.resolve("shard-1").toFile()));
+            testRail.dropNextResponse("add_results_for_cases");
+            merger.postToTestRail(testRail.client(), 0);
+
+            assertEquals(testRail.results().size(), 2, "found by their journal-ref tags");
+            assertEquals(testRail.calls().stream().filter(call -> call.startsWith("POST add_results_for_cases")).count(), 1L);
+            assertTrue(journal.load().getPending().isEmpty());
+        }
+    }
+
+    @Test
+    public void mergeInterruptedAfterItsBatchAcknowledgesWhatLanded() throws IOException {
+        Path root = Files.createTempDirectory("merge-test");
+        TestRailJournal journal = shardJournal(root.resolve("shard-1"));
+        String first = journal.appendResult(7, 1, 1, "passed");
+        String second = journal.appendResult(7, 2, 5, "failed");
+
+        try (TestRailStandIn testRail = new TestRailStandIn()) {
+            // The earlier merge marked both entries and its batch landed, then the merge died
+            journal.recordAttempt(first, "add_results_for_cases/7");
+            journal.recordAttempt(second, "add_results_for_cases/7");
+            testRail.addExistingResult(7, 1, "passed" + TestRailJournalSender.tag(first));
+            testRail.addExistingResult(7, 2, "failed" + TestRailJournalSender.tag(second));
+            ShardMerger merger = new ShardMerger(root.resolve("merged").toFile(), List.of(root.resolve("shard-1").toFile()));
+
+            assertEquals(merger.postToTestRail(testRail.client(), 0), 2);
+            assertEquals(testRail.results().size(), 2);
+            assertEquals(testRail.calls().stream().filter(call -> call.startsWith("POST")).count(), 0L);
+            assertEquals(testRail.calls().stream().filter(call -> call.startsWith("GET get_results_for_run/7")).count(), 1L);
+            assertTrue(journal.load().getPending().isEmpty());
+        }
+    }
+
+    private static TestRailJournal shardJournal(Path shard) {
+        return new TestRailJournal(shard.resolve(TestRailJournal.DEFAULT_PATH).toString());
+    }
+
+    private static File shardWithTests(Path shard, int count) throws IOException {
+        Path archive = Files.createDirectories(shard.resolve("test-output")).resolve("extent-tests.jsonl");
+        List<String> lines = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            JSONObject log = new JSONObject().put("kind", 0).put("time", now).put("status", "PASS").put("message", "step " + i);
+            lines.add(new JSONObject().put("name", "Scenario " + i).put("start", now).put("end", now + 1)
+                    .put("events", new JSONArray().put(log)).toString());
+        }
+        Files.write(archive, lines);
+        return shard.toFile();
+    }
+}
@@ -0,0 +1,66 @@
+package utils;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertThrows;
+
+/**
+ * 🔹 ShardPlannerTest
+ * Longest-first assignment to the least loaded shard.
+ */
+public class ShardPlannerTest {
+
+    @Test
+    public void longestScenariosAreSpreadFirst() {
+        List<String> keys = List.of("a", "b", "c", "d");
+        Map<String, Long> estimates = Map.of("a", 100L, "b", 60L, "c", 50L, "d", 10L);
+
+        ShardPlanner.Plan plan = ShardPlanner.plan(keys, estimates, 2);
+
+        // a → 0, b → 1, c → 1 (60 < 100), d → 0 (100 < 110)
+        assertEquals(plan.shardOf(0), 0);
+        assertEquals(plan.shardOf(1), 1);
+        assertEquals(plan.shardOf(2), 1);
+        assertEquals(plan.shardOf(3), 0);
+        assertEquals(plan.predictedMillis(0), 110);
+        assertEquals(plan.predictedMillis(1), 110);
+        assertEquals(plan.scenarioCount(0), 2);
+    }
+
+    @Test
+    public void unknownScenariosCountAsTheMedianOfTheKnownOnes() {
+        List<String> keys = List.of("a", "b", "c", "new");
+        Map<String, Long> estimates = Map.of("a", 10L, "b", 20L, "c", 90L);
+
+        ShardPlanner.Plan plan = ShardPlanner.plan(keys, estimates, 1);
+
+        assertEquals(plan.predictedMillis(0), 10 + 20 + 90 + 20);
+    }
+
+    @Test
+    public void withoutHistoryEveryScenarioGetsTheDefaultEstimate() {
+        ShardPlanner.Plan plan = ShardPlanner.plan(List.of("a", "b", "c"), Map.of(), 3);
+        for (int shard = 0; shard < 3; shard++) {
+            assertEquals(plan.predictedMillis(shard), ShardPlanner.DEFAULT_ESTIMATE_MILLIS);
+        }
+    }
+
+    @Test
+    public void planDoesNotDependOnTheInputOrderOfEqualScenarios() {
+        Map<String, Long> estimates = Map.of("a", 5L, "b", 5L);
+        ShardPlanner.Plan forward = ShardPlanner.plan(List.of("a", "b"), estimates, 2);
+        ShardPlanner.Plan reversed = ShardPlanner.plan(List.of("b", "a"), estimates, 2);
+        assertEquals(forward.shardOf(0), reversed.shardOf(1));
+        assertNotEquals(forward.shardOf(0), forward.shardOf(1));
+    }
+
+    @Test
+    public void atLeastOneShardIsRequired() {
+        assertThrows(IllegalArgumentException.class, () -> ShardPlanner.plan(List.of("a"), Map.of(), 0));
+    }
+}
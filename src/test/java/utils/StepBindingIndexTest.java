@@ -0,0 +1,89 @@
+package utils;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔹 StepBindingIndexTest
+ * Matching against the glue fixture in utils.glue, suggestions for unbound steps, and the
+ * normalization and edit distance behind them.
+ */
+public class StepBindingIndexTest {
+
+    private StepBindingIndex index;
+
+    @BeforeClass
+    public void buildIndex() throws IOException {
+        index = StepBindingIndex.fromGlue(getClass().getClassLoader(), "utils.glue");
+    }
+
+    @Test
+    public void everyValidExpressionIsIndexed() {
+        // 8 expressions, the repeated @Given counted twice, the {money} one left out
+        assertEquals(index.size(), 8);
+        assertEquals(index.match("the total is 5"), List.of());
+    }
+
+    @Test
+    public void stepsMatchTheirBinding() {
+        assertEquals(locations("the user enters \"bob\" and \"secret\""), List.of("utils.glue.SampleSteps.enterCredentials"));
+        assertEquals(locations("the user waits 3 seconds"), List.of("utils.glue.SampleSteps.waitSeconds"));
+        assertEquals(locations("a signed-in user"), List.of("utils.glue.SampleSteps.signedIn"));
+        assertEquals(locations("the user is signed in"), List.of("utils.glue.SampleSteps.signedIn"));
+        assertEquals(locations("the page title is Dashboard"), List.of("utils.glue.SampleSteps.pageTitle"));
+    }
+
+    @Test
+    public void customParameterTypesFromTheGlueResolve() {
+        assertEquals(locations("the button is green"), List.of("utils.glue.SampleSteps.buttonColor"));
+        assertEquals(locations("the button is pink"), List.of());
+    }
+
+    @Test
+    public void unboundAndAmbiguousSteps() {
+        assertEquals(index.match("the user waits three seconds"), List.of(), "{int} needs a number");
+        // Reflection does not promise declaration order
+        assertEquals(locations("the user opens the login page").stream().sorted().collect(Collectors.toList()),
+                List.of("utils.glue.SampleSteps.openLoginPage", "utils.glue.SampleSteps.openPage"));
+        assertEquals(locations("the user opens the signup page"), List.of("utils.glue.SampleSteps.openPage"));
+    }
+
+    @Test
+    public void closestRanksExpressionsByEditDistance() {
+        List<String> suggestions = index.closest("the user enter \"bob\" and \"secret\"", 2);
+
+        assertEquals(suggestions.size(), 2);
+        assertEquals(suggestions.get(0), "the user enters {string} and {string}");
+        assertEquals(index.closest("The user wait 10 seconds", 1), List.of("the user waits {int} seconds"));
+        assertTrue(index.closest("anything", 100).size() <= index.size());
+    }
+
+    @Test
+    public void normalizeTurnsValuesIntoPlaceholders() {
+        assertEquals(StepBindingIndex.normalize("The user enters \"bob\" and 'secret'"),
+                "the user enters {string} and {string}");
+        assertEquals(StepBindingIndex.normalize("Wait 3 seconds, then -2 and 1.5"), "wait {int} seconds, then {int} and {int}");
+        assertEquals(StepBindingIndex.normalize("Open page2 of v1.2"), "open page2 of v1.2", "digits inside words stay");
+    }
+
+    @Test
+    public void levenshteinCountsSingleCharacterEdits() {
+        assertEquals(StepBindingIndex.levenshtein("kitten", "sitting"), 3);
+        assertEquals(StepBindingIndex.levenshtein("sitting", "kitten"), 3);
+        assertEquals(StepBindingIndex.levenshtein("", "abc"), 3);
+        assertEquals(StepBindingIndex.levenshtein("abc", ""), 3);
+        assertEquals(StepBindingIndex.levenshtein("same", "same"), 0);
+        assertEquals(StepBindingIndex.levenshtein("flaw", "lawn"), 2);
+    }
+
+    private List<String> locations(String stepText) {
+        return index.match(stepText).stream().map(StepBindingIndex.Binding::getLocation).collect(Collectors.toList());
+    }
+}
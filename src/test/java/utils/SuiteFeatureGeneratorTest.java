@@ -0,0 +1,101 @@
+package utils;
+
+import org.json.JSONObject;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔹 SuiteFeatureGeneratorTest
+ * Incremental generation against the feature manifest, from an offline case cache.
+ */
+public class SuiteFeatureGeneratorTest {
+
+    private Path cacheDir;
+    private Path featuresDir;
+    private CaseCache cache;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        Path dir = Files.createTempDirectory("suite-generator-test");
+        cacheDir = dir.resolve("cache");
+        featuresDir = dir.resolve("features");
+        cache = new CaseCache(null, cacheDir.toString(), true);
+        cacheCase(1, "Login works", 100);
+        cacheCase(2, "Signup works", 100);
+    }
+
+    @Test
+    public void unchangedCasesAreSkipped() throws IOException {
+        generate(1, 2);
+        long written = Files.getLastModifiedTime(feature(1)).toMillis();
+        cacheCase(1, "Login works", 200);
+
+        SuiteFeatureGenerator.Result result = generate(1, 2);
+
+        assertEquals(result.getFeatures().size(), 2);
+        assertEquals(result.getRewritten(), 0, "only updated_on moved, the output would be the same");
+        assertEquals(result.getUnchanged(), 2);
+        assertEquals(Files.getLastModifiedTime(feature(1)).toMillis(), written);
+    }
+
+    @Test
+    public void changedCaseIsRewritten() throws IOException {
+        generate(1, 2);
+        cacheCase(1, "Login works with SSO", 200);
+
+        SuiteFeatureGenerator.Result result = generate(1, 2);
+
+        assertEquals(result.getRewritten(), 1);
+        assertTrue(Files.readString(feature(1)).contains("Login works with SSO"));
+    }
+
+    @Test
+    public void handEditedFeatureIsRegenerated() throws IOException {
+        generate(1, 2);
+        String generated = Files.readString(feature(2));
+        Files.writeString(feature(2), generated + "\n  # edited by hand\n");
+
+        SuiteFeatureGenerator.Result result = generate(1, 2);
+
+        assertEquals(result.getRewritten(), 1);
+        assertEquals(Files.readString(feature(2)), generated);
+    }
+
+    @Test
+    public void featureOfACaseNoLongerInScopeIsDeleted() throws IOException {
+        generate(1, 2);
+        assertTrue(Files.exists(feature(2)));
+
+        SuiteFeatureGenerator.Result result = generate(1);
+
+        assertEquals(result.getRemoved(), 1);
+        assertFalse(Files.exists(feature(2)));
+        assertTrue(Files.exists(feature(1)));
+        assertEquals(generate(1).getRemoved(), 0, "the manifest forgot it");
+    }
+
+    /** One generation pass, as a separate build would run it: the manifest is loaded fresh */
+    private SuiteFeatureGenerator.Result generate(Integer... caseIds) throws IOException {
+        SuiteFeatureGenerator generator = new SuiteFeatureGenerator(null, cache, 2,
+                cacheDir.resolve(FeatureManifest.FILE_NAME), featuresDir.toString());
+        return generator.generateCases(List.of(caseIds));
+    }
+
+    private void cacheCase(int caseId, String title, long updatedOn) throws IOException {
+        JSONObject testCase = new JSONObject().put("id", caseId).put("title", title).put("updated_on", updatedOn);
+        AtomicFiles.writeString(cacheDir.resolve("cases").resolve("C" + caseId + ".json"), testCase.toString());
+    }
+
+    private Path feature(int caseId) {
+        return featuresDir.resolve("TestCase_" + caseId + ".feature");
+    }
+}
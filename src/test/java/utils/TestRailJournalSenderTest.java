@@ -0,0 +1,161 @@
+package utils;
+
+import config.ConfigReader;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔹 TestRailJournalSenderTest
+ * Journal delivery against a local TestRail stand-in.
+ */
+public class TestRailJournalSenderTest {
+
+    private TestRailStandIn testRail;
+    private Path dir;
+    private TestRailJournal journal;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        testRail = new TestRailStandIn();
+        dir = Files.createTempDirectory("journal-test");
+        journal = new TestRailJournal(dir.resolve("journal.jsonl").toString());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        testRail.close();
+        TestRailSession.setPendingRun(null);
+    }
+
+    @Test
+    public void attachmentAfterTheJournalWasTruncatedIsDelivered() throws IOException {
+        TestRailJournalSender sender = new TestRailJournalSender(journal, testRail.client());
+        String resultKey = sender.recordResult(7, 100, true, "passed");
+        assertEquals(sender.drain(), 0);
+        assertFalse(journal.getFile().exists(), "drained journal is truncated");
+
+        // End of run: the report is attached to the last result, whose ack went with the journal
+        File report = Files.writeString(dir.resolve("ExtentReport.html"), "<html></html>").toFile();
+        sender.recordAttachment(resultKey, report);
+
+        assertEquals(sender.drain(), 0, "attachment must not wait for an ack that no longer exists");
+        assertEquals(testRail.attachments().size(), 1);
+        assertEquals(testRail.attachments().get(0).getInt("resultId"), testRail.results().get(0).getInt("id"));
+        assertEquals(testRail.attachments().get(0).getString("name"), "ExtentReport.zip", "HTML goes out bundled");
+        assertFalse(journal.getFile().exists());
+    }
+
+    @Test
+    public void refusedUploadIsRejectedSoTheJournalDrains() throws IOException {
+        TestRailJournalSender sender = new TestRailJournalSender(journal, testRail.client());
+        String resultKey = sender.recordResult(7, 100, true, "passed");
+        File report = Files.writeString(dir.resolve("ExtentReport.html"), "<html></html>").toFile();
+        sender.recordAttachment(resultKey, report);
+        testRail.failNext("add_attachment_to_result", 413, 1);
+
+        assertEquals(sender.drain(), 0, "a permanent refusal is not retried");
+        assertTrue(testRail.attachments().isEmpty());
+        assertFalse(journal.getFile().exists());
+    }
+
+    @Test
+    public void transientUploadFailureIsRetriedOnTheNextDrain() throws IOException {
+        TestRailJournalSender sender = new TestRailJournalSender(journal, testRail.client());
+        String resultKey = sender.recordResult(7, 100, true, "passed");
+        sender.recordAttachment(resultKey, Files.write(dir.resolve("shot.png"), new byte[]{1, 2}).toFile());
+        testRail.failNext("add_attachment_to_result", 503, 1);
+
+        assertEquals(sender.drain(), 1);
+        assertEquals(journal.load().getAttempts(journal.load().getPending().get(0).getString("key")), 1);
+        assertEquals(sender.drain(), 0);
+        assertEquals(testRail.attachments().size(), 1);
+    }
+
+    @Test
+    public void deliveredPartsStayWithTheirPendingAttachment() throws IOException {
+        String key = journal.appendAttachment("result-key", 5, dir.resolve("ExtentReport.html").toFile());
+        journal.recordPart(key, "ExtentReport_part1of2.zip");
+        journal.recordAttempt(key, "503");
+
+        TestRailJournal.State state = journal.load();
+        assertEquals(state.getPending().size(), 1, "progress lines are not entries of their own");
+        assertEquals(state.getDeliveredParts(key), Set.of("ExtentReport_part1of2.zip"));
+        assertEquals(state.getAttempts(key), 1);
+    }
+
+    @Test
+    public void uploadFailingEveryTimeIsGivenUpAfterItsAttempts() throws IOException {
+        TestRailJournalSender sender = new TestRailJournalSender(journal, testRail.client());
+        String resultKey = sender.recordResult(7, 100, true, "passed");
+        sender.recordAttachment(resultKey, Files.write(dir.resolve("shot.png"), new byte[]{1, 2}).toFile());
+        testRail.failNext("add_attachment_to_result", 503, 100);
+
+        int drains = 0;
+        while (sender.drain() > 0) assertTrue(++drains < 20, "attempts must be bounded");
+        assertEquals(drains, ConfigReader.getInt("testrail.journal.uploadAttempts", 5) - 1);
+        assertFalse(journal.getFile().exists());
+    }
+
+    @Test
+    public void entryJournaledWithoutRunLandsInThePlannedRun() throws IOException {
+        // Left over from a run that never got a run id
+        journal.appendResult(0, 7, 1, "passed");
+        TestRailSession.setPendingRun(CompletableFuture.completedFuture(55));
+
+        assertEquals(new TestRailJournalSender(journal, testRail.client()).drain(), 0);
+        assertEquals(testRail.results().size(), 1);
+        assertEquals(testRail.results().get(0).getInt("run_id"), 55);
+        assertFalse(testRail.calls().stream().anyMatch(call -> call.startsWith("POST add_run")), "no second run");
+    }
+
+    @Test
+    public void runCreatedForTheJournalHoldsEveryJournaledCase() throws IOException {
+        journal.appendResult(0, 101, 1, "passed");
+        journal.appendResult(0, 102, 5, "failed");
+
+        assertEquals(new TestRailJournalSender(journal, testRail.client()).drain(), 0);
+        assertEquals(testRail.results().size(), 2, "no result refused for a case outside the run");
+        int runId = testRail.results().get(0).getInt("run_id");
+        assertEquals(testRail.casesOfRun(runId), List.of(101, 102));
+    }
+
+    @Test
+    public void transientFailureKeepsTheEntryForTheNextRun() throws IOException {
+        testRail.failNext("add_result_for_case", 503, 1);
+        TestRailJournalSender first = new TestRailJournalSender(journal, testRail.client());
+        first.recordResult(7, 100, true, "passed");
+        assertEquals(first.drain(), 1);
+        assertTrue(journal.getFile().exists());
+
+        // Next run: the entry is replayed once, after a lookup by its key
+        assertEquals(new TestRailJournalSender(journal, testRail.client()).drain(), 0);
+        assertEquals(testRail.results().size(), 1);
+        assertTrue(testRail.calls().contains("GET get_results_for_case/7/100"));
+        assertFalse(journal.getFile().exists());
+    }
+
+    @Test
+    public void entryAlreadyInTestRailIsAcknowledgedWithoutASecondPost() throws IOException {
+        // The post landed but its ack was lost (crash between response and journal write)
+        String key = journal.appendResult(7, 100, 1, "passed");
+        int existing = testRail.addExistingResult(7, 100, "passed" + TestRailJournalSender.tag(key));
+
+        assertEquals(new TestRailJournalSender(journal, testRail.client()).drain(), 0);
+        assertEquals(testRail.results().size(), 1);
+        assertEquals(testRail.results().get(0).getInt("id"), existing);
+        assertFalse(testRail.calls().stream().anyMatch(call -> call.startsWith("POST add_result_for_case")));
+    }
+}
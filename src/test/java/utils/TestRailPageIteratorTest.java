@@ -0,0 +1,58 @@
+package utils;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+
+/**
+ * 🔹 TestRailPageIteratorTest
+ * _links.next handling, and the run's test index paged from the stand-in and swapped whole.
+ */
+public class TestRailPageIteratorTest {
+
+    @Test
+    public void nextLinkIsMadeRelativeToTheApi() {
+        assertEquals(TestRailPageIterator.toRelative("/api/v2/get_tests/5&offset=250"), "get_tests/5&offset=250");
+        assertEquals(TestRailPageIterator.toRelative("https://x.testrail.io/index.php?/api/v2/get_cases/1&offset=250"),
+                "get_cases/1&offset=250");
+        // Without the marker the link is taken as relative already, never cut at a wrong index
+        assertEquals(TestRailPageIterator.toRelative("get_tests/5&offset=250"), "get_tests/5&offset=250");
+        assertEquals(TestRailPageIterator.toRelative("/get_tests/5&offset=250"), "get_tests/5&offset=250");
+    }
+
+    @Test
+    public void joiningARunIndexesTestsOfEveryPage() throws IOException {
+        try (TestRailStandIn testRail = new TestRailStandIn()) {
+            testRail.addTests(9, 1, 2, 3, 4, 5);
+            Client client = testRail.client();
+            client.joinTestRun(9);
+
+            assertEquals(client.getTestIndex(), Map.of(1, 10001, 2, 10002, 3, 10003, 4, 10004, 5, 10005));
+            assertEquals(testRail.calls().stream().filter(call -> call.startsWith("GET get_tests/9")).count(),
+                    (long) Math.ceil(5.0 / TestRailStandIn.TESTS_PER_PAGE));
+        }
+    }
+
+    @Test
+    public void failedReindexNeverLeavesAPartialIndex() throws IOException {
+        try (TestRailStandIn testRail = new TestRailStandIn()) {
+            testRail.addTests(9, 1, 2, 3);
+            testRail.addTests(10, 4, 5, 6);
+            Client client = testRail.client();
+            client.joinTestRun(9);
+            Map<Integer, Integer> run9 = client.getTestIndex();
+
+            // The first page of run 10 arrives, the second fails
+            testRail.failLater("get_tests", 1, 500, 10);
+            assertThrows(IOException.class, () -> client.joinTestRun(10));
+
+            assertEquals(run9, Map.of(1, 10001, 2, 10002, 3, 10003), "an index handed out earlier is never changed");
+            assertEquals(client.getTestIndex(), Map.of(), "run 10 has no index, and run 9's is not served for it");
+            assertEquals(client.getTestIdForCase(4), 0);
+        }
+    }
+}
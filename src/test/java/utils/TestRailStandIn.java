@@ -0,0 +1,282 @@
+package utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 🔹 TestRailStandIn
+ * In-memory TestRail API on a local port, for tests of the client and the journal:
+ * add_run, get_tests and get_cases (paginated, TESTS_PER_PAGE per page; get_cases honours
+ * suite_id and updated_after), add_result(_for_case),
+ * add_results_for_cases, get_results_for_case, get_results_for_run, add_attachment_to_result
+ * and close_run. failNext() makes the next calls of an endpoint answer with an error status;
+ * dropNextResponse() carries a call out but answers 504, like a response lost on the way. A run with known cases (add_run's
+ * case_ids, addTests) answers 400 for results of any other case, like TestRail.
+ */
+public class TestRailStandIn implements AutoCloseable {
+
+    static final int TESTS_PER_PAGE = 2;
+
+    private final HttpServer server;
+    private final AtomicInteger ids = new AtomicInteger(1000);
+    private final Map<String, List<JSONObject>> resultsByRunAndCase = new ConcurrentHashMap<>();
+    private final List<JSONObject> results = Collections.synchronizedList(new ArrayList<>());
+    private final List<JSONObject> attachments = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> closedRuns = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, int[]> failures = new ConcurrentHashMap<>();
+    private final Set<String> droppedResponses = ConcurrentHashMap.newKeySet();
+    private volatile boolean dropping;
+    private final Map<Integer, List<Integer>> casesByRun = new ConcurrentHashMap<>();
+    // Run of every test id get_tests handed out
+    private final Map<Integer, Integer> runOfTest = new ConcurrentHashMap<>();
+    private final Map<Integer, JSONObject> casesById = new ConcurrentSkipListMap<>();
+
+    public TestRailStandIn() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /** Base URL for {@link Client}'s explicit constructor */
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    public Client client() {
+        return new Client(url(), "user", "key", 1, 1, 100);
+    }
+
+    /** The next times calls of endpoint (e.g. "add_result_for_case") answer with status */
+    public void failNext(String endpoint, int status, int times) {
+        failLater(endpoint, 0, status, times);
+    }
+
+    /** Like {@link #failNext}, after letting the next skip calls of endpoint through */
+    public void failLater(String endpoint, int skip, int status, int times) {
+        failures.put(endpoint, new int[]{status, times, skip});
+    }
+
+    /** The next call of endpoint is carried out, but its response is lost (504) */
+    public void dropNextResponse(String endpoint) {
+        droppedResponses.add(endpoint);
+    }
+
+    /** A result that is already in TestRail, e.g. posted by an earlier attempt */
+    public int addExistingResult(int runId, int caseId, String comment) {
+        return storeResult(runId, caseId, new JSONObject().put("status_id", 1).put("comment", comment));
+    }
+
+    /** Cases in a run; get_tests lists them as tests with ids 10000 + case id */
+    public void addTests(int runId, Integer... caseIds) {
+        casesByRun.computeIfAbsent(runId, r -> Collections.synchronizedList(new ArrayList<>())).addAll(List.of(caseIds));
+    }
+
+    /** A case get_cases lists; replaces an earlier case with the same id */
+    public void putCase(int caseId, int suiteId, String title, long updatedOn) {
+        casesById.put(caseId, new JSONObject().put("id", caseId).put("suite_id", suiteId)
+                .put("section_id", 1).put("title", title).put("updated_on", updatedOn));
+    }
+
+    public void deleteCase(int caseId) {
+        casesById.remove(caseId);
+    }
+
+    public List<JSONObject> results() { return new ArrayList<>(results); }
+    public List<JSONObject> attachments() { return new ArrayList<>(attachments); }
+    public List<String> calls() { return new ArrayList<>(calls); }
+    public List<Integer> closedRuns() { return new ArrayList<>(closedRuns); }
+    public List<Integer> casesOfRun(int runId) { return new ArrayList<>(casesByRun.getOrDefault(runId, List.of())); }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        String path = query != null && query.startsWith("/api/v2/") ? query.substring("/api/v2/".length()) : "";
+        int amp = path.indexOf('&');
+        if (amp >= 0) path = path.substring(0, amp);
+        String[] parts = path.split("/");
+        String endpoint = parts[0];
+        calls.add(exchange.getRequestMethod() + " " + path);
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+
+        int[] failure = failures.get(endpoint);
+        if (failure != null && failure[2] > 0) {
+            failure[2]--;
+        } else if (failure != null && failure[1] > 0) {
+            failure[1]--;
+            respond(exchange, failure[0], new JSONObject().put("error", "stand-in failure").toString());
+            return;
+        }
+        dropping = droppedResponses.remove(endpoint);
+
+        switch (endpoint) {
+            case "add_run": {
+                JSONObject payload = new JSONObject(new String(body, StandardCharsets.UTF_8));
+                int runId = ids.incrementAndGet();
+                JSONArray caseIds = payload.optJSONArray("case_ids");
+                if (!payload.optBoolean("include_all", true) && caseIds != null) {
+                    for (int i = 0; i < caseIds.length(); i++) addTests(runId, caseIds.getInt(i));
+                }
+                respond(exchange, 200, new JSONObject().put("id", runId).toString());
+                return;
+            }
+            case "get_tests": {
+                int runId = Integer.parseInt(parts[1]);
+                int offset = query.contains("&offset=") ? Integer.parseInt(query.replaceFirst(".*&offset=(\\d+).*", "$1")) : 0;
+                List<Integer> cases = casesByRun.getOrDefault(runId, List.of());
+                JSONArray tests = new JSONArray();
+                for (int i = offset; i < Math.min(cases.size(), offset + TESTS_PER_PAGE); i++) {
+                    runOfTest.put(10000 + cases.get(i), runId);
+                    tests.put(new JSONObject().put("id", 10000 + cases.get(i)).put("case_id", cases.get(i)));
+                }
+                boolean more = offset + TESTS_PER_PAGE < cases.size();
+                respond(exchange, 200, new JSONObject()
+                        .put("offset", offset)
+                        .put("_links", new JSONObject().put("next", more
+                                ? "/api/v2/get_tests/" + runId + "&offset=" + (offset + TESTS_PER_PAGE) : JSONObject.NULL))
+                        .put("tests", tests).toString());
+                return;
+            }
+            case "get_cases": {
+                int offset = query.contains("&offset=") ? Integer.parseInt(query.replaceFirst(".*&offset=(\\d+).*", "$1")) : 0;
+                Integer suiteId = query.contains("&suite_id=") ? Integer.valueOf(query.replaceFirst(".*&suite_id=(\\d+).*", "$1")) : null;
+                long updatedAfter = query.contains("&updated_after=") ? Long.parseLong(query.replaceFirst(".*&updated_after=(\\d+).*", "$1")) : 0;
+                List<JSONObject> listed = new ArrayList<>();
+                for (JSONObject testCase : casesById.values()) {
+                    if (suiteId != null && testCase.getInt("suite_id") != suiteId) continue;
+                    if (testCase.getLong("updated_on") <= updatedAfter) continue;
+                    listed.add(testCase);
+                }
+                JSONArray page = new JSONArray();
+                for (int i = offset; i < Math.min(listed.size(), offset + TESTS_PER_PAGE); i++) page.put(listed.get(i));
+                String next = query.substring("/api/v2/".length()).replaceFirst("&offset=\\d+", "") + "&offset=" + (offset + TESTS_PER_PAGE);
+                respond(exchange, 200, new JSONObject()
+                        .put("offset", offset)
+                        .put("_links", new JSONObject().put("next", offset + TESTS_PER_PAGE < listed.size()
+                                ? "/api/v2/" + next : JSONObject.NULL))
+                        .put("cases", page).toString());
+                return;
+            }
+            case "add_result_for_case": {
+                int runId = Integer.parseInt(parts[1]);
+                int caseId = Integer.parseInt(parts[2]);
+                if (casesByRun.containsKey(runId) && !casesByRun.get(runId).contains(caseId)) {
+                    respond(exchange, 400, new JSONObject().put("error", "case C" + caseId + " is not in run R" + runId).toString());
+                    return;
+                }
+                JSONObject payload = new JSONObject(new String(body, StandardCharsets.UTF_8));
+                int id = storeResult(runId, caseId, payload);
+                respond(exchange, 200, new JSONObject().put("id", id).toString());
+                return;
+            }
+            case "add_result": {
+                int testId = Integer.parseInt(parts[1]);
+                Integer runId = runOfTest.get(testId);
+                if (runId == null) {
+                    respond(exchange, 400, new JSONObject().put("error", "unknown test T" + testId).toString());
+                    return;
+                }
+                JSONObject payload = new JSONObject(new String(body, StandardCharsets.UTF_8));
+                int id = storeResult(runId, testId - 10000, payload);
+                respond(exchange, 200, new JSONObject().put("id", id).toString());
+                return;
+            }
+            case "add_results_for_cases": {
+                int runId = Integer.parseInt(parts[1]);
+                JSONArray batch = new JSONObject(new String(body, StandardCharsets.UTF_8)).getJSONArray("results");
+                for (int i = 0; i < batch.length(); i++) {
+                    int caseId = batch.getJSONObject(i).getInt("case_id");
+                    if (casesByRun.containsKey(runId) && !casesByRun.get(runId).contains(caseId)) {
+                        respond(exchange, 400, new JSONObject().put("error", "case C" + caseId + " is not in run R" + runId).toString());
+                        return;
+                    }
+                }
+                JSONArray created = new JSONArray();
+                for (int i = 0; i < batch.length(); i++) {
+                    JSONObject result = batch.getJSONObject(i);
+                    int id = storeResult(runId, result.getInt("case_id"), result);
+                    created.put(new JSONObject().put("id", id).put("case_id", result.getInt("case_id")));
+                }
+                respond(exchange, 200, created.toString());
+                return;
+            }
+            case "get_results_for_run": {
+                int runId = Integer.parseInt(parts[1]);
+                JSONArray forRun = new JSONArray();
+                for (JSONObject result : results()) {
+                    if (result.getInt("run_id") == runId) forRun.put(result);
+                }
+                respond(exchange, 200, new JSONObject().put("_links", new JSONObject().put("next", JSONObject.NULL))
+                        .put("results", forRun).toString());
+                return;
+            }
+            case "get_results_for_case": {
+                List<JSONObject> forCase = resultsByRunAndCase.getOrDefault(parts[1] + "/" + parts[2], List.of());
+                respond(exchange, 200, new JSONObject().put("results", new JSONArray(forCase)).toString());
+                return;
+            }
+            case "add_attachment_to_result": {
+                String multipart = new String(body, StandardCharsets.ISO_8859_1);
+                int name = multipart.indexOf("filename=\"");
+                attachments.add(new JSONObject()
+                        .put("resultId", Integer.parseInt(parts[1]))
+                        .put("name", name < 0 ? "" : multipart.substring(name + 10, multipart.indexOf('"', name + 10)))
+                        .put("bytes", body.length));
+                respond(exchange, 200, new JSONObject().put("attachment_id", ids.incrementAndGet()).toString());
+                return;
+            }
+            case "close_run": {
+                closedRuns.add(Integer.parseInt(parts[1]));
+                respond(exchange, 200, "{}");
+                return;
+            }
+            default:
+                respond(exchange, 404, new JSONObject().put("error", "unknown endpoint " + endpoint).toString());
+        }
+    }
+
+    private int storeResult(int runId, int caseId, JSONObject payload) {
+        int id = ids.incrementAndGet();
+        JSONObject result = new JSONObject(payload.toMap()).put("id", id).put("run_id", runId).put("case_id", caseId);
+        results.add(result);
+        resultsByRunAndCase.computeIfAbsent(runId + "/" + caseId, k -> Collections.synchronizedList(new ArrayList<>())).add(result);
+        return id;
+    }
+
+    private void respond(HttpExchange exchange, int status, String json) throws IOException {
+        if (dropping) {
+            dropping = false;
+            status = 504;
+            json = new JSONObject().put("error", "stand-in lost the response").toString();
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package utils;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔹 TimingHistogramsTest
+ * Bucket boundaries, histograms derived from execution log events, and partial runs merged on save.
+ */
+public class TimingHistogramsTest {
+
+    @Test
+    public void smallValuesHaveExactBuckets() {
+        for (long micros = 0; micros < 16; micros++) {
+            assertEquals(TimingHistograms.Histogram.indexOf(micros), (int) micros);
+            assertEquals(TimingHistograms.Histogram.upperBoundOf((int) micros), micros);
+        }
+    }
+
+    @Test
+    public void everyValueFallsInsideItsBucket() {
+        int previous = -1;
+        for (long micros = 0; micros < 1L << 40; micros = micros * 9 / 8 + 1) {
+            int bucket = TimingHistograms.Histogram.indexOf(micros);
+            assertTrue(micros <= TimingHistograms.Histogram.upperBoundOf(bucket), micros + " above bucket " + bucket);
+            if (bucket > 0) {
+                assertTrue(micros > TimingHistograms.Histogram.upperBoundOf(bucket - 1), micros + " below bucket " + bucket);
+            }
+            assertTrue(bucket >= previous, "buckets grow with the value");
+            previous = bucket;
+        }
+    }
+
+    @Test
+    public void bucketsAreAboutSixPercentWide() {
+        // 16 sub-buckets per power of two: [1024, 1088) is one bucket, 1088 starts the next
+        int bucket = TimingHistograms.Histogram.indexOf(1024);
+        assertEquals(TimingHistograms.Histogram.indexOf(1087), bucket);
+        assertEquals(TimingHistograms.Histogram.indexOf(1088), bucket + 1);
+        assertEquals(TimingHistograms.Histogram.upperBoundOf(bucket), 1087);
+    }
+
+    @Test
+    public void hugeValuesLandInTheLastBucket() {
+        assertEquals(TimingHistograms.Histogram.indexOf(Long.MAX_VALUE), TimingHistograms.Histogram.indexOf(1L << 50));
+    }
+
+    @Test
+    public void percentileIsTheUpperBoundOfTheRanksBucket() {
+        TimingHistograms.Histogram h = new TimingHistograms.Histogram();
+        for (int i = 1; i <= 100; i++) h.record(i * 1_000_000L); // 1..100 ms
+        assertEquals(h.count(), 100);
+        long p95 = h.percentileMicros(0.95);
+        assertTrue(p95 >= 95_000 && p95 < 95_000 * 1.07, "p95 was " + p95 + " µs");
+    }
+
+    @Test
+    public void sinkRecordsTimedStepsByDefinitionAndScenariosByLocation() {
+        TimingHistograms histograms = TimingHistograms.load(Path.of("no-such-dir", "histograms.json"));
+        ExecutionLog.Sink sink = histograms.sink();
+
+        sink.accept(event(ExecutionLog.Type.SCENARIO_STARTED, "w1", "login.feature:3", null, null, 0));
+        sink.accept(event(ExecutionLog.Type.STEP, "w1", "user enters \"a\"", "user enters {string}", "PASSED", 2_000_000));
+        sink.accept(event(ExecutionLog.Type.STEP, "w1", "user enters \"b\"", "user enters {string}", "FAILED", 3_000_000));
+        sink.accept(event(ExecutionLog.Type.STEP, "w1", "user submits", "user submits", "SKIPPED", 0));
+        sink.accept(event(ExecutionLog.Type.SCENARIO_FINISHED, "w1", "Login", null, "FAILED", 9_000_000));
+
+        assertEquals(histograms.getSteps().keySet(), Set.of("user enters {string}"));
+        assertEquals(histograms.getSteps().get("user enters {string}").count(), 2);
+        assertTrue(histograms.getScenarios().containsKey("Login [login.feature:3]"));
+    }
+
+    @Test
+    public void skippedScenariosAreNotTimed() {
+        TimingHistograms histograms = TimingHistograms.load(Path.of("no-such-dir", "histograms.json"));
+        ExecutionLog.Sink sink = histograms.sink();
+        sink.accept(event(ExecutionLog.Type.SCENARIO_STARTED, "w1", "a.feature:1", null, null, 0));
+        sink.accept(event(ExecutionLog.Type.SCENARIO_FINISHED, "w1", "A", null, "SKIPPED", 1_000));
+        assertFalse(histograms.getScenarios().containsKey("A [a.feature:1]"));
+    }
+
+    @Test
+    public void saveReplacesOnlyWhatThisRunMeasured() throws IOException {
+        Path file = Files.createTempDirectory("histograms-test").resolve("histograms.json");
+        TimingHistograms full = TimingHistograms.load(file);
+        full.recordStep("user logs in", 1_000_000);
+        full.recordStep("user signs up", 2_000_000);
+        full.recordScenario("Login [login.feature:3]", 5_000_000);
+        full.recordScenario("Signup [signup.feature:3]", 6_000_000);
+        full.save();
+
+        // A rerun of the login scenario only
+        TimingHistograms rerun = TimingHistograms.load(file);
+        rerun.recordStep("user logs in", 8_000_000);
+        rerun.recordStep("user logs in", 8_000_000);
+        rerun.recordScenario("Login [login.feature:3]", 9_000_000);
+        rerun.save();
+
+        TimingHistograms next = TimingHistograms.load(file);
+        assertEquals(next.getPreviousSteps().get("user logs in").count(), 2, "replaced by the rerun");
+        assertEquals(next.getPreviousSteps().get("user logs in").percentileMicros(0.5),
+                TimingHistograms.Histogram.upperBoundOf(TimingHistograms.Histogram.indexOf(8_000)));
+        assertEquals(next.getPreviousSteps().get("user signs up").count(), 1, "kept from the full run");
+        assertEquals(next.getPreviousScenarios().keySet(), Set.of("Login [login.feature:3]", "Signup [signup.feature:3]"));
+    }
+
+    @Test
+    public void observedHistogramsAddUp() throws IOException {
+        Path dir = Files.createTempDirectory("histograms-test");
+        for (int shard = 1; shard <= 2; shard++) {
+            TimingHistograms run = TimingHistograms.load(dir.resolve("histograms.json"));
+            run.recordStep("user logs in", shard * 1_000_000L);
+            run.recordScenario("Shard " + shard + " [s" + shard + ".feature:1]", 1_000_000);
+            run.saveObserved(dir.resolve("shard-" + shard + ".json"));
+        }
+
+        TimingHistograms merged = TimingHistograms.load(dir.resolve("histograms.json"));
+        assertEquals(merged.addObserved(dir.resolve("shard-1.json")), 2);
+        assertEquals(merged.addObserved(dir.resolve("shard-2.json")), 2);
+        assertEquals(merged.addObserved(dir.resolve("shard-3.json")), 0, "a shard that ran nothing");
+
+        assertEquals(merged.getSteps().get("user logs in").count(), 2);
+        assertEquals(merged.getScenarios().size(), 2);
+    }
+
+    private static ExecutionLog.Event event(ExecutionLog.Type type, String thread, String name, String definition,
+                                            String status, long nanos) {
+        return new ExecutionLog.Event(type, System.currentTimeMillis(), thread, null, name, definition, status, nanos, null);
+    }
+}
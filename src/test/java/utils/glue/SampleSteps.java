@@ -0,0 +1,53 @@
+package utils.glue;
+
+import io.cucumber.java.ParameterType;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+/**
+ * 🔹 SampleSteps
+ * Glue fixture for StepBindingIndexTest: plain, parameterized, regex, repeated, custom-typed,
+ * overlapping and invalid step expressions. Never run by Cucumber.
+ */
+public class SampleSteps {
+
+    @ParameterType("red|green|blue")
+    public String color(String color) {
+        return color;
+    }
+
+    @Given("the user opens the login page")
+    public void openLoginPage() {
+    }
+
+    @Given("the user opens the {word} page")
+    public void openPage(String page) {
+    }
+
+    @When("the user enters {string} and {string}")
+    public void enterCredentials(String username, String password) {
+    }
+
+    @When("the user waits {int} seconds")
+    public void waitSeconds(int seconds) {
+    }
+
+    @Given("the user is signed in")
+    @Given("a signed-in user")
+    public void signedIn() {
+    }
+
+    @Then("the button is {color}")
+    public void buttonColor(String color) {
+    }
+
+    @Then("^the page title is (.*)$")
+    public void pageTitle(String title) {
+    }
+
+    // No such parameter type: reported and left out of the index
+    @Then("the total is {money}")
+    public void total(String amount) {
+    }
+}